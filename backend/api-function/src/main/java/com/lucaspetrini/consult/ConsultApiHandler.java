@@ -0,0 +1,92 @@
+package com.lucaspetrini.consult;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
+import com.lucaspetrini.consult.auth.PathParamAuthenticationService;
+import com.lucaspetrini.consult.handler.ConsultRatingGetRequestHandler;
+import com.lucaspetrini.consult.handler.ConsultRatingsGetRequestHandler;
+import com.lucaspetrini.consult.handler.ConsultReviewsGetRequestHandler;
+import com.lucaspetrini.consult.handler.ConsultUserRatingGetRequestHandler;
+import com.lucaspetrini.consult.handler.ConsultUserRatingPutRequestHandler;
+import com.lucaspetrini.consult.mapper.CodecObjectMapper;
+import com.lucaspetrini.consult.request.GetRatingRequest;
+import com.lucaspetrini.consult.request.GetRatingRequestJsonCodec;
+import com.lucaspetrini.consult.request.GetRatingsRequest;
+import com.lucaspetrini.consult.request.GetRatingsRequestJsonCodec;
+import com.lucaspetrini.consult.request.GetReviewsRequest;
+import com.lucaspetrini.consult.request.GetReviewsRequestJsonCodec;
+import com.lucaspetrini.consult.request.GetUserRatingRequest;
+import com.lucaspetrini.consult.request.GetUserRatingRequestJsonCodec;
+import com.lucaspetrini.consult.request.PutUserRatingRequest;
+import com.lucaspetrini.consult.request.PutUserRatingRequestJsonCodec;
+import com.lucaspetrini.consult.response.GetRatingResponseJsonCodec;
+import com.lucaspetrini.consult.response.GetRatingsResponseJsonCodec;
+import com.lucaspetrini.consult.response.GetReviewsResponseJsonCodec;
+import com.lucaspetrini.consult.response.GetUserRatingResponseJsonCodec;
+import com.lucaspetrini.consult.response.PutUserRatingResponseJsonCodec;
+import com.lucaspetrini.consult.service.NoOpRatingService;
+import com.lucaspetrini.consult.service.NoOpUserRatingService;
+import com.lucaspetrini.consult.service.RatingService;
+import com.lucaspetrini.consult.service.UserRatingService;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+
+/**
+ * Handler for every route of the API in a single Lambda function, dispatching on the route of each
+ * request. The rating cache and the DynamoDB clients are shared by all routes, and only one container
+ * needs to be warm to serve them.
+ */
+public class ConsultApiHandler extends AbstractRequestHandler {
+	public static final String ROUTE_RATING = "/ratings/{code}";
+	public static final String ROUTE_RATINGS = "/ratings";
+	public static final String ROUTE_REVIEWS = "/ratings/{code}/reviews";
+	public static final String ROUTE_USER_RATING = "/users/{id}/ratings/{code}";
+	static final String PRIMING_USER = "priming";
+	static final String PRIMING_CODE = "priming";
+	static final String PRIMING_CODES = "priming1,priming2";
+	static final String PRIMING_PUT_BODY = "{\"rating\":5,\"review\":\"priming\"}";
+
+	public ConsultApiHandler() {
+		this(RatingHandler.createRatingService(), UserRatingHandler.createUserRatingService());
+		initLifecycle(new ConsultApiHandler(new NoOpRatingService(), new NoOpUserRatingService()));
+	}
+
+	/**
+	 * Handler for every route of the API, backed by the given services.
+	 *
+	 * @param ratingService rating service.
+	 * @param userRatingService user rating service.
+	 */
+	public ConsultApiHandler(RatingService ratingService, UserRatingService userRatingService) {
+		super();
+		setObjectMapper(new CodecObjectMapper()
+				.withCodec(GetRatingRequestJsonCodec.INSTANCE)
+				.withCodec(GetRatingResponseJsonCodec.INSTANCE)
+				.withCodec(GetRatingsRequestJsonCodec.INSTANCE)
+				.withCodec(GetRatingsResponseJsonCodec.INSTANCE)
+				.withCodec(GetReviewsRequestJsonCodec.INSTANCE)
+				.withCodec(GetReviewsResponseJsonCodec.INSTANCE)
+				.withCodec(GetUserRatingRequestJsonCodec.INSTANCE)
+				.withCodec(PutUserRatingRequestJsonCodec.INSTANCE)
+				.withCodec(GetUserRatingResponseJsonCodec.INSTANCE)
+				.withCodec(PutUserRatingResponseJsonCodec.INSTANCE));
+		addRoute(HttpMethod.GET, ROUTE_RATING, new ConsultRatingGetRequestHandler(ratingService), GetRatingRequest.class);
+		addRoute(HttpMethod.GET, ROUTE_RATINGS, new ConsultRatingsGetRequestHandler(ratingService), GetRatingsRequest.class);
+		addRoute(HttpMethod.GET, ROUTE_REVIEWS, new ConsultReviewsGetRequestHandler(userRatingService), GetReviewsRequest.class);
+		// public GET
+		addRoute(HttpMethod.GET, ROUTE_USER_RATING, new ConsultUserRatingGetRequestHandler(userRatingService), GetUserRatingRequest.class);
+		// public secured via path param (user must match JWT username)
+		addRoute(HttpMethod.PUT, ROUTE_USER_RATING, new ConsultUserRatingPutRequestHandler(userRatingService), PutUserRatingRequest.class,
+				new PathParamAuthenticationService());
+
+		addPrimingRequest(createPrimingRequest(HttpMethod.GET, ROUTE_RATING, Collections.singletonMap(ConsultConstants.PATH_PARAM_CODE, PRIMING_CODE), null));
+		APIGatewayV2HTTPEvent ratingsPrimingRequest = createPrimingRequest(HttpMethod.GET, ROUTE_RATINGS, Collections.emptyMap(), null);
+		ratingsPrimingRequest.setQueryStringParameters(Collections.singletonMap(ConsultConstants.QUERY_PARAM_CODES, PRIMING_CODES));
+		addPrimingRequest(ratingsPrimingRequest);
+		addPrimingRequest(createPrimingRequest(HttpMethod.GET, ROUTE_REVIEWS, Collections.singletonMap(ConsultConstants.PATH_PARAM_CODE, PRIMING_CODE), null));
+		Map<String, String> userPathParams = Map.of(ConsultConstants.PATH_PARAM_USER_ID, PRIMING_USER, ConsultConstants.PATH_PARAM_CODE, PRIMING_CODE);
+		addPrimingRequest(createPrimingRequest(HttpMethod.GET, ROUTE_USER_RATING, userPathParams, null));
+		addPrimingRequest(createPrimingRequest(HttpMethod.PUT, ROUTE_USER_RATING, userPathParams, PRIMING_PUT_BODY));
+	}
+}
@@ -0,0 +1,145 @@
+package com.lucaspetrini.consult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent.RequestContext;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent.RequestContext.Http;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import com.lucaspetrini.consult.handler.ConsultReviewsGetRequestHandler;
+import com.lucaspetrini.consult.service.NoOpRatingService;
+import com.lucaspetrini.consult.service.NoOpUserRatingService;
+import com.lucaspetrini.consult.service.RatingService;
+import com.lucaspetrini.consult.service.UserRatingService;
+import com.lucaspetrini.consult.service.model.UserRatingPage;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+
+/**
+ * Test {@link ConsultApiHandler}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ConsultApiHandlerTest {
+	private static final String CODE = "1321123";
+	private static final String USER = "lucas";
+
+	private ConsultApiHandler handler;
+	private @Mock RatingService ratingService;
+	private @Mock UserRatingService userRatingService;
+	private @Mock Context context;
+
+	@BeforeEach
+	public void setUp() {
+		handler = new ConsultApiHandler(ratingService, userRatingService);
+	}
+
+	@Test
+	public void testRatingRouteKeyIsHandledByRatingService() {
+		// given
+		APIGatewayV2HTTPEvent input = createInput("GET", "GET " + ConsultApiHandler.ROUTE_RATING, "/ratings/" + CODE,
+				Collections.singletonMap(ConsultConstants.PATH_PARAM_CODE, CODE));
+
+		// when
+		APIGatewayV2HTTPResponse response = handler.handleRequest(input, context);
+
+		// then
+		assertEquals(404, response.getStatusCode());
+		verify(ratingService, times(1)).getByCode(CODE);
+		verifyNoInteractions(userRatingService);
+	}
+
+	@Test
+	public void testUserRatingPathIsHandledByUserRatingService() {
+		// given
+		APIGatewayV2HTTPEvent input = createInput("GET", "$default", "/users/" + USER + "/ratings/" + CODE, null);
+
+		// when
+		handler.handleRequest(input, context);
+
+		// then
+		verify(userRatingService, times(1)).getByUserIdAndCode(USER, CODE);
+		verifyNoInteractions(ratingService);
+	}
+
+	@Test
+	public void testReviewsPathIsHandledByUserRatingService() {
+		// given
+		APIGatewayV2HTTPEvent input = createInput("GET", "$default", "/ratings/" + CODE + "/reviews", null);
+		doReturn(new UserRatingPage(Collections.emptyList(), null)).when(userRatingService)
+				.getReviewsByCode(CODE, ConsultReviewsGetRequestHandler.DEFAULT_LIMIT, null);
+
+		// when
+		APIGatewayV2HTTPResponse response = handler.handleRequest(input, context);
+
+		// then
+		assertEquals(200, response.getStatusCode());
+		assertEquals("{\"reviews\":[]}", response.getBody());
+		verifyNoInteractions(ratingService);
+	}
+
+	@Test
+	public void testPutUserRatingRouteIsSecured() {
+		// given
+		APIGatewayV2HTTPEvent input = createInput("PUT", "PUT " + ConsultApiHandler.ROUTE_USER_RATING, "/users/" + USER + "/ratings/" + CODE,
+				Map.of(ConsultConstants.PATH_PARAM_USER_ID, USER, ConsultConstants.PATH_PARAM_CODE, CODE));
+		input.setBody("{\"rating\":5}");
+
+		// when
+		APIGatewayV2HTTPResponse response = handler.handleRequest(input, context);
+
+		// then
+		assertEquals(403, response.getStatusCode());
+		verifyNoInteractions(ratingService, userRatingService);
+	}
+
+	@Test
+	public void testUnknownRouteReturnsNotFound() {
+		// given
+		APIGatewayV2HTTPEvent input = createInput("GET", "$default", "/users/" + USER, null);
+
+		// when
+		APIGatewayV2HTTPResponse response = handler.handleRequest(input, context);
+
+		// then
+		assertEquals(404, response.getStatusCode());
+		verifyNoInteractions(ratingService, userRatingService);
+	}
+
+	@Test
+	public void testEveryPrimingRequestSucceedsAgainstNoOpServices() {
+		// given
+		ConsultApiHandler primingHandler = new ConsultApiHandler(new NoOpRatingService(), new NoOpUserRatingService());
+
+		// when
+		int succeeded = primingHandler.prime();
+
+		// then
+		assertEquals(5, succeeded);
+	}
+
+	private APIGatewayV2HTTPEvent createInput(String method, String routeKey, String rawPath, Map<String, String> pathParams) {
+		RequestContext reqContext = new RequestContext();
+		Http http = new Http();
+		http.setMethod(method);
+		reqContext.setHttp(http);
+		APIGatewayV2HTTPEvent event = new APIGatewayV2HTTPEvent();
+		event.setRequestContext(reqContext);
+		event.setRouteKey(routeKey);
+		event.setRawPath(rawPath);
+		event.setPathParameters(pathParams);
+		return event;
+	}
+}
@@ -0,0 +1,115 @@
+package com.lucaspetrini.consult.benchmark;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent.RequestContext;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent.RequestContext.Authorizer;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent.RequestContext.Authorizer.JWT;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent.RequestContext.Http;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+
+/**
+ * Synthetic API Gateway events modelled on {@code events/get-rating.json}: the same headers, request
+ * context and path, so the benchmarks see what the functions see behind the HTTP API.
+ */
+final class BenchmarkEvents {
+	static final String STAGE = "dev";
+	static final String CODE = "1337";
+	static final String USER = "benchmark";
+	static final String PUT_BODY = "{\"rating\":4,\"review\":\"Good value for money, would buy it again.\"}";
+
+	private BenchmarkEvents() {}
+
+	/**
+	 * @return GET /ratings/{code} event.
+	 */
+	static APIGatewayV2HTTPEvent getRating() {
+		return create("GET", "/ratings/{code}", "/ratings/" + CODE, Collections.singletonMap(ConsultConstants.PATH_PARAM_CODE, CODE), null, null);
+	}
+
+	/**
+	 * @return GET /users/{id}/ratings/{code} event.
+	 */
+	static APIGatewayV2HTTPEvent getUserRating() {
+		return create("GET", "/users/{id}/ratings/{code}", "/users/" + USER + "/ratings/" + CODE, userPathParams(), null, null);
+	}
+
+	/**
+	 * @param jwtUser user the JWT was issued to.
+	 * @return PUT /users/{id}/ratings/{code} event, authorized for the given user.
+	 */
+	static APIGatewayV2HTTPEvent putUserRating(String jwtUser) {
+		return create("PUT", "/users/{id}/ratings/{code}", "/users/" + USER + "/ratings/" + CODE, userPathParams(), PUT_BODY, jwtUser);
+	}
+
+	/**
+	 * @return request headers as API Gateway passes them: lowercased.
+	 */
+	static Map<String, String> headers() {
+		Map<String, String> headers = new HashMap<>();
+		headers.put("accept", "*/*");
+		headers.put("accept-encoding", "gzip, deflate, br");
+		headers.put("content-length", "0");
+		headers.put("host", "foobar.execute-api.us-east-1.amazonaws.com");
+		headers.put("user-agent", "PostmanRuntime/7.28.2");
+		headers.put("x-amzn-trace-id", "Root=1-62abd668-209931a70c5cfc640075ddfe");
+		headers.put("x-forwarded-for", "188.214.13.153");
+		headers.put("x-forwarded-port", "443");
+		headers.put("x-forwarded-proto", "https");
+		return headers;
+	}
+
+	private static Map<String, String> userPathParams() {
+		Map<String, String> pathParams = new HashMap<>();
+		pathParams.put(ConsultConstants.PATH_PARAM_USER_ID, USER);
+		pathParams.put(ConsultConstants.PATH_PARAM_CODE, CODE);
+		return pathParams;
+	}
+
+	private static APIGatewayV2HTTPEvent create(String method, String template, String path, Map<String, String> pathParams, String body, String jwtUser) {
+		Http http = new Http();
+		http.setMethod(method);
+		http.setPath("/" + STAGE + path);
+		http.setProtocol("HTTP/1.1");
+		http.setSourceIp("188.214.13.153");
+		http.setUserAgent("PostmanRuntime/7.28.2");
+		RequestContext requestContext = new RequestContext();
+		requestContext.setAccountId("999999");
+		requestContext.setApiId("foobar");
+		requestContext.setDomainName("foobar.execute-api.us-east-1.amazonaws.com");
+		requestContext.setDomainPrefix("foobar");
+		requestContext.setHttp(http);
+		requestContext.setRequestId("T15wSgpooAMEP8g=");
+		requestContext.setRouteKey(method + " " + template);
+		requestContext.setStage(STAGE);
+		requestContext.setTime("17/Jun/2022:01:18:32 +0000");
+		requestContext.setTimeEpoch(1655428712039L);
+		if(jwtUser != null) {
+			JWT jwt = new JWT();
+			jwt.setClaims(Collections.singletonMap(ConsultConstants.JWT_CLAIM_USERNAME, jwtUser));
+			jwt.setScopes(List.of("consult/write_rating"));
+			Authorizer authorizer = new Authorizer();
+			authorizer.setJwt(jwt);
+			requestContext.setAuthorizer(authorizer);
+		}
+		Map<String, String> headers = headers();
+		if(body != null) {
+			headers.put("content-type", ConsultConstants.CONTENT_TYPE_JSON);
+			headers.put("content-length", Integer.toString(body.length()));
+		}
+		APIGatewayV2HTTPEvent event = new APIGatewayV2HTTPEvent();
+		event.setVersion("2.0");
+		event.setRouteKey(method + " " + template);
+		event.setRawPath("/" + STAGE + path);
+		event.setRawQueryString("");
+		event.setHeaders(headers);
+		event.setRequestContext(requestContext);
+		event.setPathParameters(pathParams);
+		event.setBody(body);
+		return event;
+	}
+}
@@ -0,0 +1,38 @@
+package com.lucaspetrini.consult.benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. It takes the same arguments as the JMH launcher, but results are
+ * written as JSON to {@value #DEFAULT_RESULT_FILE} unless {@code -rf} or {@code -rff} say otherwise, so
+ * every run leaves a file that can be compared with the previous ones.
+ */
+public final class BenchmarkRunner {
+	static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+	private BenchmarkRunner() {}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		if(commandLineOptions.shouldHelp() || commandLineOptions.shouldList() || commandLineOptions.shouldListWithParams()
+				|| commandLineOptions.shouldListProfilers() || commandLineOptions.shouldListResultFormats()) {
+			// listings and help have no results
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+		if(!commandLineOptions.getResultFormat().hasValue())
+			options.resultFormat(ResultFormatType.JSON);
+		if(!commandLineOptions.getResult().hasValue())
+			options.result(DEFAULT_RESULT_FILE);
+		new Runner(options.build()).run();
+	}
+}
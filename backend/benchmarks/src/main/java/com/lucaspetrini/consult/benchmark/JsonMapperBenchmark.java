@@ -0,0 +1,91 @@
+package com.lucaspetrini.consult.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lucaspetrini.consult.mapper.CodecObjectMapper;
+import com.lucaspetrini.consult.mapper.JsonObjectMapper;
+import com.lucaspetrini.consult.mapper.ObjectMapper;
+import com.lucaspetrini.consult.request.PutUserRatingRequest;
+import com.lucaspetrini.consult.request.PutUserRatingRequestJsonCodec;
+import com.lucaspetrini.consult.response.GetRatingResponse;
+import com.lucaspetrini.consult.response.GetRatingResponseJsonCodec;
+import com.lucaspetrini.consult.response.GetRatingsResponse;
+import com.lucaspetrini.consult.response.GetRatingsResponseJsonCodec;
+
+/**
+ * Compares the reflection based {@link JsonObjectMapper} with the generated codecs of
+ * {@link CodecObjectMapper} on the bodies the functions read and write.<br>
+ * Run with {@code java -jar target/benchmarks.jar JsonMapperBenchmark -prof gc} to also report the bytes
+ * allocated per operation ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JsonMapperBenchmark {
+	private static final int BATCH_SIZE = 20;
+	private static final String PUT_BODY = "{\"rating\":4,\"review\":\"Good value for money, would buy it again & recommend it.\"}";
+
+	@Param({ "gson", "codec" })
+	public String mapper;
+
+	private ObjectMapper objectMapper;
+	private GetRatingResponse rating;
+	private GetRatingsResponse ratings;
+
+	@Setup
+	public void setUp() {
+		objectMapper = "gson".equals(mapper) ? new JsonObjectMapper() : new CodecObjectMapper()
+				.withCodec(GetRatingResponseJsonCodec.INSTANCE)
+				.withCodec(GetRatingsResponseJsonCodec.INSTANCE)
+				.withCodec(PutUserRatingRequestJsonCodec.INSTANCE);
+		rating = createRating(0);
+		List<GetRatingResponse> batch = new ArrayList<>(BATCH_SIZE);
+		for(int i = 0; i < BATCH_SIZE; i++)
+			batch.add(createRating(i));
+		ratings = new GetRatingsResponse();
+		ratings.setRatings(batch);
+	}
+
+	@Benchmark
+	public String serialiseRating() {
+		return objectMapper.serialise(rating);
+	}
+
+	@Benchmark
+	public String serialiseRatings() {
+		return objectMapper.serialise(ratings);
+	}
+
+	@Benchmark
+	public PutUserRatingRequest deserialisePutRequest() {
+		return objectMapper.deserialise(PUT_BODY, PutUserRatingRequest.class);
+	}
+
+	private static GetRatingResponse createRating(int index) {
+		GetRatingResponse response = new GetRatingResponse();
+		response.setCode(String.valueOf(1321123 + index));
+		response.setDate(1652140800000L + index);
+		response.setAggregated(41L * index);
+		response.setQuantity(10L + index);
+		response.setVersion(3L);
+		response.setNumberOfReviews(4L);
+		return response;
+	}
+}
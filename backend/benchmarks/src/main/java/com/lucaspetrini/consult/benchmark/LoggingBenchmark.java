@@ -0,0 +1,68 @@
+package com.lucaspetrini.consult.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lucaspetrini.consult.AbstractRequestHandler;
+import com.lucaspetrini.consult.logging.LogSampler;
+
+/**
+ * Measures what logging costs a request in each logging profile: the line
+ * {@link AbstractRequestHandler} logs for every request, synchronously with its location in the default
+ * profile ({@link #synchronous()}, as it was logged before the production profile), and through the
+ * asynchronous loggers of the production profile, for every request ({@link #asynchronous()}) and for
+ * one request in a hundred ({@link #asynchronousSampled()}). Each profile runs in its own forks, with
+ * a configuration writing to a file under {@code target} rather than to the function's log stream.<br>
+ * The figures are the cost on the request thread. Sustained, the asynchronous loggers are bounded by the
+ * appender like the synchronous ones, and drop INFO events once their ring buffer is full.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LoggingBenchmark {
+	private static final Logger LOGGER = LoggerFactory.getLogger(LoggingBenchmark.class);
+	private static final String SYNCHRONOUS_PROFILE = "-Dlog4j.configurationFile=log4j2-benchmark-sync.xml";
+	private static final String ASYNCHRONOUS_PROFILE = "-Dlog4j.configurationFile=log4j2-benchmark-async.xml";
+	private static final String METHOD = "GET";
+	private static final String ROUTE = "GET /ratings/{code}";
+
+	private final LogSampler everyRequest = new LogSampler(1, Map.of());
+	private final LogSampler sampled = new LogSampler(1, Map.of(ROUTE, 0.01));
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = SYNCHRONOUS_PROFILE)
+	public void synchronous() {
+		LOGGER.info("Handling method {}", METHOD);
+	}
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = ASYNCHRONOUS_PROFILE)
+	public void asynchronous() {
+		logRoute(everyRequest);
+	}
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = ASYNCHRONOUS_PROFILE)
+	public void asynchronousSampled() {
+		logRoute(sampled);
+	}
+
+	private static void logRoute(LogSampler sampler) {
+		if(LOGGER.isInfoEnabled() && sampler.sample(ROUTE))
+			LOGGER.info("Handling {}", ROUTE);
+	}
+}
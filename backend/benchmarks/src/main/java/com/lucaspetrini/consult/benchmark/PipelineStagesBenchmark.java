@@ -0,0 +1,121 @@
+package com.lucaspetrini.consult.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import com.lucaspetrini.consult.AbstractRequestHandler;
+import com.lucaspetrini.consult.auth.PathParamAuthenticationService;
+import com.lucaspetrini.consult.exception.ResourceNotFoundException;
+import com.lucaspetrini.consult.metrics.RequestStage;
+import com.lucaspetrini.consult.metrics.RequestTimer;
+import com.lucaspetrini.consult.request.HttpRequest;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+
+/**
+ * Measures the stages of {@link AbstractRequestHandler} on their own: header validation, with the
+ * lowercased headers API Gateway passes and with mixed case ones, error responses, and the
+ * {@link PathParamAuthenticationService} check guarding PUTs. {@link JsonMapperBenchmark} covers the
+ * mappers. {@link #recordStage()} is the overhead the {@link RequestTimer} adds to every timed stage.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PipelineStagesBenchmark {
+	private final StagesHandler handler = new StagesHandler();
+	private final PathParamAuthenticationService authenticationService = new PathParamAuthenticationService();
+	private final ResourceNotFoundException notFound = new ResourceNotFoundException();
+	private final IllegalStateException unexpected = new IllegalStateException("unexpected");
+	private Map<String, String> headers;
+	private Map<String, String> mixedCaseHeaders;
+	private HttpRequest<?> authorizedRequest;
+	private HttpRequest<?> forbiddenRequest;
+
+	@Setup
+	public void setUp() {
+		headers = BenchmarkEvents.headers();
+		headers.put("content-type", ConsultConstants.CONTENT_TYPE_JSON);
+		mixedCaseHeaders = new HashMap<>();
+		for(Map.Entry<String, String> header : BenchmarkEvents.headers().entrySet())
+			mixedCaseHeaders.put(Character.toUpperCase(header.getKey().charAt(0)) + header.getKey().substring(1), header.getValue());
+		mixedCaseHeaders.put(ConsultConstants.HEADER_CONTENT_TYPE, ConsultConstants.CONTENT_TYPE_JSON);
+		authorizedRequest = createRequest(BenchmarkEvents.USER);
+		forbiddenRequest = createRequest("someone-else");
+	}
+
+	@Benchmark
+	public Map<String, String> validateHeaders() {
+		handler.validate(headers);
+		return headers;
+	}
+
+	@Benchmark
+	public Map<String, String> validateMixedCaseHeaders() {
+		handler.validate(mixedCaseHeaders);
+		return mixedCaseHeaders;
+	}
+
+	@Benchmark
+	public APIGatewayV2HTTPResponse buildServiceErrorResponse() {
+		return handler.buildError(notFound);
+	}
+
+	@Benchmark
+	public APIGatewayV2HTTPResponse buildUnexpectedErrorResponse() {
+		return handler.buildError(unexpected);
+	}
+
+	@Benchmark
+	public boolean authenticateMatchingUser() {
+		return authenticationService.isValid(authorizedRequest);
+	}
+
+	@Benchmark
+	public boolean authenticateOtherUser() {
+		return authenticationService.isValid(forbiddenRequest);
+	}
+
+	@Benchmark
+	public RequestTimer recordStage() {
+		long start = System.nanoTime();
+		RequestTimer timer = RequestTimer.current();
+		timer.record(RequestStage.HANDLE, start);
+		return timer;
+	}
+
+	private static HttpRequest<?> createRequest(String jwtUser) {
+		HttpRequest<Object> request = new HttpRequest<>();
+		request.setPathParams(Map.of(ConsultConstants.PATH_PARAM_USER_ID, BenchmarkEvents.USER, ConsultConstants.PATH_PARAM_CODE, BenchmarkEvents.CODE));
+		request.setContext(Map.of(ConsultConstants.CONTEXT_AUTHORIZATION_JWT_USER, jwtUser));
+		return request;
+	}
+
+	/**
+	 * Handler without routes, exposing the protected stages of {@link AbstractRequestHandler}.
+	 */
+	private static class StagesHandler extends AbstractRequestHandler {
+
+		private void validate(Map<String, String> headers) {
+			validateHeaders(headers);
+		}
+
+		private APIGatewayV2HTTPResponse buildError(Exception e) {
+			return buildErrorResponse(e);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.lucaspetrini.consult.benchmark;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import com.lucaspetrini.consult.AbstractRequestHandler;
+import com.lucaspetrini.consult.RatingHandler;
+import com.lucaspetrini.consult.UserRatingHandler;
+import com.lucaspetrini.consult.logging.LogSampler;
+import com.lucaspetrini.consult.service.RatingService;
+import com.lucaspetrini.consult.service.UserRatingService;
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.service.model.UserRatingPage;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+
+/**
+ * Measures what {@link AbstractRequestHandler#handleRequest} costs per request, around services that
+ * answer from memory: bodyless GETs of a rating and of a user rating, and an authenticated PUT of a user
+ * rating, built by {@link BenchmarkEvents} like the events API Gateway sends. The route of each request is
+ * logged at INFO, with the default logging profile, for every request ({@code logSampleRate} 1, the
+ * default) or none (0, as with {@link ConsultConstants#ENV_LOG_SAMPLE_RATE} on busy routes); the cost of
+ * the log line itself is measured by {@link LoggingBenchmark}.<br>
+ * The acceptance metric is the allocation per request: run with
+ * {@code java -jar target/benchmarks.jar RequestPipelineBenchmark -prof gc} and read
+ * {@code gc.alloc.rate.norm}, in bytes per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RequestPipelineBenchmark {
+	@Param({ "1", "0" })
+	public double logSampleRate;
+
+	private RatingHandler ratingHandler;
+	private UserRatingHandler userRatingHandler;
+	private APIGatewayV2HTTPEvent getRequest;
+	private APIGatewayV2HTTPEvent getUserRatingRequest;
+	private APIGatewayV2HTTPEvent putRequest;
+
+	@Setup
+	public void setUp() {
+		ratingHandler = new RatingHandler(new InMemoryRatingService());
+		userRatingHandler = new UserRatingHandler(new InMemoryUserRatingService());
+		LogSampler logSampler = new LogSampler(logSampleRate, Collections.emptyMap());
+		ratingHandler.setLogSampler(logSampler);
+		userRatingHandler.setLogSampler(logSampler);
+		getRequest = BenchmarkEvents.getRating();
+		getUserRatingRequest = BenchmarkEvents.getUserRating();
+		putRequest = BenchmarkEvents.putUserRating(BenchmarkEvents.USER);
+	}
+
+	@Benchmark
+	public APIGatewayV2HTTPResponse getRating() {
+		return ratingHandler.handleRequest(getRequest, null);
+	}
+
+	@Benchmark
+	public APIGatewayV2HTTPResponse getUserRating() {
+		return userRatingHandler.handleRequest(getUserRatingRequest, null);
+	}
+
+	@Benchmark
+	public APIGatewayV2HTTPResponse putUserRating() {
+		return userRatingHandler.handleRequest(putRequest, null);
+	}
+
+	/**
+	 * Rating service returning the same rating, so the benchmark measures the pipeline only.
+	 */
+	private static class InMemoryRatingService implements RatingService {
+		private final Rating rating = new Rating();
+
+		private InMemoryRatingService() {
+			rating.setSku(BenchmarkEvents.CODE);
+			rating.setVersion(3L);
+			rating.setLatestVersion(3L);
+			rating.setDate(1652140800000L);
+			rating.setAggregated(41L);
+			rating.setQuantity(10L);
+			rating.setNumberOfReviews(4L);
+		}
+
+		@Override
+		public Rating getByCode(String code) {
+			return rating;
+		}
+
+		@Override
+		public Map<String, Rating> getByCodes(Collection<String> codes) {
+			return Collections.singletonMap(BenchmarkEvents.CODE, rating);
+		}
+	}
+
+	/**
+	 * User rating service returning the same user rating and storing nothing, so the benchmark measures
+	 * the pipeline only.
+	 */
+	private static class InMemoryUserRatingService implements UserRatingService {
+		private final UserRating userRating = new UserRating();
+
+		private InMemoryUserRatingService() {
+			userRating.setUser(BenchmarkEvents.USER);
+			userRating.setSku(BenchmarkEvents.CODE);
+			userRating.setRating(4L);
+			userRating.setDate(1652140800000L);
+			userRating.setVersion(1L);
+		}
+
+		@Override
+		public UserRating getByUserIdAndCode(String userId, String code) {
+			return userRating;
+		}
+
+		@Override
+		public UserRatingPage getReviewsByCode(String code, int limit, String cursor) {
+			return new UserRatingPage(List.of(userRating), null);
+		}
+
+		@Override
+		public UserRating put(UserRating userRating) {
+			userRating.setVersion(1L);
+			return userRating;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.lucaspetrini.consult.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lucaspetrini.consult.response.ResponseCompressor;
+import com.lucaspetrini.consult.response.ResponseCompressor.Encoding;
+
+/**
+ * Compares gzip compression of a batch ratings body with the pooled deflaters of
+ * {@link ResponseCompressor} and with a new {@link GZIPOutputStream} per response, which allocates a
+ * deflater, and its native memory, every time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ResponseCompressionBenchmark {
+
+	@Param({ "20", "100" })
+	public int ratings;
+
+	private ResponseCompressor compressor;
+	private byte[] body;
+
+	@Setup
+	public void setUp() {
+		compressor = new ResponseCompressor(ResponseCompressor.DEFAULT_MIN_SIZE);
+		StringBuilder builder = new StringBuilder("{\"ratings\":[");
+		for(int i = 0; i < ratings; i++) {
+			if(i > 0)
+				builder.append(',');
+			builder.append("{\"code\":\"").append(1321123 + i).append("\",\"date\":1652140800000,\"aggregated\":")
+					.append(41 + i).append(",\"quantity\":10,\"numberOfReviews\":4,\"version\":3}");
+		}
+		body = builder.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public byte[] pooledDeflater() {
+		return compressor.compress(body, Encoding.GZIP);
+	}
+
+	@Benchmark
+	public byte[] gzipOutputStream() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+		try(GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(body);
+		}
+		return out.toByteArray();
+	}
+}
@@ -1,35 +1,92 @@
 package com.lucaspetrini.consult;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import org.crac.Core;
+import org.crac.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent.RequestContext;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent.RequestContext.Authorizer;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent.RequestContext.Authorizer.JWT;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent.RequestContext.Http;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
 import com.lucaspetrini.consult.auth.AuthenticationService;
 import com.lucaspetrini.consult.exception.RequestDeserialisationException;
+import com.lucaspetrini.consult.exception.ResourceNotFoundException;
 import com.lucaspetrini.consult.exception.ServiceException;
 import com.lucaspetrini.consult.exception.UnsupportedContentTypeException;
 import com.lucaspetrini.consult.exception.UnsupportedMethodException;
 import com.lucaspetrini.consult.handler.ConsultRequestHandler;
+import com.lucaspetrini.consult.logging.LogSampler;
 import com.lucaspetrini.consult.mapper.JsonObjectMapper;
 import com.lucaspetrini.consult.mapper.ObjectMapper;
+import com.lucaspetrini.consult.metrics.EmfMetricsSink;
+import com.lucaspetrini.consult.metrics.MetricsSink;
+import com.lucaspetrini.consult.metrics.RequestCapacity;
+import com.lucaspetrini.consult.metrics.RequestStage;
+import com.lucaspetrini.consult.metrics.RequestTimer;
 import com.lucaspetrini.consult.request.HttpRequest;
 import com.lucaspetrini.consult.response.HttpResponse;
+import com.lucaspetrini.consult.response.ResponseCompressor;
+import com.lucaspetrini.consult.routing.PathTemplateTrie;
+import com.lucaspetrini.consult.routing.RouteMatch;
 import com.lucaspetrini.consult.utils.ConsultConstants;
+import com.lucaspetrini.consult.utils.ConsultRandom;
+import com.lucaspetrini.consult.utils.DynamoDbClientRegistry;
+import com.lucaspetrini.consult.utils.EnvironmentUtils;
 
 /**
- * Generic handler for JSON requests.
+ * Generic handler for JSON requests.<br>
+ * Requests are dispatched on their HTTP method, or, once {@link #addRoute(HttpMethod, String,
+ * ConsultRequestHandler, Class) routes} are registered, on their route: the event's route key when it
+ * names a registered route, its path matched against the registered path templates otherwise (e.g.
+ * behind a catch-all route). So one handler can serve every route of the API.<br>
+ * Handlers may register synthetic priming requests, which {@link #prime()} runs through the whole
+ * pipeline so its classes are loaded before the first real request. A handler that calls
+ * {@link #initLifecycle(AbstractRequestHandler)} is primed at init and notified of checkpoints and
+ * restores when the function uses snapshot-based startup: priming runs again before the checkpoint,
+ * and randomness is reseeded and connections re-established after each restore.<br>
+ * Each stage of a request is timed by a {@link RequestTimer}, and the timings are emitted to a
+ * {@link MetricsSink} once the response is built: as Embedded Metric Format log records when
+ * {@link ConsultConstants#ENV_STAGE_METRICS_ENABLED} is true (see {@link #setMetricsSink(MetricsSink)}).
+ * The DynamoDB capacity the request consumed is emitted with them, and, when
+ * {@link ConsultConstants#ENV_CONSUMED_CAPACITY_HEADER_ENABLED} is true, returned in the
+ * {@link ConsultConstants#HEADER_CONSUMED_CAPACITY} response header for debugging. Metrics of the
+ * DynamoDB calls are flushed at the end of the request, once their flush interval has elapsed (see
+ * {@link DynamoDbClientRegistry#sdkCallMetrics()}).<br>
+ * The route each request is dispatched to is logged at INFO for the requests its {@link LogSampler}
+ * samples, every request by default.
  */
-public abstract class AbstractRequestHandler implements RequestHandler<APIGatewayV2HTTPEvent, APIGatewayV2HTTPResponse> {
+public abstract class AbstractRequestHandler implements RequestHandler<APIGatewayV2HTTPEvent, APIGatewayV2HTTPResponse>, Resource {
+	/** Content type header name as API Gateway passes it, lowercased. */
+	private static final String CONTENT_TYPE_HEADER_NAME = ConsultConstants.HEADER_CONTENT_TYPE.toLowerCase();
+	/** Headers of responses that don't add their own, shared as they are never modified. */
+	private static final Map<String, String> DEFAULT_RESPONSE_HEADERS = Collections.singletonMap(ConsultConstants.HEADER_CONTENT_TYPE, ConsultConstants.CONTENT_TYPE_JSON);
 	protected final Logger logger = LoggerFactory.getLogger(this.getClass());
 	private ObjectMapper objectMapper;
+	private ResponseCompressor responseCompressor = new ResponseCompressor(
+			EnvironmentUtils.getInt(ConsultConstants.ENV_RESPONSE_COMPRESSION_MIN_SIZE, ResponseCompressor.DEFAULT_MIN_SIZE));
+	private MetricsSink metricsSink = EnvironmentUtils.getBoolean(ConsultConstants.ENV_STAGE_METRICS_ENABLED, false)
+			? new EmfMetricsSink(EnvironmentUtils.getString(ConsultConstants.ENV_METRICS_NAMESPACE, EmfMetricsSink.DEFAULT_NAMESPACE))
+			: null;
+	private boolean consumedCapacityHeader = EnvironmentUtils.getBoolean(ConsultConstants.ENV_CONSUMED_CAPACITY_HEADER_ENABLED, false);
+	private LogSampler logSampler = LogSampler.fromEnvironment();
 	private Map<HttpMethod, RequestHandlerConfig<?,?>> handlerMap;
+	private Map<String, RequestHandlerConfig<?,?>> routeKeyMap;
+	private Map<String, Map<HttpMethod, RequestHandlerConfig<?,?>>> routeTemplateMap;
+	private PathTemplateTrie<Map<HttpMethod, RequestHandlerConfig<?,?>>> routes;
+	private final List<APIGatewayV2HTTPEvent> primingRequests = new ArrayList<>();
+	private AbstractRequestHandler primingHandler;
 
 	/**
 	 * Abstract handler for JSON requests.
@@ -46,42 +103,122 @@ public abstract class AbstractRequestHandler implements RequestHandler<APIGatewa
 	 */
 	@Override
 	public APIGatewayV2HTTPResponse handleRequest(final APIGatewayV2HTTPEvent input, final Context context) {
+		// the thread's timer is only reset, and the capacity only counted, when they are reported
+		boolean metrics = metricsSink != null;
+		RequestTimer timer = metrics ? RequestTimer.start() : RequestTimer.current();
+		RequestCapacity capacity = metrics || consumedCapacityHeader ? RequestCapacity.start() : null;
+		APIGatewayV2HTTPResponse responseEvent = handleTimedRequest(input, context, timer);
+		if(consumedCapacityHeader && !capacity.isEmpty()) {
+			Map<String, String> headers = responseEvent.getHeaders();
+			// responses with nothing to add share the default headers
+			if(headers == DEFAULT_RESPONSE_HEADERS) {
+				headers = new HashMap<>(HttpResponse.HEADERS_CAPACITY);
+				headers.putAll(DEFAULT_RESPONSE_HEADERS);
+				responseEvent.setHeaders(headers);
+			}
+			headers.put(ConsultConstants.HEADER_CONSUMED_CAPACITY, formatCapacity(capacity));
+		}
+		if(metrics) {
+			timer.stop();
+			try {
+				metricsSink.emit(timer.getRoute(), responseEvent.getStatusCode(), timer, capacity);
+			} catch (Exception e) {
+				logger.warn("Could not emit request metrics: {}", e.getMessage(), e);
+			}
+		}
+		DynamoDbClientRegistry.sdkCallMetrics().flushIfDue();
+		return responseEvent;
+	}
+
+	private APIGatewayV2HTTPResponse handleTimedRequest(APIGatewayV2HTTPEvent input, Context context, RequestTimer timer) {
 		HttpResponse<?> response = null;
 		String responseBody = null;
 		try {
+			long start = System.nanoTime();
 			validateHeaders(input.getHeaders());
+			timer.record(RequestStage.VALIDATE_HEADERS, start);
 			String method = input.getRequestContext().getHttp().getMethod();
-			logger.info("Handling method " + method);
-			RequestHandlerConfig<?, ?> handler = handlerMap.get(HttpMethod.valueOf(method.toUpperCase()));
-			if(handler != null)
+			start = System.nanoTime();
+			RequestHandlerConfig<?, ?> handler = routes != null ? resolveRoute(input, method) : handlerMap.get(HttpMethod.valueOf(method.toUpperCase()));
+			timer.record(RequestStage.ROUTE, start);
+			if(handler != null) {
+				timer.setRoute(handler.getRoute());
+				if(logger.isInfoEnabled() && logSampler.sample(handler.getRoute()))
+					logger.info("Handling {}", handler.getRoute());
 				response = handleRequest(input, handler, context);
+			}
 			else {
 				UnsupportedMethodException invalidMethodException = new UnsupportedMethodException(method);
 				throw invalidMethodException ; // change to a different ServiceException
 			}
-			responseBody = objectMapper.serialise(response.getBody());
+			// 304s have no body, so they skip the mapper altogether
+			if(response.getStatusCode() != 304) {
+				start = System.nanoTime();
+				responseBody = objectMapper.serialise(response.getBody());
+				timer.record(RequestStage.SERIALISE, start);
+			}
 		}
 		catch (Exception e) {
-			logger.error("Caught exception: " + e.getMessage());
+			logger.error("Caught exception: {}", e.getMessage(), e);
 			return buildErrorResponse(e);
 		}
-		Map<String, String> responseHeaders = new HashMap<>();
-		responseHeaders.put(ConsultConstants.HEADER_CONTENT_TYPE, ConsultConstants.CONTENT_TYPE_JSON);
 		APIGatewayV2HTTPResponse responseEvent = new APIGatewayV2HTTPResponse();
-		if(response != null) {
-			if(response.getHeaders() != null) {
-				responseHeaders.putAll(response.getHeaders());
-			}
-			if(response.getBody() != null) {
-				responseEvent.setBody(responseBody);
-			}
-			responseEvent.setStatusCode(response.getStatusCode());
+		if(response != null && response.getBody() != null) {
+			responseEvent.setBody(responseBody);
+		}
+		// compressed responses get more headers, so they can't share the default ones
+		boolean compressible = responseCompressor != null && responseCompressor.isCompressible(responseEvent.getBody());
+		responseEvent.setHeaders(buildResponseHeaders(response, compressible));
+		// handlers that don't set a status succeed with 200
+		responseEvent.setStatusCode(response != null && response.getStatusCode() != 0 ? response.getStatusCode() : 200);
+		if(responseCompressor != null && responseEvent.getBody() != null) {
+			long start = System.nanoTime();
+			Map<String, String> headers = input.getHeaders();
+			responseCompressor.encode(headers == null ? null : getHeader(headers, ConsultConstants.HEADER_ACCEPT_ENCODING), responseEvent);
+			timer.record(RequestStage.COMPRESS, start);
 		}
-		responseEvent.setHeaders(responseHeaders);
-		responseEvent.setStatusCode(200);
 		return responseEvent;
 	}
 
+	/**
+	 * Build the headers of a response: the default ones, overridden by the handler's. A response has a
+	 * single map: the handler's own, when it has one, is added to, and the shared default one is
+	 * returned when there is nothing to add.
+	 *
+	 * @param response handler response, or null.
+	 * @param mutable whether headers are added to the map afterwards.
+	 * @return response headers.
+	 */
+	private static Map<String, String> buildResponseHeaders(HttpResponse<?> response, boolean mutable) {
+		Map<String, String> headers = response != null ? response.getHeaders() : null;
+		boolean hasHeaders = headers != null && !headers.isEmpty();
+		if(hasHeaders && response.ownsHeaders()) {
+			headers.putIfAbsent(ConsultConstants.HEADER_CONTENT_TYPE, ConsultConstants.CONTENT_TYPE_JSON);
+			return headers;
+		}
+		if(!hasHeaders && !mutable)
+			return DEFAULT_RESPONSE_HEADERS;
+		Map<String, String> responseHeaders = new HashMap<>(HttpResponse.HEADERS_CAPACITY);
+		responseHeaders.putAll(DEFAULT_RESPONSE_HEADERS);
+		if(hasHeaders)
+			responseHeaders.putAll(headers);
+		return responseHeaders;
+	}
+
+	/**
+	 * Format consumed capacity for the {@link ConsultConstants#HEADER_CONSUMED_CAPACITY} header: the
+	 * total, then each table and index, e.g.
+	 * {@code total;rcu=1.0;wcu=4.0, ratings;rcu=0.5;wcu=2.0, user_ratings;rcu=0.5;wcu=2.0}.
+	 */
+	static String formatCapacity(RequestCapacity capacity) {
+		StringBuilder builder = new StringBuilder("total;rcu=").append(capacity.getReadUnits()).append(";wcu=").append(capacity.getWriteUnits());
+		for(Map.Entry<String, RequestCapacity.Units> units : capacity.getUnits().entrySet()) {
+			builder.append(", ").append(units.getKey()).append(";rcu=").append(units.getValue().getRead())
+					.append(";wcu=").append(units.getValue().getWrite());
+		}
+		return builder.toString();
+	}
+
 	/**
 	 * Check if content type is valid (at the moment, only application/json is supported).
 	 *
@@ -93,12 +230,24 @@ public abstract class AbstractRequestHandler implements RequestHandler<APIGatewa
 		if(headers == null)
 			return;
 		// get case insensitive content-type or defaults to application/json if not found
-		String contentType = headers.entrySet().stream().filter(e -> e.getKey().equalsIgnoreCase(ConsultConstants.HEADER_CONTENT_TYPE)).map(e -> e.getValue()).findFirst().orElse(ConsultConstants.CONTENT_TYPE_JSON);
-		if(!ConsultConstants.CONTENT_TYPE_JSON.equals(contentType)) {
+		String contentType = getHeader(headers, CONTENT_TYPE_HEADER_NAME);
+		if(contentType != null && !ConsultConstants.CONTENT_TYPE_JSON.equals(contentType)) {
 			throw new UnsupportedContentTypeException(contentType);
 		}
 	}
 
+	/**
+	 * Get a header, whatever the case of its name.
+	 *
+	 * @param headers request headers.
+	 * @param name header name, lowercased: API Gateway lowercases header names, so the lookup is a
+	 * single get most of the time.
+	 * @return header value, or null if the request doesn't have it.
+	 */
+	protected static String getHeader(Map<String, String> headers, String name) {
+		return HttpRequest.getHeader(headers, name);
+	}
+
 	/**
 	 * Build a generic error {@link APIGatewayV2HTTPResponse response} based on the expection passed as parameter.
 	 *
@@ -116,7 +265,7 @@ public abstract class AbstractRequestHandler implements RequestHandler<APIGatewa
 		APIGatewayV2HTTPResponse response = new APIGatewayV2HTTPResponse();
 		response.setBody("{\"errorDesc\":\"" + errorMessage + "\"}");
 		response.setStatusCode(statusCode);
-		response.setHeaders(Collections.singletonMap(ConsultConstants.HEADER_CONTENT_TYPE, ConsultConstants.CONTENT_TYPE_JSON));
+		response.setHeaders(DEFAULT_RESPONSE_HEADERS);
 		return response;
 	}
 
@@ -132,36 +281,113 @@ public abstract class AbstractRequestHandler implements RequestHandler<APIGatewa
 	 */
 	protected <I, O> HttpResponse<O> handleRequest(APIGatewayV2HTTPEvent input, RequestHandlerConfig<I,O> handler, Context context) {
 		I requestBody = null;
-		try {
-			requestBody = objectMapper.deserialise(input.getBody(), handler.getInputClass());
-		} catch (Exception e) {
-			logger.error("Caught exception: " + e.getMessage());
-			throw new RequestDeserialisationException(e);
+		String body = input.getBody();
+		// bodyless requests, such as most GETs, skip the mapper altogether
+		if(body != null && !body.isEmpty()) {
+			long start = System.nanoTime();
+			try {
+				requestBody = objectMapper.deserialise(body, handler.getInputClass());
+			} catch (Exception e) {
+				logger.error("Caught exception: {}", e.getMessage(), e);
+				throw new RequestDeserialisationException(e);
+			}
+			RequestTimer.current().record(RequestStage.DESERIALISE, start);
 		}
 
 		HttpRequest<I> request = new HttpRequest<>();
 		request.setBody(requestBody);
 		request.setHeaders(input.getHeaders());
 		request.setPathParams(input.getPathParameters());
+		request.setQueryParams(input.getQueryStringParameters());
 		request.setContext(buildRequestContext(input));
 
 		return handler.execute(request);
 	}
 
+	/**
+	 * Find the handler of the route of a request, adding the path parameters extracted from its path to
+	 * the request when it was matched by path.
+	 *
+	 * @param input incoming request.
+	 * @param method HTTP method of the request.
+	 * @return handler, or null if the route doesn't support the method.
+	 * @throws ResourceNotFoundException if no route matches the request.
+	 */
+	private RequestHandlerConfig<?, ?> resolveRoute(APIGatewayV2HTTPEvent input, String method) {
+		RequestHandlerConfig<?, ?> handler = routeKeyMap.get(input.getRouteKey());
+		if(handler != null)
+			return handler;
+		RouteMatch<Map<HttpMethod, RequestHandlerConfig<?, ?>>> match = matchPath(input);
+		if(match == null)
+			throw new ResourceNotFoundException("Route not found.");
+		Map<String, String> pathParams = match.getPathParams();
+		if(!pathParams.isEmpty()) {
+			// each match has its own parameters, so the event's are added to them rather than copied
+			if(input.getPathParameters() != null)
+				pathParams.putAll(input.getPathParameters());
+			input.setPathParameters(pathParams);
+		}
+		return match.getValue().get(HttpMethod.valueOf(method.toUpperCase()));
+	}
+
+	/**
+	 * Match the path of a request, with and without the stage name API Gateway prefixes it with outside
+	 * of the default stage.
+	 */
+	private RouteMatch<Map<HttpMethod, RequestHandlerConfig<?, ?>>> matchPath(APIGatewayV2HTTPEvent input) {
+		String path = input.getRawPath();
+		RequestContext requestContext = input.getRequestContext();
+		if(path == null && requestContext.getHttp() != null)
+			path = requestContext.getHttp().getPath();
+		RouteMatch<Map<HttpMethod, RequestHandlerConfig<?, ?>>> match = routes.match(path);
+		String stage = requestContext.getStage();
+		if(match == null && path != null && stage != null && path.startsWith("/" + stage + "/"))
+			match = routes.match(path.substring(stage.length() + 1));
+		return match;
+	}
+
 	private Map<String, String> buildRequestContext(APIGatewayV2HTTPEvent input) {
-		Map<String, String> context = new HashMap<>();
+		// read only, so anonymous requests share the empty map
 		if(input.getRequestContext() != null &&
 				input.getRequestContext().getAuthorizer() != null &&
 				input.getRequestContext().getAuthorizer().getJwt() != null) {
-			context.put(ConsultConstants.CONTEXT_AUTHORIZATION_JWT_USER, input.getRequestContext().getAuthorizer().getJwt().getClaims().get(ConsultConstants.JWT_CLAIM_USERNAME));
+			return Collections.singletonMap(ConsultConstants.CONTEXT_AUTHORIZATION_JWT_USER, input.getRequestContext().getAuthorizer().getJwt().getClaims().get(ConsultConstants.JWT_CLAIM_USERNAME));
 		}
-		return context;
+		return Collections.emptyMap();
 	}
 
 	public void setObjectMapper(ObjectMapper objectMapper) {
 		this.objectMapper = objectMapper;
 	}
 
+	/**
+	 * @param metricsSink destination of the stage timings of each request, or null to emit none.
+	 */
+	public void setMetricsSink(MetricsSink metricsSink) {
+		this.metricsSink = metricsSink;
+	}
+
+	/**
+	 * @param consumedCapacityHeader whether responses carry the DynamoDB capacity the request consumed.
+	 */
+	public void setConsumedCapacityHeader(boolean consumedCapacityHeader) {
+		this.consumedCapacityHeader = consumedCapacityHeader;
+	}
+
+	/**
+	 * @param logSampler sampler deciding which requests log their route at INFO.
+	 */
+	public void setLogSampler(LogSampler logSampler) {
+		this.logSampler = logSampler;
+	}
+
+	/**
+	 * @param responseCompressor compressor of response bodies, or null to never compress them.
+	 */
+	public void setResponseCompressor(ResponseCompressor responseCompressor) {
+		this.responseCompressor = responseCompressor;
+	}
+
 	/**
 	 * Map an HTTP Method to a {@link ConsultRequestHandler}.
 	 *
@@ -190,6 +416,194 @@ public abstract class AbstractRequestHandler implements RequestHandler<APIGatewa
 		if(this.handlerMap == null) {
 			this.handlerMap = new HashMap<>();
 		}
-		this.handlerMap.put(method, new RequestHandlerConfig<>(requestHandler, requestModelClass, authenticationService));
+		this.handlerMap.put(method, new RequestHandlerConfig<>(method.name(), requestHandler, requestModelClass, authenticationService));
+	}
+
+	/**
+	 * Map an HTTP method and path template, such as {@code /users/{id}/ratings/{code}}, to a
+	 * {@link ConsultRequestHandler}. Once a route is registered, requests are dispatched on their route
+	 * only.
+	 *
+	 * @param <I> request model class type
+	 * @param <O> response model class type
+	 * @param method HTTP method to be handled.
+	 * @param pathTemplate path template of the route, as declared in the API.
+	 * @param requestHandler request handler to handle incoming HTTP requests.
+	 * @param requestModelClass request model class type.
+	 */
+	public <I, O> void addRoute(HttpMethod method, String pathTemplate, ConsultRequestHandler<I, O> requestHandler, Class<I> requestModelClass) {
+		addRoute(method, pathTemplate, requestHandler, requestModelClass, (request) -> true);
+	}
+
+	/**
+	 * Map an HTTP method and path template, such as {@code /users/{id}/ratings/{code}}, to a
+	 * {@link ConsultRequestHandler}. Once a route is registered, requests are dispatched on their route
+	 * only.
+	 *
+	 * @param <I> request model class type
+	 * @param <O> response model class type
+	 * @param method HTTP method to be handled.
+	 * @param pathTemplate path template of the route, as declared in the API.
+	 * @param requestHandler request handler to handle incoming HTTP requests.
+	 * @param requestModelClass request model class type.
+	 * @param authenticationService authentication service responsible for securing the request handler.
+	 * @throws IllegalArgumentException if the template is malformed or conflicts with a registered one.
+	 */
+	public synchronized <I, O> void addRoute(HttpMethod method, String pathTemplate, ConsultRequestHandler<I, O> requestHandler, Class<I> requestModelClass, AuthenticationService authenticationService) {
+		if(this.routes == null) {
+			this.routeKeyMap = new HashMap<>();
+			this.routeTemplateMap = new HashMap<>();
+			this.routes = new PathTemplateTrie<>();
+		}
+		Map<HttpMethod, RequestHandlerConfig<?,?>> methods = routeTemplateMap.get(pathTemplate);
+		if(methods == null) {
+			methods = new HashMap<>();
+			routes.add(pathTemplate, methods);
+			routeTemplateMap.put(pathTemplate, methods);
+		}
+		String routeKey = method.name() + " " + pathTemplate;
+		RequestHandlerConfig<I, O> config = new RequestHandlerConfig<>(routeKey, requestHandler, requestModelClass, authenticationService);
+		methods.put(method, config);
+		routeKeyMap.put(routeKey, config);
+	}
+
+	/**
+	 * Register a synthetic request to be run by {@link #prime()}.
+	 *
+	 * @param request priming request.
+	 */
+	public void addPrimingRequest(APIGatewayV2HTTPEvent request) {
+		primingRequests.add(request);
+	}
+
+	/**
+	 * Create a priming request, authenticated as the user of the path parameters if it has one.
+	 *
+	 * @param method HTTP method.
+	 * @param pathParams path parameters.
+	 * @param body request body, or null.
+	 * @return priming request.
+	 */
+	public static APIGatewayV2HTTPEvent createPrimingRequest(HttpMethod method, Map<String, String> pathParams, String body) {
+		Http http = new Http();
+		http.setMethod(method.name());
+		RequestContext requestContext = new RequestContext();
+		requestContext.setHttp(http);
+		String user = pathParams.get(ConsultConstants.PATH_PARAM_USER_ID);
+		if(user != null) {
+			JWT jwt = new JWT();
+			jwt.setClaims(Collections.singletonMap(ConsultConstants.JWT_CLAIM_USERNAME, user));
+			Authorizer authorizer = new Authorizer();
+			authorizer.setJwt(jwt);
+			requestContext.setAuthorizer(authorizer);
+		}
+		APIGatewayV2HTTPEvent request = new APIGatewayV2HTTPEvent();
+		request.setRequestContext(requestContext);
+		request.setHeaders(Collections.singletonMap(ConsultConstants.HEADER_CONTENT_TYPE, ConsultConstants.CONTENT_TYPE_JSON));
+		request.setPathParameters(pathParams);
+		request.setBody(body);
+		return request;
+	}
+
+	/**
+	 * Create a priming request for a route, authenticated as the user of the path parameters if it has
+	 * one.
+	 *
+	 * @param method HTTP method.
+	 * @param pathTemplate path template of the route.
+	 * @param pathParams path parameters.
+	 * @param body request body, or null.
+	 * @return priming request.
+	 */
+	public static APIGatewayV2HTTPEvent createPrimingRequest(HttpMethod method, String pathTemplate, Map<String, String> pathParams, String body) {
+		APIGatewayV2HTTPEvent request = createPrimingRequest(method, pathParams, body);
+		String path = pathTemplate;
+		for(Map.Entry<String, String> pathParam : pathParams.entrySet())
+			path = path.replace("{" + pathParam.getKey() + "}", pathParam.getValue());
+		request.setRouteKey(method.name() + " " + pathTemplate);
+		request.setRawPath(path);
+		request.getRequestContext().getHttp().setPath(path);
+		return request;
+	}
+
+	/**
+	 * Run the priming requests through the whole pipeline: deserialisation, authentication, request
+	 * handler and serialisation. Only call it on handlers wired to services that have no side effects,
+	 * such as the no-op services.
+	 *
+	 * @return number of priming requests answered successfully.
+	 */
+	public int prime() {
+		long start = System.nanoTime();
+		int succeeded = 0;
+		// priming requests aren't traffic, so they don't show up in the metrics
+		MetricsSink sink = metricsSink;
+		metricsSink = null;
+		try {
+			for(APIGatewayV2HTTPEvent request : primingRequests) {
+				APIGatewayV2HTTPResponse response = handleRequest(request, null);
+				if(response.getStatusCode() / 100 == 2)
+					succeeded++;
+				else
+					logger.warn("Priming request failed with status {}: {}", response.getStatusCode(), response.getBody());
+			}
+		} finally {
+			metricsSink = sink;
+		}
+		logger.info("Primed {}/{} requests in {} ms", succeeded, primingRequests.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		return succeeded;
+	}
+
+	/**
+	 * Prime the handler now, unless {@link ConsultConstants#ENV_PRIMING_ENABLED} is false, and register it
+	 * for checkpoint and restore notifications.
+	 *
+	 * @param primingHandler handler of the same function wired to no-op services, which runs the priming
+	 * requests.
+	 */
+	protected void initLifecycle(AbstractRequestHandler primingHandler) {
+		initLifecycle(primingHandler, Core.getGlobalContext());
+	}
+
+	/**
+	 * Prime the handler now, unless {@link ConsultConstants#ENV_PRIMING_ENABLED} is false, and register it
+	 * for checkpoint and restore notifications.
+	 *
+	 * @param primingHandler handler of the same function wired to no-op services, which runs the priming
+	 * requests.
+	 * @param context checkpoint/restore context the handler is registered with.
+	 */
+	protected void initLifecycle(AbstractRequestHandler primingHandler, org.crac.Context<Resource> context) {
+		if(EnvironmentUtils.getBoolean(ConsultConstants.ENV_PRIMING_ENABLED, true)) {
+			this.primingHandler = primingHandler;
+			primingHandler.prime();
+		}
+		context.register(this);
+	}
+
+	/**
+	 * Prime the handler once more, so the snapshot is taken with the pipeline warm.
+	 */
+	@Override
+	public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+		if(primingHandler != null)
+			primingHandler.prime();
+	}
+
+	/**
+	 * Reseed randomness, which every environment restored from the same snapshot would otherwise share,
+	 * and re-establish connections, which don't survive the snapshot.
+	 */
+	@Override
+	public void afterRestore(org.crac.Context<? extends Resource> context) {
+		ConsultRandom.reseed();
+		reconnect();
+	}
+
+	/**
+	 * Re-establish the connections used by the handler, after a restore.
+	 */
+	protected void reconnect() {
+		DynamoDbClientRegistry.warmUp();
 	}
 }
@@ -3,6 +3,8 @@ package com.lucaspetrini.consult;
 import com.lucaspetrini.consult.auth.AuthenticationService;
 import com.lucaspetrini.consult.exception.NotAllowedException;
 import com.lucaspetrini.consult.handler.ConsultRequestHandler;
+import com.lucaspetrini.consult.metrics.RequestStage;
+import com.lucaspetrini.consult.metrics.RequestTimer;
 import com.lucaspetrini.consult.request.HttpRequest;
 import com.lucaspetrini.consult.response.HttpResponse;
 
@@ -14,6 +16,7 @@ import com.lucaspetrini.consult.response.HttpResponse;
  * @param <O> model class of the response body to be returned.
  */
 class RequestHandlerConfig<I, O> {
+	private String route;
 	private ConsultRequestHandler<I, O> handler;
 	private Class<I> inputClass;
 	private AuthenticationService authenticationService;
@@ -23,28 +26,50 @@ class RequestHandlerConfig<I, O> {
 	}
 
 	/**
-	 * Process an HTTP request, only if it is authenticated by the authentication service.
+	 * @return route of the handler, as reported in metrics: method and path template, or only the method
+	 *         for handlers dispatched on it.
+	 */
+	public String getRoute() {
+		return route;
+	}
+
+	/**
+	 * Process an HTTP request, only if it is authenticated by the authentication service. Authentication
+	 * and the handler are timed as stages of the current {@link RequestTimer}.
 	 *
 	 * @param request request.
 	 * @return response.
 	 */
 	public HttpResponse<O> execute(HttpRequest<I> request) {
-		if (authenticationService != null && !authenticationService.isValid(request)) {
-			throw new NotAllowedException();
+		RequestTimer timer = RequestTimer.current();
+		long start = System.nanoTime();
+		if (authenticationService != null) {
+			boolean valid = authenticationService.isValid(request);
+			timer.record(RequestStage.AUTHENTICATE, start);
+			if (!valid) {
+				throw new NotAllowedException();
+			}
+			start = System.nanoTime();
+		}
+		try {
+			return handler.handle(request);
+		} finally {
+			timer.record(RequestStage.HANDLE, start);
 		}
-		return handler.handle(request);
 	}
 
 	/**
 	 * Configuration class for a {@link ConsultRequestHandler}. This is necessary to
 	 * handle its generic types, and to secure specific handlers, when necessary.
 	 *
+	 * @param route                 route of the handler, as reported in metrics.
 	 * @param handler               request handler.
 	 * @param inputClass            model class of the request body to be handled.
 	 * @param authenticationService authentication service.
 	 */
-	public RequestHandlerConfig(ConsultRequestHandler<I, O> handler, Class<I> inputClass,
+	public RequestHandlerConfig(String route, ConsultRequestHandler<I, O> handler, Class<I> inputClass,
 			AuthenticationService authenticationService) {
+		this.route = route;
 		this.handler = handler;
 		this.inputClass = inputClass;
 		this.authenticationService = authenticationService;
@@ -0,0 +1,20 @@
+package com.lucaspetrini.consult.exception;
+
+/**
+ * Concurrent modification exception, thrown when a write keeps conflicting with other writes to the
+ * same resource.
+ */
+public class ConflictException extends ServiceException {
+	private static final long serialVersionUID = 1L;
+	private static final String DESCRIPTION = "Resource was modified concurrently, please try again.";
+
+	/**
+	 * Concurrent modification exception.
+	 *
+	 * @param cause cause of this exception.
+	 */
+	public ConflictException(Throwable cause) {
+		super(cause, DESCRIPTION, 409);
+	}
+
+}
@@ -0,0 +1,18 @@
+package com.lucaspetrini.consult.exception;
+
+/**
+ * Invalid request parameter exception.
+ */
+public class InvalidParameterException extends ServiceException {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Invalid request parameter exception.
+	 *
+	 * @param message short description of the issue.
+	 */
+	public InvalidParameterException(String message) {
+		super(message, 400);
+	}
+
+}
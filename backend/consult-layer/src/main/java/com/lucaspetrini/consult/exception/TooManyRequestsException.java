@@ -0,0 +1,19 @@
+package com.lucaspetrini.consult.exception;
+
+/**
+ * Throttling exception, thrown when the database keeps rejecting requests because of their rate.
+ */
+public class TooManyRequestsException extends ServiceException {
+	private static final long serialVersionUID = 1L;
+	private static final String DESCRIPTION = "Too many requests, please try again later.";
+
+	/**
+	 * Throttling exception.
+	 *
+	 * @param cause cause of this exception.
+	 */
+	public TooManyRequestsException(Throwable cause) {
+		super(cause, DESCRIPTION, 429);
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.lucaspetrini.consult.logging;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.lucaspetrini.consult.utils.ConsultConstants;
+import com.lucaspetrini.consult.utils.ConsultRandom;
+import com.lucaspetrini.consult.utils.EnvironmentUtils;
+
+/**
+ * Decides which requests log at INFO, so busy routes don't pay for a log line on every request.<br>
+ * Each route is sampled at its own rate, between 0 (never) and 1 (always), falling back to a default
+ * rate. Warnings and errors are never sampled; they are rate limited by the logging configuration
+ * instead. Rates are read from {@link ConsultConstants#ENV_LOG_SAMPLE_RATE} and
+ * {@link ConsultConstants#ENV_LOG_SAMPLE_RATES}, the latter listing routes and their rates, e.g.
+ * {@code GET /ratings/{code}=0.01;PUT /users/{id}/ratings/{code}=0.5}.
+ */
+public class LogSampler {
+	public static final double DEFAULT_RATE = 1;
+
+	private final double defaultRate;
+	private final Map<String, Double> rates;
+
+	/**
+	 * Sampler of INFO logs.
+	 *
+	 * @param defaultRate rate of routes without their own.
+	 * @param rates rate of each route, by route.
+	 */
+	public LogSampler(double defaultRate, Map<String, Double> rates) {
+		this.defaultRate = clamp(defaultRate);
+		Map<String, Double> clamped = new HashMap<>();
+		rates.forEach((route, rate) -> clamped.put(route, clamp(rate)));
+		this.rates = Collections.unmodifiableMap(clamped);
+	}
+
+	/**
+	 * @return sampler configured from the environment, logging every request by default.
+	 */
+	public static LogSampler fromEnvironment() {
+		return parse(EnvironmentUtils.getString(ConsultConstants.ENV_LOG_SAMPLE_RATE, null),
+				EnvironmentUtils.getString(ConsultConstants.ENV_LOG_SAMPLE_RATES, null));
+	}
+
+	/**
+	 * Parse a sampler configuration, ignoring rates that are not numbers.
+	 *
+	 * @param defaultRate default rate, or null for {@link #DEFAULT_RATE}.
+	 * @param rates routes and their rates, as 'route=rate' separated by semicolons, or null.
+	 * @return sampler.
+	 */
+	static LogSampler parse(String defaultRate, String rates) {
+		Map<String, Double> routeRates = new HashMap<>();
+		if(rates != null) {
+			for(String entry : rates.split(";")) {
+				int separator = entry.lastIndexOf('=');
+				Double rate = separator > 0 ? parseRate(entry.substring(separator + 1)) : null;
+				if(rate != null)
+					routeRates.put(entry.substring(0, separator).trim(), rate);
+			}
+		}
+		Double rate = defaultRate != null ? parseRate(defaultRate) : null;
+		return new LogSampler(rate != null ? rate : DEFAULT_RATE, routeRates);
+	}
+
+	/**
+	 * @param route route of the request, or null if it has none.
+	 * @return rate the route is sampled at.
+	 */
+	public double getRate(String route) {
+		Double rate = route != null ? rates.get(route) : null;
+		return rate != null ? rate : defaultRate;
+	}
+
+	/**
+	 * Decide whether a request logs at INFO.
+	 *
+	 * @param route route of the request, or null if it has none.
+	 * @return true if the request is sampled.
+	 */
+	public boolean sample(String route) {
+		double rate = getRate(route);
+		return rate >= 1 || (rate > 0 && ConsultRandom.nextDouble() < rate);
+	}
+
+	private static Double parseRate(String value) {
+		try {
+			return Double.valueOf(value.trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static double clamp(double rate) {
+		return Double.isNaN(rate) ? DEFAULT_RATE : Math.max(0, Math.min(1, rate));
+	}
+}
@@ -0,0 +1,84 @@
+package com.lucaspetrini.consult.mapper;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Implementation of a {@link ObjectMapper} to handle JSON data format through {@link JsonCodec codecs}
+ * generated at compile time, with no reflection. Bodies are parsed with Gson's streaming reader and
+ * written to a {@link JsonByteWriter} reused by each thread. Classes without a registered codec are
+ * handled by a fallback mapper.
+ */
+public class CodecObjectMapper implements ObjectMapper {
+	private final Map<Class<?>, JsonCodec<?>> codecs = new HashMap<>();
+	private final ObjectMapper fallback;
+	private final ThreadLocal<JsonByteWriter> writers = ThreadLocal.withInitial(JsonByteWriter::new);
+
+	/**
+	 * Codec based mapper, falling back to a {@link JsonObjectMapper}.
+	 */
+	public CodecObjectMapper() {
+		this(new JsonObjectMapper());
+	}
+
+	/**
+	 * Codec based mapper.
+	 *
+	 * @param fallback mapper for classes without a codec.
+	 */
+	public CodecObjectMapper(ObjectMapper fallback) {
+		this.fallback = fallback;
+	}
+
+	/**
+	 * Register a codec.
+	 *
+	 * @param codec codec.
+	 * @return this mapper.
+	 */
+	public CodecObjectMapper withCodec(JsonCodec<?> codec) {
+		codecs.put(codec.getType(), codec);
+		return this;
+	}
+
+	@Override
+	public <T> T deserialise(String body, Class<T> clazz) {
+		@SuppressWarnings("unchecked")
+		JsonCodec<T> codec = (JsonCodec<T>) codecs.get(clazz);
+		if(codec == null)
+			return fallback.deserialise(body, clazz);
+		if(body == null || body.isBlank())
+			return null;
+		JsonReader reader = new JsonReader(new StringReader(body));
+		reader.setLenient(true);
+		try {
+			T value = codec.read(reader);
+			if(reader.peek() != JsonToken.END_DOCUMENT)
+				throw new JsonIOException("JSON document was not fully consumed.");
+			return value;
+		} catch (IOException | IllegalStateException | NumberFormatException e) {
+			throw new JsonSyntaxException(e);
+		}
+	}
+
+	@Override
+	public <T> String serialise(T object) {
+		if(object == null)
+			return fallback.serialise(null);
+		@SuppressWarnings("unchecked")
+		JsonCodec<T> codec = (JsonCodec<T>) codecs.get(object.getClass());
+		if(codec == null)
+			return fallback.serialise(object);
+		JsonByteWriter writer = writers.get();
+		writer.reset();
+		codec.write(writer, object);
+		return writer.toString();
+	}
+}
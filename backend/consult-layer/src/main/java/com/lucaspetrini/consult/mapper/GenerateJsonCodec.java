@@ -0,0 +1,19 @@
+package com.lucaspetrini.consult.mapper;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generate a {@link JsonCodec} for the annotated class at compile time, named after the class with a
+ * {@code JsonCodec} suffix, in the same package. The JSON is the one {@link JsonObjectMapper} reads and
+ * writes: every non static, non transient field, named after the field, is mapped through its public
+ * getter and setter, and null values are left out.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateJsonCodec {
+}
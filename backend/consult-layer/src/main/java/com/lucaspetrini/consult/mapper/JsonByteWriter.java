@@ -0,0 +1,315 @@
+package com.lucaspetrini.consult.mapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes JSON as UTF-8 straight into a byte buffer that is kept between documents, so serialising a
+ * response allocates little more than the final string. Strings are escaped like Gson does by default,
+ * HTML characters included, so the output is the same as {@link JsonObjectMapper}'s.<br>
+ * Not thread safe: {@link CodecObjectMapper} keeps one writer per thread and {@link #reset() resets} it
+ * before each document.
+ */
+public class JsonByteWriter {
+	static final int INITIAL_CAPACITY = 1024;
+	/** Buffers grown beyond this size by a large document are dropped on reset, rather than kept. */
+	static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+	private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+	private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+	private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+	private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[][] ESCAPES = new byte[128][];
+
+	static {
+		for(int c = 0; c < 0x20; c++)
+			ESCAPES[c] = unicodeEscape((char) c);
+		ESCAPES['"'] = new byte[] { '\\', '"' };
+		ESCAPES['\\'] = new byte[] { '\\', '\\' };
+		ESCAPES['\t'] = new byte[] { '\\', 't' };
+		ESCAPES['\b'] = new byte[] { '\\', 'b' };
+		ESCAPES['\n'] = new byte[] { '\\', 'n' };
+		ESCAPES['\r'] = new byte[] { '\\', 'r' };
+		ESCAPES['\f'] = new byte[] { '\\', 'f' };
+		for(char c : new char[] { '<', '>', '&', '=', '\'' })
+			ESCAPES[c] = unicodeEscape(c);
+	}
+
+	private byte[] buffer = new byte[INITIAL_CAPACITY];
+	private int size;
+	/** Whether the current object or array, at each nesting level, has no element yet. */
+	private boolean[] empty = new boolean[16];
+	private int depth;
+	private boolean afterName;
+
+	/**
+	 * Discard the document written so far.
+	 */
+	public void reset() {
+		if(buffer.length > MAX_RETAINED_CAPACITY)
+			buffer = new byte[INITIAL_CAPACITY];
+		size = 0;
+		depth = 0;
+		afterName = false;
+	}
+
+	public JsonByteWriter beginObject() {
+		beforeValue();
+		write((byte) '{');
+		push();
+		return this;
+	}
+
+	public JsonByteWriter endObject() {
+		depth--;
+		write((byte) '}');
+		return this;
+	}
+
+	public JsonByteWriter beginArray() {
+		beforeValue();
+		write((byte) '[');
+		push();
+		return this;
+	}
+
+	public JsonByteWriter endArray() {
+		depth--;
+		write((byte) ']');
+		return this;
+	}
+
+	/**
+	 * Write the name of the next object member.
+	 *
+	 * @param encodedName name encoded by {@link #encodeName(String)}.
+	 * @return this writer.
+	 */
+	public JsonByteWriter name(byte[] encodedName) {
+		beforeName();
+		write(encodedName, 0, encodedName.length);
+		afterName = true;
+		return this;
+	}
+
+	/**
+	 * Write the name of the next object member.
+	 *
+	 * @param name name.
+	 * @return this writer.
+	 */
+	public JsonByteWriter name(String name) {
+		beforeName();
+		writeString(name);
+		write((byte) ':');
+		afterName = true;
+		return this;
+	}
+
+	public JsonByteWriter nullValue() {
+		beforeValue();
+		write(NULL, 0, NULL.length);
+		return this;
+	}
+
+	public JsonByteWriter value(String value) {
+		if(value == null)
+			return nullValue();
+		beforeValue();
+		writeString(value);
+		return this;
+	}
+
+	public JsonByteWriter value(Long value) {
+		return value == null ? nullValue() : value(value.longValue());
+	}
+
+	public JsonByteWriter value(long value) {
+		beforeValue();
+		writeLong(value);
+		return this;
+	}
+
+	public JsonByteWriter value(Integer value) {
+		return value == null ? nullValue() : value(value.longValue());
+	}
+
+	public JsonByteWriter value(int value) {
+		return value((long) value);
+	}
+
+	public JsonByteWriter value(Boolean value) {
+		return value == null ? nullValue() : value(value.booleanValue());
+	}
+
+	public JsonByteWriter value(boolean value) {
+		beforeValue();
+		byte[] literal = value ? TRUE : FALSE;
+		write(literal, 0, literal.length);
+		return this;
+	}
+
+	public JsonByteWriter value(Double value) {
+		return value == null ? nullValue() : value(value.doubleValue());
+	}
+
+	/**
+	 * @param value finite number.
+	 * @return this writer.
+	 * @throws IllegalArgumentException if the number is NaN or infinite, which JSON can't represent.
+	 */
+	public JsonByteWriter value(double value) {
+		if(Double.isNaN(value) || Double.isInfinite(value))
+			throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+		beforeValue();
+		writeAscii(Double.toString(value));
+		return this;
+	}
+
+	/**
+	 * @return number of bytes written.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return copy of the bytes written.
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(buffer, size);
+	}
+
+	/**
+	 * @return document written, as a string.
+	 */
+	@Override
+	public String toString() {
+		return new String(buffer, 0, size, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Encode an object member name once, so writing it is a plain copy.
+	 *
+	 * @param name name.
+	 * @return quoted and escaped name, followed by a colon, in UTF-8.
+	 */
+	public static byte[] encodeName(String name) {
+		JsonByteWriter writer = new JsonByteWriter();
+		writer.writeString(name);
+		writer.write((byte) ':');
+		return writer.toByteArray();
+	}
+
+	private void push() {
+		depth++;
+		if(depth == empty.length)
+			empty = Arrays.copyOf(empty, depth * 2);
+		empty[depth] = true;
+	}
+
+	private void beforeName() {
+		if(!empty[depth])
+			write((byte) ',');
+		empty[depth] = false;
+	}
+
+	private void beforeValue() {
+		if(afterName) {
+			afterName = false;
+			return;
+		}
+		if(depth > 0)
+			beforeName();
+	}
+
+	private void writeString(String value) {
+		write((byte) '"');
+		int length = value.length();
+		for(int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if(c < 0x80) {
+				byte[] escape = ESCAPES[c];
+				if(escape == null)
+					write((byte) c);
+				else
+					write(escape, 0, escape.length);
+			}
+			else if(c < 0x800) {
+				ensureCapacity(2);
+				buffer[size++] = (byte) (0xc0 | (c >> 6));
+				buffer[size++] = (byte) (0x80 | (c & 0x3f));
+			}
+			else if(c == '\u2028' || c == '\u2029') {
+				byte[] escape = unicodeEscape(c);
+				write(escape, 0, escape.length);
+			}
+			else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				ensureCapacity(4);
+				buffer[size++] = (byte) (0xf0 | (codePoint >> 18));
+				buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+				buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+				buffer[size++] = (byte) (0x80 | (codePoint & 0x3f));
+			}
+			else if(Character.isSurrogate(c)) {
+				// a lone surrogate can't be encoded in UTF-8, the escape keeps it in the string
+				byte[] escape = unicodeEscape(c);
+				write(escape, 0, escape.length);
+			}
+			else {
+				ensureCapacity(3);
+				buffer[size++] = (byte) (0xe0 | (c >> 12));
+				buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				buffer[size++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+		write((byte) '"');
+	}
+
+	private void writeLong(long value) {
+		if(value == Long.MIN_VALUE) {
+			writeAscii(Long.toString(value));
+			return;
+		}
+		if(value < 0) {
+			write((byte) '-');
+			value = -value;
+		}
+		int digits = 1;
+		for(long bound = 10; digits < 19 && value >= bound; bound *= 10)
+			digits++;
+		ensureCapacity(digits);
+		for(int i = size + digits - 1; i >= size; i--) {
+			buffer[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		size += digits;
+	}
+
+	private void writeAscii(String value) {
+		int length = value.length();
+		ensureCapacity(length);
+		for(int i = 0; i < length; i++)
+			buffer[size++] = (byte) value.charAt(i);
+	}
+
+	private void write(byte b) {
+		ensureCapacity(1);
+		buffer[size++] = b;
+	}
+
+	private void write(byte[] bytes, int offset, int length) {
+		ensureCapacity(length);
+		System.arraycopy(bytes, offset, buffer, size, length);
+		size += length;
+	}
+
+	private void ensureCapacity(int extra) {
+		if(size + extra > buffer.length)
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+	}
+
+	private static byte[] unicodeEscape(char c) {
+		return new byte[] { '\\', 'u', HEX[(c >> 12) & 0xf], HEX[(c >> 8) & 0xf], HEX[(c >> 4) & 0xf], HEX[c & 0xf] };
+	}
+}
@@ -0,0 +1,37 @@
+package com.lucaspetrini.consult.mapper;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Reads and writes one class as JSON without reflection. Implementations are generated for classes
+ * annotated with {@link GenerateJsonCodec} and used by {@link CodecObjectMapper}.
+ *
+ * @param <T> class handled by the codec.
+ */
+public interface JsonCodec<T> extends JsonValueReader<T> {
+
+	/**
+	 * @return class handled by the codec.
+	 */
+	Class<T> getType();
+
+	/**
+	 * Write a value.
+	 *
+	 * @param writer writer.
+	 * @param value value, possibly null.
+	 */
+	void write(JsonByteWriter writer, T value);
+
+	/**
+	 * Read a value.
+	 *
+	 * @param reader streaming reader, positioned before the value.
+	 * @return value, or null for a JSON null.
+	 * @throws IOException if the JSON is malformed.
+	 */
+	@Override
+	T read(JsonReader reader) throws IOException;
+}
@@ -0,0 +1,85 @@
+package com.lucaspetrini.consult.mapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Readers of the values supported by generated {@link JsonCodec codecs}. Each one accepts the same
+ * JSON as the matching Gson type adapter, including quoted numbers and booleans.
+ */
+public final class JsonCodecs {
+
+	private JsonCodecs() {}
+
+	public static String readString(JsonReader reader) throws IOException {
+		JsonToken token = reader.peek();
+		if(token == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+		if(token == JsonToken.BOOLEAN)
+			return Boolean.toString(reader.nextBoolean());
+		return reader.nextString();
+	}
+
+	public static Long readLong(JsonReader reader) throws IOException {
+		if(reader.peek() == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+		return reader.nextLong();
+	}
+
+	public static Integer readInteger(JsonReader reader) throws IOException {
+		if(reader.peek() == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+		return reader.nextInt();
+	}
+
+	public static Double readDouble(JsonReader reader) throws IOException {
+		if(reader.peek() == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+		return reader.nextDouble();
+	}
+
+	public static Boolean readBoolean(JsonReader reader) throws IOException {
+		JsonToken token = reader.peek();
+		if(token == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+		if(token == JsonToken.STRING)
+			return Boolean.parseBoolean(reader.nextString());
+		return reader.nextBoolean();
+	}
+
+	/**
+	 * Read a JSON array.
+	 *
+	 * @param <T> type of the elements.
+	 * @param reader streaming reader, positioned before the array.
+	 * @param elementReader reader of each element.
+	 * @return elements, or null for a JSON null.
+	 * @throws IOException if the JSON is malformed.
+	 */
+	public static <T> List<T> readList(JsonReader reader, JsonValueReader<T> elementReader) throws IOException {
+		if(reader.peek() == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+		List<T> list = new ArrayList<>();
+		reader.beginArray();
+		while(reader.hasNext())
+			list.add(elementReader.read(reader));
+		reader.endArray();
+		return list;
+	}
+}
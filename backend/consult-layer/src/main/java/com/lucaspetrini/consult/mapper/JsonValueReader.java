@@ -0,0 +1,23 @@
+package com.lucaspetrini.consult.mapper;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Reads one JSON value.
+ *
+ * @param <T> type of the value.
+ */
+@FunctionalInterface
+public interface JsonValueReader<T> {
+
+	/**
+	 * Read the next value.
+	 *
+	 * @param reader streaming reader, positioned before the value.
+	 * @return value, or null for a JSON null.
+	 * @throws IOException if the JSON is malformed.
+	 */
+	T read(JsonReader reader) throws IOException;
+}
@@ -0,0 +1,144 @@
+package com.lucaspetrini.consult.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.SdkResponse;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.Capacity;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+/**
+ * Asks DynamoDB for the capacity consumed by every item operation, per table and index, and adds it to
+ * the {@link RequestCapacity} of the request that made the call. The request is looked up when the call
+ * starts, on the calling thread, so calls of the asynchronous client are counted as well.<br>
+ * On-demand tables only report capacity units, so they are counted as read or write units according to
+ * the operation. Transactions cancelled by DynamoDB don't report the capacity they consumed.
+ */
+public class ConsumedCapacityInterceptor implements ExecutionInterceptor {
+	private static final ExecutionAttribute<RequestCapacity> REQUEST_CAPACITY = new ExecutionAttribute<>("ConsultRequestCapacity");
+
+	@Override
+	public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+		executionAttributes.putAttribute(REQUEST_CAPACITY, RequestCapacity.current());
+	}
+
+	@Override
+	public SdkRequest modifyRequest(Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+		SdkRequest request = context.request();
+		if(request instanceof GetItemRequest && ((GetItemRequest) request).returnConsumedCapacity() == null)
+			return ((GetItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build();
+		if(request instanceof QueryRequest && ((QueryRequest) request).returnConsumedCapacity() == null)
+			return ((QueryRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build();
+		if(request instanceof ScanRequest && ((ScanRequest) request).returnConsumedCapacity() == null)
+			return ((ScanRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build();
+		if(request instanceof BatchGetItemRequest && ((BatchGetItemRequest) request).returnConsumedCapacity() == null)
+			return ((BatchGetItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build();
+		if(request instanceof TransactGetItemsRequest && ((TransactGetItemsRequest) request).returnConsumedCapacity() == null)
+			return ((TransactGetItemsRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build();
+		if(request instanceof PutItemRequest && ((PutItemRequest) request).returnConsumedCapacity() == null)
+			return ((PutItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build();
+		if(request instanceof UpdateItemRequest && ((UpdateItemRequest) request).returnConsumedCapacity() == null)
+			return ((UpdateItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build();
+		if(request instanceof DeleteItemRequest && ((DeleteItemRequest) request).returnConsumedCapacity() == null)
+			return ((DeleteItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build();
+		if(request instanceof BatchWriteItemRequest && ((BatchWriteItemRequest) request).returnConsumedCapacity() == null)
+			return ((BatchWriteItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build();
+		if(request instanceof TransactWriteItemsRequest && ((TransactWriteItemsRequest) request).returnConsumedCapacity() == null)
+			return ((TransactWriteItemsRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build();
+		return request;
+	}
+
+	@Override
+	public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+		RequestCapacity capacity = executionAttributes.getAttribute(REQUEST_CAPACITY);
+		if(capacity == null)
+			return;
+		SdkResponse response = context.response();
+		if(response instanceof GetItemResponse)
+			record(capacity, ((GetItemResponse) response).consumedCapacity(), true);
+		else if(response instanceof QueryResponse)
+			record(capacity, ((QueryResponse) response).consumedCapacity(), true);
+		else if(response instanceof ScanResponse)
+			record(capacity, ((ScanResponse) response).consumedCapacity(), true);
+		else if(response instanceof BatchGetItemResponse)
+			record(capacity, ((BatchGetItemResponse) response).consumedCapacity(), true);
+		else if(response instanceof TransactGetItemsResponse)
+			record(capacity, ((TransactGetItemsResponse) response).consumedCapacity(), true);
+		else if(response instanceof PutItemResponse)
+			record(capacity, ((PutItemResponse) response).consumedCapacity(), false);
+		else if(response instanceof UpdateItemResponse)
+			record(capacity, ((UpdateItemResponse) response).consumedCapacity(), false);
+		else if(response instanceof DeleteItemResponse)
+			record(capacity, ((DeleteItemResponse) response).consumedCapacity(), false);
+		else if(response instanceof BatchWriteItemResponse)
+			record(capacity, ((BatchWriteItemResponse) response).consumedCapacity(), false);
+		else if(response instanceof TransactWriteItemsResponse)
+			record(capacity, ((TransactWriteItemsResponse) response).consumedCapacity(), false);
+	}
+
+	private static void record(RequestCapacity capacity, List<ConsumedCapacity> consumedCapacities, boolean read) {
+		if(consumedCapacities != null) {
+			for(ConsumedCapacity consumedCapacity : consumedCapacities)
+				record(capacity, consumedCapacity, read);
+		}
+	}
+
+	/**
+	 * Record the capacity of a table, then of each of its indexes.
+	 */
+	static void record(RequestCapacity capacity, ConsumedCapacity consumedCapacity, boolean read) {
+		if(consumedCapacity == null || consumedCapacity.tableName() == null)
+			return;
+		String table = consumedCapacity.tableName();
+		capacity.add(table, null, units(consumedCapacity.readCapacityUnits(), consumedCapacity.capacityUnits(), read),
+				units(consumedCapacity.writeCapacityUnits(), consumedCapacity.capacityUnits(), !read));
+		if(consumedCapacity.hasLocalSecondaryIndexes())
+			recordIndexes(capacity, table, consumedCapacity.localSecondaryIndexes(), read);
+		if(consumedCapacity.hasGlobalSecondaryIndexes())
+			recordIndexes(capacity, table, consumedCapacity.globalSecondaryIndexes(), read);
+	}
+
+	private static void recordIndexes(RequestCapacity capacity, String table, Map<String, Capacity> indexes, boolean read) {
+		for(Map.Entry<String, Capacity> index : indexes.entrySet()) {
+			Capacity indexCapacity = index.getValue();
+			capacity.add(table, index.getKey(), units(indexCapacity.readCapacityUnits(), indexCapacity.capacityUnits(), read),
+					units(indexCapacity.writeCapacityUnits(), indexCapacity.capacityUnits(), !read));
+		}
+	}
+
+	/**
+	 * @return the units of the given kind when DynamoDB reports them, the total units when the operation
+	 *         is of that kind, 0 otherwise.
+	 */
+	private static double units(Double kindUnits, Double totalUnits, boolean ofKind) {
+		if(kindUnits != null)
+			return kindUnits;
+		return ofKind && totalUnits != null ? totalUnits : 0;
+	}
+}
@@ -0,0 +1,132 @@
+package com.lucaspetrini.consult.metrics;
+
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * {@link MetricsSink} printing one CloudWatch Embedded Metric Format record per request, which
+ * CloudWatch Logs turns into metrics when it reads the function's log stream. Every stage the request
+ * went through, and its total time, is a metric in microseconds, with the route and the response status
+ * as dimensions. The DynamoDB capacity consumed by the request, if any, is a count metric in total, per
+ * table and per index ('ReadCapacityUnits.user_ratings.GSIRating').<br>
+ * Records are printed to standard output rather than through the logger, since the log pattern would
+ * prefix them and CloudWatch only extracts metrics from lines that are a JSON object.
+ */
+public class EmfMetricsSink implements MetricsSink {
+	public static final String DEFAULT_NAMESPACE = "Consult";
+	static final String TOTAL_METRIC_NAME = "Total";
+	static final String ROUTE_DIMENSION = "Route";
+	static final String STATUS_DIMENSION = "Status";
+	static final String NO_ROUTE = "None";
+	static final String READ_CAPACITY_METRIC_NAME = "ReadCapacityUnits";
+	static final String WRITE_CAPACITY_METRIC_NAME = "WriteCapacityUnits";
+	private static final String MICROSECONDS = "Microseconds";
+	private static final String COUNT = "Count";
+
+	private final String namespace;
+	private final PrintStream out;
+
+	/**
+	 * {@link MetricsSink} printing Embedded Metric Format records to standard output.
+	 *
+	 * @param namespace CloudWatch namespace of the metrics.
+	 */
+	public EmfMetricsSink(String namespace) {
+		this(namespace, System.out);
+	}
+
+	/**
+	 * {@link MetricsSink} printing Embedded Metric Format records.
+	 *
+	 * @param namespace CloudWatch namespace of the metrics.
+	 * @param out stream records are printed to.
+	 */
+	public EmfMetricsSink(String namespace, PrintStream out) {
+		this.namespace = namespace;
+		this.out = out;
+	}
+
+	@Override
+	public void emit(String route, int statusCode, RequestTimer timer, RequestCapacity capacity) {
+		out.println(format(route, statusCode, timer, capacity, System.currentTimeMillis()));
+	}
+
+	/**
+	 * Build the Embedded Metric Format record of a request.
+	 *
+	 * @param route route the request was dispatched to, or null.
+	 * @param statusCode HTTP status of the response.
+	 * @param timer stopped timer of the request.
+	 * @param capacity DynamoDB capacity consumed by the request.
+	 * @param timestamp time of the record, in milliseconds since the epoch.
+	 * @return record, a single line JSON object.
+	 */
+	String format(String route, int statusCode, RequestTimer timer, RequestCapacity capacity, long timestamp) {
+		Map<String, RequestCapacity.Units> units = capacity.getUnits();
+		StringBuilder builder = new StringBuilder(640);
+		builder.append("{\"_aws\":{\"Timestamp\":").append(timestamp).append(",\"CloudWatchMetrics\":[{\"Namespace\":");
+		appendString(builder, namespace);
+		builder.append(",\"Dimensions\":[[\"").append(ROUTE_DIMENSION).append("\",\"").append(STATUS_DIMENSION).append("\"]],\"Metrics\":[");
+		for(RequestStage stage : RequestStage.VALUES) {
+			if(timer.isRecorded(stage))
+				appendMetricDefinition(builder, stage.getMetricName(), MICROSECONDS).append(',');
+		}
+		appendMetricDefinition(builder, TOTAL_METRIC_NAME, MICROSECONDS);
+		if(!units.isEmpty()) {
+			appendMetricDefinition(builder.append(','), READ_CAPACITY_METRIC_NAME, COUNT);
+			appendMetricDefinition(builder.append(','), WRITE_CAPACITY_METRIC_NAME, COUNT);
+			for(String name : units.keySet()) {
+				appendMetricDefinition(builder.append(','), READ_CAPACITY_METRIC_NAME + '.' + name, COUNT);
+				appendMetricDefinition(builder.append(','), WRITE_CAPACITY_METRIC_NAME + '.' + name, COUNT);
+			}
+		}
+		builder.append("]}]},\"").append(ROUTE_DIMENSION).append("\":");
+		appendString(builder, route != null ? route : NO_ROUTE);
+		builder.append(",\"").append(STATUS_DIMENSION).append("\":\"").append(statusCode).append('"');
+		for(RequestStage stage : RequestStage.VALUES) {
+			if(timer.isRecorded(stage))
+				appendMicros(builder.append(",\"").append(stage.getMetricName()).append("\":"), timer.getNanos(stage));
+		}
+		appendMicros(builder.append(",\"").append(TOTAL_METRIC_NAME).append("\":"), timer.getTotalNanos());
+		if(!units.isEmpty()) {
+			builder.append(",\"").append(READ_CAPACITY_METRIC_NAME).append("\":").append(capacity.getReadUnits());
+			builder.append(",\"").append(WRITE_CAPACITY_METRIC_NAME).append("\":").append(capacity.getWriteUnits());
+			for(Map.Entry<String, RequestCapacity.Units> entry : units.entrySet()) {
+				builder.append(",\"").append(READ_CAPACITY_METRIC_NAME).append('.').append(entry.getKey()).append("\":").append(entry.getValue().getRead());
+				builder.append(",\"").append(WRITE_CAPACITY_METRIC_NAME).append('.').append(entry.getKey()).append("\":").append(entry.getValue().getWrite());
+			}
+		}
+		return builder.append('}').toString();
+	}
+
+	private static StringBuilder appendMetricDefinition(StringBuilder builder, String name, String unit) {
+		return builder.append("{\"Name\":\"").append(name).append("\",\"Unit\":\"").append(unit).append("\"}");
+	}
+
+	/**
+	 * Append nanoseconds as microseconds with three decimals, without going through a formatter.
+	 */
+	private static void appendMicros(StringBuilder builder, long nanos) {
+		long fraction = nanos % 1000;
+		builder.append(nanos / 1000).append('.');
+		if(fraction < 100)
+			builder.append('0');
+		if(fraction < 10)
+			builder.append('0');
+		builder.append(fraction);
+	}
+
+	private static void appendString(StringBuilder builder, String value) {
+		builder.append('"');
+		for(int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if(c == '"' || c == '\\')
+				builder.append('\\').append(c);
+			else if(c < 0x20)
+				builder.append(String.format("\\u%04x", (int) c));
+			else
+				builder.append(c);
+		}
+		builder.append('"');
+	}
+}
@@ -0,0 +1,78 @@
+package com.lucaspetrini.consult.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link MetricsSink} keeping the metrics of every request in memory, for tests and local runs.
+ */
+public class InMemoryMetricsSink implements MetricsSink {
+	private final List<RequestMetrics> requests = Collections.synchronizedList(new ArrayList<>());
+
+	@Override
+	public void emit(String route, int statusCode, RequestTimer timer, RequestCapacity capacity) {
+		Map<RequestStage, Long> stageNanos = new EnumMap<>(RequestStage.class);
+		for(RequestStage stage : RequestStage.VALUES) {
+			if(timer.isRecorded(stage))
+				stageNanos.put(stage, timer.getNanos(stage));
+		}
+		requests.add(new RequestMetrics(route, statusCode, stageNanos, timer.getTotalNanos(), capacity));
+	}
+
+	/**
+	 * @return metrics of every request emitted so far, oldest first.
+	 */
+	public List<RequestMetrics> getRequests() {
+		synchronized(requests) {
+			return new ArrayList<>(requests);
+		}
+	}
+
+	/**
+	 * Metrics of a single request.
+	 */
+	public static class RequestMetrics {
+		private final String route;
+		private final int statusCode;
+		private final Map<RequestStage, Long> stageNanos;
+		private final long totalNanos;
+		private final RequestCapacity capacity;
+
+		RequestMetrics(String route, int statusCode, Map<RequestStage, Long> stageNanos, long totalNanos, RequestCapacity capacity) {
+			this.route = route;
+			this.statusCode = statusCode;
+			this.stageNanos = Collections.unmodifiableMap(stageNanos);
+			this.totalNanos = totalNanos;
+			this.capacity = capacity;
+		}
+
+		public String getRoute() {
+			return route;
+		}
+
+		public int getStatusCode() {
+			return statusCode;
+		}
+
+		/**
+		 * @return time spent in each stage the request went through, in nanoseconds.
+		 */
+		public Map<RequestStage, Long> getStageNanos() {
+			return stageNanos;
+		}
+
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		/**
+		 * @return DynamoDB capacity consumed by the request.
+		 */
+		public RequestCapacity getCapacity() {
+			return capacity;
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package com.lucaspetrini.consult.metrics;
+
+/**
+ * Destination of the metrics of each request.
+ */
+@FunctionalInterface
+public interface MetricsSink {
+
+	/**
+	 * Emit the metrics of a request. The timer is reused by the next request on the same thread, so
+	 * implementations must copy what they keep.
+	 *
+	 * @param route route the request was dispatched to, or null if it wasn't.
+	 * @param statusCode HTTP status of the response.
+	 * @param timer stopped timer of the request.
+	 * @param capacity DynamoDB capacity consumed by the request.
+	 */
+	void emit(String route, int statusCode, RequestTimer timer, RequestCapacity capacity);
+}
@@ -0,0 +1,158 @@
+package com.lucaspetrini.consult.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * DynamoDB capacity units consumed by the current request, per table and per index, as recorded by
+ * {@link ConsumedCapacityInterceptor}. Like {@link RequestTimer}, the current one is per thread; work a
+ * request hands to another thread is {@link #bind(Callable) bound} to it, so its reads are counted too.
+ * Instances are thread safe.
+ */
+public final class RequestCapacity {
+	private static final ThreadLocal<RequestCapacity> CURRENT = ThreadLocal.withInitial(RequestCapacity::new);
+
+	private Map<String, Units> units;
+	private double readUnits;
+	private double writeUnits;
+
+	RequestCapacity() {}
+
+	/**
+	 * Start counting the capacity of a new request on the current thread.
+	 *
+	 * @return capacity of the new request.
+	 */
+	public static RequestCapacity start() {
+		RequestCapacity capacity = new RequestCapacity();
+		CURRENT.set(capacity);
+		return capacity;
+	}
+
+	/**
+	 * @return capacity of the request running on the current thread.
+	 */
+	public static RequestCapacity current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Add capacity consumed by a table or one of its indexes.
+	 *
+	 * @param table table name.
+	 * @param index index name, or null for the table itself, indexes included.
+	 * @param read read capacity units.
+	 * @param write write capacity units.
+	 */
+	public synchronized void add(String table, String index, double read, double write) {
+		if(units == null)
+			units = new LinkedHashMap<>();
+		units.computeIfAbsent(index == null ? table : table + "." + index, name -> new Units()).add(read, write);
+		if(index == null) {
+			readUnits += read;
+			writeUnits += write;
+		}
+	}
+
+	/**
+	 * @return whether any capacity was recorded.
+	 */
+	public synchronized boolean isEmpty() {
+		return units == null;
+	}
+
+	/**
+	 * @return read capacity units consumed by every table.
+	 */
+	public synchronized double getReadUnits() {
+		return readUnits;
+	}
+
+	/**
+	 * @return write capacity units consumed by every table.
+	 */
+	public synchronized double getWriteUnits() {
+		return writeUnits;
+	}
+
+	/**
+	 * @return copy of the capacity consumed by each table, named after it, and by each index, named
+	 *         'table.index', in the order they were first used.
+	 */
+	public synchronized Map<String, Units> getUnits() {
+		if(units == null)
+			return Collections.emptyMap();
+		Map<String, Units> copy = new LinkedHashMap<>();
+		units.forEach((name, value) -> copy.put(name, new Units(value.read, value.write)));
+		return copy;
+	}
+
+	/**
+	 * Wrap a task so the capacity it consumes on another thread is counted as this request's.
+	 *
+	 * @param <T> result type.
+	 * @param task task.
+	 * @return wrapped task.
+	 */
+	public <T> Callable<T> bind(Callable<T> task) {
+		return () -> {
+			RequestCapacity previous = CURRENT.get();
+			CURRENT.set(this);
+			try {
+				return task.call();
+			} finally {
+				CURRENT.set(previous);
+			}
+		};
+	}
+
+	/**
+	 * Wrap a task so the capacity it consumes on another thread is counted as this request's.
+	 *
+	 * @param <T> result type.
+	 * @param task task.
+	 * @return wrapped task.
+	 */
+	public <T> Supplier<T> bindSupplier(Supplier<T> task) {
+		return () -> {
+			RequestCapacity previous = CURRENT.get();
+			CURRENT.set(this);
+			try {
+				return task.get();
+			} finally {
+				CURRENT.set(previous);
+			}
+		};
+	}
+
+	/**
+	 * Read and write capacity units.
+	 */
+	public static class Units {
+		private double read;
+		private double write;
+
+		Units() {}
+
+		Units(double read, double write) {
+			this.read = read;
+			this.write = write;
+		}
+
+		private void add(double read, double write) {
+			this.read += read;
+			this.write += write;
+		}
+
+		public double getRead() {
+			return read;
+		}
+
+		public double getWrite() {
+			return write;
+		}
+	}
+}
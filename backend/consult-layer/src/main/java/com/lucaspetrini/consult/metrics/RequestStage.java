@@ -0,0 +1,34 @@
+package com.lucaspetrini.consult.metrics;
+
+/**
+ * Stages of a request timed by {@link RequestTimer}. {@link #HANDLE} is the whole request handler, so it
+ * includes the DynamoDB stages recorded by the services it calls.
+ */
+public enum RequestStage {
+	VALIDATE_HEADERS("ValidateHeaders"),
+	ROUTE("Routing"),
+	DESERIALISE("Deserialise"),
+	AUTHENTICATE("Authenticate"),
+	HANDLE("Handle"),
+	/** Reads done before a user rating is written, including the ones done again before retries. */
+	DYNAMODB_READS("DynamoDbReads"),
+	/** Every attempt of the transaction writing a user rating. */
+	DYNAMODB_TRANSACTION("DynamoDbTransaction"),
+	SERIALISE("Serialise"),
+	COMPRESS("Compress");
+
+	static final RequestStage[] VALUES = values();
+
+	private final String metricName;
+
+	private RequestStage(String metricName) {
+		this.metricName = metricName;
+	}
+
+	/**
+	 * @return name of the metric the stage is emitted as.
+	 */
+	public String getMetricName() {
+		return metricName;
+	}
+}
@@ -0,0 +1,105 @@
+package com.lucaspetrini.consult.metrics;
+
+/**
+ * Time spent by the current request in each {@link RequestStage}, in nanoseconds. There is one timer per
+ * thread, reset when a request starts, so code deep in the pipeline such as the services records its
+ * stages on {@link #current()} without it being passed around, and a request allocates nothing to be
+ * timed. Recording a stage costs two {@link System#nanoTime()} calls:
+ *
+ * <pre>
+ * long start = System.nanoTime();
+ * ...
+ * RequestTimer.current().record(RequestStage.HANDLE, start);
+ * </pre>
+ */
+public final class RequestTimer {
+	private static final ThreadLocal<RequestTimer> CURRENT = ThreadLocal.withInitial(RequestTimer::new);
+
+	private final long[] nanos = new long[RequestStage.VALUES.length];
+	private final boolean[] recorded = new boolean[RequestStage.VALUES.length];
+	private long startNanos;
+	private long totalNanos;
+	private String route;
+
+	private RequestTimer() {}
+
+	/**
+	 * Reset the timer of the current thread for a new request.
+	 *
+	 * @return timer of the current thread.
+	 */
+	public static RequestTimer start() {
+		RequestTimer timer = CURRENT.get();
+		for(int i = 0; i < timer.nanos.length; i++) {
+			timer.nanos[i] = 0;
+			timer.recorded[i] = false;
+		}
+		timer.route = null;
+		timer.totalNanos = 0;
+		timer.startNanos = System.nanoTime();
+		return timer;
+	}
+
+	/**
+	 * @return timer of the request running on the current thread.
+	 */
+	public static RequestTimer current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Add the time elapsed since a start time to a stage. Stages recorded more than once, such as
+	 * retried transactions, add up.
+	 *
+	 * @param stage stage.
+	 * @param startNanos {@link System#nanoTime()} when the stage started.
+	 */
+	public void record(RequestStage stage, long startNanos) {
+		nanos[stage.ordinal()] += System.nanoTime() - startNanos;
+		recorded[stage.ordinal()] = true;
+	}
+
+	/**
+	 * Stop timing the request.
+	 *
+	 * @return time since the request started, in nanoseconds.
+	 */
+	public long stop() {
+		totalNanos = System.nanoTime() - startNanos;
+		return totalNanos;
+	}
+
+	/**
+	 * @param stage stage.
+	 * @return time spent in the stage, in nanoseconds.
+	 */
+	public long getNanos(RequestStage stage) {
+		return nanos[stage.ordinal()];
+	}
+
+	/**
+	 * @param stage stage.
+	 * @return whether the request went through the stage.
+	 */
+	public boolean isRecorded(RequestStage stage) {
+		return recorded[stage.ordinal()];
+	}
+
+	/**
+	 * @return time the request took, in nanoseconds, once {@link #stop() stopped}.
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * @return route the request was dispatched to, or null if it wasn't.
+	 */
+	public String getRoute() {
+		return route;
+	}
+
+	public void setRoute(String route) {
+		this.route = route;
+	}
+}
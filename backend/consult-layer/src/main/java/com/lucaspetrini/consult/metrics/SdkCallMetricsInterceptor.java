@@ -0,0 +1,301 @@
+package com.lucaspetrini.consult.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+
+/**
+ * Records, per operation (GetItem, Query, TransactWriteItems...), the latency of the SDK calls made
+ * through a client, retries included, in an HdrHistogram, along with how many attempts the calls took,
+ * how many failed on throttling, and the size of their request and response payloads.<br>
+ * Recording allocates nothing once the operations have been seen: the state of each call comes from a
+ * small pool, histograms are {@link Recorder recorders} with a fixed range, and counters are atomics.
+ * {@link #flushIfDue()} logs the percentiles since the previous flush, at most once per flush interval,
+ * and is meant to be called at the end of each invocation.
+ */
+public class SdkCallMetricsInterceptor implements ExecutionInterceptor {
+	private static final Logger LOGGER = LoggerFactory.getLogger(SdkCallMetricsInterceptor.class);
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 60_000;
+	/** Latencies are recorded in microseconds, up to a minute, with two significant digits. */
+	static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+	private static final int POOL_SIZE = 64;
+	private static final String CONTENT_LENGTH = "Content-Length";
+	private static final ExecutionAttribute<CallState> CALL_STATE = new ExecutionAttribute<>("ConsultSdkCallState");
+	/** State of calls already recorded, whose pooled state may be in use by another call. */
+	private static final CallState COMPLETED = new CallState();
+
+	private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+	private final BlockingQueue<CallState> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+	private final long flushIntervalNanos;
+	private volatile long lastFlushNanos = System.nanoTime();
+
+	/**
+	 * Interceptor recording the metrics of SDK calls.
+	 *
+	 * @param flushIntervalMillis minimum time between two flushes, 0 to flush every time
+	 *                            {@link #flushIfDue()} is called.
+	 */
+	public SdkCallMetricsInterceptor(long flushIntervalMillis) {
+		this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+	}
+
+	@Override
+	public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+		CallState state = pool.poll();
+		if(state == null)
+			state = new CallState();
+		state.operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+		state.attempts = 0;
+		state.startNanos = System.nanoTime();
+		executionAttributes.putAttribute(CALL_STATE, state);
+	}
+
+	@Override
+	public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+		CallState state = executionAttributes.getAttribute(CALL_STATE);
+		if(state == null || state == COMPLETED)
+			return;
+		state.attempts++;
+		getOperation(state.operation).requestBytes.addAndGet(contentLength(context.httpRequest().headers()));
+	}
+
+	@Override
+	public void afterTransmission(Context.AfterTransmission context, ExecutionAttributes executionAttributes) {
+		CallState state = executionAttributes.getAttribute(CALL_STATE);
+		if(state != null && state != COMPLETED)
+			getOperation(state.operation).responseBytes.addAndGet(contentLength(context.httpResponse().headers()));
+	}
+
+	@Override
+	public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+		complete(executionAttributes, false, false);
+	}
+
+	@Override
+	public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+		complete(executionAttributes, true, isThrottling(context.exception()));
+	}
+
+	/**
+	 * @return whether the exception is DynamoDB throttling the call, which service exceptions built
+	 *         without error details can't tell.
+	 */
+	private static boolean isThrottling(Throwable exception) {
+		return exception instanceof AwsServiceException && ((AwsServiceException) exception).awsErrorDetails() != null
+				&& ((AwsServiceException) exception).isThrottlingException();
+	}
+
+	private void complete(ExecutionAttributes executionAttributes, boolean failed, boolean throttled) {
+		CallState state = executionAttributes.getAttribute(CALL_STATE);
+		if(state == null || state == COMPLETED)
+			return;
+		// replaced first, so a call failing after it completed doesn't record it twice
+		executionAttributes.putAttribute(CALL_STATE, COMPLETED);
+		OperationMetrics metrics = getOperation(state.operation);
+		long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - state.startNanos);
+		metrics.latency.recordValue(Math.max(1, Math.min(micros, MAX_LATENCY_MICROS)));
+		metrics.calls.incrementAndGet();
+		metrics.attempts.addAndGet(state.attempts);
+		if(failed)
+			metrics.failures.incrementAndGet();
+		if(throttled)
+			metrics.throttles.incrementAndGet();
+		pool.offer(state);
+	}
+
+	private OperationMetrics getOperation(String operation) {
+		String name = operation != null ? operation : "Unknown";
+		OperationMetrics metrics = operations.get(name);
+		return metrics != null ? metrics : operations.computeIfAbsent(name, OperationMetrics::new);
+	}
+
+	/**
+	 * Log the metrics recorded since the previous flush, if the flush interval has elapsed since then.
+	 */
+	public void flushIfDue() {
+		long now = System.nanoTime();
+		if(now - lastFlushNanos < flushIntervalNanos)
+			return;
+		lastFlushNanos = now;
+		for(OperationSummary summary : flush())
+			LOGGER.info("{}", summary);
+	}
+
+	/**
+	 * Take the metrics recorded since the previous flush.
+	 *
+	 * @return metrics of each operation called since the previous flush.
+	 */
+	public List<OperationSummary> flush() {
+		List<OperationSummary> summaries = new ArrayList<>();
+		for(OperationMetrics metrics : operations.values()) {
+			OperationSummary summary = metrics.flush();
+			if(summary.getCalls() > 0)
+				summaries.add(summary);
+		}
+		return summaries;
+	}
+
+	/**
+	 * @return value of the Content-Length header, or 0 if there is none. Header maps of the SDK ignore
+	 *         the case of names.
+	 */
+	private static long contentLength(Map<String, List<String>> headers) {
+		List<String> values = headers.get(CONTENT_LENGTH);
+		if(values == null || values.isEmpty())
+			return 0;
+		try {
+			return Long.parseLong(values.get(0));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * State of a call in flight, taken from the pool when it starts and returned when it completes.
+	 */
+	private static class CallState {
+		private String operation;
+		private long startNanos;
+		private int attempts;
+	}
+
+	/**
+	 * Metrics of an operation, since the previous flush.
+	 */
+	private static class OperationMetrics {
+		private final String operation;
+		private final Recorder latency = new Recorder(1, MAX_LATENCY_MICROS, 2);
+		private final AtomicLong calls = new AtomicLong();
+		private final AtomicLong attempts = new AtomicLong();
+		private final AtomicLong failures = new AtomicLong();
+		private final AtomicLong throttles = new AtomicLong();
+		private final AtomicLong requestBytes = new AtomicLong();
+		private final AtomicLong responseBytes = new AtomicLong();
+		private Histogram interval;
+
+		private OperationMetrics(String operation) {
+			this.operation = operation;
+		}
+
+		private synchronized OperationSummary flush() {
+			// the previous interval histogram is recycled, so flushing doesn't allocate one every time
+			interval = latency.getIntervalHistogram(interval);
+			return new OperationSummary(operation, interval, calls.getAndSet(0), attempts.getAndSet(0), failures.getAndSet(0),
+					throttles.getAndSet(0), requestBytes.getAndSet(0), responseBytes.getAndSet(0));
+		}
+	}
+
+	/**
+	 * Metrics of an operation over a flush interval. Latencies are in microseconds.
+	 */
+	public static class OperationSummary {
+		private final String operation;
+		private final long calls;
+		private final long attempts;
+		private final long failures;
+		private final long throttles;
+		private final long requestBytes;
+		private final long responseBytes;
+		private final long p50;
+		private final long p90;
+		private final long p99;
+		private final long max;
+
+		OperationSummary(String operation, Histogram latency, long calls, long attempts, long failures, long throttles,
+				long requestBytes, long responseBytes) {
+			this.operation = operation;
+			this.calls = calls;
+			this.attempts = attempts;
+			this.failures = failures;
+			this.throttles = throttles;
+			this.requestBytes = requestBytes;
+			this.responseBytes = responseBytes;
+			this.p50 = latency.getValueAtPercentile(50);
+			this.p90 = latency.getValueAtPercentile(90);
+			this.p99 = latency.getValueAtPercentile(99);
+			this.max = latency.getMaxValue();
+		}
+
+		public String getOperation() {
+			return operation;
+		}
+
+		public long getCalls() {
+			return calls;
+		}
+
+		/**
+		 * @return HTTP attempts made by the calls, so attempts beyond the number of calls are SDK retries.
+		 */
+		public long getAttempts() {
+			return attempts;
+		}
+
+		/**
+		 * @return SDK retries.
+		 */
+		public long getRetries() {
+			return attempts - calls;
+		}
+
+		public long getFailures() {
+			return failures;
+		}
+
+		/**
+		 * @return calls that failed on throttling, once the SDK retries were exhausted.
+		 */
+		public long getThrottles() {
+			return throttles;
+		}
+
+		public long getRequestBytes() {
+			return requestBytes;
+		}
+
+		public long getResponseBytes() {
+			return responseBytes;
+		}
+
+		public long getP50() {
+			return p50;
+		}
+
+		public long getP90() {
+			return p90;
+		}
+
+		public long getP99() {
+			return p99;
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		@Override
+		public String toString() {
+			return "SDK " + operation + ": " + calls + " calls, p50 " + p50 + " us, p90 " + p90 + " us, p99 " + p99 + " us, max "
+					+ max + " us, " + getRetries() + " retries, " + throttles + " throttled, " + failures + " failed, "
+					+ requestBytes + " bytes sent, " + responseBytes + " bytes received";
+		}
+	}
+}
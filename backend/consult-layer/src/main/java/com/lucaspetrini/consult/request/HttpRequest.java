@@ -12,6 +12,7 @@ public class HttpRequest<T> {
 	private T requestBody;
 	private Map<String, String> headers;
 	private Map<String, String> pathParams;
+	private Map<String, String> queryParams;
 	private Map<String, String> context;
 
 	public T getBody() {
@@ -30,6 +31,35 @@ public class HttpRequest<T> {
 		return headers;
 	}
 
+	/**
+	 * Get a header, whatever the case of its name.
+	 *
+	 * @param name header name, lowercased.
+	 * @return header value, or null if the request doesn't have it.
+	 */
+	public String getHeader(String name) {
+		return headers == null ? null : getHeader(headers, name);
+	}
+
+	/**
+	 * Get a header, whatever the case of its name.
+	 *
+	 * @param headers request headers.
+	 * @param name header name, lowercased: API Gateway lowercases header names, so the lookup is a
+	 * single get most of the time.
+	 * @return header value, or null if the headers don't have it.
+	 */
+	public static String getHeader(Map<String, String> headers, String name) {
+		String value = headers.get(name);
+		if(value != null)
+			return value;
+		for(Map.Entry<String, String> header : headers.entrySet()) {
+			if(header.getKey().equalsIgnoreCase(name))
+				return header.getValue();
+		}
+		return null;
+	}
+
 	public void setPathParams(Map<String, String> pathParams) {
 		this.pathParams = pathParams;
 	}
@@ -38,6 +68,14 @@ public class HttpRequest<T> {
 		return pathParams;
 	}
 
+	public void setQueryParams(Map<String, String> queryParams) {
+		this.queryParams = queryParams;
+	}
+
+	public Map<String, String> getQueryParams() {
+		return queryParams;
+	}
+
 	public void setContext(Map<String, String> context) {
 		this.context = context;
 	}
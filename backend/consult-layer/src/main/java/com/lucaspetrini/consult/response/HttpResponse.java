@@ -1,18 +1,40 @@
 package com.lucaspetrini.consult.response;
 
+import java.util.HashMap;
 import java.util.Map;
 
+import com.lucaspetrini.consult.utils.ConsultConstants;
+
 /**
  * Base class for http responses.
  * 
  * @param <T> type of the response body.
  */
 public class HttpResponse<T> {
+	/** Room for the headers handlers set and those the pipeline adds, without resizing. */
+	public static final int HEADERS_CAPACITY = 8;
 
 	private T responseBody;
 	private Map<String, String> headers;
+	private boolean ownHeaders;
 	private int statusCode;
 
+	/**
+	 * Build a 304 response, telling the client its copy of the entity is still current. It has no body,
+	 * so nothing is serialised.
+	 *
+	 * @param <T> type of the response body.
+	 * @param entityTag current entity tag.
+	 * @param cacheControl Cache-Control header the full response would have, or null.
+	 * @return response.
+	 */
+	public static <T> HttpResponse<T> notModified(String entityTag, String cacheControl) {
+		HttpResponse<T> response = new HttpResponse<>();
+		response.setStatusCode(304);
+		response.setValidators(entityTag, cacheControl);
+		return response;
+	}
+
 	public T getBody() {
 		return responseBody;
 	}
@@ -30,11 +52,50 @@ public class HttpResponse<T> {
 	}
 
 	public void setHeaders(Map<String, String> headers) {
-		this.headers = headers; 
+		this.headers = headers;
+		this.ownHeaders = false;
 	}
 
 	public void setStatusCode(int statusCode) {
 		this.statusCode = statusCode;
 	}
 
+	/**
+	 * Set a header, keeping the other ones. Headers given with {@link #setHeaders(Map)} are copied first,
+	 * as they may be shared or immutable.
+	 *
+	 * @param name header name.
+	 * @param value header value.
+	 */
+	public void setHeader(String name, String value) {
+		if(!ownHeaders) {
+			Map<String, String> ownedHeaders = new HashMap<>(HEADERS_CAPACITY);
+			if(headers != null)
+				ownedHeaders.putAll(headers);
+			headers = ownedHeaders;
+			ownHeaders = true;
+		}
+		headers.put(name, value);
+	}
+
+	/**
+	 * @return whether the headers were built by {@link #setHeader(String, String)}, so the response owns
+	 *         them and more can be added to the same map.
+	 */
+	public boolean ownsHeaders() {
+		return ownHeaders;
+	}
+
+	/**
+	 * Set the ETag and Cache-Control headers.
+	 *
+	 * @param entityTag entity tag.
+	 * @param cacheControl Cache-Control header, or null to leave it out.
+	 */
+	public void setValidators(String entityTag, String cacheControl) {
+		setHeader(ConsultConstants.HEADER_ETAG, entityTag);
+		if(cacheControl != null)
+			setHeader(ConsultConstants.HEADER_CACHE_CONTROL, cacheControl);
+	}
+
 }
@@ -0,0 +1,242 @@
+package com.lucaspetrini.consult.response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+
+/**
+ * Compresses response bodies with the content coding negotiated from the request's
+ * {@code Accept-Encoding} header: gzip, or deflate when the client prefers it.<br>
+ * Bodies shorter than a minimum size are left alone, as compressing them saves less than it costs.
+ * Compressed bodies are base64 encoded, which API Gateway decodes before sending them. Deflaters are
+ * pooled and reset between responses, as creating one allocates native memory that is only freed when
+ * it is ended or collected.
+ */
+public class ResponseCompressor {
+	public static final int DEFAULT_MIN_SIZE = 1024;
+	/** Deflaters kept per content coding, enough for the requests a container serves concurrently. */
+	static final int MAX_POOLED_DEFLATERS = 8;
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+	private static final int GZIP_TRAILER_LENGTH = 8;
+	private static final String WEAK_PREFIX = "W/";
+
+	private final int minSize;
+	private final DeflaterPool gzipDeflaters = new DeflaterPool(true);
+	private final DeflaterPool deflateDeflaters = new DeflaterPool(false);
+
+	/**
+	 * Compresses response bodies with the content coding negotiated from the request.
+	 *
+	 * @param minSize length, in characters, under which bodies are not compressed.
+	 */
+	public ResponseCompressor(int minSize) {
+		this.minSize = minSize;
+	}
+
+	/**
+	 * Compress the body of a response, if the client accepts a supported content coding and the body is
+	 * long enough. The body is replaced by its base64 encoded compressed bytes, and the Content-Encoding
+	 * and Vary headers are set, in the response's headers, which must be mutable, when it has some. A
+	 * strong ETag becomes weak, as the compressed bytes are not those it was built for.
+	 *
+	 * @param acceptEncoding Accept-Encoding header of the request, or null.
+	 * @param response response.
+	 * @return true if the body was compressed.
+	 */
+	public boolean encode(String acceptEncoding, APIGatewayV2HTTPResponse response) {
+		String body = response.getBody();
+		if(!isCompressible(body) || response.getIsBase64Encoded())
+			return false;
+		Map<String, String> headers = response.getHeaders();
+		if(headers == null) {
+			headers = new HashMap<>();
+			response.setHeaders(headers);
+		}
+		// the response depends on Accept-Encoding whether it is compressed or not
+		headers.put(ConsultConstants.HEADER_VARY, ConsultConstants.HEADER_ACCEPT_ENCODING_VALUE);
+		Encoding encoding = negotiate(acceptEncoding);
+		if(encoding == null)
+			return false;
+		byte[] compressed = compress(body.getBytes(StandardCharsets.UTF_8), encoding);
+		response.setBody(Base64.getEncoder().encodeToString(compressed));
+		response.setIsBase64Encoded(true);
+		headers.put(ConsultConstants.HEADER_CONTENT_ENCODING, encoding.getToken());
+		String entityTag = headers.get(ConsultConstants.HEADER_ETAG);
+		if(entityTag != null && !entityTag.startsWith(WEAK_PREFIX))
+			headers.put(ConsultConstants.HEADER_ETAG, WEAK_PREFIX + entityTag);
+		return true;
+	}
+
+	/**
+	 * @param body response body, or null.
+	 * @return whether the body is long enough to be compressed, in which case {@link #encode(String,
+	 *         APIGatewayV2HTTPResponse) encoding} the response sets headers.
+	 */
+	public boolean isCompressible(String body) {
+		return body != null && body.length() >= minSize;
+	}
+
+	/**
+	 * Choose the content coding of a response.
+	 *
+	 * @param acceptEncoding Accept-Encoding header of the request, or null.
+	 * @return the supported coding with the highest quality value, gzip winning ties, or null if the
+	 * client accepts none.
+	 */
+	public static Encoding negotiate(String acceptEncoding) {
+		if(acceptEncoding == null || acceptEncoding.isBlank())
+			return null;
+		double gzip = -1;
+		double deflate = -1;
+		double any = -1;
+		for(String part : acceptEncoding.split(",")) {
+			int semicolon = part.indexOf(';');
+			String coding = (semicolon < 0 ? part : part.substring(0, semicolon)).trim();
+			double quality = semicolon < 0 ? 1 : parseQuality(part.substring(semicolon + 1));
+			if(Encoding.GZIP.getToken().equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding))
+				gzip = Math.max(gzip, quality);
+			else if(Encoding.DEFLATE.getToken().equalsIgnoreCase(coding))
+				deflate = Math.max(deflate, quality);
+			else if("*".equals(coding))
+				any = quality;
+		}
+		// '*' stands for every coding not listed
+		gzip = gzip < 0 ? any : gzip;
+		deflate = deflate < 0 ? any : deflate;
+		if(gzip > 0 && gzip >= deflate)
+			return Encoding.GZIP;
+		return deflate > 0 ? Encoding.DEFLATE : null;
+	}
+
+	private static double parseQuality(String parameters) {
+		for(String parameter : parameters.split(";")) {
+			String trimmed = parameter.trim();
+			if(trimmed.startsWith("q=") || trimmed.startsWith("Q=")) {
+				try {
+					return Double.parseDouble(trimmed.substring(2));
+				} catch (NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+
+	/**
+	 * Compress bytes with a pooled deflater.
+	 *
+	 * @param data bytes to compress.
+	 * @param encoding content coding.
+	 * @return compressed bytes, framed as the content coding requires.
+	 */
+	public byte[] compress(byte[] data, Encoding encoding) {
+		boolean gzip = encoding == Encoding.GZIP;
+		DeflaterPool pool = gzip ? gzipDeflaters : deflateDeflaters;
+		Deflater deflater = pool.borrow();
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			// JSON usually shrinks to well under half its size
+			byte[] output = new byte[GZIP_HEADER.length + data.length / 2 + 64];
+			int length = 0;
+			if(gzip) {
+				System.arraycopy(GZIP_HEADER, 0, output, 0, GZIP_HEADER.length);
+				length = GZIP_HEADER.length;
+			}
+			while(!deflater.finished()) {
+				if(length == output.length)
+					output = Arrays.copyOf(output, output.length * 2);
+				length += deflater.deflate(output, length, output.length - length);
+			}
+			if(gzip) {
+				if(output.length - length < GZIP_TRAILER_LENGTH)
+					output = Arrays.copyOf(output, length + GZIP_TRAILER_LENGTH);
+				CRC32 crc = new CRC32();
+				crc.update(data, 0, data.length);
+				length = writeIntLittleEndian(output, length, (int) crc.getValue());
+				length = writeIntLittleEndian(output, length, data.length);
+			}
+			return Arrays.copyOf(output, length);
+		} finally {
+			pool.release(deflater);
+		}
+	}
+
+	private static int writeIntLittleEndian(byte[] output, int offset, int value) {
+		output[offset] = (byte) value;
+		output[offset + 1] = (byte) (value >> 8);
+		output[offset + 2] = (byte) (value >> 16);
+		output[offset + 3] = (byte) (value >> 24);
+		return offset + 4;
+	}
+
+	/**
+	 * @return number of idle deflaters pooled for a content coding.
+	 */
+	int getPooledDeflaters(Encoding encoding) {
+		return (encoding == Encoding.GZIP ? gzipDeflaters : deflateDeflaters).size.get();
+	}
+
+	/**
+	 * Content codings supported by {@link ResponseCompressor}. Brotli needs a native library the JDK
+	 * doesn't ship, so it is left out.
+	 */
+	public enum Encoding {
+		GZIP("gzip"),
+		DEFLATE("deflate");
+
+		private final String token;
+
+		Encoding(String token) {
+			this.token = token;
+		}
+
+		/**
+		 * @return content coding token, as used in Content-Encoding headers.
+		 */
+		public String getToken() {
+			return token;
+		}
+	}
+
+	/**
+	 * Bounded pool of deflaters producing raw deflate data (gzip framing is written around it) or zlib
+	 * data (the "deflate" content coding).
+	 */
+	private static class DeflaterPool {
+		private final boolean nowrap;
+		private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger size = new AtomicInteger();
+
+		private DeflaterPool(boolean nowrap) {
+			this.nowrap = nowrap;
+		}
+
+		private Deflater borrow() {
+			Deflater deflater = deflaters.poll();
+			if(deflater == null)
+				return new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+			size.decrementAndGet();
+			return deflater;
+		}
+
+		private void release(Deflater deflater) {
+			deflater.reset();
+			if(size.incrementAndGet() <= MAX_POOLED_DEFLATERS)
+				deflaters.offer(deflater);
+			else {
+				size.decrementAndGet();
+				deflater.end();
+			}
+		}
+	}
+}
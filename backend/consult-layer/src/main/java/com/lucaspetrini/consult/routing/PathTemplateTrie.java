@@ -0,0 +1,149 @@
+package com.lucaspetrini.consult.routing;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trie of path templates such as {@code /users/{id}/ratings/{code}}, compiled once when routes are
+ * registered, so matching a request path is a walk over its segments with no pattern matching.<br>
+ * A template segment is either literal or a {@code {name}} parameter matching any non empty segment.
+ * Literal segments take precedence over parameters, so {@code /ratings/top} wins over
+ * {@code /ratings/{code}}. Trailing slashes are ignored and parameter values are percent-decoded.
+ *
+ * @param <T> type of the values of the routes.
+ */
+public class PathTemplateTrie<T> {
+	private final Node<T> root = new Node<>();
+
+	/**
+	 * Register a path template.
+	 *
+	 * @param template path template.
+	 * @param value value returned when a path matches the template.
+	 * @return this trie.
+	 * @throws IllegalArgumentException if the template is malformed, already registered, or names a
+	 * parameter differently from a template sharing its prefix.
+	 */
+	public PathTemplateTrie<T> add(String template, T value) {
+		Node<T> node = root;
+		List<String> parameterNames = new ArrayList<>();
+		for(String segment : split(template)) {
+			if(segment.startsWith("{") && segment.endsWith("}")) {
+				String name = segment.substring(1, segment.length() - 1);
+				if(name.isEmpty() || name.indexOf('{') >= 0 || name.indexOf('}') >= 0 || parameterNames.contains(name))
+					throw new IllegalArgumentException("Invalid parameter " + segment + " in path template " + template);
+				if(node.parameter == null) {
+					node.parameter = new Node<>();
+					node.parameterName = name;
+				}
+				else if(!node.parameterName.equals(name))
+					throw new IllegalArgumentException("Parameter " + segment + " of path template " + template
+							+ " conflicts with {" + node.parameterName + "}");
+				parameterNames.add(name);
+				node = node.parameter;
+			}
+			else if(segment.indexOf('{') >= 0 || segment.indexOf('}') >= 0)
+				throw new IllegalArgumentException("Invalid segment " + segment + " in path template " + template);
+			else
+				node = node.literals.computeIfAbsent(segment, s -> new Node<>());
+		}
+		if(node.template != null)
+			throw new IllegalArgumentException("Path template " + template + " is already registered as " + node.template);
+		node.template = template;
+		node.value = value;
+		return this;
+	}
+
+	/**
+	 * Find the template matching a path.
+	 *
+	 * @param path request path, without query string.
+	 * @return match, or null if no template matches the path.
+	 */
+	public RouteMatch<T> match(String path) {
+		if(path == null)
+			return null;
+		List<String> segments = split(path);
+		String[] values = new String[segments.size()];
+		Node<T> node = match(root, segments, 0, values);
+		if(node == null)
+			return null;
+		Map<String, String> pathParams = Collections.emptyMap();
+		// walk the matched branch again to name the parameter values
+		Node<T> current = root;
+		for(int i = 0; i < values.length; i++) {
+			if(values[i] == null)
+				current = current.literals.get(segments.get(i));
+			else {
+				if(pathParams.isEmpty())
+					pathParams = new HashMap<>();
+				pathParams.put(current.parameterName, decode(values[i]));
+				current = current.parameter;
+			}
+		}
+		return new RouteMatch<>(node.template, node.value, pathParams);
+	}
+
+	/**
+	 * @return node of the template matching the segments from the index on, filling in the parameter
+	 * values, or null if there is none.
+	 */
+	private Node<T> match(Node<T> node, List<String> segments, int index, String[] values) {
+		if(index == segments.size())
+			return node.template != null ? node : null;
+		String segment = segments.get(index);
+		Node<T> literal = node.literals.get(segment);
+		if(literal != null) {
+			Node<T> matched = match(literal, segments, index + 1, values);
+			if(matched != null)
+				return matched;
+		}
+		if(node.parameter != null) {
+			values[index] = segment;
+			Node<T> matched = match(node.parameter, segments, index + 1, values);
+			if(matched != null)
+				return matched;
+			values[index] = null;
+		}
+		return null;
+	}
+
+	private static List<String> split(String path) {
+		List<String> segments = new ArrayList<>();
+		int start = 0;
+		int length = path.length();
+		while(start < length) {
+			int end = path.indexOf('/', start);
+			if(end < 0)
+				end = length;
+			if(end > start)
+				segments.add(path.substring(start, end));
+			start = end + 1;
+		}
+		return segments;
+	}
+
+	private static String decode(String value) {
+		if(value.indexOf('%') < 0)
+			return value;
+		try {
+			// '+' is only a space in query strings
+			return URLDecoder.decode(value.replace("+", "%2B"), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			return value;
+		}
+	}
+
+	private static class Node<T> {
+		private final Map<String, Node<T>> literals = new HashMap<>();
+		private Node<T> parameter;
+		private String parameterName;
+		private String template;
+		private T value;
+	}
+}
@@ -0,0 +1,39 @@
+package com.lucaspetrini.consult.routing;
+
+import java.util.Map;
+
+/**
+ * Value of the path template matching a request path, with the path parameters extracted from it.
+ *
+ * @param <T> type of the values of the routes.
+ */
+public class RouteMatch<T> {
+	private final String template;
+	private final T value;
+	private final Map<String, String> pathParams;
+
+	/**
+	 * Route match.
+	 *
+	 * @param template path template that matched.
+	 * @param value value registered with the template.
+	 * @param pathParams path parameters, by name.
+	 */
+	public RouteMatch(String template, T value, Map<String, String> pathParams) {
+		this.template = template;
+		this.value = value;
+		this.pathParams = pathParams;
+	}
+
+	public String getTemplate() {
+		return template;
+	}
+
+	public T getValue() {
+		return value;
+	}
+
+	public Map<String, String> getPathParams() {
+		return pathParams;
+	}
+}
@@ -0,0 +1,31 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.lucaspetrini.consult.service.model.Rating;
+
+/**
+ * Asynchronous service to handle persistence for {@link Rating ratings}. Futures complete
+ * exceptionally with a {@link com.lucaspetrini.consult.exception.ServiceException} on failure.
+ */
+public interface AsyncRatingService {
+
+	/**
+	 * Get a {@link Rating} by its code.
+	 * 
+	 * @param code code.
+	 * @return future rating, or null if not found.
+	 */
+	CompletableFuture<Rating> getByCode(String code);
+
+	/**
+	 * Get the {@link Rating ratings} for several codes at once.
+	 * 
+	 * @param codes codes.
+	 * @return future ratings found, by code. Codes without a rating are not included.
+	 */
+	CompletableFuture<Map<String, Rating>> getByCodes(Collection<String> codes);
+
+}
@@ -0,0 +1,41 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.service.model.UserRatingPage;
+
+/**
+ * Asynchronous service to handle persistence for {@link UserRating user ratings}. Futures complete
+ * exceptionally with a {@link com.lucaspetrini.consult.exception.ServiceException} on failure.
+ */
+public interface AsyncUserRatingService {
+
+	/**
+	 * Get a {@link UserRating} by its user id and code.
+	 * 
+	 * @param userId user id.
+	 * @param code code.
+	 * @return future user rating, or null if not found.
+	 */
+	CompletableFuture<UserRating> getByUserIdAndCode(String userId, String code);
+
+	/**
+	 * Get a page of the current {@link UserRating user ratings} of a code, superseded versions left out.
+	 * 
+	 * @param code code.
+	 * @param limit maximum number of user ratings in the page.
+	 * @param cursor cursor returned with the previous page, or null for the first one.
+	 * @return future page of user ratings, empty if the code has none.
+	 */
+	CompletableFuture<UserRatingPage> getReviewsByCode(String code, int limit, String cursor);
+
+	/**
+	 * Insert or update a {@link UserRating}.
+	 * 
+	 * @param userRating user rating to be inserted or updated.
+	 * @return future user rating after insertion/update.
+	 */
+	CompletableFuture<UserRating> put(UserRating userRating);
+
+}
@@ -0,0 +1,36 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.utils.CompletableFutures;
+
+/**
+ * Implementation of {@link RatingService} that waits for an underlying {@link AsyncRatingService}, so
+ * request handlers written against {@link RatingService} can run on the asynchronous client.
+ */
+public class BlockingRatingService implements RatingService {
+
+	private final AsyncRatingService ratingService;
+
+	/**
+	 * Implementation of {@link RatingService} that waits for an underlying {@link AsyncRatingService}.
+	 *
+	 * @param ratingService asynchronous rating service.
+	 */
+	public BlockingRatingService(AsyncRatingService ratingService) {
+		this.ratingService = ratingService;
+	}
+
+	@Override
+	public Rating getByCode(String code) {
+		return CompletableFutures.join(ratingService.getByCode(code));
+	}
+
+	@Override
+	public Map<String, Rating> getByCodes(Collection<String> codes) {
+		return CompletableFutures.join(ratingService.getByCodes(codes));
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.lucaspetrini.consult.service;
+
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.service.model.UserRatingPage;
+import com.lucaspetrini.consult.utils.CompletableFutures;
+
+/**
+ * Implementation of {@link UserRatingService} that waits for an underlying
+ * {@link AsyncUserRatingService}, so request handlers written against {@link UserRatingService} can
+ * run on the asynchronous client.
+ */
+public class BlockingUserRatingService implements UserRatingService {
+
+	private final AsyncUserRatingService userRatingService;
+
+	/**
+	 * Implementation of {@link UserRatingService} that waits for an underlying
+	 * {@link AsyncUserRatingService}.
+	 *
+	 * @param userRatingService asynchronous user rating service.
+	 */
+	public BlockingUserRatingService(AsyncUserRatingService userRatingService) {
+		this.userRatingService = userRatingService;
+	}
+
+	@Override
+	public UserRating getByUserIdAndCode(String userId, String code) {
+		return CompletableFutures.join(userRatingService.getByUserIdAndCode(userId, code));
+	}
+
+	@Override
+	public UserRatingPage getReviewsByCode(String code, int limit, String cursor) {
+		return CompletableFutures.join(userRatingService.getReviewsByCode(code, limit, cursor));
+	}
+
+	@Override
+	public UserRating put(UserRating userRating) {
+		return CompletableFutures.join(userRatingService.put(userRating));
+	}
+
+}
@@ -0,0 +1,234 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.lucaspetrini.consult.service.model.Rating;
+
+/**
+ * Implementation of {@link RatingService} that keeps the {@link Rating ratings} returned by an
+ * underlying {@link RatingService} in memory.<br>
+ * The cache is bounded: once it holds {@code maxSize} entries, the least recently used one is
+ * evicted. Each entry expires {@code ttl} after it was loaded, so a rating is never served more
+ * than {@code ttl} out of date. An instance should live as long as the Lambda container (i.e. be
+ * created in the handler constructor), so that warm invocations share it.
+ */
+public class CachingRatingService implements RatingService {
+	public static final int DEFAULT_MAX_SIZE = 1000;
+	public static final long DEFAULT_TTL_MILLIS = 5000;
+
+	private final RatingService ratingService;
+	private final int maxSize;
+	private final long ttlNanos;
+	private final LongSupplier clock;
+	private final Map<String, CacheEntry> cache;
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+
+	/**
+	 * Implementation of {@link RatingService} that keeps the {@link Rating ratings} returned by an
+	 * underlying {@link RatingService} in memory, using default size and time to live.
+	 *
+	 * @param ratingService underlying rating service.
+	 */
+	public CachingRatingService(RatingService ratingService) {
+		this(ratingService, DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+	}
+
+	/**
+	 * Implementation of {@link RatingService} that keeps the {@link Rating ratings} returned by an
+	 * underlying {@link RatingService} in memory.
+	 *
+	 * @param ratingService underlying rating service.
+	 * @param maxSize maximum number of cached ratings.
+	 * @param ttlMillis time, in milliseconds, a rating is kept after being loaded.
+	 */
+	public CachingRatingService(RatingService ratingService, int maxSize, long ttlMillis) {
+		this(ratingService, maxSize, ttlMillis, System::nanoTime);
+	}
+
+	/**
+	 * Implementation of {@link RatingService} that keeps the {@link Rating ratings} returned by an
+	 * underlying {@link RatingService} in memory.
+	 *
+	 * @param ratingService underlying rating service.
+	 * @param maxSize maximum number of cached ratings.
+	 * @param ttlMillis time, in milliseconds, a rating is kept after being loaded.
+	 * @param clock source of the current time, in nanoseconds.
+	 */
+	CachingRatingService(RatingService ratingService, int maxSize, long ttlMillis, LongSupplier clock) {
+		if(maxSize < 1)
+			throw new IllegalArgumentException("Cache size must be greater than 0.");
+		this.ratingService = ratingService;
+		this.maxSize = maxSize;
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+		this.clock = clock;
+		// access order makes the eldest entry the least recently used one
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+				if(size() > CachingRatingService.this.maxSize) {
+					evictionCount++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	@Override
+	public Rating getByCode(String code) {
+		long now = clock.getAsLong();
+		synchronized (this) {
+			CacheEntry entry = cache.get(code);
+			if(entry != null) {
+				if(now - entry.loadedAt < ttlNanos) {
+					hitCount++;
+					return copy(entry.rating);
+				}
+				cache.remove(code);
+			}
+			missCount++;
+		}
+		Rating rating = ratingService.getByCode(code);
+		// not found ratings are not cached, so a newly rated SKU shows up straight away
+		if(rating != null) {
+			synchronized (this) {
+				cache.put(code, new CacheEntry(copy(rating), now));
+			}
+		}
+		return rating;
+	}
+
+	/**
+	 * Cached versions are served from memory, without copying the rating. Otherwise the rating is loaded
+	 * and cached, so a full read following this one is served from memory.
+	 */
+	@Override
+	public Long getVersionByCode(String code) {
+		long now = clock.getAsLong();
+		synchronized (this) {
+			CacheEntry entry = cache.get(code);
+			if(entry != null && now - entry.loadedAt < ttlNanos) {
+				hitCount++;
+				return entry.rating.getVersion();
+			}
+		}
+		Rating rating = getByCode(code);
+		return rating != null ? rating.getVersion() : null;
+	}
+
+	/**
+	 * Cached ratings are served from memory, and the remaining codes are requested from the underlying
+	 * service in a single call.
+	 */
+	@Override
+	public Map<String, Rating> getByCodes(Collection<String> codes) {
+		long now = clock.getAsLong();
+		Map<String, Rating> ratings = new HashMap<>();
+		List<String> missingCodes = new ArrayList<>();
+		synchronized (this) {
+			for(String code : new LinkedHashSet<>(codes)) {
+				CacheEntry entry = cache.get(code);
+				if(entry != null && now - entry.loadedAt < ttlNanos) {
+					hitCount++;
+					ratings.put(code, copy(entry.rating));
+				}
+				else {
+					if(entry != null)
+						cache.remove(code);
+					missCount++;
+					missingCodes.add(code);
+				}
+			}
+		}
+		if(!missingCodes.isEmpty()) {
+			Map<String, Rating> loaded = ratingService.getByCodes(missingCodes);
+			synchronized (this) {
+				for(Map.Entry<String, Rating> rating : loaded.entrySet()) {
+					cache.put(rating.getKey(), new CacheEntry(copy(rating.getValue()), now));
+					ratings.put(rating.getKey(), rating.getValue());
+				}
+			}
+		}
+		return ratings;
+	}
+
+	/**
+	 * Remove a {@link Rating} from the cache, so the next call loads it from the underlying service.
+	 *
+	 * @param code code.
+	 */
+	public synchronized void invalidate(String code) {
+		cache.remove(code);
+	}
+
+	/**
+	 * Remove every {@link Rating} from the cache.
+	 */
+	public synchronized void invalidateAll() {
+		cache.clear();
+	}
+
+	/**
+	 * @return number of ratings currently cached, including expired ones not yet removed.
+	 */
+	public synchronized int size() {
+		return cache.size();
+	}
+
+	/**
+	 * @return number of calls served from the cache.
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return number of calls delegated to the underlying service.
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return number of ratings removed because the cache was full.
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Cached entries are copied on the way in and out, so callers can't change what is cached.
+	 */
+	private Rating copy(Rating rating) {
+		Rating newRating = new Rating();
+		newRating.setSku(rating.getSku());
+		newRating.setVersion(rating.getVersion());
+		newRating.setDate(rating.getDate());
+		newRating.setAggregated(rating.getAggregated());
+		newRating.setQuantity(rating.getQuantity());
+		newRating.setNumberOfReviews(rating.getNumberOfReviews());
+		return newRating;
+	}
+
+	private static class CacheEntry {
+		private final Rating rating;
+		private final long loadedAt;
+
+		private CacheEntry(Rating rating, long loadedAt) {
+			this.rating = rating;
+			this.loadedAt = loadedAt;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.lucaspetrini.consult.utils.ConsultConstants;
+import com.lucaspetrini.consult.utils.EnvironmentUtils;
+
+/**
+ * {@link ShardCountResolver} using a default shard count and a list of SKUs with their own count, such
+ * as {@code "sku1:8,sku2:16"}.
+ */
+public class ConfiguredShardCountResolver implements ShardCountResolver {
+	private final int defaultShardCount;
+	private final Map<String, Integer> shardCounts;
+
+	/**
+	 * {@link ShardCountResolver} using a default shard count and a list of SKUs with their own count.
+	 *
+	 * @param defaultShardCount shard count of the SKUs not listed.
+	 * @param shardCounts comma separated list of 'sku:count' pairs, may be null or empty.
+	 */
+	public ConfiguredShardCountResolver(int defaultShardCount, String shardCounts) {
+		if(defaultShardCount < 1)
+			throw new IllegalArgumentException("Shard count must be greater than 0.");
+		this.defaultShardCount = defaultShardCount;
+		this.shardCounts = parse(shardCounts);
+	}
+
+	/**
+	 * Create a resolver from the {@link ConsultConstants#ENV_RATING_SHARD_COUNT} and
+	 * {@link ConsultConstants#ENV_RATING_SHARD_COUNTS} environment variables.
+	 *
+	 * @return shard count resolver.
+	 */
+	public static ConfiguredShardCountResolver fromEnvironment() {
+		return new ConfiguredShardCountResolver(EnvironmentUtils.getInt(ConsultConstants.ENV_RATING_SHARD_COUNT, 1),
+				EnvironmentUtils.getString(ConsultConstants.ENV_RATING_SHARD_COUNTS, null));
+	}
+
+	@Override
+	public int getShardCount(String code) {
+		return shardCounts.getOrDefault(code, defaultShardCount);
+	}
+
+	private static Map<String, Integer> parse(String shardCounts) {
+		Map<String, Integer> result = new HashMap<>();
+		if(shardCounts == null || shardCounts.isBlank())
+			return result;
+		for(String pair : shardCounts.split(",")) {
+			int separator = pair.lastIndexOf(':');
+			if(separator <= 0)
+				throw new IllegalArgumentException("Invalid shard count '" + pair.trim() + "', expected 'sku:count'.");
+			int count = Integer.parseInt(pair.substring(separator + 1).trim());
+			if(count < 1)
+				throw new IllegalArgumentException("Shard count must be greater than 0.");
+			result.put(pair.substring(0, separator).trim(), count);
+		}
+		return result;
+	}
+}
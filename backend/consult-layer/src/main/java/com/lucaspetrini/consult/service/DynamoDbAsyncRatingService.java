@@ -0,0 +1,259 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lucaspetrini.consult.exception.DatabaseException;
+import com.lucaspetrini.consult.exception.ServiceException;
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.service.model.RatingTableSchema;
+import com.lucaspetrini.consult.utils.CompletableFutures;
+import com.lucaspetrini.consult.utils.DynamoDbClientRegistry;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+/**
+ * Implementation of {@link AsyncRatingService} that retrieves {@link Rating ratings} from Amazon
+ * DynamoDB without blocking the calling thread.
+ */
+public class DynamoDbAsyncRatingService implements AsyncRatingService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(DynamoDbAsyncRatingService.class);
+	private static final String RATINGS = "ratings";
+
+	private DynamoDbAsyncClient dynamoDbAsyncClient;
+	private DynamoDbEnhancedAsyncClient dynamoDbEnhancedAsyncClient;
+	private DynamoDbAsyncTable<Rating> ratingsTable;
+	private String ratingsTableName;
+	private ShardCountResolver shardCountResolver = ShardCountResolver.unsharded();
+
+	/**
+	 * Implementation of {@link AsyncRatingService} that retrieves {@link Rating ratings} from Amazon
+	 * DynamoDB without blocking the calling thread.
+	 */
+	public DynamoDbAsyncRatingService() {
+		initDefaults(null);
+	}
+
+	/**
+	 * Implementation of {@link AsyncRatingService} that retrieves {@link Rating ratings} from Amazon
+	 * DynamoDB without blocking the calling thread.
+	 *
+	 * @param dynamoDbAsyncClient underlying {@link DynamoDbAsyncClient}.
+	 */
+	public DynamoDbAsyncRatingService(DynamoDbAsyncClient dynamoDbAsyncClient) {
+		initDefaults(dynamoDbAsyncClient);
+	}
+
+	private void initDefaults(DynamoDbAsyncClient dynamoDbAsyncClient) {
+		this.dynamoDbAsyncClient = dynamoDbAsyncClient != null ? dynamoDbAsyncClient : DynamoDbClientRegistry.asyncClient();
+		this.dynamoDbEnhancedAsyncClient = DynamoDbEnhancedAsyncClient.builder().dynamoDbClient(this.dynamoDbAsyncClient).build();
+		withRatingsTable(RATINGS);
+	}
+
+	/**
+	 * Set the table name to be used for {@link Rating ratings}.
+	 *
+	 * @param ratingsTable table name.
+	 * @return this {@link DynamoDbAsyncRatingService} instance.
+	 */
+	public DynamoDbAsyncRatingService withRatingsTable(String ratingsTable) {
+		this.ratingsTableName = ratingsTable;
+		this.ratingsTable = dynamoDbEnhancedAsyncClient.table(ratingsTableName, RatingTableSchema.INSTANCE);
+		return this;
+	}
+
+	/**
+	 * Set how many shard items hold the aggregate of each SKU. Must match the resolver used by writers.
+	 *
+	 * @param shardCountResolver shard count resolver.
+	 * @return this {@link DynamoDbAsyncRatingService} instance.
+	 */
+	public DynamoDbAsyncRatingService withShardCountResolver(ShardCountResolver shardCountResolver) {
+		this.shardCountResolver = shardCountResolver;
+		return this;
+	}
+
+	/**
+	 * Return the latest {@link Rating} from the database.
+	 *
+	 * @param code SKU.
+	 * @return future latest rating, or null if there is none.
+	 */
+	protected CompletableFuture<Rating> getLatestItem(String code) {
+		Key key = Key.builder().partitionValue(AttributeValue.fromS(code)).build();
+		QueryEnhancedRequest request = QueryEnhancedRequest.builder().limit(1)
+				.queryConditional(QueryConditional.keyEqualTo(key)).scanIndexForward(false).build();
+		CompletableFuture<Rating> rating = new CompletableFuture<>();
+		// only the first page is needed; completing twice is a no-op, so the null below only applies
+		// when the query returned no page at all
+		ratingsTable.query(request).limit(1)
+				.subscribe(page -> rating.complete(page.items().isEmpty() ? null : page.items().get(0)))
+				.whenComplete((ignored, e) -> {
+					if(e != null)
+						rating.completeExceptionally(e);
+					else
+						rating.complete(null);
+				});
+		return rating;
+	}
+
+	/**
+	 * Return the current {@link Rating} from the database: the one mirrored by the head item or, for
+	 * SKUs without a head item, the latest version.
+	 *
+	 * @param code SKU.
+	 * @return future current rating, or null if there is none.
+	 */
+	protected CompletableFuture<Rating> getCurrentItem(String code) {
+		if(shardCountResolver.getShardCount(code) > 1) {
+			return getAggregates(List.of(code)).thenCompose(ratings -> ratings.containsKey(code)
+					? CompletableFuture.completedFuture(ratings.get(code)) : getLatestItem(code));
+		}
+		return ratingsTable.getItem(Key.builder().partitionValue(code).sortValue(DynamoDbRatingService.HEAD_VERSION).build())
+				.thenCompose(head -> head != null ? CompletableFuture.completedFuture(DynamoDbRatingService.fromHeadItem(head))
+						: getLatestItem(code));
+	}
+
+	/**
+	 * Return the head and shard items with the given partition keys, retrying keys left unprocessed by
+	 * DynamoDB with exponential backoff. Retries are scheduled instead of waited for, so no thread is held
+	 * meanwhile.
+	 *
+	 * @param partitionKeys partition keys, at most {@link DynamoDbRatingService#BATCH_GET_MAX_KEYS}.
+	 * @return future items found, by partition key.
+	 */
+	protected CompletableFuture<Map<String, Rating>> getHeadItems(List<String> partitionKeys) {
+		return getHeadItems(DynamoDbRatingService.headKeys(ratingsTableName, partitionKeys), new HashMap<>(), 0);
+	}
+
+	/**
+	 * Return the aggregates of the given SKUs, summing the head and shard items of each one. Items are
+	 * read in chunks of {@link DynamoDbRatingService#BATCH_GET_MAX_KEYS} keys, all of them in flight at
+	 * the same time.
+	 *
+	 * @param codes SKUs.
+	 * @return future ratings found, by SKU.
+	 */
+	protected CompletableFuture<Map<String, Rating>> getAggregates(Collection<String> codes) {
+		List<List<String>> chunks = DynamoDbRatingService.toBatchChunks(DynamoDbRatingService.toPartitionKeys(codes, shardCountResolver));
+		List<CompletableFuture<Map<String, Rating>>> futures = new ArrayList<>(chunks.size());
+		for(List<String> chunk : chunks) {
+			futures.add(getHeadItems(chunk));
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+				.thenApply(ignored -> {
+					Map<String, Rating> heads = new HashMap<>();
+					for(CompletableFuture<Map<String, Rating>> future : futures) {
+						heads.putAll(future.join());
+					}
+					return DynamoDbRatingService.combineShards(codes, heads, shardCountResolver);
+				});
+	}
+
+	/**
+	 * Return the current {@link Rating ratings} of the given SKUs: their aggregates or, for SKUs without
+	 * a head item, their latest versions, all of them queried at the same time.
+	 *
+	 * @param codes SKUs.
+	 * @return future ratings found, by SKU.
+	 */
+	protected CompletableFuture<Map<String, Rating>> getCurrentItems(Collection<String> codes) {
+		return getAggregates(codes).thenCompose(ratings -> {
+			List<String> missingCodes = DynamoDbRatingService.missingCodes(codes, ratings);
+			if(missingCodes.isEmpty())
+				return CompletableFuture.completedFuture(ratings);
+			List<CompletableFuture<Rating>> futures = new ArrayList<>(missingCodes.size());
+			for(String code : missingCodes) {
+				futures.add(getLatestItem(code));
+			}
+			return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+					.thenApply(ignored -> {
+						for(int i = 0; i < missingCodes.size(); i++) {
+							Rating rating = futures.get(i).join();
+							if(rating != null)
+								ratings.put(missingCodes.get(i), rating);
+						}
+						return ratings;
+					});
+		});
+	}
+
+	private CompletableFuture<Map<String, Rating>> getHeadItems(Map<String, KeysAndAttributes> requestItems, Map<String, Rating> heads, int attempt) {
+		if(requestItems.isEmpty()) {
+			return CompletableFuture.completedFuture(heads);
+		}
+		if(attempt > DynamoDbRatingService.BATCH_GET_MAX_RETRIES) {
+			return CompletableFuture.failedFuture(new IllegalStateException(
+					"Unprocessed keys left after " + DynamoDbRatingService.BATCH_GET_MAX_RETRIES + " retries."));
+		}
+		Executor executor = attempt == 0 ? Runnable::run : CompletableFuture.delayedExecutor(
+				DynamoDbRatingService.getBatchBackoffMillis(attempt), TimeUnit.MILLISECONDS);
+		return CompletableFuture.supplyAsync(() -> BatchGetItemRequest.builder().requestItems(requestItems).build(), executor)
+				.thenCompose(dynamoDbAsyncClient::batchGetItem)
+				.thenCompose(response -> {
+					List<Map<String, AttributeValue>> items = response.responses().get(ratingsTableName);
+					if(items != null) {
+						for(Map<String, AttributeValue> item : items) {
+							Rating head = ratingsTable.tableSchema().mapToItem(item);
+							heads.put(head.getSku(), head);
+						}
+					}
+					return getHeadItems(response.unprocessedKeys(), heads, attempt + 1);
+				});
+	}
+
+	@Override
+	public CompletableFuture<Rating> getByCode(String code) {
+		return toServiceException(getCurrentItem(code));
+	}
+
+	/**
+	 * Head and shard items are read with BatchGetItem, in chunks of
+	 * {@link DynamoDbRatingService#BATCH_GET_MAX_KEYS} keys, all of them in flight at the same time. SKUs
+	 * without a head item are read like {@link #getByCode(String)} does, from their latest version.
+	 */
+	@Override
+	public CompletableFuture<Map<String, Rating>> getByCodes(Collection<String> codes) {
+		return toServiceException(getCurrentItems(codes));
+	}
+
+	/**
+	 * Complete the returned future with a {@link DatabaseException} if the given one fails with
+	 * anything other than a {@link ServiceException}.
+	 *
+	 * @param <T> value type.
+	 * @param future future.
+	 * @return future failing only with service exceptions.
+	 */
+	static <T> CompletableFuture<T> toServiceException(CompletableFuture<T> future) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		future.whenComplete((value, e) -> {
+			if(e == null) {
+				result.complete(value);
+				return;
+			}
+			Throwable cause = CompletableFutures.unwrap(e);
+			LOGGER.error("Caught exception: {}", cause.getMessage(), cause);
+			result.completeExceptionally(cause instanceof ServiceException ? cause : new DatabaseException(cause));
+		});
+		return result;
+	}
+
+}
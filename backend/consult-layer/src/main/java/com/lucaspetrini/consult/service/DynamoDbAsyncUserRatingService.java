@@ -0,0 +1,307 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.service.model.RatingTableSchema;
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.service.model.UserRatingPage;
+import com.lucaspetrini.consult.service.model.UserRatingTableSchema;
+import com.lucaspetrini.consult.utils.CompletableFutures;
+import com.lucaspetrini.consult.utils.DynamoDbClientRegistry;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+/**
+ * Implementation of {@link AsyncUserRatingService} that stores and retrieves
+ * {@link UserRating user ratings} from Amazon DynamoDB without blocking the calling thread.<br>
+ * The items written are the same as {@link DynamoDbUserRatingService} in {@link RatingWriteMode#VERSIONED
+ * versioned mode}, the only one supported, but the current user rating and the latest rating are read
+ * concurrently before the transaction is sent. Cancelled transactions are retried like
+ * {@link DynamoDbUserRatingService} does, with retries scheduled instead of waited for.
+ */
+public class DynamoDbAsyncUserRatingService implements AsyncUserRatingService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(DynamoDbAsyncUserRatingService.class);
+	private static final String VERSION_PREFIX = UserRatingWrite.VERSION_PREFIX;
+	private static final String USER_RATINGS = "user_ratings";
+	private static final String RATINGS = "ratings";
+
+	private DynamoDbAsyncClient dynamoDbAsyncClient;
+	private DynamoDbEnhancedAsyncClient dynamoDbEnhancedAsyncClient;
+	private DynamoDbAsyncTable<UserRating> userRatingsTable;
+	private DynamoDbAsyncTable<Rating> ratingsTable;
+	private DynamoDbAsyncTable<UserRating> userRatingArchiveTable;
+	private UserRatingHistoryPolicy historyPolicy = UserRatingHistoryPolicy.keepAll();
+	private DynamoDbAsyncRatingService ratingService;
+	private TransactionRetryPolicy retryPolicy = new TransactionRetryPolicy();
+	private final TransactionRetryMetrics retryMetrics = new TransactionRetryMetrics();
+
+	/**
+	 * Implementation of {@link AsyncUserRatingService} that stores and retrieves
+	 * {@link UserRating user ratings} from Amazon DynamoDB without blocking the calling thread.
+	 */
+	public DynamoDbAsyncUserRatingService() {
+		initDefaults(null);
+	}
+
+	/**
+	 * Implementation of {@link AsyncUserRatingService} that stores and retrieves
+	 * {@link UserRating user ratings} from Amazon DynamoDB without blocking the calling thread.
+	 *
+	 * @param dynamoDbAsyncClient underlying {@link DynamoDbAsyncClient}.
+	 */
+	public DynamoDbAsyncUserRatingService(DynamoDbAsyncClient dynamoDbAsyncClient) {
+		initDefaults(dynamoDbAsyncClient);
+	}
+
+	private void initDefaults(DynamoDbAsyncClient dynamoDbAsyncClient) {
+		this.dynamoDbAsyncClient = dynamoDbAsyncClient != null ? dynamoDbAsyncClient : DynamoDbClientRegistry.asyncClient();
+		this.dynamoDbEnhancedAsyncClient = DynamoDbEnhancedAsyncClient.builder().dynamoDbClient(this.dynamoDbAsyncClient).build();
+		this.ratingService = new DynamoDbAsyncRatingService(this.dynamoDbAsyncClient);
+		withUserRatingsTable(USER_RATINGS);
+		withRatingsTable(RATINGS);
+	}
+
+	/**
+	 * Set the table name to be used for {@link UserRating user ratings}.
+	 *
+	 * @param userRatingsTable table name.
+	 * @return this {@link DynamoDbAsyncUserRatingService} instance.
+	 */
+	public DynamoDbAsyncUserRatingService withUserRatingsTable(String userRatingsTable) {
+		this.userRatingsTable = dynamoDbEnhancedAsyncClient.table(userRatingsTable, UserRatingTableSchema.INSTANCE);
+		return this;
+	}
+
+	/**
+	 * Set the table name to be used for {@link Rating ratings}.
+	 *
+	 * @param ratingsTable table name.
+	 * @return this {@link DynamoDbAsyncUserRatingService} instance.
+	 */
+	public DynamoDbAsyncUserRatingService withRatingsTable(String ratingsTable) {
+		this.ratingsTable = dynamoDbEnhancedAsyncClient.table(ratingsTable, RatingTableSchema.INSTANCE);
+		ratingService.withRatingsTable(ratingsTable);
+		return this;
+	}
+
+	/**
+	 * Set the table superseded user rating versions are written to, instead of the user ratings table.
+	 *
+	 * @param userRatingArchiveTable table name, or null to keep superseded versions in the user ratings table.
+	 * @return this {@link DynamoDbAsyncUserRatingService} instance.
+	 */
+	public DynamoDbAsyncUserRatingService withUserRatingArchiveTable(String userRatingArchiveTable) {
+		this.userRatingArchiveTable = userRatingArchiveTable == null ? null
+				: dynamoDbEnhancedAsyncClient.table(userRatingArchiveTable, UserRatingTableSchema.INSTANCE);
+		return this;
+	}
+
+	/**
+	 * Set how long superseded user rating versions are kept.
+	 *
+	 * @param historyPolicy history retention policy.
+	 * @return this {@link DynamoDbAsyncUserRatingService} instance.
+	 */
+	public DynamoDbAsyncUserRatingService withHistoryPolicy(UserRatingHistoryPolicy historyPolicy) {
+		this.historyPolicy = historyPolicy;
+		return this;
+	}
+
+	/**
+	 * Set how many shard items hold the aggregate of each SKU. Must match the resolver used by writers.
+	 *
+	 * @param shardCountResolver shard count resolver.
+	 * @return this {@link DynamoDbAsyncUserRatingService} instance.
+	 */
+	public DynamoDbAsyncUserRatingService withShardCountResolver(ShardCountResolver shardCountResolver) {
+		ratingService.withShardCountResolver(shardCountResolver);
+		return this;
+	}
+
+	/**
+	 * Set how the totals of a SKU are maintained. Only {@link RatingWriteMode#VERSIONED} is supported: the
+	 * other modes need the blocking {@link DynamoDbUserRatingService}, and mixing modes on the same table
+	 * would corrupt the totals.
+	 *
+	 * @param writeMode write mode.
+	 * @return this {@link DynamoDbAsyncUserRatingService} instance.
+	 * @throws IllegalArgumentException if the write mode is not supported.
+	 */
+	public DynamoDbAsyncUserRatingService withWriteMode(RatingWriteMode writeMode) {
+		if(writeMode != RatingWriteMode.VERSIONED)
+			throw new IllegalArgumentException("Write mode " + writeMode + " is not supported by " + getClass().getSimpleName() + ".");
+		return this;
+	}
+
+	/**
+	 * Set how cancelled transactions are retried.
+	 *
+	 * @param retryPolicy retry policy.
+	 * @return this {@link DynamoDbAsyncUserRatingService} instance.
+	 */
+	public DynamoDbAsyncUserRatingService withRetryPolicy(TransactionRetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+		return this;
+	}
+
+	/**
+	 * @return how many attempts puts took, and why attempts failed.
+	 */
+	public TransactionRetryMetrics getRetryMetrics() {
+		return retryMetrics;
+	}
+
+	@Override
+	public CompletableFuture<UserRating> getByUserIdAndCode(String userId, String code) {
+		return DynamoDbAsyncRatingService.toServiceException(getItem(code, VERSION_PREFIX + userId).thenApply(item -> {
+			if(item != null) {
+				int versionSeparatorPosition = item.getUser().lastIndexOf('-');
+				if(versionSeparatorPosition >= 0) {
+					item.setUser(item.getUser().substring(versionSeparatorPosition + 1));
+				}
+			}
+			return item;
+		}));
+	}
+
+	/**
+	 * See {@link ReviewsQuery}: superseded versions are not read, and a page of N user ratings reads N
+	 * items.
+	 */
+	@Override
+	public CompletableFuture<UserRatingPage> getReviewsByCode(String code, int limit, String cursor) {
+		CompletableFuture<UserRatingPage> page;
+		try {
+			page = dynamoDbAsyncClient.query(ReviewsQuery.toRequest(userRatingsTable.tableName(), code, limit, cursor))
+					.thenApply(response -> ReviewsQuery.toPage(code, response));
+		} catch (RuntimeException e) {
+			page = CompletableFuture.failedFuture(e);
+		}
+		return DynamoDbAsyncRatingService.toServiceException(page);
+	}
+
+	/**
+	 * Cancelled transactions are retried within the {@link #withRetryPolicy(TransactionRetryPolicy) retry
+	 * policy}, reading again only the items whose condition failed. Once they won't be retried anymore,
+	 * the future fails with the {@link com.lucaspetrini.consult.exception.ServiceException} matching the
+	 * cancellation reasons, like {@link DynamoDbUserRatingService#put(UserRating)} throws.
+	 */
+	@Override
+	public CompletableFuture<UserRating> put(UserRating userRating) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryPolicy.getBudgetMillis());
+		CompletableFuture<UserRating> currentUserRating = getItem(userRating.getSku(), VERSION_PREFIX + userRating.getUser());
+		CompletableFuture<Rating> currentRating = ratingService.getCurrentItem(userRating.getSku());
+		CompletableFuture<UserRating> result = currentUserRating
+				.thenCombine(currentRating, (user, rating) -> newWrite(userRating, user, rating))
+				.thenCompose(write -> writeItems(userRating, write, 1, 0, deadline));
+		return DynamoDbAsyncRatingService.toServiceException(result);
+	}
+
+	/**
+	 * Send the transaction of a put and, if it's cancelled, schedule the next attempt.
+	 *
+	 * @param userRating user rating being put.
+	 * @param write items to be written.
+	 * @param attempts number of this attempt, starting at 1.
+	 * @param delayMillis delay before this attempt.
+	 * @param deadline {@link System#nanoTime()} after which no attempt is scheduled.
+	 * @return future user rating as stored.
+	 */
+	private CompletableFuture<UserRating> writeItems(UserRating userRating, UserRatingWrite write, int attempts, long delayMillis,
+			long deadline) {
+		CompletableFuture<UserRating> result = new CompletableFuture<>();
+		CompletableFuture<Void> transaction;
+		try {
+			transaction = dynamoDbEnhancedAsyncClient.transactWriteItems(write.toRequest(userRatingsTable, ratingsTable));
+		} catch (RuntimeException e) {
+			transaction = CompletableFuture.failedFuture(e);
+		}
+		transaction.whenComplete((ignored, e) -> {
+			if(e == null) {
+				retryMetrics.recordWrite(attempts, true);
+				result.complete(write.getResult());
+				return;
+			}
+			Throwable cause = CompletableFutures.unwrap(e);
+			if(!(cause instanceof TransactionCanceledException)) {
+				retryMetrics.recordWrite(attempts, false);
+				result.completeExceptionally(cause);
+				return;
+			}
+			TransactionFailure failure = TransactionFailure.of((TransactionCanceledException) cause);
+			retryMetrics.recordFailure(failure.getType());
+			long nextDelayMillis = retryPolicy.nextDelayMillis(delayMillis);
+			if(!failure.isRetryable() || attempts >= retryPolicy.getMaxAttempts()
+					|| System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(nextDelayMillis) > deadline) {
+				retryMetrics.recordWrite(attempts, false);
+				LOGGER.error("Transaction cancelled ({}) after {} attempt(s): {}", failure.getType(), attempts, cause.getMessage(), cause);
+				result.completeExceptionally(failure.toServiceException(cause));
+				return;
+			}
+			LOGGER.warn("Transaction cancelled ({}), retrying in {} ms.", failure.getType(), nextDelayMillis);
+			Executor delayed = CompletableFuture.delayedExecutor(nextDelayMillis, TimeUnit.MILLISECONDS);
+			CompletableFuture.supplyAsync(() -> write, delayed)
+					.thenCompose(cancelled -> refreshWrite(userRating, cancelled, failure))
+					.thenCompose(next -> writeItems(userRating, next, attempts + 1, nextDelayMillis, deadline))
+					.whenComplete((value, retryException) -> {
+						if(retryException == null)
+							result.complete(value);
+						else
+							result.completeExceptionally(CompletableFutures.unwrap(retryException));
+					});
+		});
+		return result;
+	}
+
+	/**
+	 * Compute the items to be written again after a cancelled transaction, reading again only the items
+	 * whose condition failed.
+	 *
+	 * @param userRating user rating being put.
+	 * @param write items of the cancelled transaction.
+	 * @param failure why the transaction was cancelled.
+	 * @return future items to be written.
+	 */
+	CompletableFuture<UserRatingWrite> refreshWrite(UserRating userRating, UserRatingWrite write, TransactionFailure failure) {
+		int userRatingItemCount = write.getUserRatingItemCount();
+		boolean userRatingStale = false;
+		for(int i = 0; i < userRatingItemCount; i++)
+			userRatingStale |= failure.isConditionalCheckFailed(i);
+		CompletableFuture<UserRating> currentUserRating = userRatingStale
+				? getItem(userRating.getSku(), VERSION_PREFIX + userRating.getUser())
+				: CompletableFuture.completedFuture(write.getCurrentUserRating());
+		CompletableFuture<Rating> currentRating = failure.isConditionalCheckFailed(userRatingItemCount)
+				? ratingService.getCurrentItem(userRating.getSku())
+				: CompletableFuture.completedFuture(write.getCurrentRating());
+		return currentUserRating.thenCombine(currentRating, (user, rating) -> newWrite(userRating, user, rating));
+	}
+
+	private UserRatingWrite newWrite(UserRating userRating, UserRating currentUserRating, Rating currentRating) {
+		return new UserRatingWrite(userRating, currentUserRating, currentRating).withHistoryPolicy(historyPolicy, userRatingArchiveTable);
+	}
+
+	/**
+	 * Get a single item from the database.
+	 *
+	 * @param code user rating code.
+	 * @param user user rating user id.
+	 * @return future item, or null if it doesn't exist.
+	 */
+	protected CompletableFuture<UserRating> getItem(String code, String user) {
+		Key key = Key.builder()
+				.partitionValue(code)
+				.sortValue(user)
+				.build();
+		return userRatingsTable.getItem(key);
+	}
+}
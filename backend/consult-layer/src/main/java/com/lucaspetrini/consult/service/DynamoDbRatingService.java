@@ -1,25 +1,40 @@
 package com.lucaspetrini.consult.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.lucaspetrini.consult.exception.DatabaseException;
+import com.lucaspetrini.consult.metrics.RequestCapacity;
 import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.service.model.RatingTableSchema;
 import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.utils.ConsultExecutors;
+import com.lucaspetrini.consult.utils.DynamoDbClientRegistry;
 
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
 
 /**
  * Implementation of {@link RatingService} that stores and retrieves
@@ -29,11 +44,22 @@ public class DynamoDbRatingService implements RatingService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(DynamoDbRatingService.class);
 	private static final String RATINGS = "ratings";
 	private static final String RATINGS_SKU = "sku";
+	private static final String RATINGS_VERSION = "version";
 	private static final long DEFAULT_TIMEOUT_SECONDS = 100;
+	/** Sort key of the head item, which mirrors the latest version of a SKU. */
+	static final long HEAD_VERSION = 0L;
+	/** Maximum number of keys DynamoDB accepts in a single BatchGetItem request. */
+	static final int BATCH_GET_MAX_KEYS = 100;
+	static final int BATCH_GET_MAX_RETRIES = 5;
+	private static final long BATCH_GET_BASE_BACKOFF_MILLIS = 25;
+	/** Separator between the SKU and the shard index in the partition key of shard items. */
+	static final char SHARD_SEPARATOR = '#';
 
+	private DynamoDbClient dynamoDbClient;
 	private DynamoDbEnhancedClient dynamoDbEnhancedClient;
 	private DynamoDbTable<Rating> ratingsTable;
 	private String ratingsTableName;
+	private ShardCountResolver shardCountResolver = ShardCountResolver.unsharded();
 
 	/**
 	 * Implementation of {@link RatingService} that stores and retrieves
@@ -53,24 +79,22 @@ public class DynamoDbRatingService implements RatingService {
 		initDefaults(dynamoDbClient);
 	}
 
-	private void initDefaults(DynamoDbClient dynamoDbClient) {
-		if (dynamoDbClient != null) {
-			setDynamoDbClient(dynamoDbClient);
-		} else {
-			setDynamoDbClient(DynamoDbClient.create());
-		}
+	/**
+	 * Implementation of {@link RatingService} sharing the enhanced client of another service.
+	 *
+	 * @param dynamoDbClient underlying {@link DynamoDbClient}.
+	 * @param dynamoDbEnhancedClient enhanced client wrapping it.
+	 */
+	DynamoDbRatingService(DynamoDbClient dynamoDbClient, DynamoDbEnhancedClient dynamoDbEnhancedClient) {
+		this.dynamoDbClient = dynamoDbClient;
+		this.dynamoDbEnhancedClient = dynamoDbEnhancedClient;
 		withRatingsTable(RATINGS);
 	}
 
-	private void setDynamoDbClient(DynamoDbClient dynamoDbClient) {
-		this.dynamoDbEnhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
-		mapTables(dynamoDbEnhancedClient);
-	}
-
-	// TODO an IoC container would be very useful to handle singletons and avoid
-	// redundancy
-	private void mapTables(DynamoDbEnhancedClient dynamoDbEnhancedClient) {
-		ratingsTable = dynamoDbEnhancedClient.table(ratingsTableName, TableSchema.fromBean(Rating.class));
+	private void initDefaults(DynamoDbClient dynamoDbClient) {
+		this.dynamoDbClient = dynamoDbClient != null ? dynamoDbClient : DynamoDbClientRegistry.client();
+		this.dynamoDbEnhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(this.dynamoDbClient).build();
+		withRatingsTable(RATINGS);
 	}
 
 	/**
@@ -81,7 +105,18 @@ public class DynamoDbRatingService implements RatingService {
 	 */
 	public DynamoDbRatingService withRatingsTable(String ratingsTable) {
 		this.ratingsTableName = ratingsTable;
-		mapTables(dynamoDbEnhancedClient);
+		this.ratingsTable = dynamoDbEnhancedClient.table(ratingsTable, RatingTableSchema.INSTANCE);
+		return this;
+	}
+
+	/**
+	 * Set how many shard items hold the aggregate of each SKU. Must match the resolver used by writers.
+	 *
+	 * @param shardCountResolver shard count resolver.
+	 * @return this {@link DynamoDbRatingService} instance.
+	 */
+	public DynamoDbRatingService withShardCountResolver(ShardCountResolver shardCountResolver) {
+		this.shardCountResolver = shardCountResolver;
 		return this;
 	}
 
@@ -120,13 +155,78 @@ public class DynamoDbRatingService implements RatingService {
 				rating = items.size() > 0 ? items.get(0) : null;
 			}
 		} catch (Exception e) {
-			LOGGER.error("Caught exception: " + e.getMessage());
+			LOGGER.error("Caught exception: {}", e.getMessage(), e);
 			throw e;
 		}
 		return rating;
 	}
 
+	/**
+	 * Return the current {@link Rating} from the database: the one mirrored by the head item or, for
+	 * SKUs without a head item, the latest version.
+	 *
+	 * @param code SKU.
+	 * @return current rating, or null if there is none.
+	 */
+	protected Rating getCurrentItem(String code) {
+		Rating rating;
+		if(shardCountResolver.getShardCount(code) > 1) {
+			rating = getAggregates(List.of(code)).get(code);
+		}
+		else {
+			Rating head = ratingsTable.getItem(Key.builder().partitionValue(code).sortValue(HEAD_VERSION).build());
+			rating = head != null ? fromHeadItem(head) : null;
+		}
+		return rating != null ? rating : getLatestItem(code);
+	}
+
+	/**
+	 * Write the head item of a SKU that has none, from its latest version row, so the changes added to it
+	 * afterwards start from the full totals. SKUs without any version row get a head item with empty
+	 * totals. The head item is only written if it still doesn't exist.
+	 *
+	 * @param code SKU.
+	 * @return whether the head item was written, rather than found to exist already.
+	 */
+	protected boolean seedHeadItem(String code) {
+		Rating latest = getLatestItem(code);
+		if(latest != null && latest.getVersion() == HEAD_VERSION)
+			return false;
+		Rating head;
+		if(latest != null) {
+			head = toHeadItem(latest);
+		}
+		else {
+			head = new Rating();
+			head.setSku(code);
+			head.setVersion(HEAD_VERSION);
+			head.setAggregated(0L);
+			head.setQuantity(0L);
+			head.setNumberOfReviews(0L);
+			head.setLatestVersion(HEAD_VERSION);
+		}
+		try {
+			dynamoDbClient.putItem(PutItemRequest.builder().tableName(ratingsTableName)
+					.item(ratingsTable.tableSchema().itemToMap(head, true))
+					.conditionExpression("attribute_not_exists(sku)").build());
+			return true;
+		} catch (ConditionalCheckFailedException e) {
+			// written concurrently, by another put or aggregation
+			return false;
+		}
+	}
+
 	protected Rating cloneRating(Rating rating) {
+		return copyRating(rating);
+	}
+
+	/**
+	 * Return a new {@link Rating} instance identical to the one passed as parameter.
+	 *
+	 * @param rating instance to copy.
+	 * @return copied rating.
+	 */
+	static Rating copyRating(Rating rating) {
 		if(rating == null)
 			return null;
 		Rating newRating = new Rating();
@@ -135,16 +235,279 @@ public class DynamoDbRatingService implements RatingService {
 		newRating.setDate(rating.getDate());
 		newRating.setAggregated(rating.getAggregated());
 		newRating.setQuantity(rating.getQuantity());
+		newRating.setNumberOfReviews(rating.getNumberOfReviews());
+		newRating.setLatestVersion(rating.getLatestVersion());
 		return newRating;
 	}
 
+	/**
+	 * Return the head item for a {@link Rating}, i.e. a copy stored under {@link #HEAD_VERSION} that
+	 * points to the rating's version.
+	 *
+	 * @param rating latest rating of a SKU.
+	 * @return head item.
+	 */
+	static Rating toHeadItem(Rating rating) {
+		Rating head = copyRating(rating);
+		head.setVersion(HEAD_VERSION);
+		head.setLatestVersion(rating.getVersion());
+		return head;
+	}
+
+	/**
+	 * Return the {@link Rating} mirrored by a head item.
+	 *
+	 * @param head head item.
+	 * @return rating, with the version the head item points to.
+	 */
+	static Rating fromHeadItem(Rating head) {
+		Rating rating = copyRating(head);
+		rating.setVersion(head.getLatestVersion() == null ? HEAD_VERSION : head.getLatestVersion());
+		rating.setLatestVersion(null);
+		return rating;
+	}
+
+	/**
+	 * Return the head and shard items with the given partition keys, retrying keys left unprocessed by
+	 * DynamoDB with exponential backoff.
+	 *
+	 * @param partitionKeys partition keys, at most {@link #BATCH_GET_MAX_KEYS}.
+	 * @return items found, by partition key.
+	 */
+	protected Map<String, Rating> getHeadItems(List<String> partitionKeys) {
+		Map<String, KeysAndAttributes> requestItems = headKeys(ratingsTableName, partitionKeys);
+		Map<String, Rating> heads = new HashMap<>();
+		for(int attempt = 0; !requestItems.isEmpty(); attempt++) {
+			if(attempt > 0) {
+				if(attempt > BATCH_GET_MAX_RETRIES) {
+					throw new IllegalStateException("Unprocessed keys left after " + BATCH_GET_MAX_RETRIES + " retries.");
+				}
+				backoff(attempt);
+			}
+			BatchGetItemResponse response = dynamoDbClient.batchGetItem(BatchGetItemRequest.builder()
+					.requestItems(requestItems).build());
+			List<Map<String, AttributeValue>> items = response.responses().get(ratingsTableName);
+			if(items != null) {
+				for(Map<String, AttributeValue> item : items) {
+					Rating head = ratingsTable.tableSchema().mapToItem(item);
+					heads.put(head.getSku(), head);
+				}
+			}
+			requestItems = response.unprocessedKeys();
+		}
+		return heads;
+	}
+
+	/**
+	 * Return the aggregates of the given SKUs, summing the head and shard items of each one.
+	 *
+	 * @param codes SKUs.
+	 * @return ratings found, by SKU.
+	 */
+	protected Map<String, Rating> getAggregates(Collection<String> codes) {
+		List<List<String>> chunks = toBatchChunks(toPartitionKeys(codes, shardCountResolver));
+		Map<String, Rating> heads;
+		if(chunks.size() <= 1) {
+			heads = chunks.isEmpty() ? new HashMap<>() : getHeadItems(chunks.get(0));
+		}
+		else {
+			List<CompletableFuture<Map<String, Rating>>> futures = new ArrayList<>(chunks.size());
+			RequestCapacity capacity = RequestCapacity.current();
+			for(List<String> chunk : chunks) {
+				futures.add(CompletableFuture.supplyAsync(capacity.bindSupplier(() -> getHeadItems(chunk)), ConsultExecutors.io()));
+			}
+			heads = new HashMap<>();
+			for(CompletableFuture<Map<String, Rating>> future : futures) {
+				heads.putAll(future.join());
+			}
+		}
+		return combineShards(codes, heads, shardCountResolver);
+	}
+
+	/**
+	 * Return the current {@link Rating ratings} of the given SKUs: their aggregates or, for SKUs without
+	 * a head item, their latest versions. The latest versions are queried in parallel.
+	 *
+	 * @param codes SKUs.
+	 * @return ratings found, by SKU.
+	 */
+	protected Map<String, Rating> getCurrentItems(Collection<String> codes) {
+		Map<String, Rating> ratings = getAggregates(codes);
+		List<String> missingCodes = missingCodes(codes, ratings);
+		if(missingCodes.size() == 1) {
+			Rating rating = getLatestItem(missingCodes.get(0));
+			if(rating != null)
+				ratings.put(missingCodes.get(0), rating);
+		}
+		else if(!missingCodes.isEmpty()) {
+			List<CompletableFuture<Rating>> futures = new ArrayList<>(missingCodes.size());
+			RequestCapacity capacity = RequestCapacity.current();
+			for(String code : missingCodes) {
+				futures.add(CompletableFuture.supplyAsync(capacity.bindSupplier(() -> getLatestItem(code)), ConsultExecutors.io()));
+			}
+			for(int i = 0; i < missingCodes.size(); i++) {
+				Rating rating = futures.get(i).join();
+				if(rating != null)
+					ratings.put(missingCodes.get(i), rating);
+			}
+		}
+		return ratings;
+	}
+
+	/**
+	 * @param codes SKUs.
+	 * @param ratings ratings found, by SKU.
+	 * @return distinct SKUs without a rating.
+	 */
+	static List<String> missingCodes(Collection<String> codes, Map<String, Rating> ratings) {
+		List<String> missingCodes = new ArrayList<>();
+		for(String code : new LinkedHashSet<>(codes)) {
+			if(!ratings.containsKey(code))
+				missingCodes.add(code);
+		}
+		return missingCodes;
+	}
+
+	/**
+	 * @param code SKU.
+	 * @param shard shard index.
+	 * @return partition key of the shard item.
+	 */
+	static String shardKey(String code, int shard) {
+		return code + SHARD_SEPARATOR + shard;
+	}
+
+	/**
+	 * Return the partition keys of the head and shard items of the given SKUs.
+	 *
+	 * @param codes SKUs.
+	 * @param shardCountResolver shard count resolver.
+	 * @return partition keys.
+	 */
+	static List<String> toPartitionKeys(Collection<String> codes, ShardCountResolver shardCountResolver) {
+		List<String> partitionKeys = new ArrayList<>(codes.size());
+		for(String code : new LinkedHashSet<>(codes)) {
+			partitionKeys.add(code);
+			int shardCount = shardCountResolver.getShardCount(code);
+			for(int shard = 0; shardCount > 1 && shard < shardCount; shard++) {
+				partitionKeys.add(shardKey(code, shard));
+			}
+		}
+		return partitionKeys;
+	}
+
+	/**
+	 * Sum the head and shard items of each SKU into the {@link Rating} they stand for: totals are added
+	 * up, the date is the most recent one and the version is the number of changes made to the SKU.
+	 *
+	 * @param codes SKUs.
+	 * @param heads head and shard items, by partition key.
+	 * @param shardCountResolver shard count resolver.
+	 * @return ratings, by SKU. SKUs without any item are not included.
+	 */
+	static Map<String, Rating> combineShards(Collection<String> codes, Map<String, Rating> heads, ShardCountResolver shardCountResolver) {
+		Map<String, Rating> ratings = new HashMap<>();
+		for(String code : codes) {
+			Rating sum = null;
+			int shardCount = shardCountResolver.getShardCount(code);
+			for(int shard = -1; shard < (shardCount > 1 ? shardCount : 0); shard++) {
+				Rating head = heads.get(shard < 0 ? code : shardKey(code, shard));
+				if(head == null)
+					continue;
+				if(sum == null) {
+					sum = copyRating(head);
+					sum.setSku(code);
+				}
+				else {
+					sum.setAggregated(add(sum.getAggregated(), head.getAggregated()));
+					sum.setQuantity(add(sum.getQuantity(), head.getQuantity()));
+					sum.setNumberOfReviews(add(sum.getNumberOfReviews(), head.getNumberOfReviews()));
+					sum.setLatestVersion(add(sum.getLatestVersion(), head.getLatestVersion()));
+					if(head.getDate() != null && (sum.getDate() == null || head.getDate() > sum.getDate()))
+						sum.setDate(head.getDate());
+				}
+			}
+			if(sum != null)
+				ratings.put(code, fromHeadItem(sum));
+		}
+		return ratings;
+	}
+
+	private static Long add(Long a, Long b) {
+		return a == null ? b : b == null ? a : Long.valueOf(a + b);
+	}
+
+	/**
+	 * Build the BatchGetItem request items for the head or shard items with the given partition keys.
+	 *
+	 * @param tableName ratings table name.
+	 * @param partitionKeys partition keys, at most {@link #BATCH_GET_MAX_KEYS}.
+	 * @return request items.
+	 */
+	static Map<String, KeysAndAttributes> headKeys(String tableName, List<String> partitionKeys) {
+		List<Map<String, AttributeValue>> keys = new ArrayList<>(partitionKeys.size());
+		for(String code : partitionKeys) {
+			Map<String, AttributeValue> key = new HashMap<>();
+			key.put(RATINGS_SKU, AttributeValue.fromS(code));
+			key.put(RATINGS_VERSION, AttributeValue.fromN(String.valueOf(HEAD_VERSION)));
+			keys.add(key);
+		}
+		return Collections.singletonMap(tableName, KeysAndAttributes.builder().keys(keys).build());
+	}
+
+	/**
+	 * Split codes into chunks that fit in a single BatchGetItem request, dropping duplicates.
+	 *
+	 * @param codes codes.
+	 * @return chunks of at most {@link #BATCH_GET_MAX_KEYS} distinct codes.
+	 */
+	static List<List<String>> toBatchChunks(Collection<String> codes) {
+		List<String> distinctCodes = new ArrayList<>(new LinkedHashSet<>(codes));
+		List<List<String>> chunks = new ArrayList<>();
+		for(int i = 0; i < distinctCodes.size(); i += BATCH_GET_MAX_KEYS) {
+			chunks.add(distinctCodes.subList(i, Math.min(i + BATCH_GET_MAX_KEYS, distinctCodes.size())));
+		}
+		return chunks;
+	}
+
+	/**
+	 * @param attempt retry attempt, starting at 1.
+	 * @return time to wait before the given retry attempt, in milliseconds.
+	 */
+	static long getBatchBackoffMillis(int attempt) {
+		return BATCH_GET_BASE_BACKOFF_MILLIS << (attempt - 1);
+	}
+
+	private void backoff(int attempt) {
+		try {
+			Thread.sleep(getBatchBackoffMillis(attempt));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
 	@Override
 	public Rating getByCode(String code) {
 		try {
-			return getLatestItem(code);
+			return getCurrentItem(code);
+		} catch (Exception e) {
+			LOGGER.error("Caught exception: {}", e.getMessage(), e);
+			throw new DatabaseException(e);
+		}
+	}
+
+	/**
+	 * Head and shard items are read with BatchGetItem, in chunks of {@link #BATCH_GET_MAX_KEYS} keys. When
+	 * there is more than one chunk, they are requested in parallel. SKUs without a head item are read
+	 * like {@link #getByCode(String)} does, from their latest version.
+	 */
+	@Override
+	public Map<String, Rating> getByCodes(Collection<String> codes) {
+		try {
+			return getCurrentItems(codes);
 		} catch (Exception e) {
-			LOGGER.error("Caught exception: " + e.getMessage());
-			e.printStackTrace();
+			LOGGER.error("Caught exception: {}", e.getMessage(), e);
 			throw new DatabaseException(e);
 		}
 	}
@@ -1,40 +1,75 @@
 package com.lucaspetrini.consult.service;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.lucaspetrini.consult.exception.ConflictException;
 import com.lucaspetrini.consult.exception.DatabaseException;
+import com.lucaspetrini.consult.exception.ServiceException;
+import com.lucaspetrini.consult.exception.TooManyRequestsException;
+import com.lucaspetrini.consult.metrics.RequestCapacity;
+import com.lucaspetrini.consult.metrics.RequestStage;
+import com.lucaspetrini.consult.metrics.RequestTimer;
 import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.service.model.RatingTableSchema;
 import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.service.model.UserRatingPage;
+import com.lucaspetrini.consult.service.model.UserRatingTableSchema;
+import com.lucaspetrini.consult.utils.ConsultExecutors;
+import com.lucaspetrini.consult.utils.ConsultRandom;
+import com.lucaspetrini.consult.utils.DynamoDbClientRegistry;
 
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
-import software.amazon.awssdk.enhanced.dynamodb.MappedTableResource;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
-import software.amazon.awssdk.enhanced.dynamodb.model.TransactPutItemEnhancedRequest;
-import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
-import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest.Builder;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
 /**
  * Implementation of {@link UserRatingService} that stores and retrieves {@link UserRating user ratings}
- * from Amazon DynamoDB.
+ * from Amazon DynamoDB.<br>
+ * Before writing, {@link #put(UserRating)} reads the current user rating and the latest rating. Both
+ * reads are independent, so by default the latest rating is read on the shared I/O executor while the
+ * user rating is read on the calling thread (see {@link #withConcurrentPreReads(boolean)}). In
+ * {@link RatingWriteMode#ATOMIC atomic}, {@link RatingWriteMode#SHARDED sharded} and
+ * {@link RatingWriteMode#DEFERRED deferred} modes only the user rating is read.<br>
+ * Superseded user rating versions are kept according to a {@link UserRatingHistoryPolicy} (see
+ * {@link #withHistoryPolicy(UserRatingHistoryPolicy)}), in the user ratings table or in an archive table.
  */
 public class DynamoDbUserRatingService implements UserRatingService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(DynamoDbUserRatingService.class);
-	private static final String VERSION_PREFIX = "v0-";
+	private static final String VERSION_PREFIX = UserRatingWrite.VERSION_PREFIX;
 	private static final String USER_RATINGS = "user_ratings";
 	private static final String RATINGS = "ratings";
+	private static final String USER_RATINGS_SKU = "sku";
+	private static final String USER_RATINGS_USER = "user";
+	private static final String USER_RATINGS_VERSION = "version";
+	private static final Map<String, String> VERSION_PROJECTION_NAMES = Collections.singletonMap("#version", USER_RATINGS_VERSION);
+	public static final long DEFAULT_PRE_READ_TIMEOUT_MILLIS = 2000;
 
 	private DynamoDbClient dynamoDbClient;
 	private DynamoDbEnhancedClient dynamoDbEnhancedClient;
 	private DynamoDbTable<UserRating> userRatingsTable;
 	private DynamoDbTable<Rating> ratingsTable;
+	private DynamoDbTable<Rating> ratingHistoryTable;
+	private DynamoDbTable<UserRating> userRatingArchiveTable;
 	private DynamoDbRatingService ratingService;
-	private String userRatingsTableName;
-	private String ratingsTableName;
+	private boolean concurrentPreReads = true;
+	private long preReadTimeoutMillis = DEFAULT_PRE_READ_TIMEOUT_MILLIS;
+	private RatingWriteMode writeMode = RatingWriteMode.VERSIONED;
+	private ShardCountResolver shardCountResolver = ShardCountResolver.unsharded();
+	private TransactionRetryPolicy retryPolicy = new TransactionRetryPolicy();
+	private UserRatingHistoryPolicy historyPolicy = UserRatingHistoryPolicy.keepAll();
+	private final TransactionRetryMetrics retryMetrics = new TransactionRetryMetrics();
 
 	/**
 	 * Implementation of {@link UserRatingService} that stores and retrieves {@link UserRating user ratings}
@@ -55,12 +90,7 @@ public class DynamoDbUserRatingService implements UserRatingService {
 	}
 
 	private void initDefaults(DynamoDbClient dynamoDbClient) {
-		if(dynamoDbClient != null) {
-			setDynamoDbClient(dynamoDbClient);
-		}
-		else {
-			setDynamoDbClient(DynamoDbClient.create());
-		}
+		setDynamoDbClient(dynamoDbClient != null ? dynamoDbClient : DynamoDbClientRegistry.client());
 		withUserRatingsTable(USER_RATINGS);
 		withRatingsTable(RATINGS);
 	}
@@ -72,8 +102,7 @@ public class DynamoDbUserRatingService implements UserRatingService {
 	 * @return this {@link DynamoDbUserRatingService} instance.
 	 */
 	public DynamoDbUserRatingService withUserRatingsTable(String userRatingsTable) {
-		this.userRatingsTableName = userRatingsTable;
-		mapTables(dynamoDbEnhancedClient);
+		this.userRatingsTable = dynamoDbEnhancedClient.table(userRatingsTable, UserRatingTableSchema.INSTANCE);
 		return this;
 	}
 
@@ -84,22 +113,118 @@ public class DynamoDbUserRatingService implements UserRatingService {
 	 * @return this {@link DynamoDbUserRatingService} instance.
 	 */
 	public DynamoDbUserRatingService withRatingsTable(String ratingsTable) {
-		this.ratingsTableName = ratingsTable;
-		mapTables(dynamoDbEnhancedClient);
+		this.ratingsTable = dynamoDbEnhancedClient.table(ratingsTable, RatingTableSchema.INSTANCE);
+		ratingService.withRatingsTable(ratingsTable);
+		return this;
+	}
+
+	/**
+	 * Set the append-only table rating versions are copied to in {@link RatingWriteMode#SINGLE_ROW single
+	 * row mode}. It has the same keys as the ratings table.
+	 *
+	 * @param ratingHistoryTable table name, or null to keep no history.
+	 * @return this {@link DynamoDbUserRatingService} instance.
+	 */
+	public DynamoDbUserRatingService withRatingHistoryTable(String ratingHistoryTable) {
+		this.ratingHistoryTable = ratingHistoryTable == null ? null
+				: dynamoDbEnhancedClient.table(ratingHistoryTable, RatingTableSchema.INSTANCE);
+		return this;
+	}
+
+	/**
+	 * Set the table superseded user rating versions are written to, instead of the user ratings table. It
+	 * has the same keys as the user ratings table.
+	 *
+	 * @param userRatingArchiveTable table name, or null to keep superseded versions in the user ratings table.
+	 * @return this {@link DynamoDbUserRatingService} instance.
+	 */
+	public DynamoDbUserRatingService withUserRatingArchiveTable(String userRatingArchiveTable) {
+		this.userRatingArchiveTable = userRatingArchiveTable == null ? null
+				: dynamoDbEnhancedClient.table(userRatingArchiveTable, UserRatingTableSchema.INSTANCE);
+		return this;
+	}
+
+	/**
+	 * Set how long superseded user rating versions are kept.
+	 *
+	 * @param historyPolicy history retention policy.
+	 * @return this {@link DynamoDbUserRatingService} instance.
+	 */
+	public DynamoDbUserRatingService withHistoryPolicy(UserRatingHistoryPolicy historyPolicy) {
+		this.historyPolicy = historyPolicy;
+		return this;
+	}
+
+	/**
+	 * Set how the {@link Rating} aggregate is maintained when a user rating is put.
+	 *
+	 * @param writeMode write mode.
+	 * @return this {@link DynamoDbUserRatingService} instance.
+	 */
+	public DynamoDbUserRatingService withWriteMode(RatingWriteMode writeMode) {
+		this.writeMode = writeMode;
+		return this;
+	}
+
+	/**
+	 * Set how many shard items hold the aggregate of each SKU, in {@link RatingWriteMode#SHARDED sharded
+	 * mode}. Must match the resolver used by readers.
+	 *
+	 * @param shardCountResolver shard count resolver.
+	 * @return this {@link DynamoDbUserRatingService} instance.
+	 */
+	public DynamoDbUserRatingService withShardCountResolver(ShardCountResolver shardCountResolver) {
+		this.shardCountResolver = shardCountResolver;
+		ratingService.withShardCountResolver(shardCountResolver);
+		return this;
+	}
+
+	/**
+	 * Set how cancelled transactions are retried when a user rating is put.
+	 *
+	 * @param retryPolicy retry policy.
+	 * @return this {@link DynamoDbUserRatingService} instance.
+	 */
+	public DynamoDbUserRatingService withRetryPolicy(TransactionRetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+		return this;
+	}
+
+	/**
+	 * @return counters for the transactions sent by this service.
+	 */
+	public TransactionRetryMetrics getRetryMetrics() {
+		return retryMetrics;
+	}
+
+	/**
+	 * Set whether the reads done before a put run concurrently.
+	 *
+	 * @param concurrentPreReads true to run the reads concurrently, false to run them one after the other.
+	 * @return this {@link DynamoDbUserRatingService} instance.
+	 */
+	public DynamoDbUserRatingService withConcurrentPreReads(boolean concurrentPreReads) {
+		this.concurrentPreReads = concurrentPreReads;
+		return this;
+	}
+
+	/**
+	 * Set how long a put waits for the concurrent read of the latest rating, once the user rating has been
+	 * read. The read is cancelled when it takes longer and the put fails.
+	 *
+	 * @param preReadTimeoutMillis timeout, in milliseconds.
+	 * @return this {@link DynamoDbUserRatingService} instance.
+	 */
+	public DynamoDbUserRatingService withPreReadTimeout(long preReadTimeoutMillis) {
+		this.preReadTimeoutMillis = preReadTimeoutMillis;
 		return this;
 	}
 
 	private void setDynamoDbClient(DynamoDbClient dynamoDbClient) {
 		this.dynamoDbClient = dynamoDbClient;
 		this.dynamoDbEnhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
-		mapTables(dynamoDbEnhancedClient);
-	}
-
-	// TODO an IoC container would be very useful to handle singletons and avoid redundancy
-	private void mapTables(DynamoDbEnhancedClient dynamoDbEnhancedClient) {
-		userRatingsTable = dynamoDbEnhancedClient.table(userRatingsTableName, TableSchema.fromBean(UserRating.class));
-		ratingsTable = dynamoDbEnhancedClient.table(ratingsTableName, TableSchema.fromBean(Rating.class));
-		ratingService = new DynamoDbRatingService(dynamoDbClient).withRatingsTable(ratingsTableName);
+		// tables are mapped by the 'with' methods, each one only when its name is set
+		this.ratingService = new DynamoDbRatingService(dynamoDbClient, dynamoDbEnhancedClient).withShardCountResolver(shardCountResolver);
 	}
 
 	@Override
@@ -114,107 +239,221 @@ public class DynamoDbUserRatingService implements UserRatingService {
 			}
 			return item;
 		} catch (Exception e) {
-			LOGGER.error("Caught exception: " + e.getMessage());
-			e.printStackTrace();
+			LOGGER.error("Caught exception: {}", e.getMessage(), e);
 			throw new DatabaseException(e);
 		}
 	}
 
-	// TODO refactor
+	/**
+	 * Only the version attribute is read, so reviews don't travel from the table to check a client's copy.
+	 */
 	@Override
-	public UserRating put(UserRating userRating) {
-		UserRating newUserRating = null;
-		Rating rating = null;
+	public Long getVersionByUserIdAndCode(String userId, String code) {
 		try {
-			UserRating currentUserRating = getItem(userRating.getSku(), VERSION_PREFIX + userRating.getUser());
-			Rating currentRating = ratingService.getLatestItem(userRating.getSku());
-			Builder transactWriteRequestBuilder = TransactWriteItemsEnhancedRequest.builder();
-			if(currentUserRating == null) {
-				newUserRating = cloneUserRating(userRating);
-				newUserRating.setUser(VERSION_PREFIX + newUserRating.getUser());
-				newUserRating.setVersion(1L);
-				addToTransaction(transactWriteRequestBuilder, userRatingsTable, newUserRating);
-			}
-			else {
-				// if a rating already exists for the sku and user, create a new item that should be a copy of the current one
-				// and update "v0-" with the new information
-				// get user name without version prefix (vxxx-)
-				String user = currentUserRating.getUser();
-				Long version = currentUserRating.getVersion();
-				user = user.substring(user.indexOf('-'));
-				// set version prefix
-				currentUserRating.setUser("v" + version + user);
-				addToTransaction(transactWriteRequestBuilder, userRatingsTable, currentUserRating);
-				newUserRating = cloneUserRating(userRating);
-				newUserRating.setUser(VERSION_PREFIX + userRating.getUser());
-				newUserRating.setVersion(currentUserRating.getVersion() + 1);
-				addToTransaction(transactWriteRequestBuilder, userRatingsTable, newUserRating, true);
-			}
+			GetItemResponse response = dynamoDbClient.getItem(GetItemRequest.builder()
+					.tableName(userRatingsTable.tableName())
+					.key(Map.of(USER_RATINGS_SKU, AttributeValue.fromS(code), USER_RATINGS_USER, AttributeValue.fromS(VERSION_PREFIX + userId)))
+					.projectionExpression("#version")
+					.expressionAttributeNames(VERSION_PROJECTION_NAMES)
+					.build());
+			AttributeValue version = response.hasItem() ? response.item().get(USER_RATINGS_VERSION) : null;
+			return version != null ? Long.valueOf(version.n()) : null;
+		} catch (Exception e) {
+			LOGGER.error("Caught exception: {}", e.getMessage(), e);
+			throw new DatabaseException(e);
+		}
+	}
 
-			rating = new Rating();
-			long reviewIncrement = getReviewIncrement(currentUserRating, newUserRating);
-			rating.setSku(userRating.getSku());
-			if(currentRating == null) {
-				rating.setAggregated(userRating.getRating());
-				rating.setQuantity(1L);
-				rating.setDate(userRating.getDate());
-				rating.setVersion(1L);
-				rating.setNumberOfReviews(Math.max(0, reviewIncrement));
-				addToTransaction(transactWriteRequestBuilder, ratingsTable, rating);
-			}
-			else {
-				rating.setDate(userRating.getDate());
-				rating.setVersion(currentRating.getVersion() + 1);
-				// only increment quantity and aggregation if it's a new user
-				if(currentUserRating == null) {
-					rating.setQuantity(currentRating.getQuantity() + 1);
-					rating.setAggregated(currentRating.getAggregated() + userRating.getRating());
-				}
-				else {
-					rating.setQuantity(currentRating.getQuantity());
-					rating.setAggregated(currentRating.getAggregated() - currentUserRating.getRating() + userRating.getRating());
+	/**
+	 * See {@link ReviewsQuery}: superseded versions are not read, and a page of N user ratings reads N
+	 * items.
+	 */
+	@Override
+	public UserRatingPage getReviewsByCode(String code, int limit, String cursor) {
+		QueryRequest request = ReviewsQuery.toRequest(userRatingsTable.tableName(), code, limit, cursor);
+		try {
+			return ReviewsQuery.toPage(code, dynamoDbClient.query(request));
+		} catch (Exception e) {
+			LOGGER.error("Caught exception: {}", e.getMessage(), e);
+			throw new DatabaseException(e);
+		}
+	}
+
+	/**
+	 * Cancelled transactions are retried according to the {@link TransactionRetryPolicy}. Before each
+	 * retry, only the items whose condition failed are read again; transactions cancelled by conflicts or
+	 * throttling are sent again as they were.<br>
+	 * The reads and the transaction attempts are timed as stages of the current {@link RequestTimer}.
+	 *
+	 * @throws ConflictException if the transaction keeps conflicting with other writes.
+	 * @throws TooManyRequestsException if the transaction keeps being throttled.
+	 */
+	@Override
+	public UserRating put(UserRating userRating) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryPolicy.getBudgetMillis());
+		int attempts = 0;
+		long delayMillis = 0;
+		RequestTimer timer = RequestTimer.current();
+		try {
+			long start = System.nanoTime();
+			UserRatingWrite write = prepareWrite(userRating);
+			timer.record(RequestStage.DYNAMODB_READS, start);
+			while(true) {
+				attempts++;
+				start = System.nanoTime();
+				try {
+					writeItems(write);
+					timer.record(RequestStage.DYNAMODB_TRANSACTION, start);
+					retryMetrics.recordWrite(attempts, true);
+					return write.getResult();
+				} catch (TransactionCanceledException e) {
+					timer.record(RequestStage.DYNAMODB_TRANSACTION, start);
+					TransactionFailure failure = TransactionFailure.of(e);
+					retryMetrics.recordFailure(failure.getType());
+					delayMillis = retryPolicy.nextDelayMillis(delayMillis);
+					if(!failure.isRetryable() || attempts >= retryPolicy.getMaxAttempts()
+							|| System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis) > deadline) {
+						retryMetrics.recordWrite(attempts, false);
+						LOGGER.error("Transaction cancelled ({}) after {} attempt(s): {}", failure.getType(), attempts, e.getMessage(), e);
+						throw failure.toServiceException(e);
+					}
+					LOGGER.warn("Transaction cancelled ({}), retrying in {} ms.", failure.getType(), delayMillis);
+					Thread.sleep(delayMillis);
+					start = System.nanoTime();
+					write = refreshWrite(userRating, write, failure);
+					timer.record(RequestStage.DYNAMODB_READS, start);
 				}
-				// if for any weird reason number of reviews result in less than 0, we set it to 0
-				rating.setNumberOfReviews(Math.max(0, (currentRating.getNumberOfReviews() == null ? 0 : currentRating.getNumberOfReviews()) + reviewIncrement));
-				addToTransaction(transactWriteRequestBuilder, ratingsTable, rating);
 			}
-			dynamoDbEnhancedClient.transactWriteItems(transactWriteRequestBuilder.build());
+		} catch (ServiceException e) {
+			throw e;
 		} catch (Exception e) {
-			LOGGER.error("Caught exception: " + e.getMessage());
+			if(e instanceof InterruptedException)
+				Thread.currentThread().interrupt();
+			if(attempts > 0)
+				retryMetrics.recordWrite(attempts, false);
+			LOGGER.error("Caught exception: {}", e.getMessage(), e);
 			throw new DatabaseException(e);
 		}
-		newUserRating.setUser(userRating.getUser());
-		return newUserRating;
+	}
+
+	private void writeItems(UserRatingWrite write) {
+		if(writeMode == RatingWriteMode.ATOMIC) {
+			dynamoDbClient.transactWriteItems(write.toAtomicRequest(userRatingsTable, ratingsTable));
+		}
+		else if(writeMode == RatingWriteMode.SHARDED) {
+			dynamoDbClient.transactWriteItems(write.toAtomicRequest(userRatingsTable, ratingsTable, getAggregateKey(write.getRating().getSku())));
+		}
+		else if(writeMode == RatingWriteMode.DEFERRED) {
+			dynamoDbClient.transactWriteItems(write.toDeferredRequest(userRatingsTable));
+		}
+		else if(writeMode == RatingWriteMode.SINGLE_ROW) {
+			dynamoDbClient.transactWriteItems(write.toSingleRowRequest(userRatingsTable, ratingsTable, ratingHistoryTable));
+		}
+		else {
+			dynamoDbEnhancedClient.transactWriteItems(write.toRequest(userRatingsTable, ratingsTable));
+		}
+	}
+
+	/**
+	 * @return whether the new totals are computed from the current rating, rather than added to it.
+	 */
+	private boolean readsCurrentRating() {
+		return writeMode == RatingWriteMode.VERSIONED || writeMode == RatingWriteMode.SINGLE_ROW;
 	}
 
 	/**
-	 * If current user rating contains a review and new user rating doesn't, increment is -1;<br>
-	 * If current user rating contains a review and new user rating also does, increment is 0;<br>
-	 * If current user rating doesn't contain a review and new user rating doesn't, increment is 0;<br>
-	 * If current user rating doesn't contain a review and new user rating does, increment is 1;<br>
+	 * Return the partition key of the item the change to the totals of a SKU is added to in
+	 * {@link RatingWriteMode#SHARDED sharded mode}: one of its shards picked at random, or its head item if
+	 * it has a single shard.
 	 *
-	 * @param currentUserRating current user rating.
-	 * @param newUserRating user rating being added in the database. Must not be null.
-	 * @return the value that should be used to increment numberOfReviews in ratings table.
+	 * @param code SKU.
+	 * @return partition key.
 	 */
-	private int getReviewIncrement(UserRating currentUserRating, UserRating newUserRating) {
-		int currentNumberOfReview = currentUserRating != null && currentUserRating.getReview() != null && !currentUserRating.getReview().isBlank() ? 1 : 0;
-		int newNumberOfReview = newUserRating.getReview() != null && !newUserRating.getReview().isBlank() ? 1 : 0;
-		return newNumberOfReview - currentNumberOfReview;
+	protected String getAggregateKey(String code) {
+		int shardCount = shardCountResolver.getShardCount(code);
+		return shardCount > 1 ? DynamoDbRatingService.shardKey(code, ConsultRandom.nextInt(shardCount)) : code;
 	}
 
-	@SuppressWarnings("unchecked")
-	private <T> void addToTransaction(Builder transactWriteRequestBuilder, MappedTableResource<T> table, T item, boolean override) {
-		software.amazon.awssdk.enhanced.dynamodb.model.TransactPutItemEnhancedRequest.Builder<T> builder = TransactPutItemEnhancedRequest.builder((Class<T>)item.getClass())
-				.item(item);
-		if(!override) {
-			builder.conditionExpression(Expression.builder().expression("attribute_not_exists(sku)").build());
+	/**
+	 * Compute the items to be written again after a cancelled transaction, reading again only the items
+	 * whose condition failed.
+	 *
+	 * @param userRating user rating being put.
+	 * @param write items of the cancelled transaction.
+	 * @param failure why the transaction was cancelled.
+	 * @return items to be written.
+	 */
+	UserRatingWrite refreshWrite(UserRating userRating, UserRatingWrite write, TransactionFailure failure) {
+		UserRating currentUserRating = write.getCurrentUserRating();
+		Rating currentRating = write.getCurrentRating();
+		int userRatingItemCount = write.getUserRatingItemCount();
+		for(int i = 0; i < userRatingItemCount; i++) {
+			if(failure.isConditionalCheckFailed(i)) {
+				currentUserRating = getItem(userRating.getSku(), VERSION_PREFIX + userRating.getUser());
+				break;
+			}
 		}
-		transactWriteRequestBuilder.addPutItem(table, builder.build());
+		if(failure.isConditionalCheckFailed(userRatingItemCount)) {
+			if(readsCurrentRating()) {
+				currentRating = getLatestRating(userRating.getSku());
+			}
+			else if(seedHeadItem(userRating.getSku())) {
+				// the head item didn't exist yet: the change is added to it once it has the SKU's totals
+				LOGGER.info("Seeded the head item of {} from its latest version.", userRating.getSku());
+			}
+		}
+		return newWrite(userRating, currentUserRating, currentRating);
 	}
 
-	private <T> void addToTransaction(Builder transactWriteRequestBuilder, MappedTableResource<T> table, T item) {
-		addToTransaction(transactWriteRequestBuilder, table, item, false);
+	/**
+	 * Read the current user rating and the latest rating, and compute the items to be written.
+	 *
+	 * @param userRating user rating being put.
+	 * @return items to be written.
+	 * @throws Exception if any of the reads fails or times out.
+	 */
+	protected UserRatingWrite prepareWrite(UserRating userRating) throws Exception {
+		if(!readsCurrentRating()) {
+			// the totals are added to the head or a shard item, so the current rating isn't needed
+			return newWrite(userRating, getItem(userRating.getSku(), VERSION_PREFIX + userRating.getUser()), null);
+		}
+		if(!concurrentPreReads) {
+			UserRating currentUserRating = getItem(userRating.getSku(), VERSION_PREFIX + userRating.getUser());
+			Rating currentRating = getLatestRating(userRating.getSku());
+			return newWrite(userRating, currentUserRating, currentRating);
+		}
+		Future<Rating> currentRating = ConsultExecutors.io().submit(RequestCapacity.current().bind(() -> getLatestRating(userRating.getSku())));
+		try {
+			UserRating currentUserRating = getItem(userRating.getSku(), VERSION_PREFIX + userRating.getUser());
+			return newWrite(userRating, currentUserRating, currentRating.get(preReadTimeoutMillis, TimeUnit.MILLISECONDS));
+		} finally {
+			// no-op if the read completed; otherwise the put has already failed and the result is not needed
+			currentRating.cancel(true);
+		}
+	}
+
+	private UserRatingWrite newWrite(UserRating userRating, UserRating currentUserRating, Rating currentRating) {
+		return new UserRatingWrite(userRating, currentUserRating, currentRating).withHistoryPolicy(historyPolicy, userRatingArchiveTable);
+	}
+
+	/**
+	 * Return the current {@link Rating} from the database.
+	 *
+	 * @param code SKU.
+	 * @return current rating, or null if there is none.
+	 */
+	protected Rating getLatestRating(String code) {
+		return ratingService.getCurrentItem(code);
+	}
+
+	/**
+	 * Write the head item of a SKU from its latest version, if it doesn't exist yet.
+	 *
+	 * @param code SKU.
+	 * @return whether the head item was written.
+	 */
+	protected boolean seedHeadItem(String code) {
+		return ratingService.seedHeadItem(code);
 	}
 
 	/**
@@ -224,16 +463,7 @@ public class DynamoDbUserRatingService implements UserRatingService {
 	 * @return cloned user rating.
 	 */
 	protected UserRating cloneUserRating(UserRating userRating) {
-		if(userRating == null)
-			return null;
-		UserRating newUserRating = new UserRating();
-		newUserRating.setSku(userRating.getSku());
-		newUserRating.setUser(userRating.getUser());
-		newUserRating.setVersion(userRating.getVersion());
-		newUserRating.setDate(userRating.getDate());
-		newUserRating.setRating(userRating.getRating());
-		newUserRating.setReview(userRating.getReview());
-		return newUserRating;
+		return UserRatingWrite.copyUserRating(userRating);
 	}
 
 	/**
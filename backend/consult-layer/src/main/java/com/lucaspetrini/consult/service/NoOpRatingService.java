@@ -0,0 +1,37 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.service.model.RatingTableSchema;
+
+/**
+ * Implementation of {@link RatingService} that never reaches a database: every code has an empty
+ * rating. Ratings still go through their table schema, so priming request handlers with this service
+ * loads the item mapping classes too, without any side effect.
+ */
+public class NoOpRatingService implements RatingService {
+
+	@Override
+	public Rating getByCode(String code) {
+		Rating rating = new Rating();
+		rating.setSku(code);
+		rating.setVersion(1L);
+		rating.setLatestVersion(1L);
+		rating.setDate(0L);
+		rating.setAggregated(0L);
+		rating.setQuantity(0L);
+		rating.setNumberOfReviews(0L);
+		return RatingTableSchema.INSTANCE.mapToItem(RatingTableSchema.INSTANCE.itemToMap(rating, true));
+	}
+
+	@Override
+	public Map<String, Rating> getByCodes(Collection<String> codes) {
+		Map<String, Rating> ratings = new LinkedHashMap<>();
+		for(String code : codes)
+			ratings.put(code, getByCode(code));
+		return ratings;
+	}
+}
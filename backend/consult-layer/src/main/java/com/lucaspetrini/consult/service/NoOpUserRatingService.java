@@ -0,0 +1,42 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.List;
+
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.service.model.UserRatingPage;
+import com.lucaspetrini.consult.service.model.UserRatingTableSchema;
+
+/**
+ * Implementation of {@link UserRatingService} that never reaches a database: every user has rated
+ * every code, and puts are returned as the first version without being stored. User ratings still go
+ * through their table schema, so priming request handlers with this service loads the item mapping
+ * classes too, without any side effect.
+ */
+public class NoOpUserRatingService implements UserRatingService {
+
+	@Override
+	public UserRating getByUserIdAndCode(String userId, String code) {
+		UserRating userRating = new UserRating();
+		userRating.setUser(userId);
+		userRating.setSku(code);
+		userRating.setRating(0L);
+		userRating.setDate(0L);
+		userRating.setVersion(1L);
+		return UserRatingTableSchema.INSTANCE.mapToItem(UserRatingTableSchema.INSTANCE.itemToMap(userRating, true));
+	}
+
+	/**
+	 * The page holds a single user rating, of a user named after the code, and is the last one.
+	 */
+	@Override
+	public UserRatingPage getReviewsByCode(String code, int limit, String cursor) {
+		return new UserRatingPage(List.of(getByUserIdAndCode(code, code)), null);
+	}
+
+	@Override
+	public UserRating put(UserRating userRating) {
+		UserRating stored = UserRatingTableSchema.INSTANCE.mapToItem(UserRatingTableSchema.INSTANCE.itemToMap(userRating, true));
+		stored.setVersion(1L);
+		return stored;
+	}
+}
@@ -0,0 +1,245 @@
+package com.lucaspetrini.consult.service;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent.DynamodbStreamRecord;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.utils.DynamoDbClientRegistry;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+/**
+ * Maintains the {@link Rating} aggregates from the user ratings table stream, for user ratings put in
+ * {@link RatingWriteMode#DEFERRED deferred mode}.<br>
+ * The changes to the current ('v0-') user ratings of a batch are folded into a single update per SKU,
+ * added to its head item. The stream needs both old and new images, so the previous rating of a user
+ * can be taken out of the totals.<br>
+ * Batches may be delivered more than once. Each head item keeps the sequence number of the last record
+ * folded into it, and an update is skipped if its records were already applied. Records of a SKU share
+ * a stream shard, so their sequence numbers grow with every change.<br>
+ * SKUs rated in {@link RatingWriteMode#VERSIONED versioned mode} before may have no head item yet: it's
+ * seeded from their latest version before their first update, so their totals carry over.
+ */
+public class RatingAggregator {
+	private static final Logger LOGGER = LoggerFactory.getLogger(RatingAggregator.class);
+	private static final String RATINGS = "ratings";
+	private static final String USER_RATINGS_SKU = "sku";
+	private static final String USER_RATINGS_USER = "user";
+	private static final String USER_RATINGS_VERSION = "version";
+	private static final String USER_RATINGS_DATE = "date";
+	private static final String USER_RATINGS_RATING = "rating";
+	private static final String USER_RATINGS_REVIEW = "review";
+	private static final String EVENT_INSERT = "INSERT";
+	private static final String EVENT_MODIFY = "MODIFY";
+	private static final String EVENT_REMOVE = "REMOVE";
+	/** Head item attribute holding the sequence number of the last record applied to it. */
+	static final String STREAM_SEQUENCE = "streamSequence";
+	/** Sequence numbers have up to 40 digits; padding them makes string order match numeric order. */
+	static final int SEQUENCE_NUMBER_LENGTH = 40;
+
+	private DynamoDbClient dynamoDbClient;
+	private DynamoDbRatingService ratingService;
+	private String ratingsTableName;
+
+	/**
+	 * Maintains the {@link Rating} aggregates from the user ratings table stream.
+	 */
+	public RatingAggregator() {
+		this(DynamoDbClientRegistry.client());
+	}
+
+	/**
+	 * Maintains the {@link Rating} aggregates from the user ratings table stream.
+	 *
+	 * @param dynamoDbClient underlying {@link DynamoDbClient}.
+	 */
+	public RatingAggregator(DynamoDbClient dynamoDbClient) {
+		this(dynamoDbClient, new DynamoDbRatingService(dynamoDbClient));
+	}
+
+	/**
+	 * Maintains the {@link Rating} aggregates from the user ratings table stream.
+	 *
+	 * @param dynamoDbClient underlying {@link DynamoDbClient}.
+	 * @param ratingService service the head items are seeded through.
+	 */
+	RatingAggregator(DynamoDbClient dynamoDbClient, DynamoDbRatingService ratingService) {
+		this.dynamoDbClient = dynamoDbClient;
+		this.ratingService = ratingService;
+		withRatingsTable(RATINGS);
+	}
+
+	/**
+	 * Set the table name to be used for {@link Rating ratings}.
+	 *
+	 * @param ratingsTable table name.
+	 * @return this {@link RatingAggregator} instance.
+	 */
+	public RatingAggregator withRatingsTable(String ratingsTable) {
+		this.ratingsTableName = ratingsTable;
+		ratingService.withRatingsTable(ratingsTable);
+		return this;
+	}
+
+	/**
+	 * Fold a batch of stream records and apply it to the head items.
+	 *
+	 * @param records stream records, in stream order.
+	 * @return number of head items updated.
+	 */
+	public int aggregate(List<DynamodbStreamRecord> records) {
+		Map<String, SkuChanges> changes = fold(records);
+		int updated = 0;
+		for(Map.Entry<String, SkuChanges> entry : changes.entrySet()) {
+			if(apply(entry.getKey(), entry.getValue()))
+				updated++;
+		}
+		LOGGER.info("Folded {} record(s) into {} update(s) of {} SKU(s).", records.size(), updated, changes.size());
+		return updated;
+	}
+
+	/**
+	 * Fold the changes to current user ratings by SKU. Records of versioned copies ('v1-', 'v2-'...) are
+	 * ignored, since the change they stand for is already in the record of the current user rating.
+	 *
+	 * @param records stream records, in stream order.
+	 * @return changes by SKU, in order of first appearance.
+	 */
+	Map<String, SkuChanges> fold(List<DynamodbStreamRecord> records) {
+		Map<String, SkuChanges> changes = new LinkedHashMap<>();
+		for(DynamodbStreamRecord record : records) {
+			StreamRecord streamRecord = record.getDynamodb();
+			String eventName = record.getEventName();
+			if(streamRecord == null || !(EVENT_INSERT.equals(eventName) || EVENT_MODIFY.equals(eventName) || EVENT_REMOVE.equals(eventName)))
+				continue;
+			Map<String, AttributeValue> keys = streamRecord.getKeys();
+			String user = getS(keys, USER_RATINGS_USER);
+			if(user == null || !user.startsWith(UserRatingWrite.VERSION_PREFIX))
+				continue;
+			UserRating oldUserRating = toUserRating(streamRecord.getOldImage());
+			UserRating newUserRating = toUserRating(streamRecord.getNewImage());
+			changes.computeIfAbsent(getS(keys, USER_RATINGS_SKU), sku -> new SkuChanges())
+					.add(new RatingDelta(oldUserRating, newUserRating), newUserRating == null ? null : newUserRating.getDate(),
+							new BigInteger(streamRecord.getSequenceNumber()));
+		}
+		return changes;
+	}
+
+	/**
+	 * Add the changes of a SKU to its head item, unless they were already applied. If the head item
+	 * doesn't exist, it's seeded and the update retried once.
+	 *
+	 * @param sku SKU.
+	 * @param changes folded changes.
+	 * @return whether the head item was updated.
+	 */
+	boolean apply(String sku, SkuChanges changes) {
+		Update update = UserRatingWrite.toHeadUpdate(ratingsTableName, sku, changes.getDelta(), changes.getCount(), changes.getDate());
+		Map<String, String> names = new HashMap<>(update.expressionAttributeNames());
+		names.put("#streamSequence", STREAM_SEQUENCE);
+		Map<String, software.amazon.awssdk.services.dynamodb.model.AttributeValue> values = new HashMap<>(update.expressionAttributeValues());
+		values.put(":streamSequence", software.amazon.awssdk.services.dynamodb.model.AttributeValue.fromS(toSortableSequence(changes.getLastSequenceNumber())));
+		String expression = update.updateExpression() + (changes.getDate() == null ? " SET " : ", ") + "#streamSequence = :streamSequence";
+		UpdateItemRequest request = UpdateItemRequest.builder().tableName(ratingsTableName).key(update.key())
+				.updateExpression(expression)
+				.conditionExpression(UserRatingWrite.HEAD_EXISTS + " AND (attribute_not_exists(#streamSequence) OR #streamSequence < :streamSequence)")
+				.expressionAttributeNames(names).expressionAttributeValues(values).build();
+		try {
+			dynamoDbClient.updateItem(request);
+			return true;
+		} catch (ConditionalCheckFailedException e) {
+			if(!ratingService.seedHeadItem(sku)) {
+				// a retried batch: this SKU was updated by a previous delivery
+				LOGGER.info("Changes to {} up to {} already applied, skipping.", sku, changes.getLastSequenceNumber());
+				return false;
+			}
+		}
+		LOGGER.info("Seeded the head item of {} from its latest version.", sku);
+		try {
+			dynamoDbClient.updateItem(request);
+			return true;
+		} catch (ConditionalCheckFailedException e) {
+			LOGGER.info("Changes to {} up to {} already applied, skipping.", sku, changes.getLastSequenceNumber());
+			return false;
+		}
+	}
+
+	static String toSortableSequence(BigInteger sequenceNumber) {
+		String digits = sequenceNumber.toString();
+		StringBuilder builder = new StringBuilder(SEQUENCE_NUMBER_LENGTH);
+		for(int i = digits.length(); i < SEQUENCE_NUMBER_LENGTH; i++)
+			builder.append('0');
+		return builder.append(digits).toString();
+	}
+
+	private static UserRating toUserRating(Map<String, AttributeValue> image) {
+		if(image == null || image.isEmpty())
+			return null;
+		UserRating userRating = new UserRating();
+		userRating.setSku(getS(image, USER_RATINGS_SKU));
+		userRating.setUser(getS(image, USER_RATINGS_USER));
+		userRating.setVersion(getN(image, USER_RATINGS_VERSION));
+		userRating.setDate(getN(image, USER_RATINGS_DATE));
+		userRating.setRating(getN(image, USER_RATINGS_RATING));
+		userRating.setReview(getS(image, USER_RATINGS_REVIEW));
+		return userRating;
+	}
+
+	private static String getS(Map<String, AttributeValue> image, String name) {
+		AttributeValue value = image == null ? null : image.get(name);
+		return value == null ? null : value.getS();
+	}
+
+	private static Long getN(Map<String, AttributeValue> image, String name) {
+		AttributeValue value = image == null ? null : image.get(name);
+		return value == null || value.getN() == null ? null : Long.valueOf(value.getN());
+	}
+
+	/**
+	 * Changes to the current user ratings of a SKU within a batch.
+	 */
+	static class SkuChanges {
+		private RatingDelta delta = RatingDelta.ZERO;
+		private Long date;
+		private long count;
+		private BigInteger lastSequenceNumber;
+
+		void add(RatingDelta change, Long changeDate, BigInteger sequenceNumber) {
+			delta = delta.plus(change);
+			if(changeDate != null && (date == null || changeDate > date))
+				date = changeDate;
+			count++;
+			if(lastSequenceNumber == null || sequenceNumber.compareTo(lastSequenceNumber) > 0)
+				lastSequenceNumber = sequenceNumber;
+		}
+
+		RatingDelta getDelta() {
+			return delta;
+		}
+
+		Long getDate() {
+			return date;
+		}
+
+		long getCount() {
+			return count;
+		}
+
+		BigInteger getLastSequenceNumber() {
+			return lastSequenceNumber;
+		}
+	}
+}
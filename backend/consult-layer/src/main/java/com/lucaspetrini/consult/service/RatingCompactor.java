@@ -0,0 +1,259 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.service.model.RatingTableSchema;
+import com.lucaspetrini.consult.utils.DynamoDbClientRegistry;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+/**
+ * Collapses the {@link Rating} version rows written in {@link RatingWriteMode#VERSIONED versioned mode}
+ * into the head item of each SKU, to be used when moving to {@link RatingWriteMode#SINGLE_ROW single row
+ * mode}.<br>
+ * The head item is written first, from the latest version row, unless it already mirrors it. Only then
+ * are version rows up to that version deleted, copying them to the history table first if there is one.
+ * Compacting a SKU again, or while it's being written, is safe: rows newer than the head item are kept.
+ */
+public class RatingCompactor {
+	private static final Logger LOGGER = LoggerFactory.getLogger(RatingCompactor.class);
+	private static final String RATINGS = "ratings";
+	private static final String RATINGS_SKU = "sku";
+	private static final String RATINGS_VERSION = "version";
+	/** Maximum number of items DynamoDB accepts in a single BatchWriteItem request. */
+	static final int BATCH_WRITE_MAX_ITEMS = 25;
+	static final int BATCH_WRITE_MAX_RETRIES = 5;
+	public static final int DEFAULT_PAGE_SIZE = 100;
+
+	private final DynamoDbClient dynamoDbClient;
+	private final DynamoDbEnhancedClient dynamoDbEnhancedClient;
+	private DynamoDbTable<Rating> ratingsTable;
+	private DynamoDbTable<Rating> ratingHistoryTable;
+
+	/**
+	 * Collapses the {@link Rating} version rows into the head item of each SKU.
+	 */
+	public RatingCompactor() {
+		this(DynamoDbClientRegistry.client());
+	}
+
+	/**
+	 * Collapses the {@link Rating} version rows into the head item of each SKU.
+	 *
+	 * @param dynamoDbClient underlying {@link DynamoDbClient}.
+	 */
+	public RatingCompactor(DynamoDbClient dynamoDbClient) {
+		this.dynamoDbClient = dynamoDbClient;
+		this.dynamoDbEnhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
+		withRatingsTable(RATINGS);
+	}
+
+	/**
+	 * Set the table name to be used for {@link Rating ratings}.
+	 *
+	 * @param ratingsTable table name.
+	 * @return this {@link RatingCompactor} instance.
+	 */
+	public RatingCompactor withRatingsTable(String ratingsTable) {
+		this.ratingsTable = dynamoDbEnhancedClient.table(ratingsTable, RatingTableSchema.INSTANCE);
+		return this;
+	}
+
+	/**
+	 * Set the append-only table version rows are copied to before being deleted.
+	 *
+	 * @param ratingHistoryTable table name, or null to keep no history.
+	 * @return this {@link RatingCompactor} instance.
+	 */
+	public RatingCompactor withRatingHistoryTable(String ratingHistoryTable) {
+		this.ratingHistoryTable = ratingHistoryTable == null ? null
+				: dynamoDbEnhancedClient.table(ratingHistoryTable, RatingTableSchema.INSTANCE);
+		return this;
+	}
+
+	/**
+	 * Collapse the version rows of a SKU into its head item.
+	 *
+	 * @param code SKU.
+	 * @return number of version rows deleted.
+	 */
+	public int compact(String code) {
+		Rating latest = getLatestVersionRow(code);
+		if(latest == null)
+			return 0;
+		writeHeadItem(latest);
+		int deleted = 0;
+		QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+				.queryConditional(QueryConditional.sortBetween(
+						Key.builder().partitionValue(code).sortValue(DynamoDbRatingService.HEAD_VERSION + 1).build(),
+						Key.builder().partitionValue(code).sortValue(latest.getVersion()).build()))
+				.limit(BATCH_WRITE_MAX_ITEMS).build();
+		for(Page<Rating> page : ratingsTable.query(request)) {
+			if(page.items().isEmpty())
+				continue;
+			if(ratingHistoryTable != null) {
+				List<WriteRequest> puts = new ArrayList<>(page.items().size());
+				for(Rating rating : page.items())
+					puts.add(WriteRequest.builder().putRequest(PutRequest.builder()
+							.item(ratingHistoryTable.tableSchema().itemToMap(rating, true)).build()).build());
+				batchWrite(dynamoDbClient, ratingHistoryTable.tableName(), puts);
+			}
+			List<WriteRequest> deletes = new ArrayList<>(page.items().size());
+			for(Rating rating : page.items()) {
+				Map<String, AttributeValue> key = new HashMap<>();
+				key.put(RATINGS_SKU, AttributeValue.fromS(rating.getSku()));
+				key.put(RATINGS_VERSION, AttributeValue.fromN(String.valueOf(rating.getVersion())));
+				deletes.add(WriteRequest.builder().deleteRequest(DeleteRequest.builder().key(key).build()).build());
+			}
+			batchWrite(dynamoDbClient, ratingsTable.tableName(), deletes);
+			deleted += deletes.size();
+		}
+		LOGGER.info("Compacted {} version row(s) of {} into its head item.", deleted, code);
+		return deleted;
+	}
+
+	/**
+	 * Compact the SKUs found in a page of the ratings table.
+	 *
+	 * @param startCode SKU the scan resumes from, as returned by the previous page, or null to start from the
+	 *                  beginning.
+	 * @param pageSize maximum number of items scanned.
+	 * @return result of the page, with the SKU the next page starts from.
+	 */
+	public CompactionPage compactPage(String startCode, int pageSize) {
+		ScanRequest.Builder scan = ScanRequest.builder().tableName(ratingsTable.tableName()).limit(pageSize)
+				.projectionExpression("#sku").expressionAttributeNames(Map.of("#sku", RATINGS_SKU));
+		if(startCode != null) {
+			// the head item sorts first, so starting right after it resumes the partition it belongs to
+			Map<String, AttributeValue> startKey = new HashMap<>();
+			startKey.put(RATINGS_SKU, AttributeValue.fromS(startCode));
+			startKey.put(RATINGS_VERSION, AttributeValue.fromN(String.valueOf(DynamoDbRatingService.HEAD_VERSION)));
+			scan.exclusiveStartKey(startKey);
+		}
+		ScanResponse response = dynamoDbClient.scan(scan.build());
+		Set<String> codes = new LinkedHashSet<>();
+		for(Map<String, AttributeValue> item : response.items())
+			codes.add(item.get(RATINGS_SKU).s());
+		long deleted = 0;
+		for(String code : codes)
+			deleted += compact(code);
+		String nextCode = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+				? response.lastEvaluatedKey().get(RATINGS_SKU).s() : null;
+		return new CompactionPage(codes.size(), deleted, nextCode);
+	}
+
+	private Rating getLatestVersionRow(String code) {
+		QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+				.queryConditional(QueryConditional.sortGreaterThan(Key.builder().partitionValue(code)
+						.sortValue(DynamoDbRatingService.HEAD_VERSION).build()))
+				.scanIndexForward(false).limit(1).build();
+		for(Page<Rating> page : ratingsTable.query(request)) {
+			return page.items().isEmpty() ? null : page.items().get(0);
+		}
+		return null;
+	}
+
+	/**
+	 * Write the head item mirroring a version row, unless the head item already points to that version
+	 * or a later one.
+	 */
+	private void writeHeadItem(Rating latest) {
+		Map<String, String> names = new HashMap<>();
+		names.put("#latestVersion", "latestVersion");
+		Map<String, AttributeValue> values = new HashMap<>();
+		values.put(":latestVersion", AttributeValue.fromN(String.valueOf(latest.getVersion())));
+		try {
+			dynamoDbClient.putItem(PutItemRequest.builder().tableName(ratingsTable.tableName())
+					.item(ratingsTable.tableSchema().itemToMap(DynamoDbRatingService.toHeadItem(latest), true))
+					.conditionExpression("attribute_not_exists(sku) OR #latestVersion < :latestVersion")
+					.expressionAttributeNames(names).expressionAttributeValues(values).build());
+		} catch (ConditionalCheckFailedException e) {
+			// the head item is already up to date
+		}
+	}
+
+	/**
+	 * Write a batch of at most {@link #BATCH_WRITE_MAX_ITEMS} items, retrying unprocessed items.
+	 *
+	 * @param dynamoDbClient client.
+	 * @param tableName table name.
+	 * @param writeRequests puts and deletes.
+	 */
+	static void batchWrite(DynamoDbClient dynamoDbClient, String tableName, List<WriteRequest> writeRequests) {
+		Map<String, List<WriteRequest>> requestItems = Map.of(tableName, writeRequests);
+		for(int attempt = 0; !requestItems.isEmpty(); attempt++) {
+			if(attempt > 0) {
+				if(attempt > BATCH_WRITE_MAX_RETRIES)
+					throw new IllegalStateException("Unprocessed items left after " + BATCH_WRITE_MAX_RETRIES + " retries.");
+				try {
+					Thread.sleep(DynamoDbRatingService.getBatchBackoffMillis(attempt));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(e);
+				}
+			}
+			requestItems = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder().requestItems(requestItems).build())
+					.unprocessedItems();
+		}
+	}
+
+	/**
+	 * Result of compacting a page of the ratings table.
+	 */
+	public static class CompactionPage {
+		private final int compactedCodes;
+		private final long deletedRows;
+		private final String nextCode;
+
+		CompactionPage(int compactedCodes, long deletedRows, String nextCode) {
+			this.compactedCodes = compactedCodes;
+			this.deletedRows = deletedRows;
+			this.nextCode = nextCode;
+		}
+
+		/**
+		 * @return number of SKUs compacted.
+		 */
+		public int getCompactedCodes() {
+			return compactedCodes;
+		}
+
+		/**
+		 * @return number of version rows deleted.
+		 */
+		public long getDeletedRows() {
+			return deletedRows;
+		}
+
+		/**
+		 * @return SKU the next page starts from, or null if the whole table was scanned.
+		 */
+		public String getNextCode() {
+			return nextCode;
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.lucaspetrini.consult.service;
+
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.service.model.UserRating;
+
+/**
+ * Change a user rating makes to the totals of its SKU's {@link Rating}.
+ */
+class RatingDelta {
+	static final RatingDelta ZERO = new RatingDelta(0, 0, 0);
+
+	private final long aggregated;
+	private final long quantity;
+	private final long numberOfReviews;
+
+	/**
+	 * Change a user rating makes to the totals of its SKU's {@link Rating}.
+	 *
+	 * @param currentUserRating user rating being replaced, or null if it's the user's first rating.
+	 * @param newUserRating new user rating, or null if the current one is being removed.
+	 */
+	RatingDelta(UserRating currentUserRating, UserRating newUserRating) {
+		// only a new or removed user changes quantity; otherwise the previous rating is taken out of the aggregation
+		quantity = (newUserRating == null ? 0 : 1) - (currentUserRating == null ? 0 : 1);
+		aggregated = getRating(newUserRating) - getRating(currentUserRating);
+		numberOfReviews = UserRatingWrite.getReviewIncrement(currentUserRating, newUserRating);
+	}
+
+	private RatingDelta(long aggregated, long quantity, long numberOfReviews) {
+		this.aggregated = aggregated;
+		this.quantity = quantity;
+		this.numberOfReviews = numberOfReviews;
+	}
+
+	/**
+	 * @param other change to add to this one.
+	 * @return change made by both user ratings.
+	 */
+	RatingDelta plus(RatingDelta other) {
+		return new RatingDelta(aggregated + other.aggregated, quantity + other.quantity, numberOfReviews + other.numberOfReviews);
+	}
+
+	/**
+	 * @return whether the change leaves the totals as they are.
+	 */
+	boolean isZero() {
+		return aggregated == 0 && quantity == 0 && numberOfReviews == 0;
+	}
+
+	/**
+	 * @return value to add to {@link Rating#getAggregated()}.
+	 */
+	long getAggregated() {
+		return aggregated;
+	}
+
+	/**
+	 * @return value to add to {@link Rating#getQuantity()}.
+	 */
+	long getQuantity() {
+		return quantity;
+	}
+
+	/**
+	 * @return value to add to {@link Rating#getNumberOfReviews()}.
+	 */
+	long getNumberOfReviews() {
+		return numberOfReviews;
+	}
+
+	private static long getRating(UserRating userRating) {
+		return userRating == null || userRating.getRating() == null ? 0 : userRating.getRating();
+	}
+}
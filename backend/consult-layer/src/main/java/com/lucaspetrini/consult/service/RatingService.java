@@ -1,5 +1,8 @@
 package com.lucaspetrini.consult.service;
 
+import java.util.Collection;
+import java.util.Map;
+
 import com.lucaspetrini.consult.service.model.Rating;
 
 /**
@@ -15,4 +18,25 @@ public interface RatingService {
 	 */
 	Rating getByCode(String code);
 
+	/**
+	 * Get the version of the {@link Rating} of a code, to check whether a client's copy is still current.
+	 * Implementations that can read the version alone, or answer it from memory, should override this
+	 * default, which reads the whole rating.
+	 * 
+	 * @param code code.
+	 * @return version, or null if not found.
+	 */
+	default Long getVersionByCode(String code) {
+		Rating rating = getByCode(code);
+		return rating != null ? rating.getVersion() : null;
+	}
+
+	/**
+	 * Get the {@link Rating ratings} for several codes at once.
+	 * 
+	 * @param codes codes.
+	 * @return ratings found, by code. Codes without a rating are not included.
+	 */
+	Map<String, Rating> getByCodes(Collection<String> codes);
+
 }
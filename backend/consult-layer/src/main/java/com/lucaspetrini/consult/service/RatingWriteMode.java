@@ -0,0 +1,51 @@
+package com.lucaspetrini.consult.service;
+
+import com.lucaspetrini.consult.service.model.Rating;
+
+/**
+ * How {@link DynamoDbUserRatingService} maintains the {@link Rating} aggregate of a SKU when a user
+ * rating is put.
+ */
+public enum RatingWriteMode {
+	/**
+	 * Read the latest rating, compute the new totals and write them as a new rating version, along with
+	 * the head item. Concurrent puts on the same SKU conflict on the new version, and all but one fail.
+	 */
+	VERSIONED,
+	/**
+	 * Add the change to the totals to the head item with an update expression, in the same transaction
+	 * as the user rating. The latest rating is not read and no rating version is written, so concurrent
+	 * puts on the same SKU commute instead of conflicting. The update requires the head item to exist:
+	 * SKUs rated before head items were introduced have it seeded from their latest version on their
+	 * first put, which is then retried.
+	 */
+	ATOMIC,
+	/**
+	 * Like {@link #ATOMIC}, but the change is added to one of the SKU's shard items, picked at random,
+	 * so writes to a single SKU are spread over several partitions. The number of shards of each SKU
+	 * comes from a {@link ShardCountResolver}; SKUs with a single shard are written to the head item.
+	 * Readers sum the head and shard items. Once a SKU has shard items, it must not be written in
+	 * {@link #VERSIONED} mode anymore, since that mode overwrites the head item with the full totals.
+	 * Shard items are created on demand, so SKUs with more than one shard and only version rows must
+	 * have their head item written (see {@link RatingCompactor}) before switching to this mode.
+	 */
+	SHARDED,
+	/**
+	 * Write only the user rating items. The totals are aggregated afterwards from the user ratings table
+	 * stream by {@link RatingAggregator}, which folds the changes of a whole batch into one update per
+	 * SKU, so the cost of a put doesn't grow with the popularity of the SKU. Ratings lag behind user
+	 * ratings by the stream delay. Like in {@link #ATOMIC} mode, SKUs rated before head items were
+	 * introduced have their head item seeded from their latest version before their first update.
+	 */
+	DEFERRED,
+	/**
+	 * Read the current rating, compute the new totals and replace the head item with them, without
+	 * writing a rating version, so the ratings table holds a single row per SKU. The head item's
+	 * latestVersion is used for optimistic locking: concurrent puts on the same SKU conflict on it and
+	 * all but one are retried. Rating versions are only kept if a history table is set (see
+	 * {@link DynamoDbUserRatingService#withRatingHistoryTable(String)}). Version rows written in
+	 * {@link #VERSIONED} mode can be collapsed into the head item with {@link RatingCompactor}. Like
+	 * {@link #VERSIONED} mode, it must not be used for SKUs with shard items.
+	 */
+	SINGLE_ROW;
+}
@@ -0,0 +1,97 @@
+package com.lucaspetrini.consult.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import com.lucaspetrini.consult.exception.InvalidParameterException;
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.service.model.UserRatingPage;
+import com.lucaspetrini.consult.service.model.UserRatingTableSchema;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+/**
+ * Query of a page of the current user ratings of a code: the 'v0-' prefixed items of its partition,
+ * in user order. The prefix is part of the key condition, so superseded versions are not read at all,
+ * and the page size is the query limit, so a page of N user ratings reads N items and consumes their
+ * read capacity, no more. Only the attributes returned to clients are projected.<br>
+ * The cursor of the next page is the user of the last evaluated key, without its prefix, base64url
+ * encoded: the code is already in the request, so it is the whole key.
+ * Shared by the blocking and asynchronous DynamoDB services, so both page through reviews the same way.
+ */
+final class ReviewsQuery {
+	static final String INVALID_CURSOR_MESSAGE = "Parameter cursor is invalid.";
+	private static final String VERSION_PREFIX = UserRatingWrite.VERSION_PREFIX;
+	private static final String USER_RATINGS_SKU = "sku";
+	private static final String USER_RATINGS_USER = "user";
+	private static final String KEY_CONDITION = "#sku = :sku AND begins_with(#user, :prefix)";
+	private static final String PROJECTION = "#user, rating, #date, review, version";
+	private static final Map<String, String> NAMES = Map.of("#sku", USER_RATINGS_SKU, "#user", USER_RATINGS_USER, "#date", "date");
+	private static final AttributeValue PREFIX_VALUE = AttributeValue.fromS(VERSION_PREFIX);
+
+	private ReviewsQuery() {}
+
+	/**
+	 * Build the query of a page.
+	 *
+	 * @param table user ratings table name.
+	 * @param code code.
+	 * @param limit maximum number of user ratings in the page.
+	 * @param cursor cursor returned with the previous page, or null for the first one.
+	 * @return query.
+	 * @throws InvalidParameterException if the cursor was not returned by a previous page.
+	 */
+	static QueryRequest toRequest(String table, String code, int limit, String cursor) {
+		QueryRequest.Builder builder = QueryRequest.builder()
+				.tableName(table)
+				.keyConditionExpression(KEY_CONDITION)
+				.projectionExpression(PROJECTION)
+				.expressionAttributeNames(NAMES)
+				.expressionAttributeValues(Map.of(":sku", AttributeValue.fromS(code), ":prefix", PREFIX_VALUE))
+				.limit(limit);
+		if(cursor != null) {
+			builder.exclusiveStartKey(Map.of(USER_RATINGS_SKU, AttributeValue.fromS(code),
+					USER_RATINGS_USER, AttributeValue.fromS(VERSION_PREFIX + decodeCursor(cursor))));
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Map the response of a page query.
+	 *
+	 * @param code code.
+	 * @param response query response.
+	 * @return page of user ratings, with user ids without their prefix.
+	 */
+	static UserRatingPage toPage(String code, QueryResponse response) {
+		List<UserRating> userRatings = new ArrayList<>(response.items().size());
+		for(Map<String, AttributeValue> item : response.items()) {
+			UserRating userRating = UserRatingTableSchema.INSTANCE.mapToItem(item);
+			userRating.setSku(code);
+			userRating.setUser(userRating.getUser().substring(VERSION_PREFIX.length()));
+			userRatings.add(userRating);
+		}
+		AttributeValue lastUser = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey().get(USER_RATINGS_USER) : null;
+		return new UserRatingPage(userRatings, lastUser != null ? encodeCursor(lastUser.s().substring(VERSION_PREFIX.length())) : null);
+	}
+
+	static String encodeCursor(String user) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(user.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static String decodeCursor(String cursor) {
+		try {
+			String user = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if(!user.isEmpty())
+				return user;
+		} catch (IllegalArgumentException e) {
+			// not base64url, reported below
+		}
+		throw new InvalidParameterException(INVALID_CURSOR_MESSAGE);
+	}
+}
@@ -0,0 +1,25 @@
+package com.lucaspetrini.consult.service;
+
+import com.lucaspetrini.consult.service.model.Rating;
+
+/**
+ * Resolves into how many shard items the {@link Rating} aggregate of a SKU is spread. Readers and
+ * writers must use the same resolver. The shard count of a SKU may grow, but must never shrink, or the
+ * totals held by the shards beyond the new count would stop being read.
+ */
+@FunctionalInterface
+public interface ShardCountResolver {
+
+	/**
+	 * @param code SKU.
+	 * @return number of shards, 1 meaning the aggregate is only held by the head item.
+	 */
+	int getShardCount(String code);
+
+	/**
+	 * @return resolver keeping every aggregate in the head item.
+	 */
+	static ShardCountResolver unsharded() {
+		return code -> 1;
+	}
+}
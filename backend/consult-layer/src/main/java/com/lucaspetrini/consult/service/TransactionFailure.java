@@ -0,0 +1,109 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.List;
+
+import com.lucaspetrini.consult.exception.ConflictException;
+import com.lucaspetrini.consult.exception.DatabaseException;
+import com.lucaspetrini.consult.exception.ServiceException;
+import com.lucaspetrini.consult.exception.TooManyRequestsException;
+
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+/**
+ * Classification of a cancelled DynamoDB transaction, based on the reasons returned for each of its
+ * items.
+ */
+class TransactionFailure {
+	static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+	static final String TRANSACTION_CONFLICT = "TransactionConflict";
+	static final String THROTTLING_ERROR = "ThrottlingError";
+	static final String PROVISIONED_THROUGHPUT_EXCEEDED = "ProvisionedThroughputExceeded";
+
+	/**
+	 * Why a transaction was cancelled, from the most to the least relevant for a retry.
+	 */
+	enum Type {
+		/** An item changed since it was read: it must be read again before retrying. */
+		CONDITIONAL_CHECK,
+		/** Another transaction or write was in progress on an item: the same transaction can be retried. */
+		TRANSACTION_CONFLICT,
+		/** Requests were throttled: the same transaction can be retried, after a while. */
+		THROTTLING,
+		/** Any other reason, such as a validation error: retrying won't help. */
+		OTHER;
+	}
+
+	private final Type type;
+	private final List<CancellationReason> reasons;
+
+	private TransactionFailure(Type type, List<CancellationReason> reasons) {
+		this.type = type;
+		this.reasons = reasons;
+	}
+
+	/**
+	 * Classify a cancelled transaction.
+	 *
+	 * @param exception exception thrown by DynamoDB.
+	 * @return transaction failure.
+	 */
+	static TransactionFailure of(TransactionCanceledException exception) {
+		List<CancellationReason> reasons = exception.hasCancellationReasons() ? exception.cancellationReasons() : List.of();
+		Type type = Type.OTHER;
+		for(CancellationReason reason : reasons) {
+			Type reasonType = toType(reason.code());
+			if(reasonType != null && (type == Type.OTHER || reasonType.ordinal() < type.ordinal())) {
+				type = reasonType;
+			}
+		}
+		return new TransactionFailure(type, reasons);
+	}
+
+	private static Type toType(String code) {
+		if(CONDITIONAL_CHECK_FAILED.equals(code))
+			return Type.CONDITIONAL_CHECK;
+		if(TRANSACTION_CONFLICT.equals(code))
+			return Type.TRANSACTION_CONFLICT;
+		if(THROTTLING_ERROR.equals(code) || PROVISIONED_THROUGHPUT_EXCEEDED.equals(code))
+			return Type.THROTTLING;
+		return null;
+	}
+
+	Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return whether the transaction may succeed if retried.
+	 */
+	boolean isRetryable() {
+		return type != Type.OTHER;
+	}
+
+	/**
+	 * @param index index of an item in the transaction.
+	 * @return whether the condition on that item failed.
+	 */
+	boolean isConditionalCheckFailed(int index) {
+		return index >= 0 && index < reasons.size() && CONDITIONAL_CHECK_FAILED.equals(reasons.get(index).code());
+	}
+
+	/**
+	 * Return the exception to be thrown once the transaction won't be retried anymore.
+	 *
+	 * @param cause exception thrown by DynamoDB.
+	 * @return service exception.
+	 */
+	ServiceException toServiceException(Throwable cause) {
+		switch(type) {
+		case CONDITIONAL_CHECK:
+		case TRANSACTION_CONFLICT:
+			return new ConflictException(cause);
+		case THROTTLING:
+			return new TooManyRequestsException(cause);
+		default:
+			return new DatabaseException(cause);
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the transactions sent by a service: how many writes were made, how many attempts they
+ * took, and why attempts failed. Instances are thread safe and meant to live as long as the service.
+ */
+public class TransactionRetryMetrics {
+	private final AtomicLong writes = new AtomicLong();
+	private final AtomicLong attempts = new AtomicLong();
+	private final AtomicLong maxAttemptsPerWrite = new AtomicLong();
+	private final AtomicLong failedWrites = new AtomicLong();
+	private final AtomicLong conditionalCheckFailures = new AtomicLong();
+	private final AtomicLong transactionConflicts = new AtomicLong();
+	private final AtomicLong throttles = new AtomicLong();
+
+	/**
+	 * Record a write that is complete, either because it succeeded or because it won't be retried anymore.
+	 *
+	 * @param attemptCount number of attempts made.
+	 * @param succeeded whether the last attempt succeeded.
+	 */
+	void recordWrite(int attemptCount, boolean succeeded) {
+		writes.incrementAndGet();
+		attempts.addAndGet(attemptCount);
+		maxAttemptsPerWrite.accumulateAndGet(attemptCount, Math::max);
+		if(!succeeded)
+			failedWrites.incrementAndGet();
+	}
+
+	/**
+	 * Record a failed attempt.
+	 *
+	 * @param type why the attempt failed.
+	 */
+	void recordFailure(TransactionFailure.Type type) {
+		switch(type) {
+		case CONDITIONAL_CHECK:
+			conditionalCheckFailures.incrementAndGet();
+			break;
+		case TRANSACTION_CONFLICT:
+			transactionConflicts.incrementAndGet();
+			break;
+		case THROTTLING:
+			throttles.incrementAndGet();
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * @return number of writes made.
+	 */
+	public long getWrites() {
+		return writes.get();
+	}
+
+	/**
+	 * @return number of attempts made by every write.
+	 */
+	public long getAttempts() {
+		return attempts.get();
+	}
+
+	/**
+	 * @return average number of attempts per write, or 0 if no write was made.
+	 */
+	public double getAttemptsPerWrite() {
+		long writeCount = writes.get();
+		return writeCount == 0 ? 0 : (double) attempts.get() / writeCount;
+	}
+
+	/**
+	 * @return highest number of attempts made by a single write.
+	 */
+	public long getMaxAttemptsPerWrite() {
+		return maxAttemptsPerWrite.get();
+	}
+
+	/**
+	 * @return number of writes that failed, because they ran out of attempts or latency budget, or
+	 *         because their failure couldn't be solved by retrying.
+	 */
+	public long getFailedWrites() {
+		return failedWrites.get();
+	}
+
+	public long getConditionalCheckFailures() {
+		return conditionalCheckFailures.get();
+	}
+
+	public long getTransactionConflicts() {
+		return transactionConflicts.get();
+	}
+
+	public long getThrottles() {
+		return throttles.get();
+	}
+}
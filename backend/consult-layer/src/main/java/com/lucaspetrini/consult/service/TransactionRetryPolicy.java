@@ -0,0 +1,73 @@
+package com.lucaspetrini.consult.service;
+
+import com.lucaspetrini.consult.utils.ConsultRandom;
+
+/**
+ * How many times, and for how long, a cancelled transaction is retried. Delays between attempts use
+ * decorrelated jitter: each one is picked at random between the base delay and three times the
+ * previous delay, capped at the maximum delay, so writers contending for the same item spread out
+ * instead of retrying in lockstep.
+ */
+public class TransactionRetryPolicy {
+	public static final int DEFAULT_MAX_ATTEMPTS = 5;
+	public static final long DEFAULT_BUDGET_MILLIS = 1000;
+	public static final long DEFAULT_BASE_DELAY_MILLIS = 10;
+	public static final long DEFAULT_MAX_DELAY_MILLIS = 200;
+
+	private final int maxAttempts;
+	private final long budgetMillis;
+	private final long baseDelayMillis;
+	private final long maxDelayMillis;
+
+	/**
+	 * Retry policy with default values.
+	 */
+	public TransactionRetryPolicy() {
+		this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BUDGET_MILLIS, DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS);
+	}
+
+	/**
+	 * Retry policy.
+	 *
+	 * @param maxAttempts maximum number of attempts, including the first one.
+	 * @param budgetMillis time, in milliseconds, after which no retry is started.
+	 * @param baseDelayMillis minimum delay between attempts, in milliseconds.
+	 * @param maxDelayMillis maximum delay between attempts, in milliseconds.
+	 */
+	public TransactionRetryPolicy(int maxAttempts, long budgetMillis, long baseDelayMillis, long maxDelayMillis) {
+		if(maxAttempts < 1)
+			throw new IllegalArgumentException("Max attempts must be greater than 0.");
+		if(baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis)
+			throw new IllegalArgumentException("Delays must satisfy 0 <= base delay <= max delay.");
+		this.maxAttempts = maxAttempts;
+		this.budgetMillis = budgetMillis;
+		this.baseDelayMillis = baseDelayMillis;
+		this.maxDelayMillis = maxDelayMillis;
+	}
+
+	/**
+	 * @param previousDelayMillis previous delay, in milliseconds, or 0 before the first retry.
+	 * @return delay before the next attempt, in milliseconds.
+	 */
+	public long nextDelayMillis(long previousDelayMillis) {
+		long upper = Math.max(baseDelayMillis, previousDelayMillis) * 3;
+		long delay = upper > baseDelayMillis ? ConsultRandom.nextLong(baseDelayMillis, upper + 1) : baseDelayMillis;
+		return Math.min(maxDelayMillis, delay);
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	public long getBudgetMillis() {
+		return budgetMillis;
+	}
+
+	public long getBaseDelayMillis() {
+		return baseDelayMillis;
+	}
+
+	public long getMaxDelayMillis() {
+		return maxDelayMillis;
+	}
+}
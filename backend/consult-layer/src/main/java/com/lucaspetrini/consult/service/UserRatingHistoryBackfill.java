@@ -0,0 +1,291 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.service.model.UserRatingTableSchema;
+import com.lucaspetrini.consult.utils.DynamoDbClientRegistry;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchGetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+/**
+ * Applies a {@link UserRatingHistoryPolicy} to the superseded {@link UserRating} versions already in the
+ * user ratings table, written before the policy was set or changed. Each version row is:
+ * <ul>
+ * <li>deleted, if it's outside the policy's limits</li>
+ * <li>otherwise moved to the archive table, if there is one</li>
+ * <li>otherwise given its expiry time, if it changed</li>
+ * </ul>
+ * The latest version of each user is read from its current ('v0-') row. Running it again is safe.
+ */
+public class UserRatingHistoryBackfill {
+	private static final Logger LOGGER = LoggerFactory.getLogger(UserRatingHistoryBackfill.class);
+	private static final String USER_RATINGS = "user_ratings";
+	private static final String USER_RATINGS_SKU = "sku";
+	private static final String USER_RATINGS_USER = "user";
+	/** Sorts right after every current ('v0-') user, and before every superseded version. */
+	private static final String HISTORY_START_USER = "v0.";
+	/** Maximum number of keys DynamoDB accepts in a single BatchGetItem request. */
+	static final int BATCH_GET_MAX_KEYS = 100;
+	public static final int DEFAULT_PAGE_SIZE = 100;
+
+	private final DynamoDbClient dynamoDbClient;
+	private final DynamoDbEnhancedClient dynamoDbEnhancedClient;
+	private DynamoDbTable<UserRating> userRatingsTable;
+	private DynamoDbTable<UserRating> userRatingArchiveTable;
+	private UserRatingHistoryPolicy historyPolicy = UserRatingHistoryPolicy.keepAll();
+
+	/**
+	 * Applies a {@link UserRatingHistoryPolicy} to the superseded user rating versions.
+	 */
+	public UserRatingHistoryBackfill() {
+		this(DynamoDbClientRegistry.client());
+	}
+
+	/**
+	 * Applies a {@link UserRatingHistoryPolicy} to the superseded user rating versions.
+	 *
+	 * @param dynamoDbClient underlying {@link DynamoDbClient}.
+	 */
+	public UserRatingHistoryBackfill(DynamoDbClient dynamoDbClient) {
+		this.dynamoDbClient = dynamoDbClient;
+		this.dynamoDbEnhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
+		withUserRatingsTable(USER_RATINGS);
+	}
+
+	/**
+	 * Set the table name to be used for {@link UserRating user ratings}.
+	 *
+	 * @param userRatingsTable table name.
+	 * @return this {@link UserRatingHistoryBackfill} instance.
+	 */
+	public UserRatingHistoryBackfill withUserRatingsTable(String userRatingsTable) {
+		this.userRatingsTable = dynamoDbEnhancedClient.table(userRatingsTable, UserRatingTableSchema.INSTANCE);
+		return this;
+	}
+
+	/**
+	 * Set the table superseded versions kept by the policy are moved to.
+	 *
+	 * @param userRatingArchiveTable table name, or null to keep them in the user ratings table.
+	 * @return this {@link UserRatingHistoryBackfill} instance.
+	 */
+	public UserRatingHistoryBackfill withUserRatingArchiveTable(String userRatingArchiveTable) {
+		this.userRatingArchiveTable = userRatingArchiveTable == null ? null
+				: dynamoDbEnhancedClient.table(userRatingArchiveTable, UserRatingTableSchema.INSTANCE);
+		return this;
+	}
+
+	/**
+	 * Set the policy applied.
+	 *
+	 * @param historyPolicy history retention policy.
+	 * @return this {@link UserRatingHistoryBackfill} instance.
+	 */
+	public UserRatingHistoryBackfill withHistoryPolicy(UserRatingHistoryPolicy historyPolicy) {
+		this.historyPolicy = historyPolicy;
+		return this;
+	}
+
+	/**
+	 * Apply the policy to the superseded versions of a SKU.
+	 *
+	 * @param code SKU.
+	 * @return result, without next key.
+	 */
+	public BackfillResult backfill(String code) {
+		BackfillResult result = new BackfillResult(null, null);
+		QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+				.queryConditional(QueryConditional.sortGreaterThan(Key.builder().partitionValue(code).sortValue(HISTORY_START_USER).build()))
+				.limit(RatingCompactor.BATCH_WRITE_MAX_ITEMS).build();
+		for(Page<UserRating> page : userRatingsTable.query(request)) {
+			if(!page.items().isEmpty())
+				apply(page.items(), result);
+		}
+		LOGGER.info("Applied history policy to {}: {} deleted, {} archived, {} updated.", code, result.getDeletedRows(),
+				result.getArchivedRows(), result.getUpdatedRows());
+		return result;
+	}
+
+	/**
+	 * Apply the policy to the superseded versions found in a page of the user ratings table.
+	 *
+	 * @param startCode SKU of the key the scan resumes from, as returned by the previous page, or null to
+	 *                  start from the beginning.
+	 * @param startUser user of the key the scan resumes from.
+	 * @param pageSize maximum number of items scanned.
+	 * @return result of the page, with the key the next page starts from.
+	 */
+	public BackfillResult backfillPage(String startCode, String startUser, int pageSize) {
+		Map<String, String> names = new HashMap<>();
+		names.put("#user", USER_RATINGS_USER);
+		ScanRequest.Builder scan = ScanRequest.builder().tableName(userRatingsTable.tableName()).limit(pageSize)
+				.filterExpression("NOT begins_with(#user, :current)").expressionAttributeNames(names)
+				.expressionAttributeValues(Map.of(":current", AttributeValue.fromS(UserRatingWrite.VERSION_PREFIX)));
+		if(startCode != null) {
+			Map<String, AttributeValue> startKey = new HashMap<>();
+			startKey.put(USER_RATINGS_SKU, AttributeValue.fromS(startCode));
+			startKey.put(USER_RATINGS_USER, AttributeValue.fromS(startUser));
+			scan.exclusiveStartKey(startKey);
+		}
+		ScanResponse response = dynamoDbClient.scan(scan.build());
+		boolean hasNext = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty();
+		BackfillResult result = new BackfillResult(hasNext ? response.lastEvaluatedKey().get(USER_RATINGS_SKU).s() : null,
+				hasNext ? response.lastEvaluatedKey().get(USER_RATINGS_USER).s() : null);
+		List<UserRating> rows = new ArrayList<>(response.items().size());
+		for(Map<String, AttributeValue> item : response.items())
+			rows.add(userRatingsTable.tableSchema().mapToItem(item));
+		for(int i = 0; i < rows.size(); i += RatingCompactor.BATCH_WRITE_MAX_ITEMS)
+			apply(rows.subList(i, Math.min(rows.size(), i + RatingCompactor.BATCH_WRITE_MAX_ITEMS)), result);
+		return result;
+	}
+
+	/**
+	 * Apply the policy to at most {@link RatingCompactor#BATCH_WRITE_MAX_ITEMS} superseded versions.
+	 */
+	private void apply(List<UserRating> rows, BackfillResult result) {
+		Map<List<String>, UserRating> currentUserRatings = getCurrentUserRatings(rows);
+		long nowMillis = System.currentTimeMillis();
+		List<WriteRequest> userRatingWrites = new ArrayList<>(rows.size());
+		List<WriteRequest> archiveWrites = new ArrayList<>(rows.size());
+		for(UserRating row : rows) {
+			UserRating current = currentUserRatings.get(toCurrentKey(row));
+			// without a current row, the version is treated as the latest one
+			long latestVersion = current == null ? row.getVersion() : current.getVersion() - 1;
+			Long expiresAt = historyPolicy.getExpiresAt(row.getDate());
+			if(historyPolicy.isExpired(row.getVersion(), latestVersion, row.getDate(), nowMillis)) {
+				userRatingWrites.add(toDelete(row));
+				result.deletedRows++;
+			}
+			else if(userRatingArchiveTable != null) {
+				row.setExpiresAt(expiresAt);
+				archiveWrites.add(toPut(userRatingArchiveTable, row));
+				userRatingWrites.add(toDelete(row));
+				result.archivedRows++;
+			}
+			else if(!Objects.equals(expiresAt, row.getExpiresAt())) {
+				row.setExpiresAt(expiresAt);
+				userRatingWrites.add(toPut(userRatingsTable, row));
+				result.updatedRows++;
+			}
+		}
+		// archived rows are only deleted once their copy is written
+		if(!archiveWrites.isEmpty())
+			RatingCompactor.batchWrite(dynamoDbClient, userRatingArchiveTable.tableName(), archiveWrites);
+		if(!userRatingWrites.isEmpty())
+			RatingCompactor.batchWrite(dynamoDbClient, userRatingsTable.tableName(), userRatingWrites);
+	}
+
+	/**
+	 * Read the current ('v0-') rows of the users the versions belong to.
+	 *
+	 * @return current rows, by {@link #toCurrentKey(UserRating) SKU and user}.
+	 */
+	private Map<List<String>, UserRating> getCurrentUserRatings(List<UserRating> rows) {
+		Set<List<String>> keys = new LinkedHashSet<>();
+		for(UserRating row : rows)
+			keys.add(toCurrentKey(row));
+		Map<List<String>, UserRating> currentUserRatings = new HashMap<>();
+		List<List<String>> keyList = new ArrayList<>(keys);
+		for(int i = 0; i < keyList.size(); i += BATCH_GET_MAX_KEYS) {
+			ReadBatch.Builder<UserRating> batch = ReadBatch.builder(UserRating.class).mappedTableResource(userRatingsTable);
+			for(List<String> key : keyList.subList(i, Math.min(keyList.size(), i + BATCH_GET_MAX_KEYS)))
+				batch.addGetItem(Key.builder().partitionValue(key.get(0)).sortValue(key.get(1)).build());
+			// unprocessed keys are read again by the following pages
+			dynamoDbEnhancedClient.batchGetItem(BatchGetItemEnhancedRequest.builder().readBatches(batch.build()).build())
+					.resultsForTable(userRatingsTable)
+					.forEach(current -> currentUserRatings.put(List.of(current.getSku(), current.getUser()), current));
+		}
+		return currentUserRatings;
+	}
+
+	private static List<String> toCurrentKey(UserRating row) {
+		String user = row.getUser();
+		return List.of(row.getSku(), UserRatingWrite.VERSION_PREFIX + user.substring(user.indexOf('-') + 1));
+	}
+
+	private static WriteRequest toDelete(UserRating row) {
+		Map<String, AttributeValue> key = new HashMap<>();
+		key.put(USER_RATINGS_SKU, AttributeValue.fromS(row.getSku()));
+		key.put(USER_RATINGS_USER, AttributeValue.fromS(row.getUser()));
+		return WriteRequest.builder().deleteRequest(DeleteRequest.builder().key(key).build()).build();
+	}
+
+	private static WriteRequest toPut(DynamoDbTable<UserRating> table, UserRating row) {
+		return WriteRequest.builder().putRequest(PutRequest.builder().item(table.tableSchema().itemToMap(row, true)).build()).build();
+	}
+
+	/**
+	 * Result of applying the policy to a SKU or a page of the user ratings table.
+	 */
+	public static class BackfillResult {
+		private long deletedRows;
+		private long archivedRows;
+		private long updatedRows;
+		private final String nextCode;
+		private final String nextUser;
+
+		BackfillResult(String nextCode, String nextUser) {
+			this.nextCode = nextCode;
+			this.nextUser = nextUser;
+		}
+
+		/**
+		 * @return number of versions deleted because they were outside the policy's limits.
+		 */
+		public long getDeletedRows() {
+			return deletedRows;
+		}
+
+		/**
+		 * @return number of versions moved to the archive table.
+		 */
+		public long getArchivedRows() {
+			return archivedRows;
+		}
+
+		/**
+		 * @return number of versions whose expiry time was set.
+		 */
+		public long getUpdatedRows() {
+			return updatedRows;
+		}
+
+		/**
+		 * @return SKU of the key the next page starts from, or null if the whole table was scanned.
+		 */
+		public String getNextCode() {
+			return nextCode;
+		}
+
+		/**
+		 * @return user of the key the next page starts from, or null if the whole table was scanned.
+		 */
+		public String getNextUser() {
+			return nextUser;
+		}
+	}
+}
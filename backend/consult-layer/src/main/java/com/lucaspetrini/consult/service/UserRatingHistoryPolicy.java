@@ -0,0 +1,99 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.concurrent.TimeUnit;
+
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+import com.lucaspetrini.consult.utils.EnvironmentUtils;
+
+/**
+ * How long the superseded versions of a {@link UserRating} ('v{n}-' prefixed users) are kept: the last
+ * N versions of each user, versions rated in the last M days, or both. A version outside any of the
+ * configured limits is expired. Versions beyond the last N are deleted when a new version is put, while
+ * the age limit is enforced by DynamoDB's time to live, through the {@value #TTL_ATTRIBUTE} attribute.
+ */
+public class UserRatingHistoryPolicy {
+	/** Time to live attribute of the user ratings and archive tables, in epoch seconds. */
+	public static final String TTL_ATTRIBUTE = "expiresAt";
+	private static final UserRatingHistoryPolicy KEEP_ALL = new UserRatingHistoryPolicy(0, 0);
+
+	private final int keepVersions;
+	private final int keepDays;
+
+	/**
+	 * History retention policy.
+	 *
+	 * @param keepVersions number of superseded versions kept for each user, or 0 to keep them all.
+	 * @param keepDays number of days a version is kept after its date, or 0 to keep it forever.
+	 */
+	public UserRatingHistoryPolicy(int keepVersions, int keepDays) {
+		if(keepVersions < 0 || keepDays < 0)
+			throw new IllegalArgumentException("Retention limits must not be negative.");
+		this.keepVersions = keepVersions;
+		this.keepDays = keepDays;
+	}
+
+	/**
+	 * @return policy keeping every version.
+	 */
+	public static UserRatingHistoryPolicy keepAll() {
+		return KEEP_ALL;
+	}
+
+	/**
+	 * Create a policy from the {@link ConsultConstants#ENV_USER_RATING_HISTORY_KEEP_VERSIONS} and
+	 * {@link ConsultConstants#ENV_USER_RATING_HISTORY_KEEP_DAYS} environment variables.
+	 *
+	 * @return history retention policy.
+	 */
+	public static UserRatingHistoryPolicy fromEnvironment() {
+		return new UserRatingHistoryPolicy(EnvironmentUtils.getInt(ConsultConstants.ENV_USER_RATING_HISTORY_KEEP_VERSIONS, 0),
+				EnvironmentUtils.getInt(ConsultConstants.ENV_USER_RATING_HISTORY_KEEP_DAYS, 0));
+	}
+
+	/**
+	 * @param date date of the version, in epoch milliseconds, or null.
+	 * @return when the version expires, in epoch seconds, or null if it never does.
+	 */
+	public Long getExpiresAt(Long date) {
+		if(keepDays == 0 || date == null)
+			return null;
+		return TimeUnit.MILLISECONDS.toSeconds(date) + TimeUnit.DAYS.toSeconds(keepDays);
+	}
+
+	/**
+	 * @param latestVersion latest superseded version of a user.
+	 * @return the newest version no longer kept, or 0 if every version is kept.
+	 */
+	public long getLastExpiredVersion(long latestVersion) {
+		return keepVersions == 0 ? 0 : Math.max(0, latestVersion - keepVersions);
+	}
+
+	/**
+	 * @param version superseded version.
+	 * @param latestVersion latest superseded version of the same user.
+	 * @param date date of the version, in epoch milliseconds, or null.
+	 * @param nowMillis current time, in epoch milliseconds.
+	 * @return whether the version is outside the policy's limits.
+	 */
+	public boolean isExpired(long version, long latestVersion, Long date, long nowMillis) {
+		Long expiresAt = getExpiresAt(date);
+		return version <= getLastExpiredVersion(latestVersion)
+				|| (expiresAt != null && expiresAt <= TimeUnit.MILLISECONDS.toSeconds(nowMillis));
+	}
+
+	/**
+	 * @return whether the policy keeps every version.
+	 */
+	public boolean keepsAll() {
+		return keepVersions == 0 && keepDays == 0;
+	}
+
+	public int getKeepVersions() {
+		return keepVersions;
+	}
+
+	public int getKeepDays() {
+		return keepDays;
+	}
+}
@@ -1,6 +1,7 @@
 package com.lucaspetrini.consult.service;
 
 import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.service.model.UserRatingPage;
 
 /**
  * Service to handle persistence for {@link UserRating user ratings}.
@@ -16,6 +17,31 @@ public interface UserRatingService {
 	 */
 	UserRating getByUserIdAndCode(String userId, String code);
 
+	/**
+	 * Get the version of a {@link UserRating}, to check whether a client's copy is still current.
+	 * Implementations that can read the version alone should override this default, which reads the
+	 * whole user rating.
+	 * 
+	 * @param userId user id.
+	 * @param code code.
+	 * @return version, or null if not found.
+	 */
+	default Long getVersionByUserIdAndCode(String userId, String code) {
+		UserRating userRating = getByUserIdAndCode(userId, code);
+		return userRating != null ? userRating.getVersion() : null;
+	}
+
+	/**
+	 * Get a page of the current {@link UserRating user ratings} of a code, superseded versions left out.
+	 * 
+	 * @param code code.
+	 * @param limit maximum number of user ratings in the page.
+	 * @param cursor cursor returned with the previous page, or null for the first one.
+	 * @return page of user ratings, empty if the code has none.
+	 * @throws com.lucaspetrini.consult.exception.InvalidParameterException if the cursor is invalid.
+	 */
+	UserRatingPage getReviewsByCode(String code, int limit, String cursor);
+
 	/**
 	 * Insert or update a {@link UserRating}.
 	 * 
@@ -0,0 +1,404 @@
+package com.lucaspetrini.consult.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.service.model.UserRating;
+
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.MappedTableResource;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactPutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest.Builder;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.Delete;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+
+/**
+ * Items written when a {@link UserRating} is put, computed from the current state of the database:
+ * <ul>
+ * <li>the new current user rating ('v0-' prefixed user)</li>
+ * <li>a copy of the previous current user rating, prefixed with its version, if there was one</li>
+ * <li>the deletion of the oldest copy the {@link UserRatingHistoryPolicy history policy} no longer keeps, if
+ * any</li>
+ * <li>the new {@link Rating} version for the SKU</li>
+ * <li>the SKU head item, mirroring the new rating version</li>
+ * </ul>
+ * In {@link RatingWriteMode#ATOMIC atomic mode}, the rating version is not written and the change to
+ * the totals is added to the head item, or to a shard item, instead (see
+ * {@link #toAtomicRequest(MappedTableResource, MappedTableResource, String)}). In
+ * {@link RatingWriteMode#DEFERRED deferred mode}, only the user rating items are written. In
+ * {@link RatingWriteMode#SINGLE_ROW single row mode}, the head item is replaced and the rating version
+ * is only written to the history table, if there is one.
+ * Shared by the blocking and asynchronous DynamoDB services, so both write exactly the same items.
+ */
+class UserRatingWrite {
+	static final String VERSION_PREFIX = "v0-";
+	private static final String RATINGS_SKU = "sku";
+	private static final String RATINGS_VERSION = "version";
+	private static final String USER_RATINGS_SKU = "sku";
+	private static final String USER_RATINGS_USER = "user";
+	/** Condition of updates that add to the head item. */
+	static final String HEAD_EXISTS = "attribute_exists(sku)";
+
+	private final UserRating userRating;
+	private final UserRating currentUserRating;
+	private final Rating currentRating;
+	private final UserRating previousUserRating;
+	private final UserRating newUserRating;
+	private final Rating rating;
+	private final RatingDelta delta;
+	private MappedTableResource<UserRating> archiveTable;
+	private String expiredUser;
+
+	/**
+	 * Compute the items written when a {@link UserRating} is put.
+	 *
+	 * @param userRating user rating being put, user without version prefix.
+	 * @param currentUserRating current ('v0-') user rating in the database, or null.
+	 * @param currentRating latest rating for the SKU in the database, or null. Only used by
+	 *                      {@link #toRequest(MappedTableResource, MappedTableResource)} and
+	 *                      {@link #toSingleRowRequest(MappedTableResource, MappedTableResource, MappedTableResource)}.
+	 */
+	UserRatingWrite(UserRating userRating, UserRating currentUserRating, Rating currentRating) {
+		this.userRating = userRating;
+		this.currentUserRating = currentUserRating;
+		this.currentRating = currentRating;
+		newUserRating = copyUserRating(userRating);
+		newUserRating.setUser(VERSION_PREFIX + userRating.getUser());
+		if(currentUserRating == null) {
+			previousUserRating = null;
+			newUserRating.setVersion(1L);
+		}
+		else {
+			// if a rating already exists for the sku and user, create a new item that should be a copy of the current one
+			// and update "v0-" with the new information
+			previousUserRating = copyUserRating(currentUserRating);
+			// get user name without version prefix (vxxx-) and set the version prefix
+			String user = currentUserRating.getUser();
+			previousUserRating.setUser("v" + currentUserRating.getVersion() + user.substring(user.indexOf('-')));
+			newUserRating.setVersion(currentUserRating.getVersion() + 1);
+		}
+
+		delta = new RatingDelta(currentUserRating, newUserRating);
+		rating = new Rating();
+		rating.setSku(userRating.getSku());
+		rating.setDate(userRating.getDate());
+		if(currentRating == null) {
+			rating.setAggregated(userRating.getRating());
+			rating.setQuantity(1L);
+			rating.setVersion(1L);
+			rating.setNumberOfReviews(Math.max(0, delta.getNumberOfReviews()));
+		}
+		else {
+			rating.setVersion(currentRating.getVersion() + 1);
+			rating.setQuantity(currentRating.getQuantity() + delta.getQuantity());
+			rating.setAggregated(currentRating.getAggregated() + delta.getAggregated());
+			// if for any weird reason number of reviews result in less than 0, we set it to 0
+			rating.setNumberOfReviews(Math.max(0, (currentRating.getNumberOfReviews() == null ? 0 : currentRating.getNumberOfReviews()) + delta.getNumberOfReviews()));
+		}
+	}
+
+	/**
+	 * Apply a history retention policy: the copy of the previous user rating expires when the policy says
+	 * so, and the oldest copy it no longer keeps is deleted. Older copies are left to
+	 * {@link UserRatingHistoryBackfill}.
+	 *
+	 * @param policy history retention policy.
+	 * @param archiveTable table copies are written to and deleted from, or null to keep them in the user
+	 *                     ratings table.
+	 * @return this {@link UserRatingWrite} instance.
+	 */
+	UserRatingWrite withHistoryPolicy(UserRatingHistoryPolicy policy, MappedTableResource<UserRating> archiveTable) {
+		this.archiveTable = archiveTable;
+		if(previousUserRating != null) {
+			previousUserRating.setExpiresAt(policy.getExpiresAt(previousUserRating.getDate()));
+			long expiredVersion = policy.getLastExpiredVersion(previousUserRating.getVersion());
+			String user = previousUserRating.getUser();
+			expiredUser = expiredVersion > 0 ? "v" + expiredVersion + user.substring(user.indexOf('-')) : null;
+		}
+		return this;
+	}
+
+	/**
+	 * Build the transaction writing every item.
+	 *
+	 * @param userRatingsTable user ratings table.
+	 * @param ratingsTable ratings table.
+	 * @return transaction request.
+	 */
+	TransactWriteItemsEnhancedRequest toRequest(MappedTableResource<UserRating> userRatingsTable, MappedTableResource<Rating> ratingsTable) {
+		Builder transactWriteRequestBuilder = TransactWriteItemsEnhancedRequest.builder();
+		if(previousUserRating == null) {
+			addToTransaction(transactWriteRequestBuilder, userRatingsTable, newUserRating, false);
+		}
+		else {
+			addToTransaction(transactWriteRequestBuilder, getHistoryTable(userRatingsTable), previousUserRating, false);
+			addToTransaction(transactWriteRequestBuilder, userRatingsTable, newUserRating, true);
+			if(expiredUser != null) {
+				transactWriteRequestBuilder.addDeleteItem(getHistoryTable(userRatingsTable),
+						Key.builder().partitionValue(userRating.getSku()).sortValue(expiredUser).build());
+			}
+		}
+		addToTransaction(transactWriteRequestBuilder, ratingsTable, rating, false);
+		// the head item mirrors the new version, so it can be batch read without knowing the version
+		addToTransaction(transactWriteRequestBuilder, ratingsTable, DynamoDbRatingService.toHeadItem(rating), true);
+		return transactWriteRequestBuilder.build();
+	}
+
+	/**
+	 * Build the transaction writing the user rating items and adding the change to the totals to the SKU
+	 * head item, so the latest rating doesn't need to be read.
+	 *
+	 * @param userRatingsTable user ratings table.
+	 * @param ratingsTable ratings table.
+	 * @return transaction request.
+	 */
+	TransactWriteItemsRequest toAtomicRequest(MappedTableResource<UserRating> userRatingsTable, MappedTableResource<Rating> ratingsTable) {
+		return toAtomicRequest(userRatingsTable, ratingsTable, rating.getSku());
+	}
+
+	/**
+	 * Build the transaction writing the user rating items and adding the change to the totals to the given
+	 * head or shard item.
+	 *
+	 * @param userRatingsTable user ratings table.
+	 * @param ratingsTable ratings table.
+	 * @param aggregateKey partition key of the head or shard item.
+	 * @return transaction request.
+	 */
+	TransactWriteItemsRequest toAtomicRequest(MappedTableResource<UserRating> userRatingsTable, MappedTableResource<Rating> ratingsTable,
+			String aggregateKey) {
+		List<TransactWriteItem> items = toUserRatingItems(userRatingsTable);
+		items.add(TransactWriteItem.builder().update(toHeadUpdate(ratingsTable.tableName(), aggregateKey)).build());
+		return TransactWriteItemsRequest.builder().transactItems(items).build();
+	}
+
+	/**
+	 * Build the transaction writing only the user rating items. The totals are left to be aggregated from
+	 * the table's stream (see {@link RatingWriteMode#DEFERRED}).
+	 *
+	 * @param userRatingsTable user ratings table.
+	 * @return transaction request.
+	 */
+	TransactWriteItemsRequest toDeferredRequest(MappedTableResource<UserRating> userRatingsTable) {
+		return TransactWriteItemsRequest.builder().transactItems(toUserRatingItems(userRatingsTable)).build();
+	}
+
+	/**
+	 * Build the transaction writing the user rating items and replacing the SKU head item with the new
+	 * totals, without writing a rating version. The head item is only replaced if its latestVersion is
+	 * still the version of the current rating, so concurrent puts on the same SKU conflict on it.
+	 *
+	 * @param userRatingsTable user ratings table.
+	 * @param ratingsTable ratings table.
+	 * @param historyTable append-only table the new rating version is copied to, or null to keep no history.
+	 * @return transaction request.
+	 */
+	TransactWriteItemsRequest toSingleRowRequest(MappedTableResource<UserRating> userRatingsTable, MappedTableResource<Rating> ratingsTable,
+			MappedTableResource<Rating> historyTable) {
+		List<TransactWriteItem> items = toUserRatingItems(userRatingsTable);
+		Map<String, String> names = new HashMap<>();
+		names.put("#latestVersion", "latestVersion");
+		Map<String, AttributeValue> values = new HashMap<>();
+		values.put(":latestVersion", AttributeValue.fromN(String.valueOf(currentRating == null ? DynamoDbRatingService.HEAD_VERSION : currentRating.getVersion())));
+		// SKUs without a head item yet have their latest version read from a version row
+		items.add(TransactWriteItem.builder().put(Put.builder().tableName(ratingsTable.tableName())
+				.item(ratingsTable.tableSchema().itemToMap(DynamoDbRatingService.toHeadItem(rating), true))
+				.conditionExpression("attribute_not_exists(sku) OR #latestVersion = :latestVersion")
+				.expressionAttributeNames(names).expressionAttributeValues(values).build()).build());
+		if(historyTable != null) {
+			items.add(toPut(historyTable, rating, false));
+		}
+		return TransactWriteItemsRequest.builder().transactItems(items).build();
+	}
+
+	private List<TransactWriteItem> toUserRatingItems(MappedTableResource<UserRating> userRatingsTable) {
+		List<TransactWriteItem> items = new ArrayList<>(3);
+		if(previousUserRating == null) {
+			items.add(toPut(userRatingsTable, newUserRating, false));
+		}
+		else {
+			items.add(toPut(getHistoryTable(userRatingsTable), previousUserRating, false));
+			items.add(toPut(userRatingsTable, newUserRating, true));
+			if(expiredUser != null) {
+				Map<String, AttributeValue> key = new HashMap<>();
+				key.put(USER_RATINGS_SKU, AttributeValue.fromS(userRating.getSku()));
+				key.put(USER_RATINGS_USER, AttributeValue.fromS(expiredUser));
+				items.add(TransactWriteItem.builder().delete(Delete.builder()
+						.tableName(getHistoryTable(userRatingsTable).tableName()).key(key).build()).build());
+			}
+		}
+		return items;
+	}
+
+	private MappedTableResource<UserRating> getHistoryTable(MappedTableResource<UserRating> userRatingsTable) {
+		return archiveTable == null ? userRatingsTable : archiveTable;
+	}
+
+	/**
+	 * Build the update adding {@link #getDelta() the change to the totals} to a head or shard item. Its
+	 * latestVersion is incremented, so it keeps counting the changes made through it. Shard items are
+	 * created if they don't exist, but the head item must exist: otherwise the totals of SKUs with only
+	 * version rows would start over from the change. If its condition fails, the head item is to be
+	 * seeded (see {@link DynamoDbRatingService#seedHeadItem(String)}) before retrying.
+	 *
+	 * @param ratingsTableName ratings table name.
+	 * @param aggregateKey partition key of the head or shard item.
+	 * @return update.
+	 */
+	Update toHeadUpdate(String ratingsTableName, String aggregateKey) {
+		Update update = toHeadUpdate(ratingsTableName, aggregateKey, delta, 1, rating.getDate());
+		return aggregateKey.equals(rating.getSku()) ? update.toBuilder().conditionExpression(HEAD_EXISTS).build() : update;
+	}
+
+	/**
+	 * Build the update adding a change to the totals to a head or shard item. The item is created if it
+	 * doesn't exist.
+	 *
+	 * @param ratingsTableName ratings table name.
+	 * @param aggregateKey partition key of the head or shard item.
+	 * @param delta change to the totals.
+	 * @param changes number of user rating changes, added to latestVersion.
+	 * @param date date of the latest change, or null to keep the item's date.
+	 * @return update.
+	 */
+	static Update toHeadUpdate(String ratingsTableName, String aggregateKey, RatingDelta delta, long changes, Long date) {
+		Map<String, AttributeValue> key = new HashMap<>();
+		key.put(RATINGS_SKU, AttributeValue.fromS(aggregateKey));
+		key.put(RATINGS_VERSION, AttributeValue.fromN(String.valueOf(DynamoDbRatingService.HEAD_VERSION)));
+		Map<String, String> names = new HashMap<>();
+		names.put("#aggregated", "aggregated");
+		names.put("#quantity", "quantity");
+		names.put("#numberOfReviews", "numberOfReviews");
+		names.put("#latestVersion", "latestVersion");
+		Map<String, AttributeValue> values = new HashMap<>();
+		values.put(":aggregated", AttributeValue.fromN(String.valueOf(delta.getAggregated())));
+		values.put(":quantity", AttributeValue.fromN(String.valueOf(delta.getQuantity())));
+		values.put(":numberOfReviews", AttributeValue.fromN(String.valueOf(delta.getNumberOfReviews())));
+		values.put(":changes", AttributeValue.fromN(String.valueOf(changes)));
+		String expression = "ADD #aggregated :aggregated, #quantity :quantity, #numberOfReviews :numberOfReviews, #latestVersion :changes";
+		if(date != null) {
+			names.put("#date", "date");
+			values.put(":date", AttributeValue.fromN(String.valueOf(date)));
+			expression += " SET #date = :date";
+		}
+		return Update.builder().tableName(ratingsTableName).key(key).updateExpression(expression)
+				.expressionAttributeNames(names).expressionAttributeValues(values).build();
+	}
+
+	/**
+	 * @return the user rating as stored, with the user without version prefix.
+	 */
+	UserRating getResult() {
+		UserRating result = copyUserRating(newUserRating);
+		result.setUser(userRating.getUser());
+		return result;
+	}
+
+	UserRating getCurrentUserRating() {
+		return currentUserRating;
+	}
+
+	Rating getCurrentRating() {
+		return currentRating;
+	}
+
+	/**
+	 * @return number of user rating items, which come first in the transaction. In
+	 *         {@link #toRequest(MappedTableResource, MappedTableResource)}, the rating version comes
+	 *         right after them, in
+	 *         {@link #toSingleRowRequest(MappedTableResource, MappedTableResource, MappedTableResource)},
+	 *         the head item, and in {@link #toAtomicRequest(MappedTableResource, MappedTableResource, String)},
+	 *         the head or shard item update.
+	 */
+	int getUserRatingItemCount() {
+		return (previousUserRating == null ? 1 : 2) + (expiredUser == null ? 0 : 1);
+	}
+
+	/**
+	 * @return user, with version prefix, of the copy deleted by the history policy, or null.
+	 */
+	String getExpiredUser() {
+		return expiredUser;
+	}
+
+	UserRating getNewUserRating() {
+		return newUserRating;
+	}
+
+	UserRating getPreviousUserRating() {
+		return previousUserRating;
+	}
+
+	Rating getRating() {
+		return rating;
+	}
+
+	RatingDelta getDelta() {
+		return delta;
+	}
+
+	/**
+	 * If current user rating contains a review and new user rating doesn't, increment is -1;<br>
+	 * If current user rating contains a review and new user rating also does, increment is 0;<br>
+	 * If current user rating doesn't contain a review and new user rating doesn't, increment is 0;<br>
+	 * If current user rating doesn't contain a review and new user rating does, increment is 1;<br>
+	 *
+	 * @param currentUserRating current user rating.
+	 * @param newUserRating user rating being added in the database, or null if the current one is removed.
+	 * @return the value that should be used to increment numberOfReviews in ratings table.
+	 */
+	static int getReviewIncrement(UserRating currentUserRating, UserRating newUserRating) {
+		return (hasReview(newUserRating) ? 1 : 0) - (hasReview(currentUserRating) ? 1 : 0);
+	}
+
+	static boolean hasReview(UserRating userRating) {
+		return userRating != null && userRating.getReview() != null && !userRating.getReview().isBlank();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> void addToTransaction(Builder transactWriteRequestBuilder, MappedTableResource<T> table, T item, boolean override) {
+		TransactPutItemEnhancedRequest.Builder<T> builder = TransactPutItemEnhancedRequest.builder((Class<T>)item.getClass())
+				.item(item);
+		if(!override) {
+			builder.conditionExpression(Expression.builder().expression("attribute_not_exists(sku)").build());
+		}
+		transactWriteRequestBuilder.addPutItem(table, builder.build());
+	}
+
+	private static <T> TransactWriteItem toPut(MappedTableResource<T> table, T item, boolean override) {
+		Put.Builder builder = Put.builder().tableName(table.tableName()).item(table.tableSchema().itemToMap(item, true));
+		if(!override) {
+			builder.conditionExpression("attribute_not_exists(sku)");
+		}
+		return TransactWriteItem.builder().put(builder.build()).build();
+	}
+
+	/**
+	 * Return a new {@link UserRating} instance identical to the one passed as parameter.
+	 *
+	 * @param userRating instance to copy.
+	 * @return copied user rating.
+	 */
+	static UserRating copyUserRating(UserRating userRating) {
+		if(userRating == null)
+			return null;
+		UserRating newUserRating = new UserRating();
+		newUserRating.setSku(userRating.getSku());
+		newUserRating.setUser(userRating.getUser());
+		newUserRating.setVersion(userRating.getVersion());
+		newUserRating.setDate(userRating.getDate());
+		newUserRating.setRating(userRating.getRating());
+		newUserRating.setReview(userRating.getReview());
+		newUserRating.setExpiresAt(userRating.getExpiresAt());
+		return newUserRating;
+	}
+}
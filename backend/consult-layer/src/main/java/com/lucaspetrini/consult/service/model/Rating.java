@@ -16,6 +16,9 @@ import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortK
  * <li>the total number of ratings for the SKU</li>
  * <li>the item version</li>
  * </ul>
+ * Besides one item per version, each SKU has a head item (version 0) mirroring its latest version,
+ * which can be read without knowing that version. For head items, latestVersion holds the version
+ * they mirror.
  */
 @DynamoDbBean
 public class Rating {
@@ -25,6 +28,7 @@ public class Rating {
 	private Long quantity;
 	private Long numberOfReviews;
 	private Long version;
+	private Long latestVersion;
 
 	public void setSku(String sku) {
 		this.sku = sku;
@@ -77,4 +81,12 @@ public class Rating {
 	public Long getNumberOfReviews() {
 		return numberOfReviews;
 	}
+
+	public void setLatestVersion(Long latestVersion) {
+		this.latestVersion = latestVersion;
+	}
+
+	public Long getLatestVersion() {
+		return latestVersion;
+	}
 }
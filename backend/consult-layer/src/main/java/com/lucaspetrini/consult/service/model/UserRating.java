@@ -16,6 +16,7 @@ import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortK
  * <li>the date for the rating</li>
  * <li>the review</li>
  * <li>the version of the user rating</li>
+ * <li>for superseded versions, when they expire (epoch seconds), if a retention policy applies</li>
  * </ul>
  */
 @DynamoDbBean
@@ -26,6 +27,7 @@ public class UserRating {
 	private Long date;
 	private String review;
 	private Long version;
+	private Long expiresAt;
 
 	public void setSku(String sku) {
 		this.sku = sku;
@@ -78,4 +80,12 @@ public class UserRating {
 	public Long getVersion() {
 		return version;
 	}
+
+	public void setExpiresAt(Long expiresAt) {
+		this.expiresAt = expiresAt;
+	}
+
+	public Long getExpiresAt() {
+		return expiresAt;
+	}
 }
@@ -0,0 +1,34 @@
+package com.lucaspetrini.consult.service.model;
+
+import java.util.List;
+
+/**
+ * A page of the current {@link UserRating user ratings} of a code, and the cursor of the next page.
+ */
+public class UserRatingPage {
+	private final List<UserRating> userRatings;
+	private final String cursor;
+
+	/**
+	 * A page of user ratings.
+	 *
+	 * @param userRatings user ratings of the page.
+	 * @param cursor opaque cursor of the next page, or null if this is the last one.
+	 */
+	public UserRatingPage(List<UserRating> userRatings, String cursor) {
+		this.userRatings = userRatings;
+		this.cursor = cursor;
+	}
+
+	public List<UserRating> getUserRatings() {
+		return userRatings;
+	}
+
+	/**
+	 * @return opaque cursor of the next page, or null if this is the last one. The next page may be
+	 *         empty when this one ends exactly on the last user rating.
+	 */
+	public String getCursor() {
+		return cursor;
+	}
+}
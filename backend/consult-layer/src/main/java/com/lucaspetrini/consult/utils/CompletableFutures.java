@@ -0,0 +1,51 @@
+package com.lucaspetrini.consult.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Helpers to work with {@link CompletableFuture futures} returned by asynchronous services.
+ */
+public final class CompletableFutures {
+
+	private CompletableFutures() {}
+
+	/**
+	 * Wait for a future to complete and return its value. If it completes exceptionally, the original
+	 * exception is thrown instead of the {@link CompletionException} wrapping it, so
+	 * {@link com.lucaspetrini.consult.exception.ServiceException service exceptions} reach the main
+	 * handler unchanged.
+	 *
+	 * @param <T> value type.
+	 * @param future future.
+	 * @return future value.
+	 */
+	public static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable cause = unwrap(e);
+			if(cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if(cause instanceof Error)
+				throw (Error) cause;
+			throw e;
+		}
+	}
+
+	/**
+	 * Remove the {@link CompletionException} and {@link ExecutionException} layers added around an
+	 * exception by futures.
+	 *
+	 * @param throwable exception.
+	 * @return original exception.
+	 */
+	public static Throwable unwrap(Throwable throwable) {
+		Throwable cause = throwable;
+		while((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return cause;
+	}
+}
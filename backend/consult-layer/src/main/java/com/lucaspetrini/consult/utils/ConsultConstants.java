@@ -8,11 +8,48 @@ public final class ConsultConstants {
 	public static final String HTTP_METHOD_GET = "GET";
 	public static final String CONTENT_TYPE_JSON = "application/json";
 	public static final String HEADER_CONTENT_TYPE = "Content-Type";
+	public static final String HEADER_ETAG = "ETag";
+	public static final String HEADER_CACHE_CONTROL = "Cache-Control";
+	/** Lowercased, as API Gateway passes request header names. */
+	public static final String HEADER_IF_NONE_MATCH = "if-none-match";
+	/** Lowercased, as API Gateway passes request header names. */
+	public static final String HEADER_ACCEPT_ENCODING = "accept-encoding";
+	public static final String HEADER_ACCEPT_ENCODING_VALUE = "Accept-Encoding";
+	public static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+	public static final String HEADER_VARY = "Vary";
+	public static final String HEADER_CONSUMED_CAPACITY = "X-Consumed-Capacity";
 	public static final String UNHANDLED_EXCEPTION_ERROR_DESC = "Internal server error.";
 	public static final String PATH_PARAM_USER_ID = "id";
 	public static final String PATH_PARAM_CODE = "code";
+	public static final String QUERY_PARAM_CODES = "codes";
+	public static final String QUERY_PARAM_LIMIT = "limit";
+	public static final String QUERY_PARAM_CURSOR = "cursor";
 	public static final String CONTEXT_AUTHORIZATION_JWT_USER = "AuthorizationJwtUser";
 	public static final String JWT_CLAIM_USERNAME = "username";
+	public static final String ENV_DYNAMO_REGION = "DYNAMO_REGION";
+	public static final String ENV_RATING_CACHE_MAX_SIZE = "RATING_CACHE_MAX_SIZE";
+	public static final String ENV_RATING_CACHE_TTL_MILLIS = "RATING_CACHE_TTL_MILLIS";
+	public static final String ENV_RATING_SHARD_COUNT = "RATING_SHARD_COUNT";
+	public static final String ENV_RATING_SHARD_COUNTS = "RATING_SHARD_COUNTS";
+	public static final String ENV_USER_RATING_CONCURRENT_PRE_READS = "USER_RATING_CONCURRENT_PRE_READS";
+	public static final String ENV_USER_RATING_PRE_READ_TIMEOUT_MILLIS = "USER_RATING_PRE_READ_TIMEOUT_MILLIS";
+	public static final String ENV_USER_RATING_WRITE_MODE = "USER_RATING_WRITE_MODE";
+	public static final String ENV_USER_RATING_RETRY_MAX_ATTEMPTS = "USER_RATING_RETRY_MAX_ATTEMPTS";
+	public static final String ENV_USER_RATING_RETRY_BUDGET_MILLIS = "USER_RATING_RETRY_BUDGET_MILLIS";
+	public static final String ENV_RATING_HISTORY_TABLE = "RATING_HISTORY_TABLE";
+	public static final String ENV_USER_RATING_HISTORY_KEEP_VERSIONS = "USER_RATING_HISTORY_KEEP_VERSIONS";
+	public static final String ENV_USER_RATING_HISTORY_KEEP_DAYS = "USER_RATING_HISTORY_KEEP_DAYS";
+	public static final String ENV_USER_RATING_ARCHIVE_TABLE = "USER_RATING_ARCHIVE_TABLE";
+	public static final String ENV_PRIMING_ENABLED = "PRIMING_ENABLED";
+	public static final String ENV_RATING_CACHE_CONTROL = "RATING_CACHE_CONTROL";
+	public static final String ENV_USER_RATING_CACHE_CONTROL = "USER_RATING_CACHE_CONTROL";
+	public static final String ENV_RESPONSE_COMPRESSION_MIN_SIZE = "RESPONSE_COMPRESSION_MIN_SIZE";
+	public static final String ENV_STAGE_METRICS_ENABLED = "STAGE_METRICS_ENABLED";
+	public static final String ENV_METRICS_NAMESPACE = "METRICS_NAMESPACE";
+	public static final String ENV_CONSUMED_CAPACITY_HEADER_ENABLED = "CONSUMED_CAPACITY_HEADER_ENABLED";
+	public static final String ENV_SDK_METRICS_FLUSH_INTERVAL_MILLIS = "SDK_METRICS_FLUSH_INTERVAL_MILLIS";
+	public static final String ENV_LOG_SAMPLE_RATE = "LOG_SAMPLE_RATE";
+	public static final String ENV_LOG_SAMPLE_RATES = "LOG_SAMPLE_RATES";
 
 	private ConsultConstants() {}
 }
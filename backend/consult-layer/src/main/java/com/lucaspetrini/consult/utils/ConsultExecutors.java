@@ -0,0 +1,47 @@
+package com.lucaspetrini.consult.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared executors for the application.<br>
+ * The I/O executor is used to overlap independent blocking database calls. It is bounded (see
+ * {@link #ENV_IO_THREADS}), created on first use and kept for the lifetime of the container; its
+ * threads are daemons, so they never keep the runtime alive.
+ */
+public final class ConsultExecutors {
+	public static final String ENV_IO_THREADS = "CONSULT_IO_THREADS";
+	public static final int DEFAULT_IO_THREADS = 8;
+
+	private ConsultExecutors() {}
+
+	/**
+	 * @return executor for blocking I/O calls.
+	 */
+	public static ExecutorService io() {
+		return IoHolder.EXECUTOR;
+	}
+
+	private static class IoHolder {
+		private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+				Math.max(1, EnvironmentUtils.getInt(ENV_IO_THREADS, DEFAULT_IO_THREADS)), new DaemonThreadFactory("consult-io-"));
+	}
+
+	private static class DaemonThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+		private final String prefix;
+
+		private DaemonThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.lucaspetrini.consult.utils;
+
+import java.security.SecureRandom;
+import java.util.Random;
+
+/**
+ * Random numbers shared by the application, such as retry jitter and shard picks.<br>
+ * Unlike {@link java.util.concurrent.ThreadLocalRandom}, the generator can be reseeded: an execution
+ * environment restored from a snapshot would otherwise repeat the exact sequence of every other
+ * environment restored from the same snapshot, so {@link #reseed()} must be called after a restore.
+ */
+public final class ConsultRandom {
+	private static volatile Random random = new Random();
+
+	private ConsultRandom() {}
+
+	/**
+	 * @param bound upper bound (exclusive), must be positive.
+	 * @return random number between 0 (inclusive) and bound (exclusive).
+	 */
+	public static int nextInt(int bound) {
+		return random.nextInt(bound);
+	}
+
+	/**
+	 * @param origin lower bound (inclusive).
+	 * @param bound upper bound (exclusive), must be greater than origin.
+	 * @return random number between origin (inclusive) and bound (exclusive).
+	 */
+	public static long nextLong(long origin, long bound) {
+		if(origin >= bound)
+			throw new IllegalArgumentException("Bound must be greater than origin.");
+		return origin + Math.floorMod(random.nextLong(), bound - origin);
+	}
+
+	/**
+	 * @return random number between 0 (inclusive) and 1 (exclusive).
+	 */
+	public static double nextDouble() {
+		return random.nextDouble();
+	}
+
+	/**
+	 * Replace the generator with one seeded from the operating system's entropy source.
+	 */
+	public static void reseed() {
+		random = new Random(new SecureRandom().nextLong());
+	}
+}
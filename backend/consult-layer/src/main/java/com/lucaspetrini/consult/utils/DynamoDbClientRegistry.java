@@ -0,0 +1,133 @@
+package com.lucaspetrini.consult.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lucaspetrini.consult.metrics.ConsumedCapacityInterceptor;
+import com.lucaspetrini.consult.metrics.SdkCallMetricsInterceptor;
+
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.SdkEventLoopGroup;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+/**
+ * DynamoDB clients shared by every service of the process.<br>
+ * Each client is created on first use, or when {@link #prime()} is called during initialisation, and
+ * kept for the lifetime of the container. The region is read from {@link ConsultConstants#ENV_DYNAMO_REGION}
+ * and credentials from the environment variables Lambda sets, so neither provider chain is walked; the
+ * blocking client uses the lightweight URL connection HTTP client, and the asynchronous one a Netty client
+ * with a single event loop thread, as this SDK version has no lighter asynchronous HTTP client. Credentials
+ * are read on every request, so they stay valid when the environment is restored from a snapshot. Both
+ * clients report the capacity consumed by each request (see {@link ConsumedCapacityInterceptor}) and record
+ * the latency, retries and payload sizes of their calls in {@link #sdkCallMetrics()}.
+ */
+public final class DynamoDbClientRegistry {
+	private static final Logger LOGGER = LoggerFactory.getLogger(DynamoDbClientRegistry.class);
+	private static final String ENV_ACCESS_KEY_ID = "AWS_ACCESS_KEY_ID";
+	private static final int EVENT_LOOP_THREADS = 1;
+	private static volatile boolean clientCreated;
+	private static volatile boolean asyncClientCreated;
+
+	private DynamoDbClientRegistry() {}
+
+	/**
+	 * @return shared blocking client.
+	 */
+	public static DynamoDbClient client() {
+		return ClientHolder.CLIENT;
+	}
+
+	/**
+	 * @return shared asynchronous client.
+	 */
+	public static DynamoDbAsyncClient asyncClient() {
+		return AsyncClientHolder.CLIENT;
+	}
+
+	/**
+	 * @return metrics of the calls made by both clients, flushed at the end of each invocation.
+	 */
+	public static SdkCallMetricsInterceptor sdkCallMetrics() {
+		return SdkCallMetricsHolder.INTERCEPTOR;
+	}
+
+	/**
+	 * Create the blocking client now, so the first request doesn't pay for it.
+	 */
+	public static void prime() {
+		client();
+	}
+
+	/**
+	 * Open a connection to DynamoDB with a cheap request, on each client that has been created, so the
+	 * next request doesn't pay for the handshake. Connections opened before a snapshot can't be reused
+	 * once it is restored, so this is called after a restore. Failures are only logged.
+	 */
+	public static void warmUp() {
+		long start = System.nanoTime();
+		try {
+			if(clientCreated)
+				client().listTables(request -> request.limit(1));
+			if(asyncClientCreated)
+				CompletableFutures.join(asyncClient().listTables(request -> request.limit(1)));
+			if(clientCreated || asyncClientCreated)
+				LOGGER.info("DynamoDB connection warmed up in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		} catch (SdkException e) {
+			LOGGER.warn("Could not warm up DynamoDB connection: {}", e.getMessage(), e);
+		}
+	}
+
+	private static class SdkCallMetricsHolder {
+		private static final SdkCallMetricsInterceptor INTERCEPTOR = new SdkCallMetricsInterceptor(
+				EnvironmentUtils.getLong(ConsultConstants.ENV_SDK_METRICS_FLUSH_INTERVAL_MILLIS, SdkCallMetricsInterceptor.DEFAULT_FLUSH_INTERVAL_MILLIS));
+	}
+
+	private static class ClientHolder {
+		private static final DynamoDbClient CLIENT = createClient();
+	}
+
+	private static class AsyncClientHolder {
+		private static final DynamoDbAsyncClient CLIENT = createAsyncClient();
+	}
+
+	private static DynamoDbClient createClient() {
+		long start = System.nanoTime();
+		DynamoDbClient client = configure(DynamoDbClient.builder().httpClientBuilder(UrlConnectionHttpClient.builder())).build();
+		LOGGER.info("DynamoDB client created in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		clientCreated = true;
+		return client;
+	}
+
+	private static DynamoDbAsyncClient createAsyncClient() {
+		long start = System.nanoTime();
+		DynamoDbAsyncClient client = configure(DynamoDbAsyncClient.builder().httpClientBuilder(NettyNioAsyncHttpClient.builder()
+				.eventLoopGroupBuilder(SdkEventLoopGroup.builder().numberOfThreads(EVENT_LOOP_THREADS)))).build();
+		LOGGER.info("DynamoDB async client created in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		asyncClientCreated = true;
+		return client;
+	}
+
+	/**
+	 * Set the region and credentials provider, when the environment has them, leaving the defaults
+	 * otherwise, count consumed capacity and record call metrics.
+	 */
+	private static <B extends AwsClientBuilder<B, ?>> B configure(B builder) {
+		builder.overrideConfiguration(ClientOverrideConfiguration.builder().addExecutionInterceptor(new ConsumedCapacityInterceptor())
+				.addExecutionInterceptor(sdkCallMetrics()).build());
+		String region = EnvironmentUtils.getString(ConsultConstants.ENV_DYNAMO_REGION, null);
+		if(region != null)
+			builder.region(Region.of(region));
+		if(EnvironmentUtils.getString(ENV_ACCESS_KEY_ID, null) != null)
+			builder.credentialsProvider(EnvironmentVariableCredentialsProvider.create());
+		return builder;
+	}
+}
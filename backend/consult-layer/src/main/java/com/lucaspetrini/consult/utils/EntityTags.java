@@ -0,0 +1,88 @@
+package com.lucaspetrini.consult.utils;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Helpers to build and compare the entity tags ({@code ETag} headers) of responses.<br>
+ * Entities are versioned, and a version never changes once written, so a code and a version identify
+ * a representation byte for byte: tags built from them are strong.
+ */
+public final class EntityTags {
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private EntityTags() {}
+
+	/**
+	 * Build the entity tag of a version of an entity.
+	 *
+	 * @param code code of the entity.
+	 * @param version version of the entity.
+	 * @return quoted entity tag.
+	 */
+	public static String of(String code, Long version) {
+		StringBuilder builder = new StringBuilder(code.length() + 24).append('"');
+		if(isPlain(code))
+			builder.append(code);
+		else
+			// keeps the tag within the characters allowed by RFC 7232; '%' and '+' are never plain,
+			// so encoded codes can't collide with plain ones
+			builder.append(URLEncoder.encode(code, StandardCharsets.UTF_8));
+		return builder.append('-').append(version).append('"').toString();
+	}
+
+	/**
+	 * Combine the entity tags of several entities into the tag of a response holding all of them, in
+	 * that order.
+	 *
+	 * @param entityTags entity tags.
+	 * @return quoted entity tag.
+	 */
+	public static String combine(List<String> entityTags) {
+		// 64 bit FNV-1a hash: the tags are built by this class, so a fast non cryptographic hash is enough
+		long hash = FNV_OFFSET_BASIS;
+		for(String entityTag : entityTags) {
+			for(int i = 0; i < entityTag.length(); i++) {
+				hash ^= entityTag.charAt(i);
+				hash *= FNV_PRIME;
+			}
+		}
+		return "\"" + Long.toHexString(hash) + "-" + entityTags.size() + "\"";
+	}
+
+	/**
+	 * Check an {@code If-None-Match} header against the current entity tag, using the weak comparison
+	 * RFC 7232 requires for it: {@code W/} prefixes are ignored.
+	 *
+	 * @param ifNoneMatch header value: {@code *} or a comma separated list of quoted tags.
+	 * @param entityTag current entity tag, quoted.
+	 * @return true if the client's copy is still current.
+	 */
+	public static boolean matches(String ifNoneMatch, String entityTag) {
+		if(ifNoneMatch == null || entityTag == null)
+			return false;
+		if("*".equals(ifNoneMatch.trim()))
+			return true;
+		int start = ifNoneMatch.indexOf('"');
+		while(start >= 0) {
+			int end = ifNoneMatch.indexOf('"', start + 1);
+			if(end < 0)
+				return false;
+			if(end - start + 1 == entityTag.length() && ifNoneMatch.regionMatches(start, entityTag, 0, entityTag.length()))
+				return true;
+			start = ifNoneMatch.indexOf('"', end + 1);
+		}
+		return false;
+	}
+
+	private static boolean isPlain(String code) {
+		for(int i = 0; i < code.length(); i++) {
+			char c = code.charAt(i);
+			if(c <= ' ' || c >= 0x7f || c == '"' || c == '%' || c == '+')
+				return false;
+		}
+		return true;
+	}
+}
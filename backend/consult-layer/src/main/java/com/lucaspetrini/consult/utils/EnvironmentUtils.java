@@ -0,0 +1,70 @@
+package com.lucaspetrini.consult.utils;
+
+/**
+ * Helpers to read configuration from environment variables, falling back to
+ * default values when a variable is not set or cannot be parsed.
+ */
+public final class EnvironmentUtils {
+
+	private EnvironmentUtils() {}
+
+	/**
+	 * Return the value of an environment variable.
+	 *
+	 * @param name         environment variable name.
+	 * @param defaultValue value returned if the variable is not set or blank.
+	 * @return variable value, or the default value.
+	 */
+	public static String getString(String name, String defaultValue) {
+		String value = System.getenv(name);
+		return value == null || value.isBlank() ? defaultValue : value.trim();
+	}
+
+	/**
+	 * Return the value of an environment variable as an int.
+	 *
+	 * @param name         environment variable name.
+	 * @param defaultValue value returned if the variable is not set or is not a valid int.
+	 * @return variable value, or the default value.
+	 */
+	public static int getInt(String name, int defaultValue) {
+		String value = getString(name, null);
+		if(value == null)
+			return defaultValue;
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Return the value of an environment variable as a long.
+	 *
+	 * @param name         environment variable name.
+	 * @param defaultValue value returned if the variable is not set or is not a valid long.
+	 * @return variable value, or the default value.
+	 */
+	public static long getLong(String name, long defaultValue) {
+		String value = getString(name, null);
+		if(value == null)
+			return defaultValue;
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Return the value of an environment variable as a boolean.
+	 *
+	 * @param name         environment variable name.
+	 * @param defaultValue value returned if the variable is not set.
+	 * @return variable value, or the default value.
+	 */
+	public static boolean getBoolean(String name, boolean defaultValue) {
+		String value = getString(name, null);
+		return value == null ? defaultValue : Boolean.parseBoolean(value);
+	}
+}
@@ -1,18 +1,30 @@
 package com.lucaspetrini.consult;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
@@ -36,9 +48,15 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
 import com.lucaspetrini.consult.auth.AuthenticationService;
 import com.lucaspetrini.consult.handler.ConsultRequestHandler;
 import com.lucaspetrini.consult.mapper.ObjectMapper;
+import com.lucaspetrini.consult.metrics.InMemoryMetricsSink;
+import com.lucaspetrini.consult.metrics.InMemoryMetricsSink.RequestMetrics;
+import com.lucaspetrini.consult.metrics.RequestCapacity;
+import com.lucaspetrini.consult.metrics.RequestStage;
 import com.lucaspetrini.consult.request.HttpRequest;
 import com.lucaspetrini.consult.response.HttpResponse;
+import com.lucaspetrini.consult.response.ResponseCompressor;
 import com.lucaspetrini.consult.utils.ConsultConstants;
+import com.lucaspetrini.consult.utils.LifecycleSimulator;
 
 /**
  * Test {@link AbstractRequestHandler}.
@@ -64,6 +82,7 @@ public class AbstractRequestHandlerTest {
 	private AbstractRequestHandler handler;
 	private @Mock ObjectMapper objectMapper;
 	private @Mock ConsultRequestHandler<TestRequest, TestResponse> requestHandlerGet;
+	private @Mock ConsultRequestHandler<TestRequest, TestResponse> requestHandlerUserGet;
 	private @Mock Context context;
 	private @Captor ArgumentCaptor<HttpRequest<TestRequest>> testRequestCaptor;
 	private APIGatewayV2HTTPEvent input;
@@ -150,6 +169,45 @@ public class AbstractRequestHandlerTest {
 		assertEquals(VALID_GET_RESPONSE_BODY, responseEvent.getBody());
 	}
 
+	@Test
+	public void testNotModifiedResponseIsReturnedWithoutBody_ForGet() {
+		// given
+		input = createInput("GET", null, "{}");
+		HttpResponse<TestResponse> response = HttpResponse.notModified("\"1321123-3\"", "no-cache");
+		doReturn(response).when(requestHandlerGet).handle(any());
+
+		// when
+		APIGatewayV2HTTPResponse responseEvent = handler.handleRequest(input, context);
+
+		// then
+		verify(objectMapper, never()).serialise(any());
+		assertEquals(304, responseEvent.getStatusCode());
+		assertNull(responseEvent.getBody());
+		assertEquals("\"1321123-3\"", responseEvent.getHeaders().get(ConsultConstants.HEADER_ETAG));
+		assertEquals("no-cache", responseEvent.getHeaders().get(ConsultConstants.HEADER_CACHE_CONTROL));
+	}
+
+	@Test
+	public void testLongResponseIsCompressedWhenClientAcceptsGzip_ForGet() throws IOException {
+		// given
+		input = createInput("GET", Collections.singletonMap(ConsultConstants.HEADER_ACCEPT_ENCODING, "deflate;q=0.5, gzip"), "{}");
+		HttpResponse<TestResponse> response = new HttpResponse<>();
+		response.setBody(VALID_GET_RESPONSE);
+		doReturn(response).when(requestHandlerGet).handle(any());
+		doReturn(VALID_GET_RESPONSE_BODY).when(objectMapper).serialise(any());
+		handler.setResponseCompressor(new ResponseCompressor(VALID_GET_RESPONSE_BODY.length()));
+
+		// when
+		APIGatewayV2HTTPResponse responseEvent = handler.handleRequest(input, context);
+
+		// then
+		assertTrue(responseEvent.getIsBase64Encoded());
+		assertEquals("gzip", responseEvent.getHeaders().get(ConsultConstants.HEADER_CONTENT_ENCODING));
+		try(GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(responseEvent.getBody())))) {
+			assertEquals(VALID_GET_RESPONSE_BODY, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
 	@Test
 	public void testValidDefaultResponseHeadersAreReturned_ForGet() {
 		// given
@@ -187,6 +245,44 @@ public class AbstractRequestHandlerTest {
 		assertEquals(201, response.getStatusCode());
 	}
 
+	@Test
+	public void testHeadersSetByHandlerAreReturnedInTheSameMap_ForGet() {
+		// given
+		input = createInput("GET", null, "{}");
+		HttpResponse<TestResponse> response = new HttpResponse<>();
+		response.setHeader(CUSTOM_HEADER, CUSTOM_HEADER_VALUE);
+		doReturn(response).when(requestHandlerGet).handle(any());
+
+		// when
+		APIGatewayV2HTTPResponse responseEvent = handler.handleRequest(input, context);
+
+		// then
+		assertSame(response.getHeaders(), responseEvent.getHeaders());
+		assertEquals(ConsultConstants.CONTENT_TYPE_JSON, responseEvent.getHeaders().get(ConsultConstants.HEADER_CONTENT_TYPE));
+		assertEquals(CUSTOM_HEADER_VALUE, responseEvent.getHeaders().get(CUSTOM_HEADER));
+		assertEquals(2, responseEvent.getHeaders().size());
+	}
+
+	@Test
+	public void testHeadersGivenByHandlerAreCopiedBeforeOneIsSet_ForGet() {
+		// given
+		input = createInput("GET", null, "{}");
+		HttpResponse<TestResponse> response = new HttpResponse<>();
+		Map<String, String> headers = Collections.singletonMap(CUSTOM_HEADER, CUSTOM_HEADER_VALUE);
+		response.setHeaders(headers);
+		response.setHeader(ConsultConstants.HEADER_ETAG, "\"1\"");
+		doReturn(response).when(requestHandlerGet).handle(any());
+
+		// when
+		APIGatewayV2HTTPResponse responseEvent = handler.handleRequest(input, context);
+
+		// then
+		assertEquals(1, headers.size());
+		assertEquals(CUSTOM_HEADER_VALUE, responseEvent.getHeaders().get(CUSTOM_HEADER));
+		assertEquals("\"1\"", responseEvent.getHeaders().get(ConsultConstants.HEADER_ETAG));
+		assertEquals(ConsultConstants.CONTENT_TYPE_JSON, responseEvent.getHeaders().get(ConsultConstants.HEADER_CONTENT_TYPE));
+	}
+
 	@Disabled("Should this be allowed?")
 	@Test
 	public void testCustomResponseHeadersOverrideDefault_ForGet() {
@@ -376,6 +472,301 @@ public class AbstractRequestHandlerTest {
 		assertEquals(JWT_USERNAME, testRequestCaptor.getValue().getContext().get(ConsultConstants.CONTEXT_AUTHORIZATION_JWT_USER));
 	}
 
+	@Test
+	public void testPrimeRunsPrimingRequestsThroughThePipeline() {
+		// given
+		handler.addPrimingRequest(AbstractRequestHandler.createPrimingRequest(HttpMethod.GET, Collections.singletonMap("param1", "value1"), "{}"));
+		HttpResponse<TestResponse> response = new HttpResponse<>();
+		response.setBody(VALID_GET_RESPONSE);
+		doReturn(response).when(requestHandlerGet).handle(any());
+		doReturn(VALID_GET_RESPONSE_BODY).when(objectMapper).serialise(VALID_GET_RESPONSE);
+
+		// when
+		int primed = handler.prime();
+
+		// then
+		assertEquals(1, primed);
+		verify(objectMapper, times(1)).deserialise("{}", TestRequest.class);
+		verify(requestHandlerGet, times(1)).handle(testRequestCaptor.capture());
+		assertEquals("value1", testRequestCaptor.getValue().getPathParams().get("param1"));
+		verify(objectMapper, times(1)).serialise(VALID_GET_RESPONSE);
+	}
+
+	@Test
+	public void testPrimeDoesNotCountFailedPrimingRequests() {
+		// given
+		handler.addPrimingRequest(AbstractRequestHandler.createPrimingRequest(HttpMethod.POST, Collections.emptyMap(), null));
+
+		// when
+		int primed = handler.prime();
+
+		// then
+		assertEquals(0, primed);
+		verifyNoInteractions(requestHandlerGet);
+	}
+
+	@Test
+	public void testCreatePrimingRequestAuthenticatesAsPathUser() {
+		// given
+		Map<String, String> pathParams = Collections.singletonMap(ConsultConstants.PATH_PARAM_USER_ID, JWT_USERNAME);
+
+		// when
+		APIGatewayV2HTTPEvent request = AbstractRequestHandler.createPrimingRequest(HttpMethod.PUT, pathParams, "{}");
+
+		// then
+		assertEquals("PUT", request.getRequestContext().getHttp().getMethod());
+		assertEquals(pathParams, request.getPathParameters());
+		assertEquals(JWT_USERNAME, request.getRequestContext().getAuthorizer().getJwt().getClaims().get(ConsultConstants.JWT_CLAIM_USERNAME));
+	}
+
+	@Test
+	public void testLifecyclePrimesAtInitAndBeforeCheckpointAndReconnectsAfterRestore() throws Exception {
+		// given
+		int[] reconnects = new int[1];
+		AbstractRequestHandler lifecycleHandler = new AbstractRequestHandler() {
+			@Override
+			protected void reconnect() {
+				reconnects[0]++;
+			}
+		};
+		handler.addPrimingRequest(AbstractRequestHandler.createPrimingRequest(HttpMethod.GET, Collections.emptyMap(), "{}"));
+		HttpResponse<TestResponse> response = new HttpResponse<>();
+		doReturn(response).when(requestHandlerGet).handle(any());
+		LifecycleSimulator simulator = new LifecycleSimulator();
+
+		// when
+		lifecycleHandler.initLifecycle(handler, simulator);
+		verify(requestHandlerGet, times(1)).handle(any());
+		simulator.checkpointAndRestore();
+
+		// then
+		assertEquals(1, simulator.getResources().size());
+		verify(requestHandlerGet, times(2)).handle(any());
+		assertEquals(1, reconnects[0]);
+		assertEquals(1, simulator.getRestores());
+	}
+
+	@Test
+	public void testBodylessRequestSkipsDeserialiser() {
+		// given
+		input = createInput("GET", null, null);
+
+		// when
+		handler.handleRequest(input, context);
+
+		// then
+		verify(objectMapper, never()).deserialise(any(), any());
+		verify(requestHandlerGet, times(1)).handle(testRequestCaptor.capture());
+		assertEquals(null, testRequestCaptor.getValue().getBody());
+		assertEquals(Collections.emptyMap(), testRequestCaptor.getValue().getContext());
+	}
+
+	@Test
+	public void testUnsupportedContentTypeIsRejectedWhateverTheHeaderCase() {
+		// given
+		input = createInput("GET", Map.of("content-type", APPLICATION_X_WWW_FORM_URLENCODED), "{}");
+		APIGatewayV2HTTPEvent upperCaseInput = createInput("GET", Map.of("CONTENT-TYPE", APPLICATION_X_WWW_FORM_URLENCODED), "{}");
+
+		// when
+		APIGatewayV2HTTPResponse response = handler.handleRequest(input, context);
+		APIGatewayV2HTTPResponse upperCaseResponse = handler.handleRequest(upperCaseInput, context);
+
+		// then
+		assertEquals(400, response.getStatusCode());
+		assertEquals(400, upperCaseResponse.getStatusCode());
+		verifyNoInteractions(objectMapper, requestHandlerGet);
+	}
+
+	@Test
+	public void testRouteKeySelectsRouteHandler() {
+		// given
+		AbstractRequestHandler router = createRouter();
+		input = createInput("GET", null, "{}", Map.of(ConsultConstants.PATH_PARAM_USER_ID, JWT_USERNAME, ConsultConstants.PATH_PARAM_CODE, "1321123"));
+		input.setRouteKey("GET /users/{id}/ratings/{code}");
+
+		// when
+		router.handleRequest(input, context);
+
+		// then
+		verify(requestHandlerUserGet, times(1)).handle(testRequestCaptor.capture());
+		assertEquals(input.getPathParameters(), testRequestCaptor.getValue().getPathParams());
+		verifyNoInteractions(requestHandlerGet);
+	}
+
+	@Test
+	public void testPathIsMatchedWhenRouteKeyIsNotRegistered() {
+		// given
+		AbstractRequestHandler router = createRouter();
+		input = createInput("GET", null, "{}");
+		input.setRouteKey("$default");
+		input.setRawPath("/dev/users/" + JWT_USERNAME + "/ratings/13%2021/");
+		input.getRequestContext().setStage("dev");
+
+		// when
+		router.handleRequest(input, context);
+
+		// then
+		verify(requestHandlerUserGet, times(1)).handle(testRequestCaptor.capture());
+		assertEquals(Map.of(ConsultConstants.PATH_PARAM_USER_ID, JWT_USERNAME, ConsultConstants.PATH_PARAM_CODE, "13 21"),
+				testRequestCaptor.getValue().getPathParams());
+		verifyNoInteractions(requestHandlerGet);
+	}
+
+	@Test
+	public void testErrorResponseIsReturnedOnUnknownRoute() {
+		// given
+		AbstractRequestHandler router = createRouter();
+		input = createInput("GET", null, "{}");
+		input.setRawPath("/users/" + JWT_USERNAME);
+
+		// when
+		APIGatewayV2HTTPResponse response = router.handleRequest(input, context);
+
+		// then
+		assertEquals("{\"errorDesc\":\"Route not found.\"}", response.getBody());
+		assertEquals(404, response.getStatusCode());
+		verifyNoInteractions(requestHandlerGet, requestHandlerUserGet);
+	}
+
+	@Test
+	public void testErrorResponseIsReturnedOnUnsupportedRouteMethod() {
+		// given
+		AbstractRequestHandler router = createRouter();
+		input = createInput("PUT", null, "{}");
+		input.setRawPath("/ratings/1321123");
+
+		// when
+		APIGatewayV2HTTPResponse response = router.handleRequest(input, context);
+
+		// then
+		assertEquals(ERROR_RESPONSE_UNSUPPORTED_PUT, response.getBody());
+		assertEquals(400, response.getStatusCode());
+		verifyNoInteractions(requestHandlerGet, requestHandlerUserGet);
+	}
+
+	@Test
+	public void testCreateRoutePrimingRequestSetsRouteKeyAndPath() {
+		// given
+		Map<String, String> pathParams = Map.of(ConsultConstants.PATH_PARAM_USER_ID, JWT_USERNAME, ConsultConstants.PATH_PARAM_CODE, "1321123");
+
+		// when
+		APIGatewayV2HTTPEvent request = AbstractRequestHandler.createPrimingRequest(HttpMethod.GET, "/users/{id}/ratings/{code}", pathParams, null);
+
+		// then
+		assertEquals("GET /users/{id}/ratings/{code}", request.getRouteKey());
+		assertEquals("/users/" + JWT_USERNAME + "/ratings/1321123", request.getRawPath());
+		assertEquals(pathParams, request.getPathParameters());
+	}
+
+	@Test
+	public void testStageTimingsAreEmittedWithRouteAndStatus() {
+		// given
+		InMemoryMetricsSink sink = new InMemoryMetricsSink();
+		AbstractRequestHandler router = createRouter();
+		router.setMetricsSink(sink);
+		input = createInput("GET", null, "{}", Map.of(ConsultConstants.PATH_PARAM_CODE, "1321123"));
+		input.setRouteKey("GET /ratings/{code}");
+		HttpResponse<TestResponse> response = new HttpResponse<>();
+		response.setBody(VALID_GET_RESPONSE);
+		doReturn(response).when(requestHandlerGet).handle(any());
+		doReturn(VALID_GET_RESPONSE_BODY).when(objectMapper).serialise(VALID_GET_RESPONSE);
+
+		// when
+		router.handleRequest(input, context);
+
+		// then
+		assertEquals(1, sink.getRequests().size());
+		RequestMetrics metrics = sink.getRequests().get(0);
+		assertEquals("GET /ratings/{code}", metrics.getRoute());
+		assertEquals(200, metrics.getStatusCode());
+		assertEquals(Set.of(RequestStage.VALIDATE_HEADERS, RequestStage.ROUTE, RequestStage.DESERIALISE, RequestStage.AUTHENTICATE,
+				RequestStage.HANDLE, RequestStage.SERIALISE, RequestStage.COMPRESS), metrics.getStageNanos().keySet());
+		long stagesNanos = metrics.getStageNanos().values().stream().mapToLong(Long::longValue).sum();
+		assertTrue(metrics.getTotalNanos() >= stagesNanos);
+	}
+
+	@Test
+	public void testStageTimingsAreEmittedForErrorResponses_ButNotForPrimingRequests() {
+		// given
+		InMemoryMetricsSink sink = new InMemoryMetricsSink();
+		handler.setMetricsSink(sink);
+		handler.addPrimingRequest(AbstractRequestHandler.createPrimingRequest(HttpMethod.GET, Collections.emptyMap(), null));
+		doReturn(new HttpResponse<>()).when(requestHandlerGet).handle(any());
+		input = createInput("DELETE", null, null);
+
+		// when
+		handler.prime();
+		handler.handleRequest(input, context);
+
+		// then
+		assertEquals(1, sink.getRequests().size());
+		RequestMetrics metrics = sink.getRequests().get(0);
+		assertNull(metrics.getRoute());
+		assertEquals(400, metrics.getStatusCode());
+		assertTrue(metrics.getStageNanos().containsKey(RequestStage.ROUTE));
+		assertFalse(metrics.getStageNanos().containsKey(RequestStage.HANDLE));
+	}
+
+	@Test
+	public void testConsumedCapacityIsEmittedAndReturnedInDebugHeader() {
+		// given
+		InMemoryMetricsSink sink = new InMemoryMetricsSink();
+		handler.setMetricsSink(sink);
+		handler.setConsumedCapacityHeader(true);
+		input = createInput("GET", null, null);
+		doAnswer(invocation -> {
+			RequestCapacity.current().add("ratings", null, 0.5, 0);
+			RequestCapacity.current().add("ratings", "LSIDate", 0.5, 0);
+			return new HttpResponse<>();
+		}).when(requestHandlerGet).handle(any());
+
+		// when
+		APIGatewayV2HTTPResponse response = handler.handleRequest(input, context);
+
+		// then
+		assertEquals("total;rcu=0.5;wcu=0.0, ratings;rcu=0.5;wcu=0.0, ratings.LSIDate;rcu=0.5;wcu=0.0",
+				response.getHeaders().get(ConsultConstants.HEADER_CONSUMED_CAPACITY));
+		assertEquals(ConsultConstants.CONTENT_TYPE_JSON, response.getHeaders().get(ConsultConstants.HEADER_CONTENT_TYPE));
+		assertEquals(0.5, sink.getRequests().get(0).getCapacity().getReadUnits());
+	}
+
+	@Test
+	public void testConsumedCapacityHeaderIsOmittedWhenNoCapacityWasConsumed() {
+		// given
+		handler.setConsumedCapacityHeader(true);
+		input = createInput("GET", null, null);
+		doReturn(new HttpResponse<>()).when(requestHandlerGet).handle(any());
+
+		// when
+		APIGatewayV2HTTPResponse response = handler.handleRequest(input, context);
+
+		// then
+		assertNull(response.getHeaders().get(ConsultConstants.HEADER_CONSUMED_CAPACITY));
+	}
+
+	@Test
+	public void testCapacityIsNotCountedWithoutMetricsOrDebugHeader() {
+		// given
+		RequestCapacity capacity = RequestCapacity.start();
+		input = createInput("GET", null, null);
+		doReturn(new HttpResponse<>()).when(requestHandlerGet).handle(any());
+
+		// when
+		APIGatewayV2HTTPResponse response = handler.handleRequest(input, context);
+
+		// then
+		assertSame(capacity, RequestCapacity.current());
+		assertNull(response.getHeaders().get(ConsultConstants.HEADER_CONSUMED_CAPACITY));
+	}
+
+	private AbstractRequestHandler createRouter() {
+		AbstractRequestHandler router = new AbstractRequestHandler() { };
+		router.setObjectMapper(objectMapper);
+		router.addRoute(HttpMethod.GET, "/ratings/{code}", requestHandlerGet, TestRequest.class);
+		router.addRoute(HttpMethod.GET, "/users/{id}/ratings/{code}", requestHandlerUserGet, TestRequest.class);
+		return router;
+	}
+
 	private APIGatewayV2HTTPEvent createInput(String method, Map<String, String> headers, String body) {
 		return createInput(method, headers, body, null);
 	}
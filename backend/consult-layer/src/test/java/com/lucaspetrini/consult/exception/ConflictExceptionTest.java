@@ -0,0 +1,25 @@
+package com.lucaspetrini.consult.exception;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link ConflictException}.
+ */
+public class ConflictExceptionTest {
+	private static final Integer STATUS_CODE = 409;
+	private static final Exception UNDERLYING_EXCEPTION = new RuntimeException();
+	private ConflictException exception;
+
+	@Test
+	public void testUnderlyingException() {
+		// when
+		exception = new ConflictException(UNDERLYING_EXCEPTION);
+
+		// then
+		assertEquals(UNDERLYING_EXCEPTION, exception.getCause());
+		assertEquals(STATUS_CODE, exception.getStatusCode());
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.lucaspetrini.consult.exception;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link InvalidParameterException}.
+ */
+public class InvalidParameterExceptionTest {
+	private static final String MESSAGE = "Parameter codes is required.";
+	private static final Integer STATUS_CODE = 400;
+	private InvalidParameterException exception;
+
+	@Test
+	public void testExceptionShortDescription() {
+		// when
+		exception = new InvalidParameterException(MESSAGE);
+
+		// then
+		assertEquals(MESSAGE, exception.getShortDescription());
+	}
+
+	@Test
+	public void testExceptionStatusCode() {
+		// when
+		exception = new InvalidParameterException(MESSAGE);
+
+		// then
+		assertEquals(STATUS_CODE, exception.getStatusCode());
+	}
+
+}
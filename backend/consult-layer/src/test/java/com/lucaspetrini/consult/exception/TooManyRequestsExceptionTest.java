@@ -0,0 +1,25 @@
+package com.lucaspetrini.consult.exception;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link TooManyRequestsException}.
+ */
+public class TooManyRequestsExceptionTest {
+	private static final Integer STATUS_CODE = 429;
+	private static final Exception UNDERLYING_EXCEPTION = new RuntimeException();
+	private TooManyRequestsException exception;
+
+	@Test
+	public void testUnderlyingException() {
+		// when
+		exception = new TooManyRequestsException(UNDERLYING_EXCEPTION);
+
+		// then
+		assertEquals(UNDERLYING_EXCEPTION, exception.getCause());
+		assertEquals(STATUS_CODE, exception.getStatusCode());
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.lucaspetrini.consult.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link LogSampler}.
+ */
+public class LogSamplerTest {
+	private static final String GET_RATING = "GET /ratings/{code}";
+	private static final String PUT_USER_RATING = "PUT /users/{id}/ratings/{code}";
+
+	@Test
+	public void testRoutesAreSampledAtTheirOwnRate_OrTheDefaultOne() {
+		// given
+		LogSampler sampler = LogSampler.parse("0.5", GET_RATING + "=0.01; " + PUT_USER_RATING + " = 1;GET /users/{id}/ratings=oops;broken");
+
+		// when
+		double getRating = sampler.getRate(GET_RATING);
+		double putUserRating = sampler.getRate(PUT_USER_RATING);
+		double invalid = sampler.getRate("GET /users/{id}/ratings");
+		double unrouted = sampler.getRate(null);
+
+		// then
+		assertEquals(0.01, getRating);
+		assertEquals(1, putUserRating);
+		assertEquals(0.5, invalid);
+		assertEquals(0.5, unrouted);
+	}
+
+	@Test
+	public void testEveryRequestIsLoggedByDefault() {
+		// given
+		LogSampler sampler = LogSampler.parse(null, null);
+
+		// when
+		boolean sampled = sampler.sample(GET_RATING);
+
+		// then
+		assertEquals(LogSampler.DEFAULT_RATE, sampler.getRate(GET_RATING));
+		assertTrue(sampled);
+	}
+
+	@Test
+	public void testRatesAreClampedBetweenNeverAndAlways() {
+		// given
+		LogSampler sampler = new LogSampler(-1, Map.of(GET_RATING, 3.0));
+
+		// when
+		boolean never = sampler.sample(PUT_USER_RATING);
+		boolean always = sampler.sample(GET_RATING);
+
+		// then
+		assertEquals(0, sampler.getRate(PUT_USER_RATING));
+		assertFalse(never);
+		assertTrue(always);
+	}
+
+	@Test
+	public void testPartialRateSamplesSomeRequests() {
+		// given
+		LogSampler sampler = new LogSampler(0.5, Map.of());
+
+		// when
+		int sampled = 0;
+		for(int i = 0; i < 10_000; i++) {
+			if(sampler.sample(GET_RATING))
+				sampled++;
+		}
+
+		// then
+		assertTrue(sampled > 4_000 && sampled < 6_000, "sampled " + sampled);
+	}
+}
@@ -0,0 +1,138 @@
+package com.lucaspetrini.consult.mapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Test {@link CodecObjectMapper}.
+ */
+public class CodecObjectMapperTest {
+	private static final String SERIALISED = "{'rating':3,'review':'Good'}".replace("'", "\"");
+	private CodecObjectMapper mapper;
+
+	@BeforeEach
+	public void setUp() {
+		mapper = new CodecObjectMapper().withCodec(new RequestCodec());
+	}
+
+	@Test
+	public void testObjectIsSerialisedByCodec() {
+		// given
+		Request request = new Request();
+		request.rating = 3L;
+		request.review = "Good";
+
+		// when
+		String serialised = mapper.serialise(request);
+
+		// then
+		assertEquals(SERIALISED, serialised);
+		assertEquals(new JsonObjectMapper().serialise(request), serialised);
+	}
+
+	@Test
+	public void testObjectIsDeserialisedByCodec() {
+		// given / when
+		Request request = mapper.deserialise("{'unknown':{'a':[1]},'rating':'3','review':'Good'}".replace("'", "\""), Request.class);
+
+		// then
+		assertEquals(3L, request.rating);
+		assertEquals("Good", request.review);
+	}
+
+	@Test
+	public void testClassWithoutCodecUsesFallback() {
+		// given
+		Other other = new Other();
+		other.name = "fallback";
+
+		// when
+		String serialised = mapper.serialise(other);
+
+		// then
+		assertEquals("{\"name\":\"fallback\"}", serialised);
+		assertEquals("fallback", mapper.deserialise(serialised, Other.class).name);
+	}
+
+	@Test
+	public void testEmptyBodyIsNull() {
+		// given / when / then
+		assertNull(mapper.deserialise(null, Request.class));
+		assertNull(mapper.deserialise(" ", Request.class));
+		assertEquals("null", mapper.serialise(null));
+	}
+
+	@Test
+	public void testInvalidBodyIsRejectedLikeGson() {
+		// given / when / then
+		assertThrows(JsonParseException.class, () -> mapper.deserialise("{\"rating\":3} {}", Request.class));
+		assertThrows(JsonParseException.class, () -> mapper.deserialise("{\"rating\":\"three\"}", Request.class));
+		assertThrows(JsonParseException.class, () -> mapper.deserialise("[1]", Request.class));
+	}
+
+	private static class Request {
+		private Long rating;
+		private String review;
+	}
+
+	private static class Other {
+		private String name;
+	}
+
+	/**
+	 * Hand written equivalent of a generated codec.
+	 */
+	private static class RequestCodec implements JsonCodec<Request> {
+		private static final byte[] NAME_RATING = JsonByteWriter.encodeName("rating");
+		private static final byte[] NAME_REVIEW = JsonByteWriter.encodeName("review");
+
+		@Override
+		public Class<Request> getType() {
+			return Request.class;
+		}
+
+		@Override
+		public void write(JsonByteWriter writer, Request value) {
+			writer.beginObject();
+			if(value.rating != null)
+				writer.name(NAME_RATING).value(value.rating);
+			if(value.review != null)
+				writer.name(NAME_REVIEW).value(value.review);
+			writer.endObject();
+		}
+
+		@Override
+		public Request read(JsonReader reader) throws IOException {
+			if(reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+				return null;
+			}
+			Request value = new Request();
+			reader.beginObject();
+			while(reader.hasNext()) {
+				switch(reader.nextName()) {
+				case "rating":
+					value.rating = JsonCodecs.readLong(reader);
+					break;
+				case "review":
+					value.review = JsonCodecs.readString(reader);
+					break;
+				default:
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+			return value;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.lucaspetrini.consult.mapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+
+/**
+ * Test {@link JsonByteWriter}.
+ */
+public class JsonByteWriterTest {
+	private JsonByteWriter writer;
+
+	@BeforeEach
+	public void setUp() {
+		writer = new JsonByteWriter();
+	}
+
+	@Test
+	public void testStringsAreEscapedLikeGson() {
+		// given
+		String value = "quote\" back\\ tab\t nl\n cr\r \b\f \u0001 <a href='x'>&=</a> \u00e9 \u00fc \u4e2d \ud83d\ude00 \u2028\u2029 end";
+
+		// when
+		writer.value(value);
+
+		// then
+		assertEquals(new Gson().toJson(value), writer.toString());
+	}
+
+	@Test
+	public void testNestedStructuresAreSeparated() {
+		// given / when
+		writer.beginObject()
+				.name(JsonByteWriter.encodeName("code")).value("1321123")
+				.name("values").beginArray().value(1L).value(-20).nullValue().beginObject().endObject().endArray()
+				.name("active").value(true)
+				.name("score").value(4.5)
+				.endObject();
+
+		// then
+		assertEquals("{\"code\":\"1321123\",\"values\":[1,-20,null,{}],\"active\":true,\"score\":4.5}", writer.toString());
+	}
+
+	@Test
+	public void testLongsAreWrittenInFull() {
+		// given / when
+		writer.beginArray().value(0L).value(9L).value(10L).value(Long.MAX_VALUE).value(Long.MIN_VALUE).value(-1000000000000000000L).endArray();
+
+		// then
+		assertEquals("[0,9,10," + Long.MAX_VALUE + "," + Long.MIN_VALUE + ",-1000000000000000000]", writer.toString());
+	}
+
+	@Test
+	public void testNonFiniteDoubleIsRejected() {
+		// given / when / then
+		assertThrows(IllegalArgumentException.class, () -> writer.value(Double.NaN));
+	}
+
+	@Test
+	public void testResetStartsNewDocument() {
+		// given
+		writer.beginArray().value("x".repeat(JsonByteWriter.MAX_RETAINED_CAPACITY)).endArray();
+
+		// when
+		writer.reset();
+		writer.beginArray().value("\u00e9").endArray();
+
+		// then
+		assertEquals("[\"\u00e9\"]", writer.toString());
+		assertEquals(6, writer.size());
+		assertEquals("[\"\u00e9\"]", new String(writer.toByteArray(), StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,115 @@
+package com.lucaspetrini.consult.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.services.dynamodb.model.Capacity;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ListTablesRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+
+/**
+ * Test {@link ConsumedCapacityInterceptor}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ConsumedCapacityInterceptorTest {
+	private ConsumedCapacityInterceptor interceptor;
+	private ExecutionAttributes executionAttributes;
+	private RequestCapacity capacity;
+	private @Mock Context.BeforeExecution beforeExecution;
+	private @Mock Context.ModifyRequest modifyRequest;
+	private @Mock Context.AfterExecution afterExecution;
+
+	@BeforeEach
+	public void setUp() {
+		interceptor = new ConsumedCapacityInterceptor();
+		executionAttributes = new ExecutionAttributes();
+		capacity = RequestCapacity.start();
+	}
+
+	@Test
+	public void testItemOperationsAskForCapacityPerIndex() {
+		// given
+		doReturn(TransactWriteItemsRequest.builder().build()).when(modifyRequest).request();
+
+		// when
+		TransactWriteItemsRequest request = (TransactWriteItemsRequest) interceptor.modifyRequest(modifyRequest, executionAttributes);
+
+		// then
+		assertEquals(ReturnConsumedCapacity.INDEXES, request.returnConsumedCapacity());
+	}
+
+	@Test
+	public void testExplicitCapacityRequestsAndOtherOperationsAreLeftAsTheyAre() {
+		// given
+		GetItemRequest getItem = GetItemRequest.builder().returnConsumedCapacity(ReturnConsumedCapacity.NONE).build();
+		ListTablesRequest listTables = ListTablesRequest.builder().build();
+
+		// when
+		doReturn(getItem).when(modifyRequest).request();
+		Object modifiedGetItem = interceptor.modifyRequest(modifyRequest, executionAttributes);
+		doReturn(listTables).when(modifyRequest).request();
+		Object modifiedListTables = interceptor.modifyRequest(modifyRequest, executionAttributes);
+
+		// then
+		assertSame(getItem, modifiedGetItem);
+		assertSame(listTables, modifiedListTables);
+	}
+
+	@Test
+	public void testWriteCapacityIsAddedPerTableAndIndex() {
+		// given
+		interceptor.beforeExecution(beforeExecution, executionAttributes);
+		doReturn(TransactWriteItemsResponse.builder().consumedCapacity(
+				ConsumedCapacity.builder().tableName("user_ratings").capacityUnits(8.0)
+						.globalSecondaryIndexes(Map.of("GSIRating", Capacity.builder().capacityUnits(2.0).build())).build(),
+				ConsumedCapacity.builder().tableName("ratings").capacityUnits(4.0).build()).build())
+				.when(afterExecution).response();
+		// the request ends on another thread, as calls of the asynchronous client do
+		RequestCapacity.start();
+
+		// when
+		interceptor.afterExecution(afterExecution, executionAttributes);
+
+		// then
+		assertEquals(0, capacity.getReadUnits());
+		assertEquals(12, capacity.getWriteUnits());
+		assertEquals(8, capacity.getUnits().get("user_ratings").getWrite());
+		assertEquals(2, capacity.getUnits().get("user_ratings.GSIRating").getWrite());
+		assertEquals(4, capacity.getUnits().get("ratings").getWrite());
+		assertTrue(RequestCapacity.current().isEmpty());
+	}
+
+	@Test
+	public void testReadCapacityIsAddedForReads_UnlessDynamoDbSplitsIt() {
+		// given
+		interceptor.beforeExecution(beforeExecution, executionAttributes);
+		doReturn(GetItemResponse.builder().consumedCapacity(ConsumedCapacity.builder().tableName("ratings").capacityUnits(0.5).build()).build())
+				.when(afterExecution).response();
+
+		// when
+		interceptor.afterExecution(afterExecution, executionAttributes);
+		ConsumedCapacityInterceptor.record(capacity, ConsumedCapacity.builder().tableName("ratings").capacityUnits(3.0)
+				.readCapacityUnits(1.0).writeCapacityUnits(2.0).build(), true);
+
+		// then
+		assertEquals(1.5, capacity.getReadUnits());
+		assertEquals(2, capacity.getWriteUnits());
+	}
+}
@@ -0,0 +1,122 @@
+package com.lucaspetrini.consult.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Test {@link EmfMetricsSink}.
+ */
+public class EmfMetricsSinkTest {
+	private static final String NAMESPACE = "ConsultTest";
+	private static final String ROUTE = "PUT /users/{id}/ratings/{code}";
+	private static final long TIMESTAMP = 1655428712039L;
+
+	private ByteArrayOutputStream out;
+	private EmfMetricsSink sink;
+	private RequestTimer timer;
+
+	@BeforeEach
+	public void setUp() {
+		out = new ByteArrayOutputStream();
+		sink = new EmfMetricsSink(NAMESPACE, new PrintStream(out, true, StandardCharsets.UTF_8));
+		timer = RequestTimer.start();
+	}
+
+	@Test
+	public void testRecordDeclaresRecordedStagesWithRouteAndStatusDimensions() {
+		// given
+		timer.record(RequestStage.VALIDATE_HEADERS, System.nanoTime());
+		timer.record(RequestStage.HANDLE, System.nanoTime());
+		timer.stop();
+
+		// when
+		JsonObject record = JsonParser.parseString(sink.format(ROUTE, 201, timer, new RequestCapacity(), TIMESTAMP)).getAsJsonObject();
+
+		// then
+		JsonObject aws = record.getAsJsonObject("_aws");
+		assertEquals(TIMESTAMP, aws.get("Timestamp").getAsLong());
+		JsonObject directive = aws.getAsJsonArray("CloudWatchMetrics").get(0).getAsJsonObject();
+		assertEquals(NAMESPACE, directive.get("Namespace").getAsString());
+		assertEquals("[[\"Route\",\"Status\"]]", directive.getAsJsonArray("Dimensions").toString());
+		JsonArray metrics = directive.getAsJsonArray("Metrics");
+		assertEquals(3, metrics.size());
+		assertEquals("ValidateHeaders", metrics.get(0).getAsJsonObject().get("Name").getAsString());
+		assertEquals("Handle", metrics.get(1).getAsJsonObject().get("Name").getAsString());
+		assertEquals("Total", metrics.get(2).getAsJsonObject().get("Name").getAsString());
+		assertEquals("Microseconds", metrics.get(2).getAsJsonObject().get("Unit").getAsString());
+		assertEquals(ROUTE, record.get("Route").getAsString());
+		assertEquals("201", record.get("Status").getAsString());
+		assertEquals(timer.getNanos(RequestStage.HANDLE) / 1000.0, record.get("Handle").getAsDouble(), 0.001);
+		assertEquals(timer.getTotalNanos() / 1000.0, record.get("Total").getAsDouble(), 0.001);
+		assertFalse(record.has("Serialise"));
+		assertFalse(record.has("ReadCapacityUnits"));
+	}
+
+	@Test
+	public void testConsumedCapacityIsRecordedInTotalPerTableAndPerIndex() {
+		// given
+		timer.stop();
+		RequestCapacity capacity = new RequestCapacity();
+		capacity.add("user_ratings", null, 0.5, 4);
+		capacity.add("user_ratings", "GSIRating", 0, 2);
+		capacity.add("ratings", null, 0.5, 0);
+
+		// when
+		JsonObject record = JsonParser.parseString(sink.format(ROUTE, 200, timer, capacity, TIMESTAMP)).getAsJsonObject();
+
+		// then
+		JsonArray metrics = record.getAsJsonObject("_aws").getAsJsonArray("CloudWatchMetrics").get(0).getAsJsonObject().getAsJsonArray("Metrics");
+		assertEquals(9, metrics.size());
+		assertEquals("ReadCapacityUnits", metrics.get(1).getAsJsonObject().get("Name").getAsString());
+		assertEquals("Count", metrics.get(1).getAsJsonObject().get("Unit").getAsString());
+		assertEquals(1.0, record.get("ReadCapacityUnits").getAsDouble());
+		assertEquals(4.0, record.get("WriteCapacityUnits").getAsDouble());
+		assertEquals(4.0, record.get("WriteCapacityUnits.user_ratings").getAsDouble());
+		assertEquals(2.0, record.get("WriteCapacityUnits.user_ratings.GSIRating").getAsDouble());
+		assertEquals(0.5, record.get("ReadCapacityUnits.ratings").getAsDouble());
+	}
+
+	@Test
+	public void testUnroutedRequestIsRecordedWithoutRoute() {
+		// given
+		timer.stop();
+
+		// when
+		JsonObject record = JsonParser.parseString(sink.format(null, 404, timer, new RequestCapacity(), TIMESTAMP)).getAsJsonObject();
+
+		// then
+		assertEquals(EmfMetricsSink.NO_ROUTE, record.get("Route").getAsString());
+		assertEquals("404", record.get("Status").getAsString());
+	}
+
+	@Test
+	public void testEmitPrintsOneLinePerRequest() {
+		// given
+		timer.record(RequestStage.ROUTE, System.nanoTime());
+		timer.stop();
+
+		// when
+		sink.emit("GET /ratings/{\"code\"}", 200, timer, new RequestCapacity());
+		sink.emit(ROUTE, 500, timer, new RequestCapacity());
+
+		// then
+		String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(2, lines.length);
+		JsonObject record = JsonParser.parseString(lines[0]).getAsJsonObject();
+		assertEquals("GET /ratings/{\"code\"}", record.get("Route").getAsString());
+		assertTrue(record.has("Routing"));
+		assertTrue(lines[1].startsWith("{\"_aws\":"));
+	}
+}
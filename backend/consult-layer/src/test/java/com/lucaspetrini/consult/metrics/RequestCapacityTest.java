@@ -0,0 +1,81 @@
+package com.lucaspetrini.consult.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link RequestCapacity}.
+ */
+public class RequestCapacityTest {
+
+	@Test
+	public void testTotalsOnlyCountTables_NotTheirIndexes() {
+		// given
+		RequestCapacity capacity = RequestCapacity.start();
+
+		// when
+		capacity.add("user_ratings", null, 1, 4);
+		capacity.add("user_ratings", "GSIRating", 0, 2);
+		capacity.add("user_ratings", null, 0.5, 0);
+
+		// then
+		assertFalse(capacity.isEmpty());
+		assertEquals(1.5, capacity.getReadUnits());
+		assertEquals(4, capacity.getWriteUnits());
+		assertEquals(List.of("user_ratings", "user_ratings.GSIRating"), List.copyOf(capacity.getUnits().keySet()));
+		assertEquals(1.5, capacity.getUnits().get("user_ratings").getRead());
+		assertEquals(2, capacity.getUnits().get("user_ratings.GSIRating").getWrite());
+	}
+
+	@Test
+	public void testStartBeginsANewRequest() {
+		// given
+		RequestCapacity capacity = RequestCapacity.start();
+		capacity.add("ratings", null, 1, 0);
+
+		// when
+		RequestCapacity next = RequestCapacity.start();
+
+		// then
+		assertNotSame(capacity, next);
+		assertSame(next, RequestCapacity.current());
+		assertTrue(next.isEmpty());
+		assertTrue(next.getUnits().isEmpty());
+	}
+
+	@Test
+	public void testBoundTasksCountOnTheRequestThatSubmittedThem() throws Exception {
+		// given
+		RequestCapacity capacity = RequestCapacity.start();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		// when
+		try {
+			executor.submit(capacity.bind(() -> {
+				RequestCapacity.current().add("ratings", null, 0.5, 0);
+				return null;
+			})).get();
+			CompletableFuture.supplyAsync(capacity.bindSupplier(() -> {
+				RequestCapacity.current().add("ratings", null, 0.5, 0);
+				return null;
+			}), executor).join();
+			RequestCapacity executorCapacity = executor.submit(RequestCapacity::current).get();
+
+			// then
+			assertEquals(1, capacity.getReadUnits());
+			assertNotSame(capacity, executorCapacity);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
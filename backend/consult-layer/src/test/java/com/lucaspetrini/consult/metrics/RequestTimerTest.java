@@ -0,0 +1,69 @@
+package com.lucaspetrini.consult.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link RequestTimer}.
+ */
+public class RequestTimerTest {
+
+	@Test
+	public void testRecordedStagesAddUp() {
+		// given
+		RequestTimer timer = RequestTimer.start();
+		long start = System.nanoTime() - 1000;
+
+		// when
+		timer.record(RequestStage.DYNAMODB_TRANSACTION, start);
+		long first = timer.getNanos(RequestStage.DYNAMODB_TRANSACTION);
+		timer.record(RequestStage.DYNAMODB_TRANSACTION, start);
+
+		// then
+		assertTrue(first >= 1000);
+		assertTrue(timer.getNanos(RequestStage.DYNAMODB_TRANSACTION) >= 2 * first);
+		assertTrue(timer.isRecorded(RequestStage.DYNAMODB_TRANSACTION));
+		assertFalse(timer.isRecorded(RequestStage.HANDLE));
+		assertEquals(0, timer.getNanos(RequestStage.HANDLE));
+	}
+
+	@Test
+	public void testStartResetsTheTimerOfTheThread() {
+		// given
+		RequestTimer timer = RequestTimer.start();
+		timer.record(RequestStage.HANDLE, System.nanoTime());
+		timer.setRoute("GET /ratings/{code}");
+		timer.stop();
+
+		// when
+		RequestTimer next = RequestTimer.start();
+
+		// then
+		assertSame(timer, next);
+		assertSame(next, RequestTimer.current());
+		assertFalse(next.isRecorded(RequestStage.HANDLE));
+		assertEquals(0, next.getNanos(RequestStage.HANDLE));
+		assertEquals(0, next.getTotalNanos());
+		assertNull(next.getRoute());
+	}
+
+	@Test
+	public void testEachThreadHasItsOwnTimer() throws InterruptedException {
+		// given
+		RequestTimer timer = RequestTimer.start();
+		RequestTimer[] otherTimer = new RequestTimer[1];
+
+		// when
+		Thread thread = new Thread(() -> otherTimer[0] = RequestTimer.current());
+		thread.start();
+		thread.join();
+
+		// then
+		assertTrue(otherTimer[0] != null && otherTimer[0] != timer);
+	}
+}
@@ -0,0 +1,138 @@
+package com.lucaspetrini.consult.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.http.SdkHttpFullRequest;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+
+/**
+ * Test {@link SdkCallMetricsInterceptor}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class SdkCallMetricsInterceptorTest {
+	private SdkCallMetricsInterceptor interceptor;
+	private @Mock Context.BeforeExecution beforeExecution;
+	private @Mock Context.BeforeTransmission beforeTransmission;
+	private @Mock Context.AfterTransmission afterTransmission;
+	private @Mock Context.AfterExecution afterExecution;
+	private @Mock Context.FailedExecution failedExecution;
+
+	@BeforeEach
+	public void setUp() {
+		interceptor = new SdkCallMetricsInterceptor(0);
+	}
+
+	@Test
+	public void testCallsAreRecordedPerOperationWithRetriesAndPayloadSizes() {
+		// given
+		doReturn(SdkHttpFullRequest.builder().method(SdkHttpMethod.POST).protocol("https").host("dynamodb")
+				.putHeader("Content-Length", "120").build()).when(beforeTransmission).httpRequest();
+		doReturn(SdkHttpResponse.builder().statusCode(200).putHeader("content-length", "300").build()).when(afterTransmission).httpResponse();
+
+		// when
+		ExecutionAttributes query = call("Query", 1);
+		interceptor.afterExecution(afterExecution, query);
+		ExecutionAttributes transaction = call("TransactWriteItems", 3);
+		interceptor.afterExecution(afterExecution, transaction);
+		List<SdkCallMetricsInterceptor.OperationSummary> summaries = interceptor.flush();
+
+		// then
+		assertEquals(2, summaries.size());
+		SdkCallMetricsInterceptor.OperationSummary summary = find(summaries, "TransactWriteItems");
+		assertEquals(1, summary.getCalls());
+		assertEquals(3, summary.getAttempts());
+		assertEquals(2, summary.getRetries());
+		assertEquals(360, summary.getRequestBytes());
+		assertEquals(900, summary.getResponseBytes());
+		assertEquals(0, summary.getFailures());
+		assertTrue(summary.getP50() > 0);
+		assertTrue(summary.getMax() >= summary.getP99());
+		assertEquals(0, find(summaries, "Query").getRetries());
+	}
+
+	@Test
+	public void testThrottledFailuresAreCountedApartFromOtherFailures() {
+		// given
+		doReturn(SdkHttpFullRequest.builder().method(SdkHttpMethod.POST).protocol("https").host("dynamodb").build())
+				.when(beforeTransmission).httpRequest();
+		doReturn(SdkHttpResponse.builder().statusCode(400).build()).when(afterTransmission).httpResponse();
+
+		// when
+		ExecutionAttributes throttled = call("GetItem", 2);
+		doReturn(ProvisionedThroughputExceededException.builder().statusCode(400)
+				.awsErrorDetails(AwsErrorDetails.builder().errorCode("ProvisionedThroughputExceededException").build()).build()).when(failedExecution).exception();
+		interceptor.onExecutionFailure(failedExecution, throttled);
+		ExecutionAttributes failed = call("GetItem", 1);
+		doReturn(DynamoDbException.builder().statusCode(500)
+				.awsErrorDetails(AwsErrorDetails.builder().errorCode("InternalServerError").build()).build()).when(failedExecution).exception();
+		interceptor.onExecutionFailure(failedExecution, failed);
+		SdkCallMetricsInterceptor.OperationSummary summary = interceptor.flush().get(0);
+
+		// then
+		assertEquals(2, summary.getCalls());
+		assertEquals(2, summary.getFailures());
+		assertEquals(1, summary.getThrottles());
+		assertEquals(1, summary.getRetries());
+		assertEquals(0, summary.getRequestBytes());
+	}
+
+	@Test
+	public void testFlushStartsANewInterval() {
+		// given
+		doReturn(SdkHttpFullRequest.builder().method(SdkHttpMethod.POST).protocol("https").host("dynamodb").build())
+				.when(beforeTransmission).httpRequest();
+		doReturn(SdkHttpResponse.builder().statusCode(200).build()).when(afterTransmission).httpResponse();
+		ExecutionAttributes first = call("Query", 1);
+		interceptor.afterExecution(afterExecution, first);
+		interceptor.flush();
+
+		// when
+		List<SdkCallMetricsInterceptor.OperationSummary> empty = interceptor.flush();
+		ExecutionAttributes second = call("Query", 1);
+		interceptor.afterExecution(afterExecution, second);
+		// a failure reported after completion is not recorded again
+		interceptor.onExecutionFailure(failedExecution, second);
+		List<SdkCallMetricsInterceptor.OperationSummary> summaries = interceptor.flush();
+
+		// then
+		assertTrue(empty.isEmpty());
+		assertEquals(1, summaries.size());
+		assertEquals(1, summaries.get(0).getCalls());
+		assertEquals(0, summaries.get(0).getFailures());
+	}
+
+	/**
+	 * Start a call and make its attempts, leaving it to be completed.
+	 */
+	private ExecutionAttributes call(String operation, int attempts) {
+		ExecutionAttributes executionAttributes = new ExecutionAttributes();
+		executionAttributes.putAttribute(SdkExecutionAttribute.OPERATION_NAME, operation);
+		interceptor.beforeExecution(beforeExecution, executionAttributes);
+		for(int i = 0; i < attempts; i++) {
+			interceptor.beforeTransmission(beforeTransmission, executionAttributes);
+			interceptor.afterTransmission(afterTransmission, executionAttributes);
+		}
+		return executionAttributes;
+	}
+
+	private static SdkCallMetricsInterceptor.OperationSummary find(List<SdkCallMetricsInterceptor.OperationSummary> summaries, String operation) {
+		return summaries.stream().filter(summary -> summary.getOperation().equals(operation)).findFirst().orElseThrow();
+	}
+}
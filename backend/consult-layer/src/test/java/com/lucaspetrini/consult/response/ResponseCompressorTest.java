@@ -0,0 +1,188 @@
+package com.lucaspetrini.consult.response;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import com.lucaspetrini.consult.response.ResponseCompressor.Encoding;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+
+/**
+ * Test {@link ResponseCompressor}.
+ */
+public class ResponseCompressorTest {
+	private static final int MIN_SIZE = 64;
+	private static final String ENTITY_TAG = "\"1321123-3\"";
+
+	private ResponseCompressor compressor;
+	private String body;
+
+	@BeforeEach
+	public void setUp() {
+		compressor = new ResponseCompressor(MIN_SIZE);
+		StringBuilder builder = new StringBuilder("{\"ratings\":[");
+		for(int i = 0; i < 50; i++)
+			builder.append("{\"code\":\"").append(i).append("\",\"aggregated\":41,\"quantity\":10},");
+		body = builder.append("{}]}").toString();
+	}
+
+	@Test
+	public void testGzipIsPreferredOnTies_AndQualityValuesAreHonoured() {
+		// given / when / then
+		assertEquals(Encoding.GZIP, ResponseCompressor.negotiate("deflate, gzip"));
+		assertEquals(Encoding.GZIP, ResponseCompressor.negotiate("br, x-gzip"));
+		assertEquals(Encoding.DEFLATE, ResponseCompressor.negotiate("gzip;q=0.4, deflate;q=0.8"));
+		assertEquals(Encoding.DEFLATE, ResponseCompressor.negotiate("gzip;q=0, *"));
+		assertEquals(Encoding.GZIP, ResponseCompressor.negotiate("*;q=0.1"));
+		assertNull(ResponseCompressor.negotiate("identity"));
+		assertNull(ResponseCompressor.negotiate("gzip;q=0, deflate;q=0"));
+		assertNull(ResponseCompressor.negotiate("gzip;q=abc"));
+		assertNull(ResponseCompressor.negotiate(null));
+	}
+
+	@Test
+	public void testGzipResponseIsDecodedToOriginalBody() throws IOException {
+		// given
+		APIGatewayV2HTTPResponse response = createResponse(body);
+
+		// when
+		boolean compressed = compressor.encode("gzip, deflate, br", response);
+
+		// then
+		assertTrue(compressed);
+		assertTrue(response.getIsBase64Encoded());
+		assertEquals("gzip", response.getHeaders().get(ConsultConstants.HEADER_CONTENT_ENCODING));
+		assertEquals(ConsultConstants.HEADER_ACCEPT_ENCODING_VALUE, response.getHeaders().get(ConsultConstants.HEADER_VARY));
+		assertEquals(ConsultConstants.CONTENT_TYPE_JSON, response.getHeaders().get(ConsultConstants.HEADER_CONTENT_TYPE));
+		assertEquals(body, decode(new GZIPInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(response.getBody())))));
+	}
+
+	@Test
+	public void testDeflateResponseIsDecodedToOriginalBody() throws IOException {
+		// given
+		APIGatewayV2HTTPResponse response = createResponse(body);
+
+		// when
+		compressor.encode("deflate", response);
+
+		// then
+		assertEquals("deflate", response.getHeaders().get(ConsultConstants.HEADER_CONTENT_ENCODING));
+		assertEquals(body, decode(new InflaterInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(response.getBody())))));
+	}
+
+	@Test
+	public void testEntityTagBecomesWeakWhenBodyIsCompressed() {
+		// given
+		APIGatewayV2HTTPResponse response = createResponse(body);
+		response.getHeaders().put(ConsultConstants.HEADER_ETAG, ENTITY_TAG);
+
+		// when
+		compressor.encode("gzip", response);
+
+		// then
+		assertEquals("W/" + ENTITY_TAG, response.getHeaders().get(ConsultConstants.HEADER_ETAG));
+	}
+
+	@Test
+	public void testShortBodyIsNotCompressed() {
+		// given
+		String shortBody = body.substring(0, MIN_SIZE - 1);
+		APIGatewayV2HTTPResponse response = createResponse(shortBody);
+
+		// when
+		boolean compressed = compressor.encode("gzip", response);
+
+		// then
+		assertFalse(compressed);
+		assertFalse(response.getIsBase64Encoded());
+		assertEquals(shortBody, response.getBody());
+		assertNull(response.getHeaders().get(ConsultConstants.HEADER_VARY));
+	}
+
+	@Test
+	public void testBodyIsNotCompressedWhenClientDoesNotAcceptAnyCoding() {
+		// given
+		APIGatewayV2HTTPResponse response = createResponse(body);
+		response.getHeaders().put(ConsultConstants.HEADER_ETAG, ENTITY_TAG);
+
+		// when
+		boolean compressed = compressor.encode(null, response);
+
+		// then
+		assertFalse(compressed);
+		assertEquals(body, response.getBody());
+		assertEquals(ENTITY_TAG, response.getHeaders().get(ConsultConstants.HEADER_ETAG));
+		assertNull(response.getHeaders().get(ConsultConstants.HEADER_CONTENT_ENCODING));
+		assertEquals(ConsultConstants.HEADER_ACCEPT_ENCODING_VALUE, response.getHeaders().get(ConsultConstants.HEADER_VARY));
+	}
+
+	@Test
+	public void testHeadersAreSetInTheResponseMap() {
+		// given
+		APIGatewayV2HTTPResponse response = createResponse(body);
+		Map<String, String> headers = response.getHeaders();
+
+		// when
+		compressor.encode("gzip", response);
+
+		// then
+		assertSame(headers, response.getHeaders());
+		assertEquals("gzip", headers.get(ConsultConstants.HEADER_CONTENT_ENCODING));
+		assertEquals(ConsultConstants.HEADER_ACCEPT_ENCODING_VALUE, headers.get(ConsultConstants.HEADER_VARY));
+	}
+
+	@Test
+	public void testOnlyLongEnoughBodiesAreCompressible() {
+		assertTrue(compressor.isCompressible(body));
+		assertFalse(compressor.isCompressible(body.substring(0, MIN_SIZE - 1)));
+		assertFalse(compressor.isCompressible(null));
+	}
+
+	@Test
+	public void testDeflatersAreReusedAcrossResponses() {
+		// given
+		byte[] data = body.getBytes(StandardCharsets.UTF_8);
+		byte[] first = compressor.compress(data, Encoding.GZIP);
+
+		// when
+		byte[] second = compressor.compress(data, Encoding.GZIP);
+
+		// then
+		assertArrayEquals(first, second);
+		assertEquals(1, compressor.getPooledDeflaters(Encoding.GZIP));
+		assertEquals(0, compressor.getPooledDeflaters(Encoding.DEFLATE));
+	}
+
+	private APIGatewayV2HTTPResponse createResponse(String responseBody) {
+		APIGatewayV2HTTPResponse response = new APIGatewayV2HTTPResponse();
+		response.setStatusCode(200);
+		response.setBody(responseBody);
+		Map<String, String> headers = new HashMap<>();
+		headers.put(ConsultConstants.HEADER_CONTENT_TYPE, ConsultConstants.CONTENT_TYPE_JSON);
+		response.setHeaders(headers);
+		return response;
+	}
+
+	private String decode(InputStream in) throws IOException {
+		try(in) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.lucaspetrini.consult.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link PathTemplateTrie}.
+ */
+public class PathTemplateTrieTest {
+	private PathTemplateTrie<String> trie;
+
+	@BeforeEach
+	public void setUp() {
+		trie = new PathTemplateTrie<String>()
+				.add("/ratings", "ratings")
+				.add("/ratings/{code}", "rating")
+				.add("/ratings/top", "top")
+				.add("/users/{id}/ratings/{code}", "userRating");
+	}
+
+	@Test
+	public void testParametersAreExtracted() {
+		// given / when
+		RouteMatch<String> match = trie.match("/users/lucas/ratings/1321123");
+
+		// then
+		assertEquals("userRating", match.getValue());
+		assertEquals("/users/{id}/ratings/{code}", match.getTemplate());
+		assertEquals(Map.of("id", "lucas", "code", "1321123"), match.getPathParams());
+	}
+
+	@Test
+	public void testLiteralSegmentTakesPrecedence() {
+		// given / when / then
+		assertEquals("top", trie.match("/ratings/top").getValue());
+		assertEquals(Collections.emptyMap(), trie.match("/ratings/top").getPathParams());
+		assertEquals("rating", trie.match("/ratings/toP").getValue());
+	}
+
+	@Test
+	public void testParameterIsTriedWhenLiteralBranchDoesNotMatch() {
+		// given
+		trie.add("/ratings/top/{period}", "topPeriod").add("/ratings/{code}/reviews", "reviews");
+
+		// when
+		RouteMatch<String> match = trie.match("/ratings/top/reviews");
+
+		// then
+		assertEquals("topPeriod", match.getValue());
+		assertEquals(Map.of("period", "reviews"), match.getPathParams());
+		assertEquals(Map.of("code", "1321123"), trie.match("/ratings/1321123/reviews").getPathParams());
+	}
+
+	@Test
+	public void testTrailingSlashesAreIgnoredAndParametersDecoded() {
+		// given / when
+		RouteMatch<String> match = trie.match("/ratings/a%2Fb+c%20d/");
+
+		// then
+		assertEquals("rating", match.getValue());
+		assertEquals(Map.of("code", "a/b+c d"), match.getPathParams());
+		assertEquals("ratings", trie.match("/ratings/").getValue());
+	}
+
+	@Test
+	public void testUnknownPathIsNotMatched() {
+		// given / when / then
+		assertNull(trie.match("/users/lucas"));
+		assertNull(trie.match("/users/lucas/ratings/1321123/extra"));
+		assertNull(trie.match("/"));
+		assertNull(trie.match(null));
+	}
+
+	@Test
+	public void testConflictingTemplatesAreRejected() {
+		// given / when / then
+		assertThrows(IllegalArgumentException.class, () -> trie.add("/ratings/{id}", "conflict"));
+		assertThrows(IllegalArgumentException.class, () -> trie.add("/ratings/{code}/", "duplicate"));
+		assertThrows(IllegalArgumentException.class, () -> trie.add("/users/{id}/friends/{id}", "repeated"));
+		assertThrows(IllegalArgumentException.class, () -> trie.add("/ratings-{code}", "partial"));
+	}
+}
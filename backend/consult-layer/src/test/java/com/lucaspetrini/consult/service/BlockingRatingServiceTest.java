@@ -0,0 +1,73 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.lucaspetrini.consult.exception.DatabaseException;
+import com.lucaspetrini.consult.service.model.Rating;
+
+/**
+ * Tests for {@link BlockingRatingService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class BlockingRatingServiceTest {
+	private static final String SKU = "5ku";
+
+	private @Mock AsyncRatingService asyncRatingService;
+	private BlockingRatingService service;
+
+	@BeforeEach
+	public void setUp() {
+		service = new BlockingRatingService(asyncRatingService);
+	}
+
+	@Test
+	void testGetByCodeReturnsFutureValue() {
+		// given
+		Rating rating = new Rating();
+		doReturn(CompletableFuture.completedFuture(rating)).when(asyncRatingService).getByCode(SKU);
+
+		// when
+		Rating result = service.getByCode(SKU);
+
+		// then
+		assertSame(rating, result);
+	}
+
+	@Test
+	void testGetByCodesReturnsFutureValue() {
+		// given
+		Map<String, Rating> ratings = Map.of(SKU, new Rating());
+		doReturn(CompletableFuture.completedFuture(ratings)).when(asyncRatingService).getByCodes(List.of(SKU));
+
+		// when
+		Map<String, Rating> result = service.getByCodes(List.of(SKU));
+
+		// then
+		assertSame(ratings, result);
+	}
+
+	@Test
+	void testServiceExceptionIsRethrownUnwrapped() {
+		// given
+		DatabaseException exception = new DatabaseException("failed");
+		doReturn(CompletableFuture.failedFuture(exception)).when(asyncRatingService).getByCode(SKU);
+
+		// when
+		DatabaseException thrown = assertThrows(DatabaseException.class, () -> service.getByCode(SKU));
+
+		// then
+		assertSame(exception, thrown);
+	}
+}
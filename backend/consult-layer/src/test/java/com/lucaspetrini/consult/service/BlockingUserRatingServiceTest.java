@@ -0,0 +1,74 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.lucaspetrini.consult.exception.DatabaseException;
+import com.lucaspetrini.consult.service.model.UserRating;
+
+/**
+ * Tests for {@link BlockingUserRatingService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class BlockingUserRatingServiceTest {
+	private static final String SKU = "5ku";
+	private static final String USER = "u53r";
+
+	private @Mock AsyncUserRatingService asyncUserRatingService;
+	private BlockingUserRatingService service;
+
+	@BeforeEach
+	public void setUp() {
+		service = new BlockingUserRatingService(asyncUserRatingService);
+	}
+
+	@Test
+	void testGetByUserIdAndCodeReturnsFutureValue() {
+		// given
+		UserRating userRating = new UserRating();
+		doReturn(CompletableFuture.completedFuture(userRating)).when(asyncUserRatingService).getByUserIdAndCode(USER, SKU);
+
+		// when
+		UserRating result = service.getByUserIdAndCode(USER, SKU);
+
+		// then
+		assertSame(userRating, result);
+	}
+
+	@Test
+	void testPutReturnsFutureValue() {
+		// given
+		UserRating userRating = new UserRating();
+		UserRating stored = new UserRating();
+		doReturn(CompletableFuture.completedFuture(stored)).when(asyncUserRatingService).put(userRating);
+
+		// when
+		UserRating result = service.put(userRating);
+
+		// then
+		assertSame(stored, result);
+	}
+
+	@Test
+	void testServiceExceptionIsRethrownUnwrapped() {
+		// given
+		UserRating userRating = new UserRating();
+		DatabaseException exception = new DatabaseException("failed");
+		doReturn(CompletableFuture.failedFuture(exception)).when(asyncUserRatingService).put(userRating);
+
+		// when
+		DatabaseException thrown = assertThrows(DatabaseException.class, () -> service.put(userRating));
+
+		// then
+		assertSame(exception, thrown);
+	}
+}
@@ -0,0 +1,205 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.lucaspetrini.consult.service.model.Rating;
+
+/**
+ * Tests for {@link CachingRatingService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class CachingRatingServiceTest {
+	private static final String SKU_1 = "5ku1";
+	private static final String SKU_2 = "5ku2";
+	private static final String SKU_3 = "5ku3";
+	private static final int MAX_SIZE = 2;
+	private static final long TTL_MILLIS = 1000;
+
+	private @Mock RatingService ratingService;
+	private CachingRatingService service;
+	private long now;
+
+	@BeforeEach
+	public void setUp() {
+		now = 0;
+		service = new CachingRatingService(ratingService, MAX_SIZE, TTL_MILLIS, () -> now);
+	}
+
+	@Test
+	void testSecondCallIsServedFromCache() {
+		// given
+		doReturn(createRating(SKU_1)).when(ratingService).getByCode(SKU_1);
+		service.getByCode(SKU_1);
+
+		// when
+		Rating rating = service.getByCode(SKU_1);
+
+		// then
+		verify(ratingService, times(1)).getByCode(SKU_1);
+		assertEquals(SKU_1, rating.getSku());
+		assertEquals(1, service.getHitCount());
+		assertEquals(1, service.getMissCount());
+	}
+
+	@Test
+	void testVersionIsServedFromCache_AndLoadingItCachesTheRating() {
+		// given
+		doReturn(createRating(SKU_1)).when(ratingService).getByCode(SKU_1);
+
+		// when
+		Long loadedVersion = service.getVersionByCode(SKU_1);
+		Long cachedVersion = service.getVersionByCode(SKU_1);
+		service.getByCode(SKU_1);
+
+		// then
+		verify(ratingService, times(1)).getByCode(SKU_1);
+		assertEquals(loadedVersion, cachedVersion);
+		assertEquals(2, service.getHitCount());
+		assertEquals(1, service.getMissCount());
+	}
+
+	@Test
+	void testVersionOfNotFoundRatingIsNull() {
+		// given
+		doReturn(null).when(ratingService).getByCode(SKU_1);
+
+		// when
+		Long version = service.getVersionByCode(SKU_1);
+
+		// then
+		assertNull(version);
+	}
+
+	@Test
+	void testExpiredEntryIsLoadedAgain() {
+		// given
+		doReturn(createRating(SKU_1)).when(ratingService).getByCode(SKU_1);
+		service.getByCode(SKU_1);
+		now += TimeUnit.MILLISECONDS.toNanos(TTL_MILLIS);
+
+		// when
+		service.getByCode(SKU_1);
+
+		// then
+		verify(ratingService, times(2)).getByCode(SKU_1);
+		assertEquals(0, service.getHitCount());
+		assertEquals(2, service.getMissCount());
+	}
+
+	@Test
+	void testLeastRecentlyUsedEntryIsEvicted_WhenCacheIsFull() {
+		// given
+		doReturn(createRating(SKU_1)).when(ratingService).getByCode(SKU_1);
+		doReturn(createRating(SKU_2)).when(ratingService).getByCode(SKU_2);
+		doReturn(createRating(SKU_3)).when(ratingService).getByCode(SKU_3);
+		service.getByCode(SKU_1);
+		service.getByCode(SKU_2);
+		service.getByCode(SKU_1); // SKU_2 is now the least recently used
+
+		// when
+		service.getByCode(SKU_3);
+		service.getByCode(SKU_1);
+		service.getByCode(SKU_2);
+
+		// then
+		verify(ratingService, times(1)).getByCode(SKU_1);
+		verify(ratingService, times(2)).getByCode(SKU_2);
+		assertEquals(2, service.getEvictionCount());
+		assertEquals(MAX_SIZE, service.size());
+	}
+
+	@Test
+	void testNotFoundRatingIsNotCached() {
+		// given
+		doReturn(null).when(ratingService).getByCode(SKU_1);
+		service.getByCode(SKU_1);
+
+		// when
+		Rating rating = service.getByCode(SKU_1);
+
+		// then
+		assertNull(rating);
+		verify(ratingService, times(2)).getByCode(SKU_1);
+	}
+
+	@Test
+	void testCachedRatingCannotBeChangedByCaller() {
+		// given
+		doReturn(createRating(SKU_1)).when(ratingService).getByCode(SKU_1);
+		Rating first = service.getByCode(SKU_1);
+		first.setAggregated(999L);
+
+		// when
+		Rating second = service.getByCode(SKU_1);
+
+		// then
+		assertNotSame(first, second);
+		assertEquals(7L, second.getAggregated());
+	}
+
+	@Test
+	void testInvalidatedEntryIsLoadedAgain() {
+		// given
+		doReturn(createRating(SKU_1)).when(ratingService).getByCode(SKU_1);
+		service.getByCode(SKU_1);
+
+		// when
+		service.invalidate(SKU_1);
+		service.getByCode(SKU_1);
+
+		// then
+		verify(ratingService, times(2)).getByCode(SKU_1);
+	}
+
+	@Test
+	void testGetByCodesOnlyLoadsCodesThatAreNotCached() {
+		// given
+		doReturn(createRating(SKU_1)).when(ratingService).getByCode(SKU_1);
+		doReturn(Collections.singletonMap(SKU_2, createRating(SKU_2))).when(ratingService).getByCodes(List.of(SKU_2, SKU_3));
+		service.getByCode(SKU_1);
+
+		// when
+		Map<String, Rating> ratings = service.getByCodes(List.of(SKU_1, SKU_2, SKU_3, SKU_2));
+
+		// then
+		verify(ratingService, times(1)).getByCodes(List.of(SKU_2, SKU_3));
+		assertEquals(2, ratings.size());
+		assertEquals(SKU_1, ratings.get(SKU_1).getSku());
+		assertEquals(SKU_2, ratings.get(SKU_2).getSku());
+		assertEquals(1, service.getHitCount());
+		assertEquals(3, service.getMissCount());
+	}
+
+	@Test
+	void testInvalidSizeIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new CachingRatingService(ratingService, 0, TTL_MILLIS));
+	}
+
+	private Rating createRating(String code) {
+		Rating rating = new Rating();
+		rating.setSku(code);
+		rating.setAggregated(7L);
+		rating.setQuantity(2L);
+		rating.setNumberOfReviews(1L);
+		rating.setDate(3L);
+		rating.setVersion(2L);
+		return rating;
+	}
+}
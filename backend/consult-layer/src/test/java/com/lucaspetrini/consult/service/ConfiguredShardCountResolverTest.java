@@ -0,0 +1,50 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ConfiguredShardCountResolver}.
+ */
+class ConfiguredShardCountResolverTest {
+
+	@Test
+	void testListedCodesUseTheirOwnCountAndOthersUseDefault() {
+		// when
+		ConfiguredShardCountResolver resolver = new ConfiguredShardCountResolver(2, "sku1:8, sku2 : 16");
+
+		// then
+		assertEquals(8, resolver.getShardCount("sku1"));
+		assertEquals(16, resolver.getShardCount("sku2"));
+		assertEquals(2, resolver.getShardCount("sku3"));
+	}
+
+	@Test
+	void testEveryCodeUsesDefault_WhenListIsNull() {
+		// when
+		ConfiguredShardCountResolver resolver = new ConfiguredShardCountResolver(1, null);
+
+		// then
+		assertEquals(1, resolver.getShardCount("sku1"));
+	}
+
+	@Test
+	void testIllegalArgumentExceptionIsThrown_WhenPairIsInvalid() {
+		// then
+		assertThrows(IllegalArgumentException.class, () -> {
+			// when
+			new ConfiguredShardCountResolver(1, "sku1");
+		});
+	}
+
+	@Test
+	void testIllegalArgumentExceptionIsThrown_WhenCountIsLessThan1() {
+		// then
+		assertThrows(IllegalArgumentException.class, () -> {
+			// when
+			new ConfiguredShardCountResolver(1, "sku1:0");
+		});
+	}
+}
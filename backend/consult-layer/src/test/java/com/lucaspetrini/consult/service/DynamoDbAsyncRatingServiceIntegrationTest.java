@@ -0,0 +1,148 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+
+import com.lucaspetrini.consult.exception.DatabaseException;
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.utils.CompletableFutures;
+import com.lucaspetrini.consult.utils.DynamoDBExtension;
+import com.lucaspetrini.consult.utils.DynamoDbTestTables;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+/**
+ * Tests for {@link DynamoDbAsyncRatingService}.
+ */
+@ExtendWith(DynamoDBExtension.class)
+class DynamoDbAsyncRatingServiceIntegrationTest {
+	private static final String SKU_VALUE = "1321123";
+
+	private DynamoDbClient client;
+	private DynamoDbTable<Rating> ratingsTable;
+	private DynamoDbAsyncRatingService service;
+
+	@BeforeEach
+	public void setUp() {
+		client = DynamoDbTestTables.client();
+		DynamoDbTestTables.createRatingsTable(client);
+		ratingsTable = DynamoDbEnhancedClient.builder().dynamoDbClient(client).build()
+				.table(DynamoDbTestTables.TABLE_NAME_RATINGS, TableSchema.fromBean(Rating.class));
+		service = new DynamoDbAsyncRatingService(DynamoDbTestTables.asyncClient())
+				.withRatingsTable(DynamoDbTestTables.TABLE_NAME_RATINGS);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		DynamoDbTestTables.deleteTables(client);
+	}
+
+	@Test
+	void testGetByCodeReturnsLatestVersion() {
+		// given
+		putRating(SKU_VALUE, 1L, 5L);
+		putRating(SKU_VALUE, 2L, 9L);
+
+		// when
+		Rating rating = service.getByCode(SKU_VALUE).join();
+
+		// then
+		assertEquals(SKU_VALUE, rating.getSku());
+		assertEquals(2L, rating.getVersion());
+		assertEquals(9L, rating.getAggregated());
+	}
+
+	@Test
+	void testGetByCodeReturnsNullIfNoItemIsFound() {
+		// given table is empty
+
+		// when
+		Rating rating = service.getByCode("xyz").join();
+
+		// then
+		assertNull(rating);
+	}
+
+	@Test
+	void testGetByCodesReturnsRatingsMirroredByHeadItems_WhenMoreCodesThanBatchLimitAreRequested() {
+		// given
+		List<String> codes = new ArrayList<>();
+		for(int i = 0; i < DynamoDbRatingService.BATCH_GET_MAX_KEYS + 1; i++) {
+			Rating rating = createRating("sku" + i, (long) i + 1, 3L);
+			codes.add(rating.getSku());
+			ratingsTable.putItem(DynamoDbRatingService.toHeadItem(rating));
+		}
+		codes.add("xyz");
+
+		// when
+		Map<String, Rating> ratings = service.getByCodes(codes).join();
+
+		// then
+		assertEquals(codes.size() - 1, ratings.size());
+		assertEquals(7L, ratings.get("sku6").getVersion());
+	}
+
+	@Test
+	void testGetByCodesReturnsLatestVersions_WhenCodesHaveNoHeadItem() {
+		// given
+		putRating(SKU_VALUE, 1L, 5L);
+		putRating(SKU_VALUE, 2L, 9L);
+		putRating("sku1", 1L, 3L);
+		ratingsTable.putItem(DynamoDbRatingService.toHeadItem(createRating("sku2", 4L, 7L)));
+
+		// when
+		Map<String, Rating> ratings = service.getByCodes(List.of(SKU_VALUE, "sku1", "sku2", "xyz")).join();
+
+		// then
+		assertEquals(3, ratings.size());
+		assertEquals(SKU_VALUE, ratings.get(SKU_VALUE).getSku());
+		assertEquals(2L, ratings.get(SKU_VALUE).getVersion());
+		assertEquals(9L, ratings.get(SKU_VALUE).getAggregated());
+		assertEquals(1L, ratings.get("sku1").getVersion());
+		assertEquals(4L, ratings.get("sku2").getVersion());
+	}
+
+	@Test
+	void testDatabaseExceptionIsThrownOnQueryException() {
+		// given
+		DynamoDbAsyncClient mockClient = Mockito.mock(DynamoDbAsyncClient.class);
+		service = new DynamoDbAsyncRatingService(mockClient).withRatingsTable(DynamoDbTestTables.TABLE_NAME_RATINGS);
+		// no need to stub, a mock returns null futures which fail when composed
+
+		// then
+		assertThrows(DatabaseException.class, () -> {
+			// when
+			CompletableFutures.join(service.getByCodes(List.of(SKU_VALUE)));
+		});
+	}
+
+	private void putRating(String sku, Long version, Long aggregated) {
+		ratingsTable.putItem(createRating(sku, version, aggregated));
+	}
+
+	private Rating createRating(String sku, Long version, Long aggregated) {
+		Rating rating = new Rating();
+		rating.setSku(sku);
+		rating.setVersion(version);
+		rating.setAggregated(aggregated);
+		rating.setDate(1L);
+		rating.setQuantity(1L);
+		rating.setNumberOfReviews(0L);
+		return rating;
+	}
+}
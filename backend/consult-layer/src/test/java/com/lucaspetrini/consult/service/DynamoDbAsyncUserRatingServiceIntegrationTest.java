@@ -0,0 +1,198 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+
+import com.lucaspetrini.consult.exception.ConflictException;
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.utils.CompletableFutures;
+import com.lucaspetrini.consult.utils.DynamoDBExtension;
+import com.lucaspetrini.consult.utils.DynamoDbTestTables;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+/**
+ * Tests for {@link DynamoDbAsyncUserRatingService}. Items written must be the same as
+ * {@link DynamoDbUserRatingService}'s.
+ */
+@ExtendWith(DynamoDBExtension.class)
+class DynamoDbAsyncUserRatingServiceIntegrationTest {
+	private static final String SKU_VALUE = "1321123";
+	private static final String USER_VALUE = "122151";
+
+	private DynamoDbClient client;
+	private DynamoDbTable<UserRating> userRatingsTable;
+	private DynamoDbTable<Rating> ratingsTable;
+	private DynamoDbAsyncUserRatingService service;
+
+	@BeforeEach
+	public void setUp() {
+		client = DynamoDbTestTables.client();
+		DynamoDbTestTables.createRatingsTable(client);
+		DynamoDbTestTables.createUserRatingsTable(client);
+		DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(client).build();
+		userRatingsTable = enhancedClient.table(DynamoDbTestTables.TABLE_NAME_USER_RATINGS, TableSchema.fromBean(UserRating.class));
+		ratingsTable = enhancedClient.table(DynamoDbTestTables.TABLE_NAME_RATINGS, TableSchema.fromBean(Rating.class));
+		service = new DynamoDbAsyncUserRatingService(DynamoDbTestTables.asyncClient())
+				.withUserRatingsTable(DynamoDbTestTables.TABLE_NAME_USER_RATINGS)
+				.withRatingsTable(DynamoDbTestTables.TABLE_NAME_RATINGS);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		DynamoDbTestTables.deleteTables(client);
+	}
+
+	@Test
+	void testPutCreatesCurrentUserRatingAndRatingVersions_WhenUserRatingIsNew() {
+		// given
+		UserRating userRating = createUserRating(7L, "Good");
+
+		// when
+		UserRating result = service.put(userRating).join();
+
+		// then
+		assertEquals(USER_VALUE, result.getUser());
+		assertEquals(1L, result.getVersion());
+		UserRating current = userRatingsTable.getItem(Key.builder().partitionValue(SKU_VALUE).sortValue("v0-" + USER_VALUE).build());
+		assertEquals(7L, current.getRating());
+		Rating rating = ratingsTable.getItem(Key.builder().partitionValue(SKU_VALUE).sortValue(1L).build());
+		assertEquals(7L, rating.getAggregated());
+		assertEquals(1L, rating.getQuantity());
+		assertEquals(1L, rating.getNumberOfReviews());
+		Rating head = ratingsTable.getItem(Key.builder().partitionValue(SKU_VALUE).sortValue(DynamoDbRatingService.HEAD_VERSION).build());
+		assertEquals(1L, head.getLatestVersion());
+	}
+
+	@Test
+	void testPutKeepsPreviousVersionAndUpdatesRating_WhenUserRatingExists() {
+		// given
+		service.put(createUserRating(7L, "Good")).join();
+
+		// when
+		UserRating result = service.put(createUserRating(3L, null)).join();
+
+		// then
+		assertEquals(2L, result.getVersion());
+		UserRating previous = userRatingsTable.getItem(Key.builder().partitionValue(SKU_VALUE).sortValue("v1-" + USER_VALUE).build());
+		assertEquals(7L, previous.getRating());
+		Rating rating = ratingsTable.getItem(Key.builder().partitionValue(SKU_VALUE).sortValue(2L).build());
+		assertEquals(3L, rating.getAggregated());
+		assertEquals(1L, rating.getQuantity());
+		assertEquals(0L, rating.getNumberOfReviews());
+		UserRating current = service.getByUserIdAndCode(USER_VALUE, SKU_VALUE).join();
+		assertEquals(USER_VALUE, current.getUser());
+		assertEquals(3L, current.getRating());
+	}
+
+	@Test
+	void testPutRereadsStaleUserRatingAndRetries_WhenTransactionIsCancelled() {
+		// given
+		service.put(createUserRating(7L, "Good")).join();
+		DynamoDbAsyncUserRatingService spyService = Mockito.spy(service);
+		doReturn(CompletableFuture.completedFuture(null)).doCallRealMethod().when(spyService).getItem(any(), any());
+
+		// when
+		UserRating result = spyService.put(createUserRating(3L, null)).join();
+
+		// then
+		assertEquals(2L, result.getVersion());
+		Rating rating = ratingsTable.getItem(Key.builder().partitionValue(SKU_VALUE).sortValue(2L).build());
+		assertEquals(1L, rating.getQuantity());
+		assertEquals(3L, rating.getAggregated());
+		assertEquals(1, spyService.getRetryMetrics().getConditionalCheckFailures());
+	}
+
+	@Test
+	void testPutFailsWithConflictException_WhenRetriesAreExhausted() {
+		// given
+		service.put(createUserRating(7L, "Good")).join();
+		DynamoDbAsyncUserRatingService spyService = Mockito.spy(service.withRetryPolicy(new TransactionRetryPolicy(1,
+				TransactionRetryPolicy.DEFAULT_BUDGET_MILLIS, TransactionRetryPolicy.DEFAULT_BASE_DELAY_MILLIS,
+				TransactionRetryPolicy.DEFAULT_MAX_DELAY_MILLIS)));
+		doReturn(CompletableFuture.completedFuture(null)).when(spyService).getItem(any(), any());
+
+		// then
+		assertThrows(ConflictException.class, () -> {
+			// when
+			CompletableFutures.join(spyService.put(createUserRating(3L, null)));
+		});
+		assertEquals(1, spyService.getRetryMetrics().getFailedWrites());
+	}
+
+	@Test
+	void testConcurrentPutsOnSameSkuAreAllCounted() {
+		// given
+		int users = 8;
+		service.withRetryPolicy(new TransactionRetryPolicy(50, 10000, TransactionRetryPolicy.DEFAULT_BASE_DELAY_MILLIS,
+				TransactionRetryPolicy.DEFAULT_MAX_DELAY_MILLIS));
+		List<CompletableFuture<UserRating>> puts = new ArrayList<>(users);
+
+		// when
+		for(int i = 0; i < users; i++) {
+			UserRating userRating = createUserRating(2L, null);
+			userRating.setUser(USER_VALUE + i);
+			puts.add(service.put(userRating));
+		}
+		CompletableFuture.allOf(puts.toArray(new CompletableFuture[0])).join();
+
+		// then
+		Rating head = ratingsTable.getItem(Key.builder().partitionValue(SKU_VALUE).sortValue(DynamoDbRatingService.HEAD_VERSION).build());
+		assertEquals((long) users, head.getQuantity());
+		assertEquals(2L * users, head.getAggregated());
+		assertEquals((long) users, head.getLatestVersion());
+		assertEquals(users, service.getRetryMetrics().getWrites());
+	}
+
+	@Test
+	void testWithWriteModeThrowsIllegalArgumentException_WhenWriteModeIsNotVersioned() {
+		for(RatingWriteMode writeMode : RatingWriteMode.values()) {
+			if(writeMode == RatingWriteMode.VERSIONED)
+				continue;
+			// then
+			assertThrows(IllegalArgumentException.class, () -> {
+				// when
+				service.withWriteMode(writeMode);
+			}, writeMode.name());
+		}
+	}
+
+	@Test
+	void testGetByUserIdAndCodeReturnsNullIfNoItemIsFound() {
+		// given tables are empty
+
+		// when
+		UserRating userRating = service.getByUserIdAndCode(USER_VALUE, SKU_VALUE).join();
+
+		// then
+		assertNull(userRating);
+	}
+
+	private UserRating createUserRating(Long rating, String review) {
+		UserRating userRating = new UserRating();
+		userRating.setSku(SKU_VALUE);
+		userRating.setUser(USER_VALUE);
+		userRating.setRating(rating);
+		userRating.setReview(review);
+		userRating.setDate(5L);
+		return userRating;
+	}
+}
@@ -8,6 +8,7 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
@@ -35,6 +36,7 @@ import software.amazon.awssdk.services.dynamodb.model.ListTablesResponse;
 import software.amazon.awssdk.services.dynamodb.model.LocalSecondaryIndex;
 import software.amazon.awssdk.services.dynamodb.model.Projection;
 import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.PutRequest;
 import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 
@@ -66,6 +68,7 @@ class DynamoDbRatingServiceIntegrationTest {
 	private static final String RATING_NUMBER_OF_REVIEWS = "numberOfReviews";
 	private static final String RATING_AGGREGATED = "aggregated";
 	private static final String RATING_VERSION = "version";
+	private static final String RATING_LATEST_VERSION = "latestVersion";
 	private static final String LSI_DATE = "LSIDate";
 
 	private DynamoDbClient client;
@@ -110,6 +113,40 @@ class DynamoDbRatingServiceIntegrationTest {
 		assertEquals(VERSION_VALUE_3, rating.getVersion());
 	}
 
+	@Test
+	void testGetRatingReturnsRatingMirroredByHeadItem_WhenHeadItemExists() {
+		// given
+		putHeadItem(SKU_VALUE, DATE_VALUE_3, QUANTITY_VALUE_3 + 1, AGGREGATED_VALUE_3 + 5, NUMBER_OF_REVIEWS_VALUE_3, VERSION_VALUE_3 + 1);
+
+		// when
+		Rating rating = service.getByCode(SKU_VALUE);
+
+		// then
+		assertEquals(QUANTITY_VALUE_3 + 1, rating.getQuantity());
+		assertEquals(AGGREGATED_VALUE_3 + 5, rating.getAggregated());
+		assertEquals(VERSION_VALUE_3 + 1, rating.getVersion());
+	}
+
+	@Test
+	void testGetRatingSumsHeadAndShardItems_WhenCodeIsSharded() {
+		// given
+		service.withShardCountResolver(code -> 3);
+		putHeadItem(SKU_VALUE, DATE_VALUE_1, QUANTITY_VALUE_1, AGGREGATED_VALUE_1, NUMBER_OF_REVIEWS_VALUE_1, VERSION_VALUE_1);
+		putHeadItem(SKU_VALUE + "#0", DATE_VALUE_2, QUANTITY_VALUE_2, AGGREGATED_VALUE_2, NUMBER_OF_REVIEWS_VALUE_2, VERSION_VALUE_2);
+		putHeadItem(SKU_VALUE + "#2", DATE_VALUE_3, QUANTITY_VALUE_3, AGGREGATED_VALUE_3, NUMBER_OF_REVIEWS_VALUE_3, VERSION_VALUE_3);
+
+		// when
+		Rating rating = service.getByCode(SKU_VALUE);
+
+		// then
+		assertEquals(SKU_VALUE, rating.getSku());
+		assertEquals(QUANTITY_VALUE_1 + QUANTITY_VALUE_2 + QUANTITY_VALUE_3, rating.getQuantity());
+		assertEquals(AGGREGATED_VALUE_1 + AGGREGATED_VALUE_2 + AGGREGATED_VALUE_3, rating.getAggregated());
+		assertEquals(NUMBER_OF_REVIEWS_VALUE_1 + NUMBER_OF_REVIEWS_VALUE_2 + NUMBER_OF_REVIEWS_VALUE_3, rating.getNumberOfReviews());
+		assertEquals(DATE_VALUE_3, rating.getDate());
+		assertEquals(VERSION_VALUE_1 + VERSION_VALUE_2 + VERSION_VALUE_3, rating.getVersion());
+	}
+
 	@Test
 	void testGetItemReturnsSpecificItemFromTable() throws InterruptedException, ExecutionException {
 		// given
@@ -153,6 +190,76 @@ class DynamoDbRatingServiceIntegrationTest {
 		assertNull(rating);
 	}
 
+	@Test
+	void testGetByCodesReturnsRatingsMirroredByHeadItems() {
+		// given
+		putHeadItem(SKU_VALUE, DATE_VALUE_3, QUANTITY_VALUE_3, AGGREGATED_VALUE_3, NUMBER_OF_REVIEWS_VALUE_3, VERSION_VALUE_3);
+
+		// when
+		Map<String, Rating> ratings = service.getByCodes(List.of(SKU_VALUE, "xyz"));
+
+		// then
+		assertEquals(1, ratings.size());
+		Rating rating = ratings.get(SKU_VALUE);
+		assertEquals(SKU_VALUE, rating.getSku());
+		assertEquals(DATE_VALUE_3, rating.getDate());
+		assertEquals(AGGREGATED_VALUE_3, rating.getAggregated());
+		assertEquals(QUANTITY_VALUE_3, rating.getQuantity());
+		assertEquals(NUMBER_OF_REVIEWS_VALUE_3, rating.getNumberOfReviews());
+		assertEquals(VERSION_VALUE_3, rating.getVersion());
+	}
+
+	@Test
+	void testGetByCodesReturnsEveryRating_WhenMoreCodesThanBatchLimitAreRequested() {
+		// given
+		List<String> codes = new ArrayList<>();
+		for(int i = 0; i < DynamoDbRatingService.BATCH_GET_MAX_KEYS * 2 + 1; i++) {
+			String code = "sku" + i;
+			codes.add(code);
+			putHeadItem(code, DATE_VALUE_1, QUANTITY_VALUE_1, AGGREGATED_VALUE_1, NUMBER_OF_REVIEWS_VALUE_1, (long) i + 1);
+		}
+
+		// when
+		Map<String, Rating> ratings = service.getByCodes(codes);
+
+		// then
+		assertEquals(codes.size(), ratings.size());
+		assertEquals(7L, ratings.get("sku6").getVersion());
+	}
+
+	@Test
+	void testGetByCodesReturnsLatestVersions_WhenCodesHaveNoHeadItem() {
+		// given table is populated with versions of SKU_VALUE only, and other codes have head items
+		putHeadItem("sku1", DATE_VALUE_1, QUANTITY_VALUE_1, AGGREGATED_VALUE_1, NUMBER_OF_REVIEWS_VALUE_1, VERSION_VALUE_1);
+		client.putItem(PutItemRequest.builder().tableName(TABLE_NAME_RATINGS).item(createRatingPutRequest("sku2", DATE_VALUE_2,
+				QUANTITY_VALUE_2, AGGREGATED_VALUE_2, NUMBER_OF_REVIEWS_VALUE_2, VERSION_VALUE_2).putRequest().item()).build());
+
+		// when
+		Map<String, Rating> ratings = service.getByCodes(List.of(SKU_VALUE, "sku1", "sku2", "xyz"));
+
+		// then
+		assertEquals(3, ratings.size());
+		Rating rating = ratings.get(SKU_VALUE);
+		assertEquals(SKU_VALUE, rating.getSku());
+		assertEquals(DATE_VALUE_3, rating.getDate());
+		assertEquals(AGGREGATED_VALUE_3, rating.getAggregated());
+		assertEquals(QUANTITY_VALUE_3, rating.getQuantity());
+		assertEquals(NUMBER_OF_REVIEWS_VALUE_3, rating.getNumberOfReviews());
+		assertEquals(VERSION_VALUE_3, rating.getVersion());
+		assertEquals(service.getByCode(SKU_VALUE).getVersion(), rating.getVersion());
+		assertEquals(VERSION_VALUE_1, ratings.get("sku1").getVersion());
+		assertEquals(VERSION_VALUE_2, ratings.get("sku2").getVersion());
+		assertEquals(AGGREGATED_VALUE_2, ratings.get("sku2").getAggregated());
+	}
+
+	private void putHeadItem(String skuValue, Long dateValue, Long quantity, Long aggregated, Long numberOfReviews,
+			Long latestVersion) {
+		Map<String, AttributeValue> item = new HashMap<>(createRatingPutRequest(skuValue, dateValue, quantity, aggregated,
+				numberOfReviews, DynamoDbRatingService.HEAD_VERSION).putRequest().item());
+		item.put(RATING_LATEST_VERSION, AttributeValue.fromN(String.valueOf(latestVersion)));
+		client.putItem(PutItemRequest.builder().tableName(TABLE_NAME_RATINGS).item(item).build());
+	}
+
 	private void createTableRatings() throws InterruptedException, ExecutionException {
 		client.createTable(CreateTableRequest.builder().tableName(TABLE_NAME_RATINGS)
 				.attributeDefinitions(
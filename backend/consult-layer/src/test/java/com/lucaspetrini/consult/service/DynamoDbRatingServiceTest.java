@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -67,6 +69,42 @@ class DynamoDbRatingServiceTest {
 		assertNull(newRating);
 	}
 
+	@Test
+	void testPartitionKeysIncludeHeadAndShardItemsOfShardedCodesOnly() {
+		// given
+		ShardCountResolver resolver = code -> SKU.equals(code) ? 3 : 1;
+
+		// when
+		List<String> partitionKeys = DynamoDbRatingService.toPartitionKeys(List.of(SKU, "other", SKU), resolver);
+
+		// then
+		assertEquals(List.of(SKU, SKU + "#0", SKU + "#1", SKU + "#2", "other"), partitionKeys);
+	}
+
+	@Test
+	void testCombineShardsSumsTotalsAndKeepsMostRecentDate() {
+		// given
+		ShardCountResolver resolver = code -> 2;
+		Rating head = createRating(SKU, DATE, QUANTITY, AGGREGATED, DynamoDbRatingService.HEAD_VERSION);
+		head.setLatestVersion(VERSION);
+		Rating shard = createRating(SKU + "#1", DATE + 1, 1L, 5L, DynamoDbRatingService.HEAD_VERSION);
+		shard.setLatestVersion(1L);
+		Map<String, Rating> heads = Map.of(SKU, head, SKU + "#1", shard);
+
+		// when
+		Map<String, Rating> ratings = DynamoDbRatingService.combineShards(List.of(SKU, "other"), heads, resolver);
+
+		// then
+		assertEquals(1, ratings.size());
+		Rating rating = ratings.get(SKU);
+		assertEquals(SKU, rating.getSku());
+		assertEquals(QUANTITY + 1, rating.getQuantity());
+		assertEquals(AGGREGATED + 5, rating.getAggregated());
+		assertEquals(DATE + 1, rating.getDate());
+		assertEquals(VERSION + 1, rating.getVersion());
+		assertNull(rating.getLatestVersion());
+	}
+
 	private Rating createRating(String code, Long date, Long quantity, Long aggregated, Long version) {
 		Rating rating = new Rating();
 		rating.setDate(date);
@@ -0,0 +1,282 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.lucaspetrini.consult.exception.ServiceException;
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.utils.DynamoDBExtension;
+import com.lucaspetrini.consult.utils.DynamoDbTestTables;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+
+/**
+ * Drives concurrent {@link DynamoDbUserRatingService#put(UserRating)} and
+ * {@link DynamoDbRatingService#getByCode(String)} calls against DynamoDB Local, with SKUs picked from a
+ * Zipf distribution so a few hot SKUs take most of the writes. Reports throughput, latency histograms
+ * and how many transactions were cancelled, then checks that the totals of every SKU match a
+ * recomputation from its current ('v0-') user ratings.<br>
+ * Only runs with {@code -Dconsult.loadtest=true}. {@code consult.loadtest.threads},
+ * {@code consult.loadtest.operations}, {@code consult.loadtest.users}, {@code consult.loadtest.skus},
+ * {@code consult.loadtest.zipfExponent}, {@code consult.loadtest.readRatio},
+ * {@code consult.loadtest.writeMode} and {@code consult.loadtest.shards} change the load.
+ * {@link RatingWriteMode#DEFERRED Deferred mode} isn't supported, since its totals are only written by
+ * {@link RatingAggregator}.
+ */
+@EnabledIfSystemProperty(named = "consult.loadtest", matches = "true")
+@ExtendWith(DynamoDBExtension.class)
+class DynamoDbUserRatingServiceContentionLoadTest {
+	private static final int THREADS = Integer.getInteger("consult.loadtest.threads", 16);
+	private static final int OPERATIONS = Integer.getInteger("consult.loadtest.operations", 5000);
+	private static final int USERS = Integer.getInteger("consult.loadtest.users", 1000);
+	private static final int SKUS = Integer.getInteger("consult.loadtest.skus", 50);
+	private static final double ZIPF_EXPONENT = Double.parseDouble(System.getProperty("consult.loadtest.zipfExponent", "1.2"));
+	private static final double READ_RATIO = Double.parseDouble(System.getProperty("consult.loadtest.readRatio", "0.2"));
+	private static final RatingWriteMode WRITE_MODE = RatingWriteMode.valueOf(System.getProperty("consult.loadtest.writeMode", RatingWriteMode.VERSIONED.name()));
+	private static final int SHARDS = Integer.getInteger("consult.loadtest.shards", 4);
+	private static final String SKU_PREFIX = "sku";
+	private static final String VERSION_PREFIX = UserRatingWrite.VERSION_PREFIX;
+
+	private DynamoDbClient client;
+	private DynamoDbUserRatingService userRatingService;
+	private DynamoDbRatingService ratingService;
+
+	@BeforeEach
+	public void setUp() {
+		assumeTrue(WRITE_MODE != RatingWriteMode.DEFERRED, "deferred totals are written by RatingAggregator, not by put");
+		client = DynamoDbTestTables.client();
+		DynamoDbTestTables.createRatingsTable(client);
+		DynamoDbTestTables.createUserRatingsTable(client);
+		ShardCountResolver shardCountResolver = WRITE_MODE == RatingWriteMode.SHARDED ? code -> SHARDS : ShardCountResolver.unsharded();
+		userRatingService = new DynamoDbUserRatingService(client)
+				.withUserRatingsTable(DynamoDbTestTables.TABLE_NAME_USER_RATINGS)
+				.withRatingsTable(DynamoDbTestTables.TABLE_NAME_RATINGS)
+				.withShardCountResolver(shardCountResolver)
+				.withWriteMode(WRITE_MODE);
+		ratingService = new DynamoDbRatingService(client)
+				.withRatingsTable(DynamoDbTestTables.TABLE_NAME_RATINGS)
+				.withShardCountResolver(shardCountResolver);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		if(client != null)
+			DynamoDbTestTables.deleteTables(client);
+	}
+
+	@Test
+	void loadTestHotSkuWrites_TotalsMatchUserRatings() throws Exception {
+		// given
+		ZipfSampler skus = new ZipfSampler(SKUS, ZIPF_EXPONENT);
+		AtomicInteger remaining = new AtomicInteger(OPERATIONS);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<Worker>> futures = new ArrayList<>();
+
+		// when
+		long start = System.nanoTime();
+		try {
+			for(int i = 0; i < THREADS; i++) {
+				Worker worker = new Worker(skus, remaining);
+				futures.add(executor.submit(worker::call));
+			}
+			Latencies puts = new Latencies();
+			Latencies failedPuts = new Latencies();
+			Latencies reads = new Latencies();
+			for(Future<Worker> future : futures) {
+				Worker worker = future.get();
+				puts.addAll(worker.puts);
+				failedPuts.addAll(worker.failedPuts);
+				reads.addAll(worker.reads);
+			}
+			long elapsedNanos = System.nanoTime() - start;
+
+			// then
+			report(elapsedNanos, puts, failedPuts, reads);
+			assertTrue(puts.size() > 0);
+			for(int i = 0; i < SKUS; i++)
+				assertTotalsMatchUserRatings(SKU_PREFIX + i);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void assertTotalsMatchUserRatings(String sku) {
+		long aggregated = 0;
+		long quantity = 0;
+		long numberOfReviews = 0;
+		QueryRequest request = QueryRequest.builder().tableName(DynamoDbTestTables.TABLE_NAME_USER_RATINGS)
+				.keyConditionExpression("sku = :sku AND begins_with(#user, :prefix)")
+				.expressionAttributeNames(Map.of("#user", "user"))
+				.expressionAttributeValues(Map.of(":sku", AttributeValue.fromS(sku), ":prefix", AttributeValue.fromS(VERSION_PREFIX)))
+				.consistentRead(true)
+				.build();
+		for(Map<String, AttributeValue> item : client.queryPaginator(request).items()) {
+			aggregated += Long.parseLong(item.get("rating").n());
+			quantity++;
+			AttributeValue review = item.get("review");
+			if(review != null && review.s() != null && !review.s().isBlank())
+				numberOfReviews++;
+		}
+		if(quantity == 0)
+			return;
+		Rating rating = ratingService.getByCode(sku);
+		assertNotNull(rating, sku);
+		assertEquals(aggregated, rating.getAggregated(), sku + " aggregated");
+		assertEquals(quantity, rating.getQuantity(), sku + " quantity");
+		assertEquals(numberOfReviews, rating.getNumberOfReviews() == null ? 0 : rating.getNumberOfReviews(), sku + " numberOfReviews");
+	}
+
+	private void report(long elapsedNanos, Latencies puts, Latencies failedPuts, Latencies reads) {
+		TransactionRetryMetrics metrics = userRatingService.getRetryMetrics();
+		long cancellations = metrics.getConditionalCheckFailures() + metrics.getTransactionConflicts() + metrics.getThrottles();
+		double seconds = elapsedNanos / 1e9;
+		System.out.printf("%s mode, %d threads, %d users, %d SKUs, Zipf exponent %.2f: %d operations in %.2f s (%.0f ops/s)%n",
+				WRITE_MODE, THREADS, USERS, SKUS, ZIPF_EXPONENT, OPERATIONS, seconds, OPERATIONS / seconds);
+		System.out.printf("put: %d succeeded (%.0f/s), %d failed; %d attempts, %.2f per put, at most %d%n",
+				puts.size(), puts.size() / seconds, failedPuts.size(), metrics.getAttempts(), metrics.getAttemptsPerWrite(),
+				metrics.getMaxAttemptsPerWrite());
+		System.out.printf("transactions cancelled: %d of %d attempts (%.1f%%): %d condition checks, %d conflicts, %d throttles%n",
+				cancellations, metrics.getAttempts(), metrics.getAttempts() == 0 ? 0 : 100.0 * cancellations / metrics.getAttempts(),
+				metrics.getConditionalCheckFailures(), metrics.getTransactionConflicts(), metrics.getThrottles());
+		puts.report("put");
+		failedPuts.report("failed put");
+		reads.report("getByCode");
+	}
+
+	/**
+	 * Runs operations until the shared budget is spent, recording the latency of each one.
+	 */
+	private class Worker {
+		private final ZipfSampler skus;
+		private final AtomicInteger remaining;
+		private final Latencies puts = new Latencies();
+		private final Latencies failedPuts = new Latencies();
+		private final Latencies reads = new Latencies();
+
+		private Worker(ZipfSampler skus, AtomicInteger remaining) {
+			this.skus = skus;
+			this.remaining = remaining;
+		}
+
+		private Worker call() {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			while(remaining.getAndDecrement() > 0) {
+				String sku = SKU_PREFIX + skus.next(random);
+				long start = System.nanoTime();
+				if(random.nextDouble() < READ_RATIO) {
+					ratingService.getByCode(sku);
+					reads.add(System.nanoTime() - start);
+					continue;
+				}
+				UserRating userRating = new UserRating();
+				userRating.setSku(sku);
+				userRating.setUser("user" + random.nextInt(USERS));
+				userRating.setRating((long) random.nextInt(1, 6));
+				userRating.setDate(System.currentTimeMillis());
+				// a third of the ratings have no review, so puts both add and remove reviews
+				if(random.nextInt(3) > 0)
+					userRating.setReview("review " + random.nextInt(1000));
+				try {
+					userRatingService.put(userRating);
+					puts.add(System.nanoTime() - start);
+				} catch (ServiceException e) {
+					failedPuts.add(System.nanoTime() - start);
+				}
+			}
+			return this;
+		}
+	}
+
+	/**
+	 * Picks ranks 0 to n - 1 with a probability proportional to 1 / (rank + 1)^exponent.
+	 */
+	private static class ZipfSampler {
+		private final double[] cumulative;
+
+		private ZipfSampler(int n, double exponent) {
+			cumulative = new double[n];
+			double sum = 0;
+			for(int i = 0; i < n; i++) {
+				sum += 1 / Math.pow(i + 1, exponent);
+				cumulative[i] = sum;
+			}
+			for(int i = 0; i < n; i++)
+				cumulative[i] /= sum;
+		}
+
+		private int next(ThreadLocalRandom random) {
+			int index = Arrays.binarySearch(cumulative, random.nextDouble());
+			return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+		}
+	}
+
+	/**
+	 * Latencies of one kind of operation, reported as percentiles and as a histogram with power of two
+	 * millisecond buckets.
+	 */
+	private static class Latencies {
+		private long[] values = new long[256];
+		private int size;
+
+		private void add(long nanos) {
+			if(size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = nanos;
+		}
+
+		private void addAll(Latencies other) {
+			for(int i = 0; i < other.size; i++)
+				add(other.values[i]);
+		}
+
+		private int size() {
+			return size;
+		}
+
+		private void report(String name) {
+			if(size == 0)
+				return;
+			long[] sorted = Arrays.copyOf(values, size);
+			Arrays.sort(sorted);
+			System.out.printf("%s latency (%d): p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n", name, size,
+					percentile(sorted, 50) / 1e6, percentile(sorted, 90) / 1e6, percentile(sorted, 99) / 1e6,
+					sorted[size - 1] / 1e6);
+			int index = 0;
+			for(long bucketMillis = 1; index < size; bucketMillis *= 2) {
+				long limit = bucketMillis * 1_000_000;
+				int count = 0;
+				while(index < size && sorted[index] < limit) {
+					index++;
+					count++;
+				}
+				if(count > 0)
+					System.out.printf("  < %5d ms: %6d (%.1f%%)%n", bucketMillis, count, 100.0 * count / size);
+			}
+		}
+
+		private static long percentile(long[] sorted, int percentile) {
+			return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+		}
+	}
+}
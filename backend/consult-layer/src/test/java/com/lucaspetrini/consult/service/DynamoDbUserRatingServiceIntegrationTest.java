@@ -1,10 +1,17 @@
 package com.lucaspetrini.consult.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.net.URI;
 import java.util.ArrayList;
@@ -20,9 +27,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.lucaspetrini.consult.exception.ConflictException;
 import com.lucaspetrini.consult.exception.DatabaseException;
+import com.lucaspetrini.consult.exception.InvalidParameterException;
+import com.lucaspetrini.consult.service.model.Rating;
 import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.service.model.UserRatingPage;
 import com.lucaspetrini.consult.utils.DynamoDBExtension;
+import com.lucaspetrini.consult.utils.DynamoDbTestTables;
 
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
@@ -41,6 +53,7 @@ import software.amazon.awssdk.services.dynamodb.model.LocalSecondaryIndex;
 import software.amazon.awssdk.services.dynamodb.model.Projection;
 import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
 import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
 import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 
 /**
@@ -132,6 +145,7 @@ class DynamoDbUserRatingServiceIntegrationTest {
 	private static final String RATING_AGGREGATED = "aggregated";
 	private static final String RATING_NUMBER_OF_REVIEWS = "numberOfReviews";
 	private static final String RATING_VERSION = "version";
+	private static final String RATING_LATEST_VERSION = "latestVersion";
 	private static final String LSI_DATE = "LSIDate";
 
 	private DynamoDbClient client;
@@ -229,6 +243,100 @@ class DynamoDbUserRatingServiceIntegrationTest {
 		assertNull(rating);
 	}
 
+	@Test
+	void testGetVersionReturnsLatestVersionFromTable() {
+		// given table is populated with the initial static data
+
+		// when
+		Long version = service.getVersionByUserIdAndCode(USER_VALUE_NO_VERSION, SKU_VALUE);
+
+		// then
+		assertEquals(VERSION_VALUE_3, version);
+	}
+
+	@Test
+	void testGetVersionReturnsNullIfNoItemIsFound() {
+		// given table is populated with the initial static data
+
+		// when
+		Long version = service.getVersionByUserIdAndCode("xyz", "3");
+
+		// then
+		assertNull(version);
+	}
+
+	@Test
+	void testGetReviewsPagesThroughCurrentUserRatingsOnly() {
+		// given
+		Map<String, Collection<WriteRequest>> requestItems = new HashMap<>();
+		Collection<WriteRequest> items = new ArrayList<>(3);
+		items.add(createUserRatingPutRequest(SKU_VALUE, "v0-" + USER2_VALUE_NO_VERSION, RATING_VALUE_1, DATE_VALUE_1,
+				REVIEW_VALUE_1, VERSION_VALUE_1));
+		items.add(createUserRatingPutRequest(SKU_VALUE, "v1-" + USER3_VALUE_NO_VERSION, RATING_VALUE_1, DATE_VALUE_1,
+				REVIEW_VALUE_1, VERSION_VALUE_1));
+		items.add(createUserRatingPutRequest(SKU_VALUE, "v0-" + USER3_VALUE_NO_VERSION, RATING_VALUE_2, DATE_VALUE_2,
+				REVIEW_VALUE_2, VERSION_VALUE_2));
+		requestItems.put(TABLE_NAME_USER_RATINGS, items);
+		client.batchWriteItem(BatchWriteItemRequest.builder().requestItems(requestItems).build());
+
+		// when
+		UserRatingPage first = service.getReviewsByCode(SKU_VALUE, 2, null);
+		UserRatingPage second = service.getReviewsByCode(SKU_VALUE, 2, first.getCursor());
+
+		// then
+		assertEquals(2, first.getUserRatings().size());
+		assertEquals(USER_VALUE_NO_VERSION, first.getUserRatings().get(0).getUser());
+		assertEquals(SKU_VALUE, first.getUserRatings().get(0).getSku());
+		assertEquals(RATING_VALUE_3, first.getUserRatings().get(0).getRating());
+		assertEquals(DATE_VALUE_3, first.getUserRatings().get(0).getDate());
+		assertEquals(REVIEW_VALUE_3, first.getUserRatings().get(0).getReview());
+		assertEquals(VERSION_VALUE_3, first.getUserRatings().get(0).getVersion());
+		assertEquals(USER3_VALUE_NO_VERSION, first.getUserRatings().get(1).getUser());
+		assertEquals(VERSION_VALUE_2, first.getUserRatings().get(1).getVersion());
+		assertNotNull(first.getCursor());
+		assertEquals(1, second.getUserRatings().size());
+		assertEquals(USER2_VALUE_NO_VERSION, second.getUserRatings().get(0).getUser());
+		assertNull(second.getCursor());
+	}
+
+	@Test
+	void testGetReviewsReturnsEmptyPageIfCodeHasNoReviews() {
+		// given table is populated with the initial static data
+
+		// when
+		UserRatingPage page = service.getReviewsByCode(SKU2_VALUE, 20, null);
+
+		// then
+		assertTrue(page.getUserRatings().isEmpty());
+		assertNull(page.getCursor());
+	}
+
+	@Test
+	void testInvalidParameterExceptionIsThrownOnInvalidReviewsCursor() {
+		// given
+		String cursor = "not a cursor!";
+
+		// then
+		assertThrows(InvalidParameterException.class, () -> {
+			// when
+			service.getReviewsByCode(SKU_VALUE, 20, cursor);
+		});
+	}
+
+	@Test
+	void testDatabaseExceptionIsThrownOnReviewsQueryException() {
+		// given
+		DynamoDbClient mockClient = Mockito.mock(DynamoDbClient.class);
+		service = new DynamoDbUserRatingService(mockClient).withUserRatingsTable(TABLE_NAME_USER_RATINGS);
+		doThrow(new RuntimeException()).when(mockClient).query(Mockito.<QueryRequest>any());
+
+		// then
+		assertThrows(DatabaseException.class, () -> {
+			// when
+			service.getReviewsByCode(SKU_VALUE, 20, null);
+		});
+	}
+
 	@Test
 	void testPutUserRatingCreatesNewItem_WhenUserRatingDoesNotExist() {
 		// given
@@ -523,6 +631,272 @@ class DynamoDbUserRatingServiceIntegrationTest {
 		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU_VALUE, RATING_VERSION, 1L, RATING_DATE, NEW_DATE);
 	}
 
+	@Test
+	void testPutUserRatingUpdatesHeadItemInRatingsTableWithLatestVersion() {
+		// given
+		UserRating userRating = createUserRating(SKU_VALUE, USER2_VALUE_NO_VERSION, NEW_DATE, NEW_RATING, NEW_REVIEW,
+				null);
+
+		// when
+		service.put(userRating);
+
+		// then
+		Long headVersion = DynamoDbRatingService.HEAD_VERSION;
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU_VALUE, RATING_VERSION, headVersion, RATING_LATEST_VERSION,
+				VERSION_VALUE_3 + 1);
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU_VALUE, RATING_VERSION, headVersion, RATING_QUANTITY, 2L);
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU_VALUE, RATING_VERSION, headVersion, RATING_AGGREGATED,
+				NEW_RATING + RATING_VALUE_3);
+	}
+
+	@Test
+	void testPutUserRatingWritesSameItems_WhenPreReadsAreSequential() {
+		// given
+		service.withConcurrentPreReads(false);
+		UserRating userRating = createUserRating(SKU_VALUE, USER_VALUE_NO_VERSION, NEW_DATE, NEW_RATING, NEW_REVIEW,
+				1000L);
+
+		// when
+		UserRating result = service.put(userRating);
+
+		// then
+		assertEquals(VERSION_VALUE_3 + 1, result.getVersion());
+		assertAttribute(TABLE_NAME_USER_RATINGS, USER_RATING_SKU, SKU_VALUE, USER_RATING_USER,
+				USER_VALUE_CURRENT, USER_RATING_RATING, NEW_RATING);
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU_VALUE, RATING_VERSION,
+				VERSION_VALUE_3 + 1, RATING_AGGREGATED, NEW_RATING);
+	}
+
+	@Test
+	void testDatabaseExceptionIsThrownAndNothingIsWritten_WhenLatestRatingReadTimesOut() {
+		// given
+		DynamoDbUserRatingService spyService = Mockito.spy(service.withPreReadTimeout(10));
+		doAnswer(invocation -> {
+			Thread.sleep(1000);
+			return invocation.callRealMethod();
+		}).when(spyService).getLatestRating(any());
+		UserRating userRating = createUserRating(SKU_VALUE, USER2_VALUE_NO_VERSION, NEW_DATE, NEW_RATING, NEW_REVIEW,
+				1000L);
+
+		// then
+		assertThrows(DatabaseException.class, () -> {
+			// when
+			spyService.put(userRating);
+		});
+		assertNull(service.getByUserIdAndCode(USER2_VALUE_NO_VERSION, SKU_VALUE));
+	}
+
+	@Test
+	void testPutUserRatingAddsToHeadItemWithoutWritingRatingVersion_WhenWriteModeIsAtomic() {
+		// given
+		service.withWriteMode(RatingWriteMode.ATOMIC);
+		UserRating firstUserRating = createUserRating(SKU2_VALUE, USER3_VALUE_NO_VERSION, NEW_DATE, RATING_VALUE_1, NEW_REVIEW,
+				null);
+		UserRating secondUserRating = createUserRating(SKU2_VALUE, USER4_VALUE_NO_VERSION, NEW_DATE, RATING_VALUE_2, "",
+				null);
+
+		// when
+		service.put(firstUserRating);
+		service.put(secondUserRating);
+
+		// then
+		Long headVersion = DynamoDbRatingService.HEAD_VERSION;
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU2_VALUE, RATING_VERSION, headVersion, RATING_QUANTITY, 2L);
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU2_VALUE, RATING_VERSION, headVersion, RATING_AGGREGATED,
+				RATING_VALUE_1 + RATING_VALUE_2);
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU2_VALUE, RATING_VERSION, headVersion, RATING_NUMBER_OF_REVIEWS, 1L);
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU2_VALUE, RATING_VERSION, headVersion, RATING_LATEST_VERSION, 2L);
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU2_VALUE, RATING_VERSION, headVersion, RATING_DATE, NEW_DATE);
+		assertFalse(client.getItem(GetItemRequest.builder().tableName(TABLE_NAME_RATINGS)
+				.key(Map.of(RATING_SKU, AttributeValue.fromS(SKU2_VALUE), RATING_VERSION, AttributeValue.fromN("1"))).build())
+				.hasItem());
+	}
+
+	@Test
+	void testPutUserRatingReplacesPreviousRatingInHeadItemAndKeepsHistory_WhenWriteModeIsAtomicAndUserRatingExists() {
+		// given
+		service.withWriteMode(RatingWriteMode.ATOMIC);
+		service.put(createUserRating(SKU2_VALUE, USER3_VALUE_NO_VERSION, NEW_DATE, RATING_VALUE_2, NEW_REVIEW, null));
+		UserRating userRating = createUserRating(SKU2_VALUE, USER3_VALUE_NO_VERSION, NEW_DATE, NEW_RATING, NEW_REVIEW, null);
+
+		// when
+		UserRating result = service.put(userRating);
+
+		// then
+		Long headVersion = DynamoDbRatingService.HEAD_VERSION;
+		assertEquals(2L, result.getVersion());
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU2_VALUE, RATING_VERSION, headVersion, RATING_QUANTITY, 1L);
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU2_VALUE, RATING_VERSION, headVersion, RATING_AGGREGATED, NEW_RATING);
+		assertAttribute(TABLE_NAME_USER_RATINGS, USER_RATING_SKU, SKU2_VALUE, USER_RATING_USER,
+				"v1-" + USER3_VALUE_NO_VERSION, USER_RATING_RATING, RATING_VALUE_2);
+	}
+
+	@Test
+	void testPutUserRatingSeedsHeadItemFromLatestVersionAndRetries_WhenWriteModeIsAtomicAndSkuHasNoHeadItem() {
+		// given
+		service.withWriteMode(RatingWriteMode.ATOMIC);
+		UserRating userRating = createUserRating(SKU_VALUE, USER4_VALUE_NO_VERSION, NEW_DATE, NEW_RATING, NEW_REVIEW, null);
+
+		// when
+		service.put(userRating);
+
+		// then
+		Long headVersion = DynamoDbRatingService.HEAD_VERSION;
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU_VALUE, RATING_VERSION, headVersion, RATING_QUANTITY, 2L);
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU_VALUE, RATING_VERSION, headVersion, RATING_AGGREGATED,
+				RATING_VALUE_3 + NEW_RATING);
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU_VALUE, RATING_VERSION, headVersion, RATING_LATEST_VERSION,
+				VERSION_VALUE_3 + 1);
+		assertEquals(1, service.getRetryMetrics().getConditionalCheckFailures());
+	}
+
+	@Test
+	void testPutUserRatingSpreadsTotalsOverShardsAndReadSumsThem_WhenWriteModeIsSharded() {
+		// given
+		int shardCount = 4;
+		service.withShardCountResolver(code -> shardCount).withWriteMode(RatingWriteMode.SHARDED);
+
+		// when
+		for(int i = 0; i < 20; i++) {
+			service.put(createUserRating(SKU2_VALUE, "user" + i, NEW_DATE + i, 2L, i % 2 == 0 ? NEW_REVIEW : "", null));
+		}
+
+		// then
+		Rating rating = service.getLatestRating(SKU2_VALUE);
+		assertEquals(20L, rating.getQuantity());
+		assertEquals(40L, rating.getAggregated());
+		assertEquals(10L, rating.getNumberOfReviews());
+		assertEquals(20L, rating.getVersion());
+		assertEquals(NEW_DATE + 19, rating.getDate());
+		assertFalse(client.getItem(GetItemRequest.builder().tableName(TABLE_NAME_RATINGS)
+				.key(Map.of(RATING_SKU, AttributeValue.fromS(SKU2_VALUE), RATING_VERSION, AttributeValue.fromN("0"))).build())
+				.hasItem());
+	}
+
+	@Test
+	void testPutUserRatingReplacesHeadItemAndCopiesVersionToHistory_WhenWriteModeIsSingleRow() {
+		// given
+		DynamoDbTestTables.createRatingHistoryTable(client);
+		service.withWriteMode(RatingWriteMode.SINGLE_ROW).withRatingHistoryTable(DynamoDbTestTables.TABLE_NAME_RATING_HISTORY);
+		UserRating userRating = createUserRating(SKU_VALUE, USER4_VALUE_NO_VERSION, NEW_DATE, NEW_RATING, NEW_REVIEW, null);
+
+		// when
+		service.put(userRating);
+
+		// then
+		Long headVersion = DynamoDbRatingService.HEAD_VERSION;
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU_VALUE, RATING_VERSION, headVersion, RATING_QUANTITY, 2L);
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU_VALUE, RATING_VERSION, headVersion, RATING_AGGREGATED,
+				RATING_VALUE_3 + NEW_RATING);
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU_VALUE, RATING_VERSION, headVersion, RATING_LATEST_VERSION,
+				VERSION_VALUE_3 + 1);
+		assertFalse(client.getItem(GetItemRequest.builder().tableName(TABLE_NAME_RATINGS)
+				.key(Map.of(RATING_SKU, AttributeValue.fromS(SKU_VALUE), RATING_VERSION, AttributeValue.fromN(String.valueOf(VERSION_VALUE_3 + 1))))
+				.build()).hasItem());
+		assertAttribute(DynamoDbTestTables.TABLE_NAME_RATING_HISTORY, RATING_SKU, SKU_VALUE, RATING_VERSION, VERSION_VALUE_3 + 1,
+				RATING_QUANTITY, 2L);
+	}
+
+	@Test
+	void testPutUserRatingRereadsStaleHeadItemAndRetries_WhenWriteModeIsSingleRow() {
+		// given
+		service.withWriteMode(RatingWriteMode.SINGLE_ROW);
+		service.put(createUserRating(SKU2_VALUE, USER3_VALUE_NO_VERSION, NEW_DATE, RATING_VALUE_1, NEW_REVIEW, null));
+		Rating staleRating = service.getLatestRating(SKU2_VALUE);
+		service.put(createUserRating(SKU2_VALUE, USER4_VALUE_NO_VERSION, NEW_DATE, RATING_VALUE_2, NEW_REVIEW, null));
+		DynamoDbUserRatingService spyService = Mockito.spy(service);
+		doReturn(staleRating).doCallRealMethod().when(spyService).getLatestRating(any());
+
+		// when
+		spyService.put(createUserRating(SKU2_VALUE, USER2_VALUE_NO_VERSION, NEW_DATE, NEW_RATING, "", null));
+
+		// then
+		Rating rating = service.getLatestRating(SKU2_VALUE);
+		assertEquals(3L, rating.getQuantity());
+		assertEquals(RATING_VALUE_1 + RATING_VALUE_2 + NEW_RATING, rating.getAggregated());
+		assertEquals(2L, rating.getNumberOfReviews());
+		assertEquals(3L, rating.getVersion());
+		assertEquals(1, service.getRetryMetrics().getConditionalCheckFailures());
+	}
+
+	@Test
+	void testPutUserRatingRereadsStaleRatingAndRetries_WhenRatingChangedSinceItWasRead() {
+		// given
+		Rating staleRating = service.getLatestRating(SKU_VALUE);
+		service.put(createUserRating(SKU_VALUE, USER3_VALUE_NO_VERSION, NEW_DATE, NEW_RATING, NEW_REVIEW, null));
+		DynamoDbUserRatingService spyService = Mockito.spy(service);
+		doReturn(staleRating).doCallRealMethod().when(spyService).getLatestRating(any());
+		UserRating userRating = createUserRating(SKU_VALUE, USER4_VALUE_NO_VERSION, NEW_DATE, NEW_RATING, NEW_REVIEW, null);
+
+		// when
+		spyService.put(userRating);
+
+		// then
+		assertAttribute(TABLE_NAME_RATINGS, RATING_SKU, SKU_VALUE, RATING_VERSION, VERSION_VALUE_3 + 2, RATING_QUANTITY, 3L);
+		assertEquals(2, service.getRetryMetrics().getWrites());
+		assertEquals(3, service.getRetryMetrics().getAttempts());
+		assertEquals(1, service.getRetryMetrics().getConditionalCheckFailures());
+		verify(spyService, times(1)).getItem(SKU_VALUE, "v0-" + USER4_VALUE_NO_VERSION);
+	}
+
+	@Test
+	void testConflictExceptionIsThrown_WhenRatingIsStaleOnEveryAttempt() {
+		// given
+		Rating staleRating = service.getLatestRating(SKU_VALUE);
+		service.put(createUserRating(SKU_VALUE, USER3_VALUE_NO_VERSION, NEW_DATE, NEW_RATING, NEW_REVIEW, null));
+		DynamoDbUserRatingService spyService = Mockito.spy(service.withRetryPolicy(new TransactionRetryPolicy(3, 1000, 1, 2)));
+		doReturn(staleRating).when(spyService).getLatestRating(any());
+		UserRating userRating = createUserRating(SKU_VALUE, USER4_VALUE_NO_VERSION, NEW_DATE, NEW_RATING, NEW_REVIEW, null);
+
+		// then
+		assertThrows(ConflictException.class, () -> {
+			// when
+			spyService.put(userRating);
+		});
+		assertEquals(1, service.getRetryMetrics().getFailedWrites());
+		assertEquals(3, service.getRetryMetrics().getMaxAttemptsPerWrite());
+	}
+
+	@Test
+	void testPutUserRatingDeletesOldestVersion_WhenHistoryPolicyKeepsLastVersions() {
+		// given
+		service.withHistoryPolicy(new UserRatingHistoryPolicy(2, 0));
+		UserRating userRating = createUserRating(SKU_VALUE, USER_VALUE_NO_VERSION, NEW_DATE, NEW_RATING, NEW_REVIEW, null);
+
+		// when
+		service.put(userRating);
+
+		// then
+		assertFalse(hasUserRating(TABLE_NAME_USER_RATINGS, USER_VALUE_1));
+		assertAttribute(TABLE_NAME_USER_RATINGS, USER_RATING_SKU, SKU_VALUE, USER_RATING_USER, USER_VALUE_2, USER_RATING_RATING, RATING_VALUE_2);
+		assertAttribute(TABLE_NAME_USER_RATINGS, USER_RATING_SKU, SKU_VALUE, USER_RATING_USER, "v3-" + USER_VALUE_NO_VERSION,
+				USER_RATING_RATING, RATING_VALUE_3);
+		assertAttribute(TABLE_NAME_USER_RATINGS, USER_RATING_SKU, SKU_VALUE, USER_RATING_USER, USER_VALUE_CURRENT, USER_RATING_VERSION,
+				VERSION_VALUE_3 + 1);
+	}
+
+	@Test
+	void testPutUserRatingWritesPreviousVersionToArchiveWithExpiry_WhenArchiveTableIsSet() {
+		// given
+		DynamoDbTestTables.createUserRatingArchiveTable(client);
+		service.withHistoryPolicy(new UserRatingHistoryPolicy(0, 30))
+				.withUserRatingArchiveTable(DynamoDbTestTables.TABLE_NAME_USER_RATING_ARCHIVE);
+		UserRating userRating = createUserRating(SKU_VALUE, USER_VALUE_NO_VERSION, NEW_DATE, NEW_RATING, NEW_REVIEW, null);
+
+		// when
+		service.put(userRating);
+
+		// then
+		String previousUser = "v3-" + USER_VALUE_NO_VERSION;
+		assertFalse(hasUserRating(TABLE_NAME_USER_RATINGS, previousUser));
+		assertAttribute(DynamoDbTestTables.TABLE_NAME_USER_RATING_ARCHIVE, USER_RATING_SKU, SKU_VALUE, USER_RATING_USER, previousUser,
+				USER_RATING_RATING, RATING_VALUE_3);
+		assertAttribute(DynamoDbTestTables.TABLE_NAME_USER_RATING_ARCHIVE, USER_RATING_SKU, SKU_VALUE, USER_RATING_USER, previousUser,
+				UserRatingHistoryPolicy.TTL_ATTRIBUTE, DATE_VALUE_3 / 1000 + 30 * 24 * 3600);
+		assertAttribute(TABLE_NAME_USER_RATINGS, USER_RATING_SKU, SKU_VALUE, USER_RATING_USER, USER_VALUE_CURRENT, USER_RATING_RATING,
+				NEW_RATING);
+	}
+
 	@Test
 	void testDatabaseExceptionIsThrownOnPutItemException() {
 		// given
@@ -656,6 +1030,12 @@ class DynamoDbUserRatingServiceIntegrationTest {
 		assertEquals(attributeValue.toString(), getFirst(itemResponse.item().get(attributeName)));
 	}
 
+	private boolean hasUserRating(String tableName, String user) {
+		return client.getItem(GetItemRequest.builder().tableName(tableName)
+				.key(Map.of(USER_RATING_SKU, AttributeValue.fromS(SKU_VALUE), USER_RATING_USER, AttributeValue.fromS(user))).build())
+				.hasItem();
+	}
+
 	private Object getFirst(AttributeValue value) {
 		return value == null ? null : value.s() != null ? value.s() : value.n() != null ? value.n() : value.b();
 	}
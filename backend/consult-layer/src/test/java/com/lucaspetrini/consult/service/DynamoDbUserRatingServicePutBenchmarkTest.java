@@ -0,0 +1,112 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.utils.DynamoDBExtension;
+import com.lucaspetrini.consult.utils.DynamoDbTestTables;
+
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+/**
+ * Compares {@link DynamoDbUserRatingService#put(UserRating)} latency with sequential and concurrent
+ * pre-reads against DynamoDB Local. DynamoDB Local answers in well under a millisecond, so a fixed delay
+ * is added to every request to stand for the network round trip to DynamoDB.<br>
+ * Only runs with {@code -Dconsult.benchmark=true}; {@code consult.benchmark.iterations} and
+ * {@code consult.benchmark.latencyMillis} change the number of puts measured and the delay added.
+ */
+@EnabledIfSystemProperty(named = "consult.benchmark", matches = "true")
+@ExtendWith(DynamoDBExtension.class)
+class DynamoDbUserRatingServicePutBenchmarkTest {
+	private static final int WARM_UP_ITERATIONS = 20;
+	private static final int ITERATIONS = Integer.getInteger("consult.benchmark.iterations", 200);
+	private static final long LATENCY_MILLIS = Long.getLong("consult.benchmark.latencyMillis", 5);
+
+	private DynamoDbClient client;
+	private DynamoDbUserRatingService service;
+
+	@BeforeEach
+	public void setUp() {
+		client = DynamoDbTestTables.client();
+		DynamoDbTestTables.createRatingsTable(client);
+		DynamoDbTestTables.createUserRatingsTable(client);
+		DynamoDbClient slowClient = DynamoDbClient.builder().region(Region.US_EAST_1)
+				.endpointOverride(URI.create("http://localhost:" + DynamoDBExtension.SERVER_PORT))
+				.overrideConfiguration(configuration -> configuration.addExecutionInterceptor(new LatencyInterceptor()))
+				.build();
+		service = new DynamoDbUserRatingService(slowClient);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		DynamoDbTestTables.deleteTables(client);
+	}
+
+	@Test
+	void benchmarkPutWithSequentialAndConcurrentPreReads() {
+		// given
+		measure(false, WARM_UP_ITERATIONS, "warm-up");
+		measure(true, WARM_UP_ITERATIONS, "warm-up");
+
+		// when
+		long[] sequential = measure(false, ITERATIONS, "sequential");
+		long[] concurrent = measure(true, ITERATIONS, "concurrent");
+
+		// then
+		report("sequential", sequential);
+		report("concurrent", concurrent);
+		assertTrue(percentile(concurrent, 50) < percentile(sequential, 50));
+	}
+
+	private long[] measure(boolean concurrentPreReads, int iterations, String user) {
+		service.withConcurrentPreReads(concurrentPreReads);
+		long[] latencies = new long[iterations];
+		for(int i = 0; i < iterations; i++) {
+			UserRating userRating = new UserRating();
+			// same user and a few SKUs, so most puts update an existing user rating
+			userRating.setSku("sku" + (i % 10));
+			userRating.setUser(user);
+			userRating.setRating((long) (i % 5) + 1);
+			userRating.setDate((long) i);
+			long start = System.nanoTime();
+			service.put(userRating);
+			latencies[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(latencies);
+		return latencies;
+	}
+
+	private void report(String name, long[] latencies) {
+		System.out.printf("put with %s pre-reads (%d puts, %d ms added per request): p50 %.2f ms, p90 %.2f ms, p99 %.2f ms%n",
+				name, latencies.length, LATENCY_MILLIS, percentile(latencies, 50) / 1e6, percentile(latencies, 90) / 1e6,
+				percentile(latencies, 99) / 1e6);
+	}
+
+	private long percentile(long[] sortedLatencies, int percentile) {
+		return sortedLatencies[Math.min(sortedLatencies.length - 1, sortedLatencies.length * percentile / 100)];
+	}
+
+	private static class LatencyInterceptor implements ExecutionInterceptor {
+		@Override
+		public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+			try {
+				Thread.sleep(LATENCY_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.utils.DynamoDBExtension;
+import com.lucaspetrini.consult.utils.DynamoDbTestTables;
+import com.lucaspetrini.consult.utils.StreamReplayer;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+/**
+ * Tests for {@link RatingAggregator}, replaying the user ratings stream written by
+ * {@link DynamoDbUserRatingService} in {@link RatingWriteMode#DEFERRED deferred mode}.
+ */
+@ExtendWith(DynamoDBExtension.class)
+class RatingAggregatorIntegrationTest {
+	private static final String SKU_VALUE = "1321123";
+	private static final String SKU2_VALUE = "78474577";
+	private static final int USERS = 100;
+	private static final int PUTS_PER_USER = 5;
+	private static final int BATCH_SIZE = 100;
+
+	private DynamoDbClient client;
+	private DynamoDbUserRatingService userRatingService;
+	private DynamoDbRatingService ratingService;
+	private RatingAggregator aggregator;
+	private StreamReplayer replayer;
+
+	@BeforeEach
+	public void setUp() {
+		client = DynamoDbTestTables.client();
+		DynamoDbTestTables.createRatingsTable(client);
+		DynamoDbTestTables.createUserRatingsTable(client);
+		userRatingService = new DynamoDbUserRatingService(client)
+				.withUserRatingsTable(DynamoDbTestTables.TABLE_NAME_USER_RATINGS)
+				.withRatingsTable(DynamoDbTestTables.TABLE_NAME_RATINGS)
+				.withWriteMode(RatingWriteMode.DEFERRED);
+		ratingService = new DynamoDbRatingService(client).withRatingsTable(DynamoDbTestTables.TABLE_NAME_RATINGS);
+		aggregator = new RatingAggregator(client).withRatingsTable(DynamoDbTestTables.TABLE_NAME_RATINGS);
+		replayer = new StreamReplayer(client, DynamoDbTestTables.streamsClient(), DynamoDbTestTables.TABLE_NAME_USER_RATINGS);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		DynamoDbTestTables.deleteTables(client);
+	}
+
+	@Test
+	void testPutWritesOnlyUserRating_WhenWriteModeIsDeferred() {
+		// when
+		userRatingService.put(createUserRating(SKU_VALUE, "user", 1L, 7L, "Good"));
+
+		// then
+		assertEquals(7L, userRatingService.getByUserIdAndCode("user", SKU_VALUE).getRating());
+		assertNull(ratingService.getByCode(SKU_VALUE));
+	}
+
+	@Test
+	void testReplayFoldsEachBatchIntoOneUpdatePerSku() {
+		// given
+		long expectedAggregated = putRatings(SKU_VALUE);
+		List<DynamodbEvent> events = StreamReplayer.toEvents(replayer.readAll(), BATCH_SIZE);
+
+		// when
+		int updates = 0;
+		for(DynamodbEvent event : events)
+			updates += aggregator.aggregate(event.getRecords());
+
+		// then
+		// every put writes the current user rating and, after the first one, a versioned copy
+		assertEquals(USERS * (2 * PUTS_PER_USER - 1), events.stream().mapToInt(event -> event.getRecords().size()).sum());
+		assertEquals(events.size(), updates);
+		Rating rating = ratingService.getByCode(SKU_VALUE);
+		assertEquals(USERS, rating.getQuantity());
+		assertEquals(expectedAggregated, rating.getAggregated());
+		assertEquals(USERS / 2, rating.getNumberOfReviews());
+		assertEquals(USERS * PUTS_PER_USER, rating.getVersion());
+	}
+
+	@Test
+	void testReplayingBatchesAgainLeavesTotalsUnchanged() {
+		// given
+		long expectedAggregated = putRatings(SKU_VALUE);
+		putRatings(SKU2_VALUE);
+		List<DynamodbEvent> events = StreamReplayer.toEvents(replayer.readAll(), BATCH_SIZE);
+		for(DynamodbEvent event : events)
+			aggregator.aggregate(event.getRecords());
+
+		// when
+		int updates = 0;
+		for(DynamodbEvent event : events)
+			updates += aggregator.aggregate(event.getRecords());
+
+		// then
+		assertEquals(0, updates);
+		Rating rating = ratingService.getByCode(SKU_VALUE);
+		assertEquals(USERS, rating.getQuantity());
+		assertEquals(expectedAggregated, rating.getAggregated());
+	}
+
+	@Test
+	void testReplaySeedsHeadItemFromLatestVersion_WhenSkuHasOnlyVersionRows() {
+		// given
+		client.putItem(PutItemRequest.builder().tableName(DynamoDbTestTables.TABLE_NAME_RATINGS).item(Map.of(
+				"sku", AttributeValue.fromS(SKU_VALUE), "version", AttributeValue.fromN("4"), "date", AttributeValue.fromN("1"),
+				"aggregated", AttributeValue.fromN("20"), "quantity", AttributeValue.fromN("3"),
+				"numberOfReviews", AttributeValue.fromN("1"))).build());
+		userRatingService.put(createUserRating(SKU_VALUE, "user", 2L, 7L, "Good"));
+		List<DynamodbEvent> events = StreamReplayer.toEvents(replayer.readAll(), BATCH_SIZE);
+
+		// when
+		int updates = aggregator.aggregate(events.get(0).getRecords());
+
+		// then
+		assertEquals(1, updates);
+		Rating rating = ratingService.getByCode(SKU_VALUE);
+		assertEquals(4L, rating.getQuantity());
+		assertEquals(27L, rating.getAggregated());
+		assertEquals(2L, rating.getNumberOfReviews());
+		assertEquals(5L, rating.getVersion());
+		assertEquals(2L, rating.getDate());
+	}
+
+	/**
+	 * Put {@link #PUTS_PER_USER} ratings for each of {@link #USERS} users.
+	 *
+	 * @return expected aggregated rating.
+	 */
+	private long putRatings(String sku) {
+		long aggregated = 0;
+		for(int put = 0; put < PUTS_PER_USER; put++) {
+			for(int user = 0; user < USERS; user++) {
+				long rating = (user + put) % 10;
+				userRatingService.put(createUserRating(sku, "user" + user, (long) put, rating, user % 2 == 0 ? "Good" : ""));
+				if(put == PUTS_PER_USER - 1)
+					aggregated += rating;
+			}
+		}
+		return aggregated;
+	}
+
+	private UserRating createUserRating(String sku, String user, Long date, Long rating, String review) {
+		UserRating userRating = new UserRating();
+		userRating.setSku(sku);
+		userRating.setUser(user);
+		userRating.setDate(date);
+		userRating.setRating(rating);
+		userRating.setReview(review);
+		return userRating;
+	}
+}
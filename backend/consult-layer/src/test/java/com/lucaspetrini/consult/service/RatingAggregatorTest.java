@@ -0,0 +1,177 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent.DynamodbStreamRecord;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.lucaspetrini.consult.service.RatingAggregator.SkuChanges;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+/**
+ * Tests for {@link RatingAggregator}.
+ */
+@ExtendWith(MockitoExtension.class)
+class RatingAggregatorTest {
+	private static final String SKU = "5ku";
+	private static final String SKU2 = "5ku2";
+
+	@Mock
+	private DynamoDbClient client;
+	@Mock
+	private DynamoDbRatingService ratingService;
+	private RatingAggregator aggregator;
+
+	@BeforeEach
+	public void setUp() {
+		aggregator = new RatingAggregator(client, ratingService);
+	}
+
+	@Test
+	void testFoldSumsChangesOfCurrentUserRatingsBySku() {
+		// given
+		List<DynamodbStreamRecord> records = List.of(
+				createRecord("INSERT", SKU, "v0-a", null, createImage(SKU, "v0-a", 7L, "Good", 10L), "100"),
+				createRecord("INSERT", SKU, "v1-a", null, createImage(SKU, "v1-a", 7L, "Good", 10L), "101"),
+				createRecord("MODIFY", SKU, "v0-a", createImage(SKU, "v0-a", 7L, "Good", 10L), createImage(SKU, "v0-a", 3L, "", 20L), "102"),
+				createRecord("INSERT", SKU2, "v0-b", null, createImage(SKU2, "v0-b", 5L, "", 15L), "103"),
+				createRecord("REMOVE", SKU2, "v0-c", createImage(SKU2, "v0-c", 4L, "Bad", 5L), null, "104"));
+
+		// when
+		Map<String, SkuChanges> changes = aggregator.fold(records);
+
+		// then
+		assertEquals(List.of(SKU, SKU2), List.copyOf(changes.keySet()));
+		SkuChanges skuChanges = changes.get(SKU);
+		assertEquals(1, skuChanges.getDelta().getQuantity());
+		assertEquals(3, skuChanges.getDelta().getAggregated());
+		assertEquals(0, skuChanges.getDelta().getNumberOfReviews());
+		assertEquals(2, skuChanges.getCount());
+		assertEquals(20L, skuChanges.getDate());
+		assertEquals(new BigInteger("102"), skuChanges.getLastSequenceNumber());
+		SkuChanges sku2Changes = changes.get(SKU2);
+		assertEquals(0, sku2Changes.getDelta().getQuantity());
+		assertEquals(1, sku2Changes.getDelta().getAggregated());
+		assertEquals(-1, sku2Changes.getDelta().getNumberOfReviews());
+		assertEquals(15L, sku2Changes.getDate());
+	}
+
+	@Test
+	void testAggregateUpdatesHeadItemOnlyIfRecordsWereNotApplied() {
+		// given
+		List<DynamodbStreamRecord> records = List.of(
+				createRecord("INSERT", SKU, "v0-a", null, createImage(SKU, "v0-a", 7L, "Good", 10L), "100"));
+		ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+
+		// when
+		int updated = aggregator.aggregate(records);
+
+		// then
+		assertEquals(1, updated);
+		verify(client).updateItem(captor.capture());
+		UpdateItemRequest request = captor.getValue();
+		assertEquals(SKU, request.key().get("sku").s());
+		assertEquals("0", request.key().get("version").n());
+		assertEquals("attribute_exists(sku) AND (attribute_not_exists(#streamSequence) OR #streamSequence < :streamSequence)",
+				request.conditionExpression());
+		assertEquals(RatingAggregator.toSortableSequence(new BigInteger("100")),
+				request.expressionAttributeValues().get(":streamSequence").s());
+		assertEquals("7", request.expressionAttributeValues().get(":aggregated").n());
+		assertEquals("1", request.expressionAttributeValues().get(":changes").n());
+	}
+
+	@Test
+	void testAggregateSkipsSku_WhenRecordsWereAlreadyApplied() {
+		// given
+		when(client.updateItem(any(UpdateItemRequest.class))).thenThrow(ConditionalCheckFailedException.builder().build());
+		List<DynamodbStreamRecord> records = List.of(
+				createRecord("INSERT", SKU, "v0-a", null, createImage(SKU, "v0-a", 7L, "Good", 10L), "100"));
+
+		// when
+		int updated = aggregator.aggregate(records);
+
+		// then
+		assertEquals(0, updated);
+		verify(client).updateItem(any(UpdateItemRequest.class));
+	}
+
+	@Test
+	void testAggregateSeedsHeadItemAndRetries_WhenHeadItemDoesNotExist() {
+		// given
+		when(client.updateItem(any(UpdateItemRequest.class))).thenThrow(ConditionalCheckFailedException.builder().build())
+				.thenReturn(null);
+		when(ratingService.seedHeadItem(SKU)).thenReturn(true);
+		List<DynamodbStreamRecord> records = List.of(
+				createRecord("INSERT", SKU, "v0-a", null, createImage(SKU, "v0-a", 7L, "Good", 10L), "100"));
+
+		// when
+		int updated = aggregator.aggregate(records);
+
+		// then
+		assertEquals(1, updated);
+		verify(client, times(2)).updateItem(any(UpdateItemRequest.class));
+	}
+
+	@Test
+	void testSortableSequenceOrderMatchesNumericOrder() {
+		// given
+		BigInteger lower = new BigInteger("999999999999999999999");
+		BigInteger higher = new BigInteger("1000000000000000000000");
+
+		// when
+		String lowerSequence = RatingAggregator.toSortableSequence(lower);
+		String higherSequence = RatingAggregator.toSortableSequence(higher);
+
+		// then
+		assertEquals(RatingAggregator.SEQUENCE_NUMBER_LENGTH, lowerSequence.length());
+		assertTrue(lowerSequence.compareTo(higherSequence) < 0);
+		assertFalse(higherSequence.compareTo(lowerSequence) < 0);
+	}
+
+	private DynamodbStreamRecord createRecord(String eventName, String sku, String user, Map<String, AttributeValue> oldImage,
+			Map<String, AttributeValue> newImage, String sequenceNumber) {
+		StreamRecord streamRecord = new StreamRecord();
+		Map<String, AttributeValue> keys = new HashMap<>();
+		keys.put("sku", new AttributeValue().withS(sku));
+		keys.put("user", new AttributeValue().withS(user));
+		streamRecord.setKeys(keys);
+		streamRecord.setOldImage(oldImage);
+		streamRecord.setNewImage(newImage);
+		streamRecord.setSequenceNumber(sequenceNumber);
+		DynamodbStreamRecord record = new DynamodbStreamRecord();
+		record.setEventName(eventName);
+		record.setDynamodb(streamRecord);
+		return record;
+	}
+
+	private Map<String, AttributeValue> createImage(String sku, String user, Long rating, String review, Long date) {
+		Map<String, AttributeValue> image = new HashMap<>();
+		image.put("sku", new AttributeValue().withS(sku));
+		image.put("user", new AttributeValue().withS(user));
+		image.put("rating", new AttributeValue().withN(String.valueOf(rating)));
+		image.put("review", new AttributeValue().withS(review));
+		image.put("date", new AttributeValue().withN(String.valueOf(date)));
+		return image;
+	}
+}
@@ -0,0 +1,147 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.lucaspetrini.consult.service.RatingCompactor.CompactionPage;
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.utils.DynamoDBExtension;
+import com.lucaspetrini.consult.utils.DynamoDbTestTables;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+/**
+ * Tests for {@link RatingCompactor}.
+ */
+@ExtendWith(DynamoDBExtension.class)
+class RatingCompactorIntegrationTest {
+	private static final String SKU_VALUE = "1321123";
+	private static final String SKU2_VALUE = "78474577";
+	private static final int VERSIONS = 60;
+
+	private DynamoDbClient client;
+	private DynamoDbTable<Rating> ratingsTable;
+	private DynamoDbTable<Rating> historyTable;
+	private RatingCompactor compactor;
+
+	@BeforeEach
+	public void setUp() {
+		client = DynamoDbTestTables.client();
+		DynamoDbTestTables.createRatingsTable(client);
+		DynamoDbTestTables.createRatingHistoryTable(client);
+		DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(client).build();
+		ratingsTable = enhancedClient.table(DynamoDbTestTables.TABLE_NAME_RATINGS, TableSchema.fromBean(Rating.class));
+		historyTable = enhancedClient.table(DynamoDbTestTables.TABLE_NAME_RATING_HISTORY, TableSchema.fromBean(Rating.class));
+		compactor = new RatingCompactor(client).withRatingsTable(DynamoDbTestTables.TABLE_NAME_RATINGS);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		DynamoDbTestTables.deleteTables(client);
+	}
+
+	@Test
+	void testCompactWritesHeadItemFromLatestVersionAndDeletesVersionRows() {
+		// given
+		putVersions(SKU_VALUE, VERSIONS);
+
+		// when
+		int deleted = compactor.compact(SKU_VALUE);
+
+		// then
+		assertEquals(VERSIONS, deleted);
+		Rating head = getRating(ratingsTable, SKU_VALUE, DynamoDbRatingService.HEAD_VERSION);
+		assertEquals((long) VERSIONS, head.getLatestVersion());
+		assertEquals((long) VERSIONS, head.getQuantity());
+		assertNull(getRating(ratingsTable, SKU_VALUE, 1L));
+		assertNull(getRating(ratingsTable, SKU_VALUE, (long) VERSIONS));
+		assertEquals((long) VERSIONS, new DynamoDbRatingService(client).withRatingsTable(DynamoDbTestTables.TABLE_NAME_RATINGS)
+				.getByCode(SKU_VALUE).getVersion());
+	}
+
+	@Test
+	void testCompactCopiesVersionRowsToHistory_WhenHistoryTableIsSet() {
+		// given
+		putVersions(SKU_VALUE, 3);
+		compactor.withRatingHistoryTable(DynamoDbTestTables.TABLE_NAME_RATING_HISTORY);
+
+		// when
+		compactor.compact(SKU_VALUE);
+
+		// then
+		assertNotNull(getRating(historyTable, SKU_VALUE, 1L));
+		assertEquals(3L, getRating(historyTable, SKU_VALUE, 3L).getQuantity());
+	}
+
+	@Test
+	void testCompactKeepsNewerHeadItem_WhenHeadIsAheadOfVersionRows() {
+		// given
+		putVersions(SKU_VALUE, 3);
+		Rating newerHead = createRating(SKU_VALUE, 10L);
+		ratingsTable.putItem(DynamoDbRatingService.toHeadItem(newerHead));
+
+		// when
+		compactor.compact(SKU_VALUE);
+
+		// then
+		Rating head = getRating(ratingsTable, SKU_VALUE, DynamoDbRatingService.HEAD_VERSION);
+		assertEquals(10L, head.getLatestVersion());
+		assertEquals(10L, head.getQuantity());
+		assertNull(getRating(ratingsTable, SKU_VALUE, 3L));
+	}
+
+	@Test
+	void testCompactPageCompactsEverySkuUntilTheWholeTableIsScanned() {
+		// given
+		putVersions(SKU_VALUE, 7);
+		putVersions(SKU2_VALUE, 5);
+
+		// when
+		long deleted = 0;
+		int pages = 0;
+		String nextCode = null;
+		do {
+			CompactionPage page = compactor.compactPage(nextCode, 4);
+			deleted += page.getDeletedRows();
+			nextCode = page.getNextCode();
+			pages++;
+		} while(nextCode != null && pages < 20);
+
+		// then
+		assertEquals(12, deleted);
+		assertNull(nextCode);
+		assertEquals(7L, getRating(ratingsTable, SKU_VALUE, DynamoDbRatingService.HEAD_VERSION).getLatestVersion());
+		assertEquals(5L, getRating(ratingsTable, SKU2_VALUE, DynamoDbRatingService.HEAD_VERSION).getLatestVersion());
+		assertEquals(0, compactor.compact(SKU_VALUE));
+	}
+
+	private void putVersions(String sku, int versions) {
+		for(long version = 1; version <= versions; version++)
+			ratingsTable.putItem(createRating(sku, version));
+	}
+
+	private Rating getRating(DynamoDbTable<Rating> table, String sku, Long version) {
+		return table.getItem(Key.builder().partitionValue(sku).sortValue(version).build());
+	}
+
+	private Rating createRating(String sku, Long version) {
+		Rating rating = new Rating();
+		rating.setSku(sku);
+		rating.setVersion(version);
+		rating.setDate(version);
+		rating.setQuantity(version);
+		rating.setAggregated(version * 5);
+		rating.setNumberOfReviews(0L);
+		return rating;
+	}
+}
@@ -0,0 +1,82 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.lucaspetrini.consult.service.model.UserRating;
+
+/**
+ * Tests for {@link RatingDelta}.
+ */
+class RatingDeltaTest {
+
+	@Test
+	void testNewUserIncrementsQuantityAndAddsRating() {
+		// given
+		UserRating newUserRating = createUserRating(7L, "Good");
+
+		// when
+		RatingDelta delta = new RatingDelta(null, newUserRating);
+
+		// then
+		assertEquals(1, delta.getQuantity());
+		assertEquals(7, delta.getAggregated());
+		assertEquals(1, delta.getNumberOfReviews());
+	}
+
+	@Test
+	void testExistingUserKeepsQuantityAndReplacesRating() {
+		// given
+		UserRating currentUserRating = createUserRating(7L, "Good");
+		UserRating newUserRating = createUserRating(3L, null);
+
+		// when
+		RatingDelta delta = new RatingDelta(currentUserRating, newUserRating);
+
+		// then
+		assertEquals(0, delta.getQuantity());
+		assertEquals(-4, delta.getAggregated());
+		assertEquals(-1, delta.getNumberOfReviews());
+	}
+
+	@Test
+	void testRemovedUserDecrementsQuantityAndRemovesRating() {
+		// given
+		UserRating currentUserRating = createUserRating(7L, "Good");
+
+		// when
+		RatingDelta delta = new RatingDelta(currentUserRating, null);
+
+		// then
+		assertEquals(-1, delta.getQuantity());
+		assertEquals(-7, delta.getAggregated());
+		assertEquals(-1, delta.getNumberOfReviews());
+	}
+
+	@Test
+	void testPlusAddsEveryTotal() {
+		// given
+		RatingDelta first = new RatingDelta(null, createUserRating(7L, "Good"));
+		RatingDelta second = new RatingDelta(createUserRating(7L, "Good"), createUserRating(2L, null));
+
+		// when
+		RatingDelta delta = RatingDelta.ZERO.plus(first).plus(second);
+
+		// then
+		assertEquals(1, delta.getQuantity());
+		assertEquals(2, delta.getAggregated());
+		assertEquals(0, delta.getNumberOfReviews());
+		assertFalse(delta.isZero());
+		assertTrue(first.plus(new RatingDelta(createUserRating(7L, "Good"), null)).isZero());
+	}
+
+	private UserRating createUserRating(Long rating, String review) {
+		UserRating userRating = new UserRating();
+		userRating.setRating(rating);
+		userRating.setReview(review);
+		return userRating;
+	}
+}
@@ -0,0 +1,94 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.lucaspetrini.consult.exception.ConflictException;
+import com.lucaspetrini.consult.exception.DatabaseException;
+import com.lucaspetrini.consult.exception.TooManyRequestsException;
+
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+/**
+ * Tests for {@link TransactionFailure}.
+ */
+class TransactionFailureTest {
+	private static final String NONE = "None";
+	private static final String VALIDATION_ERROR = "ValidationError";
+
+	@Test
+	void testConditionalCheckTakesPrecedenceOverConflict() {
+		// given
+		TransactionCanceledException exception = createException(NONE, TransactionFailure.TRANSACTION_CONFLICT,
+				TransactionFailure.CONDITIONAL_CHECK_FAILED);
+
+		// when
+		TransactionFailure failure = TransactionFailure.of(exception);
+
+		// then
+		assertEquals(TransactionFailure.Type.CONDITIONAL_CHECK, failure.getType());
+		assertTrue(failure.isRetryable());
+		assertFalse(failure.isConditionalCheckFailed(0));
+		assertFalse(failure.isConditionalCheckFailed(1));
+		assertTrue(failure.isConditionalCheckFailed(2));
+		assertFalse(failure.isConditionalCheckFailed(3));
+		assertTrue(failure.toServiceException(exception) instanceof ConflictException);
+	}
+
+	@Test
+	void testConflictIsRetryable() {
+		// given
+		TransactionCanceledException exception = createException(NONE, TransactionFailure.TRANSACTION_CONFLICT);
+
+		// when
+		TransactionFailure failure = TransactionFailure.of(exception);
+
+		// then
+		assertEquals(TransactionFailure.Type.TRANSACTION_CONFLICT, failure.getType());
+		assertTrue(failure.isRetryable());
+		assertTrue(failure.toServiceException(exception) instanceof ConflictException);
+	}
+
+	@Test
+	void testThrottlingIsRetryable() {
+		// given
+		TransactionCanceledException exception = createException(TransactionFailure.PROVISIONED_THROUGHPUT_EXCEEDED, NONE);
+
+		// when
+		TransactionFailure failure = TransactionFailure.of(exception);
+
+		// then
+		assertEquals(TransactionFailure.Type.THROTTLING, failure.getType());
+		assertTrue(failure.isRetryable());
+		assertTrue(failure.toServiceException(exception) instanceof TooManyRequestsException);
+	}
+
+	@Test
+	void testValidationErrorIsNotRetryable() {
+		// given
+		TransactionCanceledException exception = createException(VALIDATION_ERROR, NONE);
+
+		// when
+		TransactionFailure failure = TransactionFailure.of(exception);
+
+		// then
+		assertEquals(TransactionFailure.Type.OTHER, failure.getType());
+		assertFalse(failure.isRetryable());
+		assertTrue(failure.toServiceException(exception) instanceof DatabaseException);
+	}
+
+	private TransactionCanceledException createException(String... codes) {
+		List<CancellationReason> reasons = new ArrayList<>();
+		for(String code : codes) {
+			reasons.add(CancellationReason.builder().code(code).build());
+		}
+		return TransactionCanceledException.builder().cancellationReasons(reasons).build();
+	}
+}
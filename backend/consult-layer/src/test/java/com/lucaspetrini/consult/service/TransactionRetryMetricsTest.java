@@ -0,0 +1,44 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link TransactionRetryMetrics}.
+ */
+class TransactionRetryMetricsTest {
+
+	@Test
+	void testAttemptsAndFailuresAreCounted() {
+		// given
+		TransactionRetryMetrics metrics = new TransactionRetryMetrics();
+
+		// when
+		metrics.recordWrite(1, true);
+		metrics.recordFailure(TransactionFailure.Type.CONDITIONAL_CHECK);
+		metrics.recordFailure(TransactionFailure.Type.TRANSACTION_CONFLICT);
+		metrics.recordWrite(3, true);
+		metrics.recordFailure(TransactionFailure.Type.THROTTLING);
+		metrics.recordWrite(2, false);
+
+		// then
+		assertEquals(3, metrics.getWrites());
+		assertEquals(6, metrics.getAttempts());
+		assertEquals(2.0, metrics.getAttemptsPerWrite());
+		assertEquals(3, metrics.getMaxAttemptsPerWrite());
+		assertEquals(1, metrics.getFailedWrites());
+		assertEquals(1, metrics.getConditionalCheckFailures());
+		assertEquals(1, metrics.getTransactionConflicts());
+		assertEquals(1, metrics.getThrottles());
+	}
+
+	@Test
+	void testAttemptsPerWriteIsZero_WhenNoWriteWasMade() {
+		// when
+		TransactionRetryMetrics metrics = new TransactionRetryMetrics();
+
+		// then
+		assertEquals(0.0, metrics.getAttemptsPerWrite());
+	}
+}
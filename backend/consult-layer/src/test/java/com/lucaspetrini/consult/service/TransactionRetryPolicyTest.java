@@ -0,0 +1,63 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link TransactionRetryPolicy}.
+ */
+class TransactionRetryPolicyTest {
+	private static final long BASE_DELAY_MILLIS = 10;
+	private static final long MAX_DELAY_MILLIS = 100;
+
+	@Test
+	void testDelaysStayBetweenBaseAndMaxDelay() {
+		// given
+		TransactionRetryPolicy policy = new TransactionRetryPolicy(5, 1000, BASE_DELAY_MILLIS, MAX_DELAY_MILLIS);
+		long delay = 0;
+
+		for(int i = 0; i < 1000; i++) {
+			// when
+			long previousDelay = delay;
+			delay = policy.nextDelayMillis(delay);
+
+			// then
+			assertTrue(delay >= BASE_DELAY_MILLIS);
+			assertTrue(delay <= MAX_DELAY_MILLIS);
+			assertTrue(delay <= Math.max(BASE_DELAY_MILLIS, previousDelay) * 3);
+		}
+	}
+
+	@Test
+	void testDelayIsBaseDelay_WhenBaseDelayIsZero() {
+		// given
+		TransactionRetryPolicy policy = new TransactionRetryPolicy(5, 1000, 0, 0);
+
+		// when
+		long delay = policy.nextDelayMillis(0);
+
+		// then
+		assertEquals(0, delay);
+	}
+
+	@Test
+	void testIllegalArgumentExceptionIsThrown_WhenMaxAttemptsIsLessThan1() {
+		// then
+		assertThrows(IllegalArgumentException.class, () -> {
+			// when
+			new TransactionRetryPolicy(0, 1000, BASE_DELAY_MILLIS, MAX_DELAY_MILLIS);
+		});
+	}
+
+	@Test
+	void testIllegalArgumentExceptionIsThrown_WhenMaxDelayIsLessThanBaseDelay() {
+		// then
+		assertThrows(IllegalArgumentException.class, () -> {
+			// when
+			new TransactionRetryPolicy(5, 1000, MAX_DELAY_MILLIS, BASE_DELAY_MILLIS);
+		});
+	}
+}
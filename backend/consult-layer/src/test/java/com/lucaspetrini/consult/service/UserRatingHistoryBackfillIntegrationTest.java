@@ -0,0 +1,165 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.lucaspetrini.consult.service.UserRatingHistoryBackfill.BackfillResult;
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.utils.DynamoDBExtension;
+import com.lucaspetrini.consult.utils.DynamoDbTestTables;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+/**
+ * Tests for {@link UserRatingHistoryBackfill}.
+ */
+@ExtendWith(DynamoDBExtension.class)
+class UserRatingHistoryBackfillIntegrationTest {
+	private static final String SKU_VALUE = "1321123";
+	private static final String SKU2_VALUE = "78474577";
+	private static final String USER = "user";
+	private static final String USER2 = "user2";
+	private static final int VERSIONS = 6;
+
+	private DynamoDbClient client;
+	private DynamoDbTable<UserRating> userRatingsTable;
+	private DynamoDbTable<UserRating> archiveTable;
+	private UserRatingHistoryBackfill backfill;
+	private long now;
+
+	@BeforeEach
+	public void setUp() {
+		client = DynamoDbTestTables.client();
+		DynamoDbTestTables.createUserRatingsTable(client);
+		DynamoDbTestTables.createUserRatingArchiveTable(client);
+		DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(client).build();
+		userRatingsTable = enhancedClient.table(DynamoDbTestTables.TABLE_NAME_USER_RATINGS, TableSchema.fromBean(UserRating.class));
+		archiveTable = enhancedClient.table(DynamoDbTestTables.TABLE_NAME_USER_RATING_ARCHIVE, TableSchema.fromBean(UserRating.class));
+		backfill = new UserRatingHistoryBackfill(client).withUserRatingsTable(DynamoDbTestTables.TABLE_NAME_USER_RATINGS);
+		now = System.currentTimeMillis();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		DynamoDbTestTables.deleteTables(client);
+	}
+
+	@Test
+	void testBackfillDeletesVersionsBeyondTheLastOnesKept() {
+		// given
+		putVersions(SKU_VALUE, USER, VERSIONS, now);
+		backfill.withHistoryPolicy(new UserRatingHistoryPolicy(2, 0));
+
+		// when
+		BackfillResult result = backfill.backfill(SKU_VALUE);
+
+		// then
+		// versions 1 to 5 are history, of which 4 and 5 are kept
+		assertEquals(3, result.getDeletedRows());
+		assertNull(getUserRating(userRatingsTable, SKU_VALUE, "v3-" + USER));
+		assertNotNull(getUserRating(userRatingsTable, SKU_VALUE, "v4-" + USER));
+		assertNotNull(getUserRating(userRatingsTable, SKU_VALUE, "v5-" + USER));
+		assertNotNull(getUserRating(userRatingsTable, SKU_VALUE, "v0-" + USER));
+		assertEquals(0, backfill.backfill(SKU_VALUE).getDeletedRows());
+	}
+
+	@Test
+	void testBackfillDeletesOldVersionsAndSetsExpiryOfTheOthers() {
+		// given
+		long day = TimeUnit.DAYS.toMillis(1);
+		putVersion(SKU_VALUE, USER, 1, now - 40 * day);
+		putVersion(SKU_VALUE, USER, 2, now - 40 * day);
+		putVersion(SKU_VALUE, USER, 3, now - 5 * day);
+		putCurrent(SKU_VALUE, USER, 4, now - day);
+		backfill.withHistoryPolicy(new UserRatingHistoryPolicy(0, 30));
+
+		// when
+		BackfillResult result = backfill.backfill(SKU_VALUE);
+
+		// then
+		assertEquals(2, result.getDeletedRows());
+		assertEquals(1, result.getUpdatedRows());
+		assertNull(getUserRating(userRatingsTable, SKU_VALUE, "v1-" + USER));
+		assertEquals(TimeUnit.MILLISECONDS.toSeconds(now - 5 * day) + TimeUnit.DAYS.toSeconds(30),
+				getUserRating(userRatingsTable, SKU_VALUE, "v3-" + USER).getExpiresAt());
+		assertNull(getUserRating(userRatingsTable, SKU_VALUE, "v0-" + USER).getExpiresAt());
+	}
+
+	@Test
+	void testBackfillPageMovesKeptVersionsToArchive_UntilTheWholeTableIsScanned() {
+		// given
+		putVersions(SKU_VALUE, USER, VERSIONS, now);
+		putVersions(SKU_VALUE, USER2, 3, now);
+		putVersions(SKU2_VALUE, USER, 4, now);
+		backfill.withHistoryPolicy(new UserRatingHistoryPolicy(2, 0))
+				.withUserRatingArchiveTable(DynamoDbTestTables.TABLE_NAME_USER_RATING_ARCHIVE);
+
+		// when
+		long deleted = 0;
+		long archived = 0;
+		int pages = 0;
+		BackfillResult page = null;
+		do {
+			page = backfill.backfillPage(page == null ? null : page.getNextCode(), page == null ? null : page.getNextUser(), 3);
+			deleted += page.getDeletedRows();
+			archived += page.getArchivedRows();
+			pages++;
+		} while(page.getNextCode() != null && pages < 20);
+
+		// then
+		assertNull(page.getNextCode());
+		// history: 5 versions of the first user, of which 3 deleted; 2 of the second user; 3 on the other SKU, of which 1 deleted
+		assertEquals(4, deleted);
+		assertEquals(2 + 2 + 2, archived);
+		assertNull(getUserRating(userRatingsTable, SKU_VALUE, "v5-" + USER));
+		assertNotNull(getUserRating(archiveTable, SKU_VALUE, "v5-" + USER));
+		assertNull(getUserRating(archiveTable, SKU_VALUE, "v3-" + USER));
+		assertNotNull(getUserRating(archiveTable, SKU2_VALUE, "v2-" + USER));
+		assertNotNull(getUserRating(userRatingsTable, SKU2_VALUE, "v0-" + USER));
+	}
+
+	/**
+	 * Put the rows written by putting a user rating a number of times: the superseded versions and the
+	 * current one.
+	 */
+	private void putVersions(String sku, String user, int versions, long date) {
+		for(int version = 1; version < versions; version++)
+			putVersion(sku, user, version, date);
+		putCurrent(sku, user, versions, date);
+	}
+
+	private void putVersion(String sku, String user, int version, long date) {
+		userRatingsTable.putItem(createUserRating(sku, "v" + version + "-" + user, version, date));
+	}
+
+	private void putCurrent(String sku, String user, int version, long date) {
+		userRatingsTable.putItem(createUserRating(sku, UserRatingWrite.VERSION_PREFIX + user, version, date));
+	}
+
+	private UserRating getUserRating(DynamoDbTable<UserRating> table, String sku, String user) {
+		return table.getItem(Key.builder().partitionValue(sku).sortValue(user).build());
+	}
+
+	private UserRating createUserRating(String sku, String user, int version, long date) {
+		UserRating userRating = new UserRating();
+		userRating.setSku(sku);
+		userRating.setUser(user);
+		userRating.setVersion((long) version);
+		userRating.setDate(date);
+		userRating.setRating(5L);
+		userRating.setReview("");
+		return userRating;
+	}
+}
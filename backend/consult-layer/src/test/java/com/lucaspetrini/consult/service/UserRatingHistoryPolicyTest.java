@@ -0,0 +1,66 @@
+package com.lucaspetrini.consult.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link UserRatingHistoryPolicy}.
+ */
+class UserRatingHistoryPolicyTest {
+	private static final long NOW = TimeUnit.DAYS.toMillis(100);
+
+	@Test
+	void testNothingExpires_WhenPolicyKeepsAll() {
+		// given
+		UserRatingHistoryPolicy policy = UserRatingHistoryPolicy.keepAll();
+
+		// then
+		assertTrue(policy.keepsAll());
+		assertNull(policy.getExpiresAt(NOW));
+		assertEquals(0, policy.getLastExpiredVersion(50));
+		assertFalse(policy.isExpired(1, 50, 0L, NOW));
+	}
+
+	@Test
+	void testVersionsBeyondTheLastOnesKeptExpire() {
+		// given
+		UserRatingHistoryPolicy policy = new UserRatingHistoryPolicy(3, 0);
+
+		// then
+		assertEquals(0, policy.getLastExpiredVersion(3));
+		assertEquals(2, policy.getLastExpiredVersion(5));
+		assertTrue(policy.isExpired(2, 5, null, NOW));
+		assertFalse(policy.isExpired(3, 5, null, NOW));
+	}
+
+	@Test
+	void testVersionsOlderThanTheDaysKeptExpire() {
+		// given
+		UserRatingHistoryPolicy policy = new UserRatingHistoryPolicy(0, 30);
+
+		// when
+		Long expiresAt = policy.getExpiresAt(TimeUnit.DAYS.toMillis(60));
+
+		// then
+		assertEquals(TimeUnit.DAYS.toSeconds(90), expiresAt);
+		assertFalse(policy.isExpired(1, 1, TimeUnit.DAYS.toMillis(80), NOW));
+		assertTrue(policy.isExpired(1, 1, TimeUnit.DAYS.toMillis(60), NOW));
+		assertNull(policy.getExpiresAt(null));
+	}
+
+	@Test
+	void testIllegalArgumentExceptionIsThrown_WhenLimitIsNegative() {
+		// then
+		assertThrows(IllegalArgumentException.class, () -> {
+			// when
+			new UserRatingHistoryPolicy(-1, 0);
+		});
+	}
+}
@@ -0,0 +1,72 @@
+package com.lucaspetrini.consult.service.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Test;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+/**
+ * Checks the schemas generated at compile time against the bean schemas of the same models, so the keys
+ * and indexes used by the services can't drift from the model annotations.
+ */
+class GeneratedTableSchemaTest {
+
+	@Test
+	void testRatingTableSchemaMatchesBeanSchema() {
+		// given
+		Rating rating = new Rating();
+		rating.setSku("1321123");
+		rating.setVersion(3L);
+		rating.setDate(1650000000000L);
+		rating.setAggregated(14L);
+		rating.setQuantity(4L);
+		rating.setNumberOfReviews(2L);
+		rating.setLatestVersion(3L);
+		TableSchema<Rating> fromBean = TableSchema.fromBean(Rating.class);
+
+		// when
+		TableSchema<Rating> generated = RatingTableSchema.INSTANCE;
+
+		// then
+		assertSameSchema(fromBean, generated, "LSIDate");
+		assertEquals(fromBean.itemToMap(rating, false), generated.itemToMap(rating, false));
+		assertEquals(rating.getLatestVersion(), generated.mapToItem(fromBean.itemToMap(rating, true)).getLatestVersion());
+	}
+
+	@Test
+	void testUserRatingTableSchemaMatchesBeanSchema() {
+		// given
+		UserRating userRating = new UserRating();
+		userRating.setSku("1321123");
+		userRating.setUser("v2-user");
+		userRating.setRating(4L);
+		userRating.setDate(1650000000000L);
+		userRating.setReview("Good");
+		userRating.setVersion(2L);
+		userRating.setExpiresAt(1660000000L);
+		TableSchema<UserRating> fromBean = TableSchema.fromBean(UserRating.class);
+
+		// when
+		TableSchema<UserRating> generated = UserRatingTableSchema.INSTANCE;
+
+		// then
+		assertSameSchema(fromBean, generated, "GSIRating");
+		assertEquals(fromBean.itemToMap(userRating, false), generated.itemToMap(userRating, false));
+		assertEquals(userRating.getReview(), generated.mapToItem(fromBean.itemToMap(userRating, true)).getReview());
+	}
+
+	private <T> void assertSameSchema(TableSchema<T> expected, TableSchema<T> actual, String index) {
+		assertEquals(new HashSet<>(expected.attributeNames()), new HashSet<>(actual.attributeNames()));
+		TableMetadata expectedMetadata = expected.tableMetadata();
+		TableMetadata actualMetadata = actual.tableMetadata();
+		assertEquals(expectedMetadata.primaryPartitionKey(), actualMetadata.primaryPartitionKey());
+		assertEquals(expectedMetadata.primarySortKey(), actualMetadata.primarySortKey());
+		assertEquals(expectedMetadata.indexPartitionKey(index), actualMetadata.indexPartitionKey(index));
+		assertEquals(expectedMetadata.indexSortKey(index), actualMetadata.indexSortKey(index));
+		assertEquals(expectedMetadata.indexKeys(index), actualMetadata.indexKeys(index));
+	}
+}
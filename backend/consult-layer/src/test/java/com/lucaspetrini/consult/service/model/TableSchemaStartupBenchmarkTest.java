@@ -0,0 +1,99 @@
+package com.lucaspetrini.consult.service.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+/**
+ * Compares the time a fresh JVM takes to create the {@link Rating} and {@link UserRating} table schemas
+ * and map a first item, with {@link TableSchema#fromBean(Class)} and with the schemas generated at compile
+ * time. Each measure runs in a new JVM, as bean introspection is only paid once per class loader, on a
+ * Lambda cold start.<br>
+ * Only runs with {@code -Dconsult.benchmark=true}; {@code consult.benchmark.forks} changes the number of
+ * JVMs started for each variant.
+ */
+@EnabledIfSystemProperty(named = "consult.benchmark", matches = "true")
+class TableSchemaStartupBenchmarkTest {
+	private static final int FORKS = Integer.getInteger("consult.benchmark.forks", 10);
+	private static final String BEAN = "bean";
+	private static final String GENERATED = "generated";
+
+	@Test
+	void benchmarkSchemaCreationInNewJvm() throws Exception {
+		// given
+		fork(BEAN);
+		fork(GENERATED);
+
+		// when
+		long[] bean = new long[FORKS];
+		long[] generated = new long[FORKS];
+		for(int i = 0; i < FORKS; i++) {
+			bean[i] = fork(BEAN);
+			generated[i] = fork(GENERATED);
+		}
+
+		// then
+		Arrays.sort(bean);
+		Arrays.sort(generated);
+		System.out.printf("table schemas in a new JVM (%d forks): bean p50 %.2f ms, generated p50 %.2f ms%n",
+				FORKS, bean[FORKS / 2] / 1e6, generated[FORKS / 2] / 1e6);
+		assertTrue(generated[FORKS / 2] < bean[FORKS / 2]);
+	}
+
+	/**
+	 * @return nanoseconds the forked JVM took to create the schemas and map a first item.
+	 */
+	private long fork(String variant) throws IOException, InterruptedException {
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		Process process = new ProcessBuilder(List.of(java, "-cp", System.getProperty("java.class.path"),
+				SchemaStartup.class.getName(), variant)).redirectErrorStream(true).start();
+		String line;
+		String last = null;
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			while((line = reader.readLine()) != null)
+				last = line;
+		}
+		assertEquals(0, process.waitFor(), last);
+		return Long.parseLong(last.trim());
+	}
+
+	/**
+	 * Entry point of the forked JVMs: prints the nanoseconds taken by the given variant.
+	 */
+	static class SchemaStartup {
+		public static void main(String[] args) {
+			long start = System.nanoTime();
+			TableSchema<Rating> ratingSchema;
+			TableSchema<UserRating> userRatingSchema;
+			if(GENERATED.equals(args[0])) {
+				ratingSchema = RatingTableSchema.INSTANCE;
+				userRatingSchema = UserRatingTableSchema.INSTANCE;
+			}
+			else {
+				ratingSchema = TableSchema.fromBean(Rating.class);
+				userRatingSchema = TableSchema.fromBean(UserRating.class);
+			}
+			Rating rating = new Rating();
+			rating.setSku("1321123");
+			rating.setVersion(1L);
+			UserRating userRating = new UserRating();
+			userRating.setSku("1321123");
+			userRating.setUser("user");
+			ratingSchema.itemToMap(rating, true);
+			userRatingSchema.itemToMap(userRating, true);
+			System.out.println(System.nanoTime() - start);
+		}
+	}
+}
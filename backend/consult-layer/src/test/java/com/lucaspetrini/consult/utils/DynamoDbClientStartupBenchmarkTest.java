@@ -0,0 +1,158 @@
+package com.lucaspetrini.consult.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.LoggerFactory;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+/**
+ * Compares the time a fresh JVM takes to create its DynamoDB clients, as services did before the
+ * registry, with {@link DynamoDbClient#create()} walking the region and credential provider chains and
+ * loading the Apache HTTP client and {@link DynamoDbAsyncClient#create()} the default Netty client, and with
+ * {@link DynamoDbClientRegistry#client()} and {@link DynamoDbClientRegistry#asyncClient()}. Each measure
+ * runs in a new JVM, as on a Lambda cold start. The Apache client is no longer a dependency of the layer,
+ * so its jar is taken from the local Maven repository, next to the URL connection client's.<br>
+ * Only runs with {@code -Dconsult.benchmark=true}; {@code consult.benchmark.forks} changes the number of
+ * JVMs started for each variant.
+ */
+@EnabledIfSystemProperty(named = "consult.benchmark", matches = "true")
+class DynamoDbClientStartupBenchmarkTest {
+	private static final int FORKS = Integer.getInteger("consult.benchmark.forks", 10);
+	private static final String DEFAULT = "default";
+	private static final String REGISTRY = "registry";
+	private static final String DEFAULT_ASYNC = "default-async";
+	private static final String REGISTRY_ASYNC = "registry-async";
+	private static final String APACHE_HTTP_SERVICE = "software.amazon.awssdk.http.apache.ApacheSdkHttpService";
+
+	@Test
+	void benchmarkClientCreationInNewJvm() throws Exception {
+		// given
+		String classPath = System.getProperty("java.class.path");
+		String defaultClassPath = withApacheClient(classPath);
+		assumeTrue(defaultClassPath != null, "apache-client jar not found in the local Maven repository");
+		fork(DEFAULT, defaultClassPath);
+		fork(REGISTRY, classPath);
+		fork(DEFAULT_ASYNC, classPath);
+		fork(REGISTRY_ASYNC, classPath);
+
+		// when
+		long[] create = new long[FORKS];
+		long[] registry = new long[FORKS];
+		long[] createAsync = new long[FORKS];
+		long[] registryAsync = new long[FORKS];
+		for(int i = 0; i < FORKS; i++) {
+			create[i] = fork(DEFAULT, defaultClassPath);
+			registry[i] = fork(REGISTRY, classPath);
+			createAsync[i] = fork(DEFAULT_ASYNC, classPath);
+			registryAsync[i] = fork(REGISTRY_ASYNC, classPath);
+		}
+
+		// then
+		System.out.printf("DynamoDB client in a new JVM (%d forks): DynamoDbClient.create() p50 %.2f ms, registry p50 %.2f ms%n",
+				FORKS, p50(create) / 1e6, p50(registry) / 1e6);
+		System.out.printf("DynamoDB async client in a new JVM (%d forks): DynamoDbAsyncClient.create() p50 %.2f ms, registry p50 %.2f ms%n",
+				FORKS, p50(createAsync) / 1e6, p50(registryAsync) / 1e6);
+		// both asynchronous clients use Netty, so only the provider chains differ between them
+		assertTrue(p50(registry) < p50(create));
+	}
+
+	private static long p50(long[] times) {
+		long[] sorted = times.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	/**
+	 * @return class path with the apache-client jar matching the SDK version added, or null if it can't be
+	 *         found.
+	 */
+	private static String withApacheClient(String classPath) {
+		for(String entry : classPath.split(File.pathSeparator)) {
+			Path path = Paths.get(entry);
+			if(!path.getFileName().toString().startsWith("url-connection-client-"))
+				continue;
+			String version = path.getParent().getFileName().toString();
+			Path apacheClient = path.getParent().getParent().getParent().resolve("apache-client").resolve(version)
+					.resolve("apache-client-" + version + ".jar");
+			return Files.exists(apacheClient) ? classPath + File.pathSeparator + apacheClient : null;
+		}
+		return null;
+	}
+
+	/**
+	 * @return nanoseconds the forked JVM took to create the client.
+	 */
+	private long fork(String variant, String classPath) throws IOException, InterruptedException {
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		List<String> command = new ArrayList<>(List.of(java, "-cp", classPath));
+		if(DEFAULT.equals(variant)) {
+			// both HTTP clients are on the class path; before the registry, only the Apache one was
+			command.add("-Dsoftware.amazon.awssdk.http.service.impl=" + APACHE_HTTP_SERVICE);
+		}
+		command.add(ClientStartup.class.getName());
+		command.add(variant);
+		ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+		Map<String, String> environment = builder.environment();
+		environment.putIfAbsent("AWS_REGION", "us-east-1");
+		environment.putIfAbsent(ConsultConstants.ENV_DYNAMO_REGION, environment.get("AWS_REGION"));
+		environment.putIfAbsent("AWS_ACCESS_KEY_ID", "key");
+		environment.putIfAbsent("AWS_SECRET_ACCESS_KEY", "secret");
+		Process process = builder.start();
+		String line;
+		String last = null;
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			while((line = reader.readLine()) != null)
+				last = line;
+		}
+		assertEquals(0, process.waitFor(), last);
+		return Long.parseLong(last.trim());
+	}
+
+	/**
+	 * Entry point of the forked JVMs: prints the nanoseconds taken by the given variant.
+	 */
+	static class ClientStartup {
+		public static void main(String[] args) {
+			// logging is initialised by the handler before any client is created
+			LoggerFactory.getLogger(ClientStartup.class).info("Creating DynamoDB client: {}", args[0]);
+			long start = System.nanoTime();
+			SdkAutoCloseable client = create(args[0]);
+			long elapsed = System.nanoTime() - start;
+			client.close();
+			System.out.println(elapsed);
+		}
+
+		private static SdkAutoCloseable create(String variant) {
+			switch(variant) {
+			case DEFAULT:
+				return DynamoDbClient.create();
+			case REGISTRY:
+				return DynamoDbClientRegistry.client();
+			case DEFAULT_ASYNC:
+				return DynamoDbAsyncClient.create();
+			default:
+				return DynamoDbClientRegistry.asyncClient();
+			}
+		}
+	}
+}
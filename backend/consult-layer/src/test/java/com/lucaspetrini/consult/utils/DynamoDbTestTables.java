@@ -0,0 +1,161 @@
+package com.lucaspetrini.consult.utils;
+
+import java.net.URI;
+
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.LocalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
+import software.amazon.awssdk.services.dynamodb.model.StreamSpecification;
+import software.amazon.awssdk.services.dynamodb.model.StreamViewType;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+/**
+ * Clients and tables for tests running against the server started by {@link DynamoDBExtension}. Tables
+ * have the same keys and indexes as the ones declared in the SAM template.
+ */
+public final class DynamoDbTestTables {
+	public static final String TABLE_NAME_RATINGS = "ratings";
+	public static final String TABLE_NAME_USER_RATINGS = "user_ratings";
+	public static final String TABLE_NAME_RATING_HISTORY = "rating_history";
+	public static final String TABLE_NAME_USER_RATING_ARCHIVE = "user_rating_archive";
+	private static final String SKU = "sku";
+	private static final String USER = "user";
+	private static final String RATING = "rating";
+	private static final String DATE = "date";
+	private static final String VERSION = "version";
+	private static final String LSI_DATE = "LSIDate";
+	private static final String GSI_RATING = "GSIRating";
+
+	private DynamoDbTestTables() {}
+
+	/**
+	 * @return client for the local server.
+	 */
+	public static DynamoDbClient client() {
+		return DynamoDbClient.builder().region(Region.US_EAST_1).endpointOverride(endpoint()).build();
+	}
+
+	/**
+	 * @return asynchronous client for the local server.
+	 */
+	public static DynamoDbAsyncClient asyncClient() {
+		return DynamoDbAsyncClient.builder().region(Region.US_EAST_1).endpointOverride(endpoint()).build();
+	}
+
+	/**
+	 * @return streams client for the local server.
+	 */
+	public static DynamoDbStreamsClient streamsClient() {
+		return DynamoDbStreamsClient.builder().region(Region.US_EAST_1).endpointOverride(endpoint()).build();
+	}
+
+	/**
+	 * Create the ratings table.
+	 *
+	 * @param client client.
+	 */
+	public static void createRatingsTable(DynamoDbClient client) {
+		client.createTable(CreateTableRequest.builder().tableName(TABLE_NAME_RATINGS)
+				.attributeDefinitions(
+						AttributeDefinition.builder().attributeName(SKU).attributeType("S").build(),
+						AttributeDefinition.builder().attributeName(VERSION).attributeType("N").build(),
+						AttributeDefinition.builder().attributeName(DATE).attributeType("N").build())
+				.keySchema(KeySchemaElement.builder().attributeName(SKU).keyType("HASH").build(),
+						KeySchemaElement.builder().attributeName(VERSION).keyType("RANGE").build())
+				.localSecondaryIndexes(dateIndex())
+				.provisionedThroughput(throughput())
+				.build());
+	}
+
+	/**
+	 * Create the rating history table, with the same keys as the ratings table.
+	 *
+	 * @param client client.
+	 */
+	public static void createRatingHistoryTable(DynamoDbClient client) {
+		client.createTable(CreateTableRequest.builder().tableName(TABLE_NAME_RATING_HISTORY)
+				.attributeDefinitions(
+						AttributeDefinition.builder().attributeName(SKU).attributeType("S").build(),
+						AttributeDefinition.builder().attributeName(VERSION).attributeType("N").build())
+				.keySchema(KeySchemaElement.builder().attributeName(SKU).keyType("HASH").build(),
+						KeySchemaElement.builder().attributeName(VERSION).keyType("RANGE").build())
+				.provisionedThroughput(throughput())
+				.build());
+	}
+
+	/**
+	 * Create the user ratings table, with a stream of old and new images.
+	 *
+	 * @param client client.
+	 */
+	public static void createUserRatingsTable(DynamoDbClient client) {
+		client.createTable(CreateTableRequest.builder().tableName(TABLE_NAME_USER_RATINGS)
+				.attributeDefinitions(
+						AttributeDefinition.builder().attributeName(SKU).attributeType("S").build(),
+						AttributeDefinition.builder().attributeName(USER).attributeType("S").build(),
+						AttributeDefinition.builder().attributeName(RATING).attributeType("N").build(),
+						AttributeDefinition.builder().attributeName(DATE).attributeType("N").build())
+				.keySchema(KeySchemaElement.builder().attributeName(SKU).keyType("HASH").build(),
+						KeySchemaElement.builder().attributeName(USER).keyType("RANGE").build())
+				.localSecondaryIndexes(dateIndex())
+				.globalSecondaryIndexes(GlobalSecondaryIndex.builder().indexName(GSI_RATING)
+						.keySchema(KeySchemaElement.builder().attributeName(USER).keyType("HASH").build(),
+								KeySchemaElement.builder().attributeName(RATING).keyType("RANGE").build())
+						.projection(Projection.builder().projectionType("INCLUDE").nonKeyAttributes(SKU, DATE).build())
+						.provisionedThroughput(throughput())
+						.build())
+				.streamSpecification(StreamSpecification.builder().streamEnabled(true)
+						.streamViewType(StreamViewType.NEW_AND_OLD_IMAGES).build())
+				.provisionedThroughput(throughput())
+				.build());
+	}
+
+	/**
+	 * Create the user rating archive table, with the same keys as the user ratings table.
+	 *
+	 * @param client client.
+	 */
+	public static void createUserRatingArchiveTable(DynamoDbClient client) {
+		client.createTable(CreateTableRequest.builder().tableName(TABLE_NAME_USER_RATING_ARCHIVE)
+				.attributeDefinitions(
+						AttributeDefinition.builder().attributeName(SKU).attributeType("S").build(),
+						AttributeDefinition.builder().attributeName(USER).attributeType("S").build())
+				.keySchema(KeySchemaElement.builder().attributeName(SKU).keyType("HASH").build(),
+						KeySchemaElement.builder().attributeName(USER).keyType("RANGE").build())
+				.provisionedThroughput(throughput())
+				.build());
+	}
+
+	/**
+	 * Delete every table.
+	 *
+	 * @param client client.
+	 */
+	public static void deleteTables(DynamoDbClient client) {
+		client.listTables().tableNames().stream()
+				.map(name -> DeleteTableRequest.builder().tableName(name).build()).forEach(client::deleteTable);
+	}
+
+	private static URI endpoint() {
+		return URI.create("http://localhost:" + DynamoDBExtension.SERVER_PORT);
+	}
+
+	private static LocalSecondaryIndex dateIndex() {
+		return LocalSecondaryIndex.builder().indexName(LSI_DATE)
+				.keySchema(KeySchemaElement.builder().attributeName(SKU).keyType("HASH").build(),
+						KeySchemaElement.builder().attributeName(DATE).keyType("RANGE").build())
+				.projection(Projection.builder().projectionType("ALL").build()).build();
+	}
+
+	private static ProvisionedThroughput throughput() {
+		return ProvisionedThroughput.builder().readCapacityUnits(10l).writeCapacityUnits(10l).build();
+	}
+}
@@ -0,0 +1,82 @@
+package com.lucaspetrini.consult.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.crac.CheckpointException;
+import org.crac.Context;
+import org.crac.Resource;
+import org.crac.RestoreException;
+
+/**
+ * Checkpoint/restore context that simulates snapshot-based startup locally: resources registered during
+ * init are notified of a checkpoint in reverse order of registration, then of a restore in order of
+ * registration, as the runtime does around a snapshot.
+ */
+public class LifecycleSimulator extends Context<Resource> {
+	private final List<Resource> resources = new ArrayList<>();
+	private int checkpoints;
+	private int restores;
+
+	@Override
+	public void register(Resource resource) {
+		resources.add(resource);
+	}
+
+	/**
+	 * Take a snapshot of the registered resources and restore it.
+	 *
+	 * @throws CheckpointException if any resource failed before the checkpoint.
+	 * @throws RestoreException if any resource failed after the restore.
+	 */
+	public void checkpointAndRestore() throws CheckpointException, RestoreException {
+		beforeCheckpoint(null);
+		afterRestore(null);
+	}
+
+	@Override
+	public void beforeCheckpoint(Context<? extends Resource> context) throws CheckpointException {
+		CheckpointException failure = null;
+		for(int i = resources.size() - 1; i >= 0; i--) {
+			try {
+				resources.get(i).beforeCheckpoint(this);
+			} catch (Exception e) {
+				if(failure == null)
+					failure = new CheckpointException();
+				failure.addSuppressed(e);
+			}
+		}
+		if(failure != null)
+			throw failure;
+		checkpoints++;
+	}
+
+	@Override
+	public void afterRestore(Context<? extends Resource> context) throws RestoreException {
+		RestoreException failure = null;
+		for(Resource resource : resources) {
+			try {
+				resource.afterRestore(this);
+			} catch (Exception e) {
+				if(failure == null)
+					failure = new RestoreException();
+				failure.addSuppressed(e);
+			}
+		}
+		if(failure != null)
+			throw failure;
+		restores++;
+	}
+
+	public List<Resource> getResources() {
+		return resources;
+	}
+
+	public int getCheckpoints() {
+		return checkpoints;
+	}
+
+	public int getRestores() {
+		return restores;
+	}
+}
@@ -0,0 +1,121 @@
+package com.lucaspetrini.consult.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent.DynamodbStreamRecord;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamViewType;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.Shard;
+import software.amazon.awssdk.services.dynamodb.model.ShardIteratorType;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+/**
+ * Reads the stream of a table on the server started by {@link DynamoDBExtension} and turns its records
+ * into the {@link DynamodbEvent events} Lambda delivers, so stream handlers can be tested against the
+ * records real writes produce.
+ */
+public class StreamReplayer {
+	private static final String EVENT_SOURCE = "aws:dynamodb";
+
+	private final DynamoDbStreamsClient streamsClient;
+	private final String streamArn;
+
+	/**
+	 * Reads the stream of a table.
+	 *
+	 * @param client client.
+	 * @param streamsClient streams client.
+	 * @param tableName name of a table with a stream enabled.
+	 */
+	public StreamReplayer(DynamoDbClient client, DynamoDbStreamsClient streamsClient, String tableName) {
+		this.streamsClient = streamsClient;
+		this.streamArn = client.describeTable(DescribeTableRequest.builder().tableName(tableName).build()).table().latestStreamArn();
+	}
+
+	/**
+	 * Read every record in the stream, from the oldest one.
+	 *
+	 * @return records, in stream order.
+	 */
+	public List<DynamodbStreamRecord> readAll() {
+		List<DynamodbStreamRecord> records = new ArrayList<>();
+		for(Shard shard : streamsClient.describeStream(DescribeStreamRequest.builder().streamArn(streamArn).build())
+				.streamDescription().shards()) {
+			String iterator = streamsClient.getShardIterator(GetShardIteratorRequest.builder().streamArn(streamArn)
+					.shardId(shard.shardId()).shardIteratorType(ShardIteratorType.TRIM_HORIZON).build()).shardIterator();
+			while(iterator != null) {
+				GetRecordsResponse response = streamsClient.getRecords(GetRecordsRequest.builder().shardIterator(iterator).build());
+				// open shards keep returning an iterator, so an empty page means the end was reached
+				if(!response.hasRecords() || response.records().isEmpty())
+					break;
+				response.records().stream().map(StreamReplayer::toStreamRecord).forEach(records::add);
+				iterator = response.nextShardIterator();
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Split records into the batches Lambda would deliver.
+	 *
+	 * @param records records, in stream order.
+	 * @param batchSize maximum number of records per batch.
+	 * @return events, in stream order.
+	 */
+	public static List<DynamodbEvent> toEvents(List<DynamodbStreamRecord> records, int batchSize) {
+		List<DynamodbEvent> events = new ArrayList<>();
+		for(int i = 0; i < records.size(); i += batchSize) {
+			DynamodbEvent event = new DynamodbEvent();
+			event.setRecords(new ArrayList<>(records.subList(i, Math.min(records.size(), i + batchSize))));
+			events.add(event);
+		}
+		return events;
+	}
+
+	private static DynamodbStreamRecord toStreamRecord(Record record) {
+		software.amazon.awssdk.services.dynamodb.model.StreamRecord dynamodb = record.dynamodb();
+		StreamRecord streamRecord = new StreamRecord();
+		streamRecord.setKeys(toAttributeValues(dynamodb.keys()));
+		streamRecord.setNewImage(dynamodb.hasNewImage() ? toAttributeValues(dynamodb.newImage()) : null);
+		streamRecord.setOldImage(dynamodb.hasOldImage() ? toAttributeValues(dynamodb.oldImage()) : null);
+		streamRecord.setSequenceNumber(dynamodb.sequenceNumber());
+		streamRecord.setStreamViewType(StreamViewType.fromValue(dynamodb.streamViewTypeAsString()));
+		DynamodbStreamRecord streamEventRecord = new DynamodbStreamRecord();
+		streamEventRecord.setEventID(record.eventID());
+		streamEventRecord.setEventName(record.eventNameAsString());
+		streamEventRecord.setEventSource(EVENT_SOURCE);
+		streamEventRecord.setDynamodb(streamRecord);
+		return streamEventRecord;
+	}
+
+	private static Map<String, AttributeValue> toAttributeValues(Map<String, software.amazon.awssdk.services.dynamodb.model.AttributeValue> item) {
+		Map<String, AttributeValue> values = new HashMap<>();
+		for(Map.Entry<String, software.amazon.awssdk.services.dynamodb.model.AttributeValue> entry : item.entrySet()) {
+			software.amazon.awssdk.services.dynamodb.model.AttributeValue value = entry.getValue();
+			AttributeValue converted = new AttributeValue();
+			if(value.s() != null)
+				converted.setS(value.s());
+			else if(value.n() != null)
+				converted.setN(value.n());
+			else if(value.bool() != null)
+				converted.setBOOL(value.bool());
+			else if(value.nul() != null)
+				converted.setNULL(value.nul());
+			values.put(entry.getKey(), converted);
+		}
+		return values;
+	}
+}
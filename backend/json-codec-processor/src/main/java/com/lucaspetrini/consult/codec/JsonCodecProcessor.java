@@ -0,0 +1,375 @@
+package com.lucaspetrini.consult.codec;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {@code JsonCodec} for every class annotated with {@code @GenerateJsonCodec}, so request
+ * and response bodies are read and written without reflection.<br>
+ * The codec of a class {@code Foo} is the {@code INSTANCE} constant of the generated class
+ * {@code FooJsonCodec}, in the same package. Like Gson, it maps every non static, non transient field,
+ * the class' own fields before its superclasses', named after the field or its {@code @SerializedName},
+ * and leaves null values out. Fields are accessed through their public getter and setter and may be
+ * strings, numbers, booleans, other annotated classes, or lists of those; anything else fails the
+ * build.
+ */
+@SupportedAnnotationTypes(JsonCodecProcessor.GENERATE_JSON_CODEC)
+public class JsonCodecProcessor extends AbstractProcessor {
+	static final String GENERATE_JSON_CODEC = "com.lucaspetrini.consult.mapper.GenerateJsonCodec";
+	static final String CODEC_SUFFIX = "JsonCodec";
+	private static final String MAPPER_PACKAGE = "com.lucaspetrini.consult.mapper.";
+	private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for(TypeElement annotation : annotations) {
+			for(Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				TypeElement type = (TypeElement) element;
+				if(element.getKind() != ElementKind.CLASS || type.getNestingKind() != NestingKind.TOP_LEVEL
+						|| type.getModifiers().contains(Modifier.ABSTRACT) || !type.getTypeParameters().isEmpty()) {
+					error(element, "@GenerateJsonCodec must annotate a top level, concrete, non generic class.");
+					continue;
+				}
+				List<Property> properties = getProperties(type);
+				if(properties == null || !hasPublicNoArgConstructor(type))
+					continue;
+				try {
+					write(type, properties);
+				} catch (IOException e) {
+					error(type, "Could not write JSON codec: " + e.getMessage());
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return properties of the class, in Gson's order, or null if any of them can't be mapped.
+	 */
+	private List<Property> getProperties(TypeElement type) {
+		List<Property> properties = new ArrayList<>();
+		boolean valid = true;
+		for(TypeElement current = type; current != null && !current.getQualifiedName().contentEquals(Object.class.getName());
+				current = superclass(current)) {
+			for(VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+				if(field.getModifiers().contains(Modifier.STATIC) || field.getModifiers().contains(Modifier.TRANSIENT))
+					continue;
+				Property property = toProperty(type, field);
+				if(property == null)
+					valid = false;
+				else
+					properties.add(property);
+			}
+		}
+		return valid ? properties : null;
+	}
+
+	private Property toProperty(TypeElement type, VariableElement field) {
+		String fieldName = field.getSimpleName().toString();
+		TypeMirror fieldType = field.asType();
+		Kind kind = toKind(fieldType);
+		Kind elementKind = null;
+		String elementType = null;
+		if(kind == Kind.LIST) {
+			TypeMirror element = ((DeclaredType) fieldType).getTypeArguments().get(0);
+			elementKind = toKind(element);
+			if(elementKind == null || elementKind == Kind.LIST || element.getKind().isPrimitive()) {
+				error(field, "Unsupported list element type " + element + ".");
+				return null;
+			}
+			elementType = element.toString();
+		}
+		else if(kind == null) {
+			error(field, "Unsupported field type " + fieldType + ": use strings, numbers, booleans, @GenerateJsonCodec classes or lists of those.");
+			return null;
+		}
+		String suffix = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+		String getter = findMethod(type, "get" + suffix, 0, fieldType);
+		if(getter == null && kind == Kind.BOOLEAN && fieldType.getKind() == TypeKind.BOOLEAN)
+			getter = findMethod(type, "is" + suffix, 0, fieldType);
+		String setter = findMethod(type, "set" + suffix, 1, fieldType);
+		if(getter == null || setter == null) {
+			error(field, "Field " + fieldName + " needs a public getter and setter.");
+			return null;
+		}
+		String name = fieldName;
+		for(AnnotationMirror mirror : field.getAnnotationMirrors()) {
+			if(((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(SERIALIZED_NAME))
+				name = (String) getValue(mirror, "value");
+		}
+		return new Property(name, fieldName, fieldType.toString(), kind, fieldType.getKind().isPrimitive(), getter, setter,
+				elementKind, elementType);
+	}
+
+	private Kind toKind(TypeMirror type) {
+		switch(type.getKind()) {
+		case LONG:
+			return Kind.LONG;
+		case INT:
+			return Kind.INTEGER;
+		case DOUBLE:
+			return Kind.DOUBLE;
+		case BOOLEAN:
+			return Kind.BOOLEAN;
+		case DECLARED:
+			break;
+		default:
+			return null;
+		}
+		TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+		String name = element.getQualifiedName().toString();
+		switch(name) {
+		case "java.lang.String":
+			return Kind.STRING;
+		case "java.lang.Long":
+			return Kind.LONG;
+		case "java.lang.Integer":
+			return Kind.INTEGER;
+		case "java.lang.Double":
+			return Kind.DOUBLE;
+		case "java.lang.Boolean":
+			return Kind.BOOLEAN;
+		case "java.util.List":
+			return ((DeclaredType) type).getTypeArguments().size() == 1 ? Kind.LIST : null;
+		default:
+			return hasAnnotation(element, GENERATE_JSON_CODEC) ? Kind.CODEC : null;
+		}
+	}
+
+	private boolean hasPublicNoArgConstructor(TypeElement type) {
+		for(ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if(constructor.getModifiers().contains(Modifier.PUBLIC) && constructor.getParameters().isEmpty())
+				return true;
+		}
+		error(type, "@GenerateJsonCodec classes must have a public no-arg constructor.");
+		return false;
+	}
+
+	private void write(TypeElement type, List<Property> properties) throws IOException {
+		String packageName = ((PackageElement) processingEnv.getElementUtils().getPackageOf(type)).getQualifiedName().toString();
+		String typeName = type.getSimpleName().toString();
+		String codecName = typeName + CODEC_SUFFIX;
+		StringBuilder source = new StringBuilder();
+		if(!packageName.isEmpty())
+			source.append("package ").append(packageName).append(";\n\n");
+		source.append("import java.io.IOException;\n\n")
+				.append("import javax.annotation.processing.Generated;\n\n")
+				.append("import com.google.gson.stream.JsonReader;\n")
+				.append("import com.google.gson.stream.JsonToken;\n")
+				.append("import ").append(MAPPER_PACKAGE).append("JsonByteWriter;\n")
+				.append("import ").append(MAPPER_PACKAGE).append("JsonCodec;\n")
+				.append("import ").append(MAPPER_PACKAGE).append("JsonCodecs;\n\n")
+				.append("/**\n * {@link JsonCodec} of {@link ").append(typeName).append("}, generated from its fields.\n */\n")
+				.append("@Generated(\"").append(JsonCodecProcessor.class.getName()).append("\")\n")
+				.append("public final class ").append(codecName).append(" implements JsonCodec<").append(typeName).append("> {\n")
+				.append("\tpublic static final ").append(codecName).append(" INSTANCE = new ").append(codecName).append("();\n");
+		for(Property property : properties)
+			source.append("\tprivate static final byte[] ").append(property.constant()).append(" = JsonByteWriter.encodeName(\"")
+					.append(escape(property.name)).append("\");\n");
+		source.append("\n\tprivate ").append(codecName).append("() {}\n\n")
+				.append("\t@Override\n\tpublic Class<").append(typeName).append("> getType() {\n")
+				.append("\t\treturn ").append(typeName).append(".class;\n\t}\n\n");
+		writeWriteMethod(source, typeName, properties);
+		writeReadMethod(source, typeName, properties);
+		source.append("}\n");
+		String qualifiedName = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+		try(Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+			writer.write(source.toString());
+		}
+	}
+
+	private void writeWriteMethod(StringBuilder source, String typeName, List<Property> properties) {
+		source.append("\t@Override\n\tpublic void write(JsonByteWriter writer, ").append(typeName).append(" value) {\n")
+				.append("\t\tif(value == null) {\n\t\t\twriter.nullValue();\n\t\t\treturn;\n\t\t}\n")
+				.append("\t\twriter.beginObject();\n");
+		for(Property property : properties) {
+			String local = "_" + property.fieldName;
+			if(property.primitive) {
+				source.append("\t\twriter.name(").append(property.constant()).append(").value(value.").append(property.getter).append("());\n");
+				continue;
+			}
+			source.append("\t\t").append(property.type).append(' ').append(local).append(" = value.").append(property.getter).append("();\n")
+					.append("\t\tif(").append(local).append(" != null) {\n")
+					.append("\t\t\twriter.name(").append(property.constant()).append(");\n");
+			if(property.kind == Kind.LIST) {
+				source.append("\t\t\twriter.beginArray();\n")
+						.append("\t\t\tfor(").append(property.elementType).append(" item : ").append(local).append(")\n")
+						.append("\t\t\t\t").append(writeValue(property.elementKind, property.elementType, "item")).append(";\n")
+						.append("\t\t\twriter.endArray();\n");
+			}
+			else
+				source.append("\t\t\t").append(writeValue(property.kind, property.type, local)).append(";\n");
+			source.append("\t\t}\n");
+		}
+		source.append("\t\twriter.endObject();\n\t}\n\n");
+	}
+
+	private void writeReadMethod(StringBuilder source, String typeName, List<Property> properties) {
+		source.append("\t@Override\n\tpublic ").append(typeName).append(" read(JsonReader reader) throws IOException {\n")
+				.append("\t\tif(reader.peek() == JsonToken.NULL) {\n\t\t\treader.nextNull();\n\t\t\treturn null;\n\t\t}\n")
+				.append("\t\t").append(typeName).append(" value = new ").append(typeName).append("();\n")
+				.append("\t\treader.beginObject();\n")
+				.append("\t\twhile(reader.hasNext()) {\n");
+		if(properties.isEmpty())
+			source.append("\t\t\treader.nextName();\n\t\t\treader.skipValue();\n");
+		else {
+			source.append("\t\t\tswitch(reader.nextName()) {\n");
+			for(Property property : properties) {
+				source.append("\t\t\tcase \"").append(escape(property.name)).append("\":\n");
+				String read = property.kind == Kind.LIST
+						? "JsonCodecs.readList(reader, " + valueReader(property.elementKind, property.elementType) + ")"
+						: readValue(property.kind, property.type);
+				if(property.primitive) {
+					String boxed = boxed(property.kind);
+					source.append("\t\t\t\t").append(boxed).append(" _").append(property.fieldName).append(" = ").append(read).append(";\n")
+							.append("\t\t\t\tif(_").append(property.fieldName).append(" != null)\n")
+							.append("\t\t\t\t\tvalue.").append(property.setter).append("(_").append(property.fieldName).append(");\n");
+				}
+				else
+					source.append("\t\t\t\tvalue.").append(property.setter).append('(').append(read).append(");\n");
+				source.append("\t\t\t\tbreak;\n");
+			}
+			source.append("\t\t\tdefault:\n\t\t\t\treader.skipValue();\n\t\t\t}\n");
+		}
+		source.append("\t\t}\n\t\treader.endObject();\n\t\treturn value;\n\t}\n");
+	}
+
+	private static String writeValue(Kind kind, String type, String expression) {
+		return kind == Kind.CODEC ? codecOf(type) + ".INSTANCE.write(writer, " + expression + ")" : "writer.value(" + expression + ")";
+	}
+
+	private static String readValue(Kind kind, String type) {
+		return kind == Kind.CODEC ? codecOf(type) + ".INSTANCE.read(reader)" : "JsonCodecs.read" + boxed(kind) + "(reader)";
+	}
+
+	private static String valueReader(Kind kind, String type) {
+		return kind == Kind.CODEC ? codecOf(type) + ".INSTANCE" : "JsonCodecs::read" + boxed(kind);
+	}
+
+	private static String codecOf(String type) {
+		return type + CODEC_SUFFIX;
+	}
+
+	private static String boxed(Kind kind) {
+		switch(kind) {
+		case STRING:
+			return "String";
+		case LONG:
+			return "Long";
+		case INTEGER:
+			return "Integer";
+		case DOUBLE:
+			return "Double";
+		case BOOLEAN:
+			return "Boolean";
+		default:
+			throw new IllegalArgumentException("No boxed type for " + kind);
+		}
+	}
+
+	private TypeElement superclass(TypeElement type) {
+		TypeMirror superclass = type.getSuperclass();
+		return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+	}
+
+	/**
+	 * @return name of the public instance method of the class, or its superclasses, with the given name
+	 * that gets or sets a value of the given type, or null if there is none.
+	 */
+	private String findMethod(TypeElement type, String name, int parameters, TypeMirror valueType) {
+		for(ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+			if(!method.getSimpleName().contentEquals(name) || method.getParameters().size() != parameters
+					|| !method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC))
+				continue;
+			TypeMirror methodType = parameters == 0 ? method.getReturnType() : method.getParameters().get(0).asType();
+			if(processingEnv.getTypeUtils().isSameType(methodType, valueType))
+				return name;
+		}
+		return null;
+	}
+
+	private static boolean hasAnnotation(Element element, String annotation) {
+		for(AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			if(((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation))
+				return true;
+		}
+		return false;
+	}
+
+	private static Object getValue(AnnotationMirror mirror, String name) {
+		for(java.util.Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+			if(entry.getKey().getSimpleName().contentEquals(name))
+				return entry.getValue().getValue();
+		}
+		return null;
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+	private enum Kind {
+		STRING, LONG, INTEGER, DOUBLE, BOOLEAN, CODEC, LIST
+	}
+
+	private static class Property {
+		private final String name;
+		private final String fieldName;
+		private final String type;
+		private final Kind kind;
+		private final boolean primitive;
+		private final String getter;
+		private final String setter;
+		private final Kind elementKind;
+		private final String elementType;
+
+		private Property(String name, String fieldName, String type, Kind kind, boolean primitive, String getter, String setter,
+				Kind elementKind, String elementType) {
+			this.name = name;
+			this.fieldName = fieldName;
+			this.type = type;
+			this.kind = kind;
+			this.primitive = primitive;
+			this.getter = getter;
+			this.setter = setter;
+			this.elementKind = elementKind;
+			this.elementType = elementType;
+		}
+
+		private String constant() {
+			return "NAME_" + fieldName.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.lucaspetrini.consult.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.lucaspetrini.consult.mapper.CodecObjectMapper;
+import com.lucaspetrini.consult.mapper.JsonCodec;
+import com.lucaspetrini.consult.mapper.JsonObjectMapper;
+
+/**
+ * Tests for {@link JsonCodecProcessor}.
+ */
+class JsonCodecProcessorTest {
+	private static final String PACKAGE = "com.lucaspetrini.consult.sample";
+	private static final String BASE = "public class Base {\n"
+			+ "	private String id;\n"
+			+ "	public String getId() { return id; }\n"
+			+ "	public void setId(String id) { this.id = id; }\n"
+			+ "}\n";
+	private static final String ITEM = "@com.lucaspetrini.consult.mapper.GenerateJsonCodec public class Item {\n"
+			+ "	private Double score;\n"
+			+ "	public Double getScore() { return score; }\n"
+			+ "	public void setScore(Double score) { this.score = score; }\n"
+			+ "}\n";
+	private static final String SAMPLE = "@com.lucaspetrini.consult.mapper.GenerateJsonCodec public class Sample extends Base {\n"
+			+ "	private static final String IGNORED = \"static\";\n"
+			+ "	private int count; private boolean active; private Long date; private transient String cache;\n"
+			+ "	@com.google.gson.annotations.SerializedName(\"full_name\") private String name;\n"
+			+ "	private Item item; private java.util.List<Item> items; private java.util.List<String> tags;\n"
+			+ "	public int getCount() { return count; }\n"
+			+ "	public void setCount(int count) { this.count = count; }\n"
+			+ "	public boolean isActive() { return active; }\n"
+			+ "	public void setActive(boolean active) { this.active = active; }\n"
+			+ "	public Long getDate() { return date; }\n"
+			+ "	public void setDate(Long date) { this.date = date; }\n"
+			+ "	public String getName() { return name; }\n"
+			+ "	public void setName(String name) { this.name = name; }\n"
+			+ "	public Item getItem() { return item; }\n"
+			+ "	public void setItem(Item item) { this.item = item; }\n"
+			+ "	public java.util.List<Item> getItems() { return items; }\n"
+			+ "	public void setItems(java.util.List<Item> items) { this.items = items; }\n"
+			+ "	public java.util.List<String> getTags() { return tags; }\n"
+			+ "	public void setTags(java.util.List<String> tags) { this.tags = tags; }\n"
+			+ "}\n";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testGeneratedCodecMatchesGson() throws Exception {
+		// given
+		String output = compile(List.of("Base", "Item", "Sample"), List.of(BASE, ITEM, SAMPLE));
+		String body = "{\"count\":3,\"active\":true,\"date\":1652140800000,\"full_name\":\"<Lucas> & \\\"Co\\\"\",\"item\":{\"score\":4.5},"
+				+ "\"items\":[{\"score\":1.0},{}],\"tags\":[\"a\",\"b\"],\"id\":\"1321123\"}";
+
+		// when / then
+		assertEquals("", output);
+		try(URLClassLoader loader = new URLClassLoader(new URL[] { directory.toUri().toURL() }, getClass().getClassLoader())) {
+			Class<?> sample = loader.loadClass(PACKAGE + ".Sample");
+			CodecObjectMapper mapper = new CodecObjectMapper()
+					.withCodec(codec(loader, "Sample"))
+					.withCodec(codec(loader, "Item"));
+			JsonObjectMapper gson = new JsonObjectMapper();
+			Object parsed = mapper.deserialise(body, sample);
+			assertEquals(gson.serialise(gson.deserialise(body, sample)), mapper.serialise(parsed));
+			assertEquals(gson.serialise(gson.deserialise(body, sample)), gson.serialise(parsed));
+			Object empty = mapper.deserialise("{\"unknown\":[1,{\"a\":null}],\"count\":null}", sample);
+			assertEquals(gson.serialise(empty), mapper.serialise(empty));
+			assertEquals("{\"count\":0,\"active\":false}", mapper.serialise(empty));
+		}
+	}
+
+	@Test
+	void testProcessFailsOnUnsupportedFieldType() throws Exception {
+		// given
+		String source = "@com.lucaspetrini.consult.mapper.GenerateJsonCodec public class Unsupported {\n"
+				+ "	private java.util.Map<String, String> values;\n"
+				+ "	public java.util.Map<String, String> getValues() { return values; }\n"
+				+ "	public void setValues(java.util.Map<String, String> values) { this.values = values; }\n"
+				+ "}\n";
+
+		// when
+		String output = compile(List.of("Unsupported"), List.of(source));
+
+		// then
+		assertTrue(output.contains("Unsupported field type"), output);
+		assertFalse(Files.exists(directory.resolve(PACKAGE.replace('.', '/')).resolve("Unsupported" + JsonCodecProcessor.CODEC_SUFFIX + ".class")));
+	}
+
+	@Test
+	void testProcessFailsWithoutAccessors() throws Exception {
+		// given
+		String source = "@com.lucaspetrini.consult.mapper.GenerateJsonCodec public class Hidden {\n"
+				+ "	private String code;\n"
+				+ "	public String getCode() { return code; }\n"
+				+ "}\n";
+
+		// when
+		String output = compile(List.of("Hidden"), List.of(source));
+
+		// then
+		assertTrue(output.contains("needs a public getter and setter"), output);
+	}
+
+	@Test
+	void testProcessFailsWithoutPublicNoArgConstructor() throws Exception {
+		// given
+		String source = "@com.lucaspetrini.consult.mapper.GenerateJsonCodec public class Immutable {\n"
+				+ "	private String code;\n"
+				+ "	public Immutable(String code) { this.code = code; }\n"
+				+ "	public String getCode() { return code; }\n"
+				+ "	public void setCode(String code) { this.code = code; }\n"
+				+ "}\n";
+
+		// when
+		String output = compile(List.of("Immutable"), List.of(source));
+
+		// then
+		assertTrue(output.contains("public no-arg constructor"), output);
+	}
+
+	private static JsonCodec<?> codec(ClassLoader loader, String className) throws ReflectiveOperationException {
+		return (JsonCodec<?>) loader.loadClass(PACKAGE + "." + className + JsonCodecProcessor.CODEC_SUFFIX).getField("INSTANCE").get(null);
+	}
+
+	/**
+	 * Compile the classes with the processor into the temporary directory.
+	 *
+	 * @return compiler diagnostics.
+	 */
+	private String compile(List<String> classNames, List<String> sources) throws IOException {
+		Path[] files = new Path[classNames.size()];
+		for(int i = 0; i < files.length; i++) {
+			files[i] = directory.resolve(classNames.get(i) + ".java");
+			Files.writeString(files[i], "package " + PACKAGE + ";\n" + sources.get(i));
+		}
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StringWriter output = new StringWriter();
+		try(StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+			Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(files);
+			List<String> options = List.of("-classpath", System.getProperty("java.class.path"), "-d", directory.toString());
+			JavaCompiler.CompilationTask task = compiler.getTask(output, fileManager, null, options, null, units);
+			task.setProcessors(List.of(new JsonCodecProcessor()));
+			task.call();
+		}
+		return output.toString().trim();
+	}
+}
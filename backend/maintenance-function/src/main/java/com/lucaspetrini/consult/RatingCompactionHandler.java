@@ -0,0 +1,57 @@
+package com.lucaspetrini.consult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.lucaspetrini.consult.request.CompactRatingsRequest;
+import com.lucaspetrini.consult.response.CompactRatingsResponse;
+import com.lucaspetrini.consult.service.RatingCompactor;
+import com.lucaspetrini.consult.service.RatingCompactor.CompactionPage;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+import com.lucaspetrini.consult.utils.EnvironmentUtils;
+
+/**
+ * Handler for the job collapsing rating version rows into head items, invoked directly. A whole table is
+ * compacted by invoking it again with the returned next code until it's null.
+ */
+public class RatingCompactionHandler implements RequestHandler<CompactRatingsRequest, CompactRatingsResponse> {
+	private final Logger logger = LoggerFactory.getLogger(this.getClass());
+	private final RatingCompactor compactor;
+
+	public RatingCompactionHandler() {
+		this(new RatingCompactor().withRatingHistoryTable(EnvironmentUtils.getString(ConsultConstants.ENV_RATING_HISTORY_TABLE, null)));
+	}
+
+	RatingCompactionHandler(RatingCompactor compactor) {
+		this.compactor = compactor;
+	}
+
+	/**
+	 * Main request handler.
+	 *
+	 * @param input compaction request.
+	 * @param context Lambda execution environment context.
+	 */
+	@Override
+	public CompactRatingsResponse handleRequest(final CompactRatingsRequest input, final Context context) {
+		CompactRatingsResponse response = new CompactRatingsResponse();
+		if(input.getCodes() != null && !input.getCodes().isEmpty()) {
+			long deleted = 0;
+			for(String code : input.getCodes())
+				deleted += compactor.compact(code);
+			response.setCompactedCodes(input.getCodes().size());
+			response.setDeletedRows(deleted);
+		}
+		else {
+			CompactionPage page = compactor.compactPage(input.getStartCode(),
+					input.getPageSize() == null ? RatingCompactor.DEFAULT_PAGE_SIZE : input.getPageSize());
+			response.setCompactedCodes(page.getCompactedCodes());
+			response.setDeletedRows(page.getDeletedRows());
+			response.setNextCode(page.getNextCode());
+		}
+		logger.info("Compacted {} SKU(s), {} version row(s) deleted", response.getCompactedCodes(), response.getDeletedRows());
+		return response;
+	}
+}
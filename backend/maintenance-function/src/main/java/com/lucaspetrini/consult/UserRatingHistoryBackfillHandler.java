@@ -0,0 +1,65 @@
+package com.lucaspetrini.consult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.lucaspetrini.consult.request.BackfillUserRatingHistoryRequest;
+import com.lucaspetrini.consult.response.BackfillUserRatingHistoryResponse;
+import com.lucaspetrini.consult.service.UserRatingHistoryBackfill;
+import com.lucaspetrini.consult.service.UserRatingHistoryBackfill.BackfillResult;
+import com.lucaspetrini.consult.service.UserRatingHistoryPolicy;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+import com.lucaspetrini.consult.utils.EnvironmentUtils;
+
+/**
+ * Handler for the job applying the user rating history retention policy to existing superseded versions,
+ * invoked directly. A whole table is processed by invoking it again with the returned next key until it's
+ * null.
+ */
+public class UserRatingHistoryBackfillHandler implements RequestHandler<BackfillUserRatingHistoryRequest, BackfillUserRatingHistoryResponse> {
+	private final Logger logger = LoggerFactory.getLogger(this.getClass());
+	private final UserRatingHistoryBackfill backfill;
+
+	public UserRatingHistoryBackfillHandler() {
+		this(new UserRatingHistoryBackfill()
+				.withUserRatingArchiveTable(EnvironmentUtils.getString(ConsultConstants.ENV_USER_RATING_ARCHIVE_TABLE, null))
+				.withHistoryPolicy(UserRatingHistoryPolicy.fromEnvironment()));
+	}
+
+	UserRatingHistoryBackfillHandler(UserRatingHistoryBackfill backfill) {
+		this.backfill = backfill;
+	}
+
+	/**
+	 * Main request handler.
+	 *
+	 * @param input backfill request.
+	 * @param context Lambda execution environment context.
+	 */
+	@Override
+	public BackfillUserRatingHistoryResponse handleRequest(final BackfillUserRatingHistoryRequest input, final Context context) {
+		BackfillUserRatingHistoryResponse response = new BackfillUserRatingHistoryResponse();
+		if(input.getCodes() != null && !input.getCodes().isEmpty()) {
+			for(String code : input.getCodes())
+				add(response, backfill.backfill(code));
+		}
+		else {
+			BackfillResult result = backfill.backfillPage(input.getStartCode(), input.getStartUser(),
+					input.getPageSize() == null ? UserRatingHistoryBackfill.DEFAULT_PAGE_SIZE : input.getPageSize());
+			add(response, result);
+			response.setNextCode(result.getNextCode());
+			response.setNextUser(result.getNextUser());
+		}
+		logger.info("Applied history policy: {} deleted, {} archived, {} updated version(s)", response.getDeletedRows(),
+				response.getArchivedRows(), response.getUpdatedRows());
+		return response;
+	}
+
+	private static void add(BackfillUserRatingHistoryResponse response, BackfillResult result) {
+		response.setDeletedRows(response.getDeletedRows() + result.getDeletedRows());
+		response.setArchivedRows(response.getArchivedRows() + result.getArchivedRows());
+		response.setUpdatedRows(response.getUpdatedRows() + result.getUpdatedRows());
+	}
+}
@@ -0,0 +1,47 @@
+package com.lucaspetrini.consult.request;
+
+import java.util.List;
+
+/**
+ * Request to apply the user rating history retention policy to existing superseded versions. Either the
+ * SKUs are listed, or a page of the user ratings table is scanned, starting after the key made of
+ * {@link #getStartCode()} and {@link #getStartUser()}.
+ */
+public class BackfillUserRatingHistoryRequest {
+	private List<String> codes;
+	private String startCode;
+	private String startUser;
+	private Integer pageSize;
+
+	public List<String> getCodes() {
+		return codes;
+	}
+
+	public void setCodes(List<String> codes) {
+		this.codes = codes;
+	}
+
+	public String getStartCode() {
+		return startCode;
+	}
+
+	public void setStartCode(String startCode) {
+		this.startCode = startCode;
+	}
+
+	public String getStartUser() {
+		return startUser;
+	}
+
+	public void setStartUser(String startUser) {
+		this.startUser = startUser;
+	}
+
+	public Integer getPageSize() {
+		return pageSize;
+	}
+
+	public void setPageSize(Integer pageSize) {
+		this.pageSize = pageSize;
+	}
+}
@@ -0,0 +1,37 @@
+package com.lucaspetrini.consult.request;
+
+import java.util.List;
+
+/**
+ * Request to collapse rating version rows into head items. Either the SKUs to compact are listed, or a
+ * page of the ratings table is scanned, starting from {@link #getStartCode()}.
+ */
+public class CompactRatingsRequest {
+	private List<String> codes;
+	private String startCode;
+	private Integer pageSize;
+
+	public List<String> getCodes() {
+		return codes;
+	}
+
+	public void setCodes(List<String> codes) {
+		this.codes = codes;
+	}
+
+	public String getStartCode() {
+		return startCode;
+	}
+
+	public void setStartCode(String startCode) {
+		this.startCode = startCode;
+	}
+
+	public Integer getPageSize() {
+		return pageSize;
+	}
+
+	public void setPageSize(Integer pageSize) {
+		this.pageSize = pageSize;
+	}
+}
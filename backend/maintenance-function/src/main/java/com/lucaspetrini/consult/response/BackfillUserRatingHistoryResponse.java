@@ -0,0 +1,58 @@
+package com.lucaspetrini.consult.response;
+
+/**
+ * Response to a request to apply the user rating history retention policy.
+ */
+public class BackfillUserRatingHistoryResponse {
+	private long deletedRows;
+	private long archivedRows;
+	private long updatedRows;
+	private String nextCode;
+	private String nextUser;
+
+	public long getDeletedRows() {
+		return deletedRows;
+	}
+
+	public void setDeletedRows(long deletedRows) {
+		this.deletedRows = deletedRows;
+	}
+
+	public long getArchivedRows() {
+		return archivedRows;
+	}
+
+	public void setArchivedRows(long archivedRows) {
+		this.archivedRows = archivedRows;
+	}
+
+	public long getUpdatedRows() {
+		return updatedRows;
+	}
+
+	public void setUpdatedRows(long updatedRows) {
+		this.updatedRows = updatedRows;
+	}
+
+	/**
+	 * @return SKU to pass as start code to process the next page, or null if the whole table was scanned.
+	 */
+	public String getNextCode() {
+		return nextCode;
+	}
+
+	public void setNextCode(String nextCode) {
+		this.nextCode = nextCode;
+	}
+
+	/**
+	 * @return user to pass as start user to process the next page, or null if the whole table was scanned.
+	 */
+	public String getNextUser() {
+		return nextUser;
+	}
+
+	public void setNextUser(String nextUser) {
+		this.nextUser = nextUser;
+	}
+}
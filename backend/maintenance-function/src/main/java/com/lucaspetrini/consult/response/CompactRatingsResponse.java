@@ -0,0 +1,37 @@
+package com.lucaspetrini.consult.response;
+
+/**
+ * Response to a request to collapse rating version rows into head items.
+ */
+public class CompactRatingsResponse {
+	private int compactedCodes;
+	private long deletedRows;
+	private String nextCode;
+
+	public int getCompactedCodes() {
+		return compactedCodes;
+	}
+
+	public void setCompactedCodes(int compactedCodes) {
+		this.compactedCodes = compactedCodes;
+	}
+
+	public long getDeletedRows() {
+		return deletedRows;
+	}
+
+	public void setDeletedRows(long deletedRows) {
+		this.deletedRows = deletedRows;
+	}
+
+	/**
+	 * @return SKU to pass as start code to compact the next page, or null if the whole table was scanned.
+	 */
+	public String getNextCode() {
+		return nextCode;
+	}
+
+	public void setNextCode(String nextCode) {
+		this.nextCode = nextCode;
+	}
+}
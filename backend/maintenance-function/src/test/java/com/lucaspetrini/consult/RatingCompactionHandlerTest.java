@@ -0,0 +1,78 @@
+package com.lucaspetrini.consult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.lucaspetrini.consult.request.CompactRatingsRequest;
+import com.lucaspetrini.consult.response.CompactRatingsResponse;
+import com.lucaspetrini.consult.service.RatingCompactor;
+import com.lucaspetrini.consult.service.RatingCompactor.CompactionPage;
+
+/**
+ * Test {@link RatingCompactionHandler}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class RatingCompactionHandlerTest {
+
+	private RatingCompactionHandler handler;
+	private @Mock RatingCompactor compactor;
+	private @Mock Context context;
+
+	@BeforeEach
+	public void setUp() {
+		handler = new RatingCompactionHandler(compactor);
+	}
+
+	@Test
+	public void testListedCodesAreCompacted() {
+		// given
+		CompactRatingsRequest input = new CompactRatingsRequest();
+		input.setCodes(List.of("a", "b"));
+		doReturn(3).when(compactor).compact("a");
+		doReturn(4).when(compactor).compact("b");
+
+		// when
+		CompactRatingsResponse response = handler.handleRequest(input, context);
+
+		// then
+		assertEquals(2, response.getCompactedCodes());
+		assertEquals(7, response.getDeletedRows());
+		assertNull(response.getNextCode());
+		verify(compactor, never()).compactPage(any(), anyInt());
+	}
+
+	@Test
+	public void testPageIsCompactedFromStartCode_WhenNoCodesAreListed() {
+		// given
+		CompactRatingsRequest input = new CompactRatingsRequest();
+		input.setStartCode("a");
+		CompactionPage page = mock(CompactionPage.class);
+		doReturn(5).when(page).getCompactedCodes();
+		doReturn(12L).when(page).getDeletedRows();
+		doReturn("z").when(page).getNextCode();
+		doReturn(page).when(compactor).compactPage("a", RatingCompactor.DEFAULT_PAGE_SIZE);
+
+		// when
+		CompactRatingsResponse response = handler.handleRequest(input, context);
+
+		// then
+		assertEquals(5, response.getCompactedCodes());
+		assertEquals(12, response.getDeletedRows());
+		assertEquals("z", response.getNextCode());
+	}
+}
@@ -0,0 +1,91 @@
+package com.lucaspetrini.consult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.lucaspetrini.consult.request.BackfillUserRatingHistoryRequest;
+import com.lucaspetrini.consult.response.BackfillUserRatingHistoryResponse;
+import com.lucaspetrini.consult.service.UserRatingHistoryBackfill;
+import com.lucaspetrini.consult.service.UserRatingHistoryBackfill.BackfillResult;
+
+/**
+ * Test {@link UserRatingHistoryBackfillHandler}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserRatingHistoryBackfillHandlerTest {
+
+	private UserRatingHistoryBackfillHandler handler;
+	private @Mock UserRatingHistoryBackfill backfill;
+	private @Mock Context context;
+
+	@BeforeEach
+	public void setUp() {
+		handler = new UserRatingHistoryBackfillHandler(backfill);
+	}
+
+	@Test
+	public void testListedCodesAreBackfilled() {
+		// given
+		BackfillUserRatingHistoryRequest input = new BackfillUserRatingHistoryRequest();
+		input.setCodes(List.of("a", "b"));
+		BackfillResult resultA = createResult(3L, 0L, 1L, null, null);
+		BackfillResult resultB = createResult(4L, 0L, 2L, null, null);
+		doReturn(resultA).when(backfill).backfill("a");
+		doReturn(resultB).when(backfill).backfill("b");
+
+		// when
+		BackfillUserRatingHistoryResponse response = handler.handleRequest(input, context);
+
+		// then
+		assertEquals(7, response.getDeletedRows());
+		assertEquals(3, response.getUpdatedRows());
+		assertNull(response.getNextCode());
+		verify(backfill, never()).backfillPage(any(), any(), anyInt());
+	}
+
+	@Test
+	public void testPageIsBackfilledFromStartKey_WhenNoCodesAreListed() {
+		// given
+		BackfillUserRatingHistoryRequest input = new BackfillUserRatingHistoryRequest();
+		input.setStartCode("a");
+		input.setStartUser("v2-user");
+		BackfillResult result = createResult(1L, 5L, 0L, "z", "v1-other");
+		doReturn(result).when(backfill).backfillPage("a", "v2-user", UserRatingHistoryBackfill.DEFAULT_PAGE_SIZE);
+
+		// when
+		BackfillUserRatingHistoryResponse response = handler.handleRequest(input, context);
+
+		// then
+		assertEquals(1, response.getDeletedRows());
+		assertEquals(5, response.getArchivedRows());
+		assertEquals("z", response.getNextCode());
+		assertEquals("v1-other", response.getNextUser());
+	}
+
+	private BackfillResult createResult(Long deleted, Long archived, Long updated, String nextCode, String nextUser) {
+		BackfillResult result = mock(BackfillResult.class);
+		doReturn(deleted).when(result).getDeletedRows();
+		doReturn(archived).when(result).getArchivedRows();
+		doReturn(updated).when(result).getUpdatedRows();
+		if(nextCode != null) {
+			doReturn(nextCode).when(result).getNextCode();
+			doReturn(nextUser).when(result).getNextUser();
+		}
+		return result;
+	}
+}
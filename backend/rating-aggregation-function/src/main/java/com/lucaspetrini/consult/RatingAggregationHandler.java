@@ -0,0 +1,61 @@
+package com.lucaspetrini.consult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.lucaspetrini.consult.service.RatingAggregator;
+import com.lucaspetrini.consult.service.RatingWriteMode;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+import com.lucaspetrini.consult.utils.DynamoDbClientRegistry;
+import com.lucaspetrini.consult.utils.EnvironmentUtils;
+
+/**
+ * Handler for batches of the user ratings table stream. Keeps the rating aggregates up to date for user
+ * ratings put in {@link RatingWriteMode#DEFERRED deferred mode}. In any other mode the puts already wrote
+ * the totals, so batches are skipped rather than applied a second time; the mode is read from
+ * {@link ConsultConstants#ENV_USER_RATING_WRITE_MODE}, like the user rating functions.<br>
+ * Any failure fails the whole batch, so Lambda delivers it again; SKUs already updated by the failed
+ * delivery are skipped by {@link RatingAggregator}.
+ */
+public class RatingAggregationHandler implements RequestHandler<DynamodbEvent, Void> {
+	private final Logger logger = LoggerFactory.getLogger(this.getClass());
+	private final RatingAggregator aggregator;
+	private final RatingWriteMode writeMode;
+
+	public RatingAggregationHandler() {
+		this(new RatingAggregator(), RatingWriteMode.valueOf(EnvironmentUtils.getString(ConsultConstants.ENV_USER_RATING_WRITE_MODE,
+				RatingWriteMode.VERSIONED.name())));
+	}
+
+	RatingAggregationHandler(RatingAggregator aggregator, RatingWriteMode writeMode) {
+		this.aggregator = aggregator;
+		this.writeMode = writeMode;
+	}
+
+	/**
+	 * Main request handler.
+	 *
+	 * @param input DynamodbEvent event.
+	 * @param context Lambda execution environment context.
+	 */
+	@Override
+	public Void handleRequest(final DynamodbEvent input, final Context context) {
+		if(input.getRecords() == null || input.getRecords().isEmpty())
+			return null;
+		if(writeMode != RatingWriteMode.DEFERRED) {
+			logger.error("Skipping {} stream record(s): user ratings are put in {} mode, which already writes the totals.",
+					input.getRecords().size(), writeMode);
+			return null;
+		}
+		logger.info("Handling {} stream record(s)", input.getRecords().size());
+		try {
+			aggregator.aggregate(input.getRecords());
+		} finally {
+			DynamoDbClientRegistry.sdkCallMetrics().flushIfDue();
+		}
+		return null;
+	}
+}
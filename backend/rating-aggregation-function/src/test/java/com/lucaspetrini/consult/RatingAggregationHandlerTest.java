@@ -0,0 +1,98 @@
+package com.lucaspetrini.consult;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent.DynamodbStreamRecord;
+import com.lucaspetrini.consult.service.RatingAggregator;
+import com.lucaspetrini.consult.service.RatingWriteMode;
+
+/**
+ * Test {@link RatingAggregationHandler}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class RatingAggregationHandlerTest {
+
+	private RatingAggregationHandler handler;
+	private @Mock RatingAggregator aggregator;
+	private @Mock Context context;
+
+	@BeforeEach
+	public void setUp() {
+		handler = new RatingAggregationHandler(aggregator, RatingWriteMode.DEFERRED);
+	}
+
+	@Test
+	public void testRecordsArePassedToAggregator() {
+		// given
+		List<DynamodbStreamRecord> records = List.of(new DynamodbStreamRecord(), new DynamodbStreamRecord());
+		DynamodbEvent input = new DynamodbEvent();
+		input.setRecords(records);
+
+		// when
+		handler.handleRequest(input, context);
+
+		// then
+		verify(aggregator, times(1)).aggregate(records);
+	}
+
+	@Test
+	public void testAggregatorIsNotCalled_WhenBatchIsEmpty() {
+		// given
+		DynamodbEvent input = new DynamodbEvent();
+		input.setRecords(Collections.emptyList());
+
+		// when
+		handler.handleRequest(input, context);
+
+		// then
+		verifyNoInteractions(aggregator);
+	}
+
+	@Test
+	public void testAggregatorIsNotCalled_WhenWriteModeIsNotDeferred() {
+		for(RatingWriteMode writeMode : RatingWriteMode.values()) {
+			if(writeMode == RatingWriteMode.DEFERRED)
+				continue;
+			// given
+			handler = new RatingAggregationHandler(aggregator, writeMode);
+			DynamodbEvent input = new DynamodbEvent();
+			input.setRecords(List.of(new DynamodbStreamRecord()));
+
+			// when
+			handler.handleRequest(input, context);
+		}
+
+		// then
+		verifyNoInteractions(aggregator);
+	}
+
+	@Test
+	public void testExceptionIsThrown_WhenAggregatorFails() {
+		// given
+		DynamodbEvent input = new DynamodbEvent();
+		input.setRecords(List.of(new DynamodbStreamRecord()));
+		doThrow(new RuntimeException()).when(aggregator).aggregate(any());
+
+		// then
+		assertThrows(RuntimeException.class, () -> {
+			// when
+			handler.handleRequest(input, context);
+		});
+	}
+}
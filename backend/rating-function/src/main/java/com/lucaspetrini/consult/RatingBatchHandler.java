@@ -0,0 +1,56 @@
+package com.lucaspetrini.consult;
+
+import java.util.Collections;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
+import com.lucaspetrini.consult.handler.ConsultRatingsGetRequestHandler;
+import com.lucaspetrini.consult.mapper.CodecObjectMapper;
+import com.lucaspetrini.consult.request.GetRatingsRequest;
+import com.lucaspetrini.consult.request.GetRatingsRequestJsonCodec;
+import com.lucaspetrini.consult.response.GetRatingsResponseJsonCodec;
+import com.lucaspetrini.consult.service.BlockingRatingService;
+import com.lucaspetrini.consult.service.ConfiguredShardCountResolver;
+import com.lucaspetrini.consult.service.DynamoDbAsyncRatingService;
+import com.lucaspetrini.consult.service.NoOpRatingService;
+import com.lucaspetrini.consult.service.RatingService;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+
+/**
+ * Handler for batch rating requests to Lambda function.
+ */
+public class RatingBatchHandler extends AbstractRequestHandler {
+	static final String PRIMING_CODES = "priming1,priming2";
+
+	public RatingBatchHandler() {
+		this(createRatingService());
+		initLifecycle(new RatingBatchHandler(new NoOpRatingService()));
+	}
+
+	/**
+	 * Handler for batch rating requests to Lambda function, backed by the given service.
+	 *
+	 * @param ratingService rating service.
+	 */
+	public RatingBatchHandler(RatingService ratingService) {
+		super();
+		setObjectMapper(new CodecObjectMapper()
+				.withCodec(GetRatingsRequestJsonCodec.INSTANCE)
+				.withCodec(GetRatingsResponseJsonCodec.INSTANCE));
+		addRequestHandlerMap(HttpMethod.GET, new ConsultRatingsGetRequestHandler(ratingService), GetRatingsRequest.class);
+		APIGatewayV2HTTPEvent primingRequest = createPrimingRequest(HttpMethod.GET, Collections.emptyMap(), null);
+		primingRequest.setQueryStringParameters(Collections.singletonMap(ConsultConstants.QUERY_PARAM_CODES, PRIMING_CODES));
+		addPrimingRequest(primingRequest);
+	}
+
+	/**
+	 * Create the rating service configured by the environment, on the asynchronous client: every
+	 * BatchGetItem chunk of a request, and every read of a SKU without a head item, is in flight at the
+	 * same time without holding a thread each.
+	 *
+	 * @return caching rating service backed by DynamoDB.
+	 */
+	public static RatingService createRatingService() {
+		return RatingHandler.createCachingRatingService(new BlockingRatingService(
+				new DynamoDbAsyncRatingService().withShardCountResolver(ConfiguredShardCountResolver.fromEnvironment())));
+	}
+}
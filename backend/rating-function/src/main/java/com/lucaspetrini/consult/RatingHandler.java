@@ -1,17 +1,64 @@
 package com.lucaspetrini.consult;
 
+import java.util.Collections;
+
 import com.lucaspetrini.consult.handler.ConsultRatingGetRequestHandler;
+import com.lucaspetrini.consult.mapper.CodecObjectMapper;
 import com.lucaspetrini.consult.request.GetRatingRequest;
+import com.lucaspetrini.consult.request.GetRatingRequestJsonCodec;
+import com.lucaspetrini.consult.response.GetRatingResponseJsonCodec;
+import com.lucaspetrini.consult.service.CachingRatingService;
+import com.lucaspetrini.consult.service.ConfiguredShardCountResolver;
 import com.lucaspetrini.consult.service.DynamoDbRatingService;
+import com.lucaspetrini.consult.service.NoOpRatingService;
+import com.lucaspetrini.consult.service.RatingService;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+import com.lucaspetrini.consult.utils.EnvironmentUtils;
 
 /**
  * Handler for requests to Lambda function.
  */
 public class RatingHandler extends AbstractRequestHandler {
+	static final String PRIMING_CODE = "priming";
 
 	public RatingHandler() {
+		this(createRatingService());
+		initLifecycle(new RatingHandler(new NoOpRatingService()));
+	}
+
+	/**
+	 * Handler for requests to Lambda function, backed by the given service.
+	 *
+	 * @param ratingService rating service.
+	 */
+	public RatingHandler(RatingService ratingService) {
 		super();
-		DynamoDbRatingService ratingService = new DynamoDbRatingService();
+		setObjectMapper(new CodecObjectMapper()
+				.withCodec(GetRatingRequestJsonCodec.INSTANCE)
+				.withCodec(GetRatingResponseJsonCodec.INSTANCE));
 		addRequestHandlerMap(HttpMethod.GET, new ConsultRatingGetRequestHandler(ratingService), GetRatingRequest.class);
+		addPrimingRequest(createPrimingRequest(HttpMethod.GET, Collections.singletonMap(ConsultConstants.PATH_PARAM_CODE, PRIMING_CODE), null));
+	}
+
+	/**
+	 * Create the rating service configured by the environment.
+	 *
+	 * @return caching rating service backed by DynamoDB.
+	 */
+	public static RatingService createRatingService() {
+		return createCachingRatingService(new DynamoDbRatingService().withShardCountResolver(ConfiguredShardCountResolver.fromEnvironment()));
+	}
+
+	/**
+	 * Wrap a rating service in the cache configured by the environment.
+	 *
+	 * @param ratingService rating service backed by DynamoDB.
+	 * @return caching rating service.
+	 */
+	static RatingService createCachingRatingService(RatingService ratingService) {
+		// the handler instance lives as long as the container, so the cache is shared by warm invocations
+		return new CachingRatingService(ratingService,
+				EnvironmentUtils.getInt(ConsultConstants.ENV_RATING_CACHE_MAX_SIZE, CachingRatingService.DEFAULT_MAX_SIZE),
+				EnvironmentUtils.getLong(ConsultConstants.ENV_RATING_CACHE_TTL_MILLIS, CachingRatingService.DEFAULT_TTL_MILLIS));
 	}
 }
@@ -10,14 +10,21 @@ import com.lucaspetrini.consult.response.HttpResponse;
 import com.lucaspetrini.consult.service.RatingService;
 import com.lucaspetrini.consult.service.model.Rating;
 import com.lucaspetrini.consult.utils.ConsultConstants;
+import com.lucaspetrini.consult.utils.EntityTags;
+import com.lucaspetrini.consult.utils.EnvironmentUtils;
 
 /**
  * Default implementation of {@link ConsultRequestHandler} that delegates requests to an underlying
- * {@link RatingService}.
+ * {@link RatingService}.<br>
+ * Responses carry an ETag built from the code and version of the rating. Requests whose If-None-Match
+ * header still matches it are answered with a 304, checked against the version alone.
  */
 public class ConsultRatingGetRequestHandler implements ConsultRequestHandler<GetRatingRequest, GetRatingResponse> {
+	/** Ratings may be served from the container cache up to its TTL out of date, so shared caches may too. */
+	public static final String DEFAULT_CACHE_CONTROL = "public, max-age=5";
 
 	private RatingService ratingService;
+	private String cacheControl = EnvironmentUtils.getString(ConsultConstants.ENV_RATING_CACHE_CONTROL, DEFAULT_CACHE_CONTROL);
 
 	/**
 	 * Default implementation of {@link ConsultRequestHandler} that delegates requests to an underlying
@@ -52,16 +59,36 @@ public class ConsultRatingGetRequestHandler implements ConsultRequestHandler<Get
 		this.ratingService = ratingService;
 	}
 
+	/**
+	 * @param cacheControl Cache-Control header of responses, or null to leave it out.
+	 */
+	public void setCacheControl(String cacheControl) {
+		this.cacheControl = cacheControl;
+	}
+
 	@Override
 	public HttpResponse<GetRatingResponse> handle(HttpRequest<GetRatingRequest> request) {
 		Map<String, String> pathParams = request.getPathParams();
-		Rating entity = ratingService.getByCode(pathParams.get(ConsultConstants.PATH_PARAM_CODE));
+		String code = pathParams.get(ConsultConstants.PATH_PARAM_CODE);
+		String ifNoneMatch = request.getHeader(ConsultConstants.HEADER_IF_NONE_MATCH);
+		if(ifNoneMatch != null) {
+			Long version = ratingService.getVersionByCode(code);
+			if(version == null) {
+				throw new ResourceNotFoundException();
+			}
+			String entityTag = EntityTags.of(code, version);
+			if(EntityTags.matches(ifNoneMatch, entityTag)) {
+				return HttpResponse.notModified(entityTag, cacheControl);
+			}
+		}
+		Rating entity = ratingService.getByCode(code);
 		if(entity == null) {
 			throw new ResourceNotFoundException();
 		}
 		HttpResponse<GetRatingResponse> response = new HttpResponse<>();
 		GetRatingResponse responseBody = covertToGetResponseBody(entity);
 		response.setBody(responseBody);
+		response.setValidators(EntityTags.of(entity.getSku(), entity.getVersion()), cacheControl);
 		response.setStatusCode(200);
 		return response;
 	}
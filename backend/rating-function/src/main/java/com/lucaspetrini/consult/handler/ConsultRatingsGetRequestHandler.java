@@ -0,0 +1,113 @@
+package com.lucaspetrini.consult.handler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.lucaspetrini.consult.exception.InvalidParameterException;
+import com.lucaspetrini.consult.request.GetRatingsRequest;
+import com.lucaspetrini.consult.request.HttpRequest;
+import com.lucaspetrini.consult.response.GetRatingResponse;
+import com.lucaspetrini.consult.response.GetRatingsResponse;
+import com.lucaspetrini.consult.response.HttpResponse;
+import com.lucaspetrini.consult.service.RatingService;
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+import com.lucaspetrini.consult.utils.EntityTags;
+import com.lucaspetrini.consult.utils.EnvironmentUtils;
+
+/**
+ * Implementation of {@link ConsultRequestHandler} that returns the ratings for a comma separated list
+ * of codes, delegating to an underlying {@link RatingService}. Codes without a rating are left out of
+ * the response.<br>
+ * Responses carry an ETag combining the tags of the ratings they hold. Requests whose If-None-Match
+ * header still matches it are answered with a 304, without a body.
+ */
+public class ConsultRatingsGetRequestHandler implements ConsultRequestHandler<GetRatingsRequest, GetRatingsResponse> {
+	public static final int MAX_CODES = 100;
+
+	private RatingService ratingService;
+	private String cacheControl = EnvironmentUtils.getString(ConsultConstants.ENV_RATING_CACHE_CONTROL, ConsultRatingGetRequestHandler.DEFAULT_CACHE_CONTROL);
+
+	/**
+	 * Implementation of {@link ConsultRequestHandler} that returns the ratings for a list of codes.
+	 */
+	public ConsultRatingsGetRequestHandler() {}
+
+	/**
+	 * Implementation of {@link ConsultRequestHandler} that returns the ratings for a list of codes.
+	 *
+	 * @param ratingService rating service.
+	 */
+	public ConsultRatingsGetRequestHandler(RatingService ratingService) {
+		setRatingService(ratingService);
+	}
+
+	private Set<String> parseCodes(Map<String, String> queryParams) {
+		String param = queryParams == null ? null : queryParams.get(ConsultConstants.QUERY_PARAM_CODES);
+		Set<String> codes = new LinkedHashSet<>();
+		if(param != null) {
+			for(String code : param.split(",")) {
+				if(!code.isBlank())
+					codes.add(code.trim());
+			}
+		}
+		if(codes.isEmpty() || codes.size() > MAX_CODES) {
+			throw new InvalidParameterException("Parameter " + ConsultConstants.QUERY_PARAM_CODES
+					+ " must contain between 1 and " + MAX_CODES + " codes.");
+		}
+		return codes;
+	}
+
+	private GetRatingResponse covertToGetResponseBody(Rating entity) {
+		GetRatingResponse body = new GetRatingResponse();
+		body.setCode(entity.getSku());
+		body.setDate(entity.getDate());
+		body.setQuantity(entity.getQuantity());
+		body.setAggregated(entity.getAggregated());
+		body.setNumberOfReviews(entity.getNumberOfReviews());
+		body.setVersion(entity.getVersion());
+		return body;
+	}
+
+	public void setRatingService(RatingService ratingService) {
+		this.ratingService = ratingService;
+	}
+
+	/**
+	 * @param cacheControl Cache-Control header of responses, or null to leave it out.
+	 */
+	public void setCacheControl(String cacheControl) {
+		this.cacheControl = cacheControl;
+	}
+
+	@Override
+	public HttpResponse<GetRatingsResponse> handle(HttpRequest<GetRatingsRequest> request) {
+		Set<String> codes = parseCodes(request.getQueryParams());
+		Map<String, Rating> entities = ratingService.getByCodes(codes);
+		// keep the order in which codes were requested
+		List<GetRatingResponse> ratings = new ArrayList<>(entities.size());
+		List<String> entityTags = new ArrayList<>(entities.size());
+		for(String code : codes) {
+			Rating entity = entities.get(code);
+			if(entity != null) {
+				ratings.add(covertToGetResponseBody(entity));
+				entityTags.add(EntityTags.of(entity.getSku(), entity.getVersion()));
+			}
+		}
+		String entityTag = EntityTags.combine(entityTags);
+		if(EntityTags.matches(request.getHeader(ConsultConstants.HEADER_IF_NONE_MATCH), entityTag)) {
+			return HttpResponse.notModified(entityTag, cacheControl);
+		}
+		HttpResponse<GetRatingsResponse> response = new HttpResponse<>();
+		response.setValidators(entityTag, cacheControl);
+		GetRatingsResponse responseBody = new GetRatingsResponse();
+		responseBody.setRatings(ratings);
+		response.setBody(responseBody);
+		response.setStatusCode(200);
+		return response;
+	}
+
+}
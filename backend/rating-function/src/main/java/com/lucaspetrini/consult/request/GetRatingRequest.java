@@ -1,5 +1,8 @@
 package com.lucaspetrini.consult.request;
 
+import com.lucaspetrini.consult.mapper.GenerateJsonCodec;
+
+@GenerateJsonCodec
 public class GetRatingRequest {
 
 }
@@ -0,0 +1,11 @@
+package com.lucaspetrini.consult.request;
+
+import com.lucaspetrini.consult.mapper.GenerateJsonCodec;
+
+/**
+ * GET request body for a batch ratings request. Codes are passed as a query parameter.
+ */
+@GenerateJsonCodec
+public class GetRatingsRequest {
+
+}
@@ -1,8 +1,11 @@
 package com.lucaspetrini.consult.response;
 
+import com.lucaspetrini.consult.mapper.GenerateJsonCodec;
+
 /**
  * GET response body for a rating request.
  */
+@GenerateJsonCodec
 public class GetRatingResponse {
 	private String code;
 	private Long date;
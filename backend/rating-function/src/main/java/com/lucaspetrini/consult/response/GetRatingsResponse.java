@@ -0,0 +1,21 @@
+package com.lucaspetrini.consult.response;
+
+import java.util.List;
+
+import com.lucaspetrini.consult.mapper.GenerateJsonCodec;
+
+/**
+ * GET response body for a batch ratings request.
+ */
+@GenerateJsonCodec
+public class GetRatingsResponse {
+	private List<GetRatingResponse> ratings;
+
+	public List<GetRatingResponse> getRatings() {
+		return ratings;
+	}
+
+	public void setRatings(List<GetRatingResponse> ratings) {
+		this.ratings = ratings;
+	}
+}
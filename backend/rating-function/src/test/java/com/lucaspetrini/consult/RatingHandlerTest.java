@@ -35,6 +35,7 @@ import com.lucaspetrini.consult.request.GetRatingRequest;
 import com.lucaspetrini.consult.request.HttpRequest;
 import com.lucaspetrini.consult.response.GetRatingResponse;
 import com.lucaspetrini.consult.response.HttpResponse;
+import com.lucaspetrini.consult.service.NoOpRatingService;
 import com.lucaspetrini.consult.utils.ConsultConstants;
 
 /**
@@ -301,6 +302,18 @@ public class RatingHandlerTest {
 		assertEquals(400, (int)response.getStatusCode());
 	}
 
+	@Test
+	public void testEveryPrimingRequestSucceedsAgainstNoOpService() {
+		// given
+		RatingHandler primingHandler = new RatingHandler(new NoOpRatingService());
+
+		// when
+		int primed = primingHandler.prime();
+
+		// then
+		assertEquals(1, primed);
+	}
+
 	private APIGatewayV2HTTPEvent createInput(String method, Map<String, String> headers, String body) {
 		return createInput(method, headers, body, null);
 	}
@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import java.util.Collections;
@@ -44,6 +45,8 @@ public class ConsultRatingGetRequestHandlerTest {
 	private static final Long DATE = 5513564L;
 	private static final Long NUMBER_OF_REVIEWS = 3L;
 	private static final Long VERSION = 3L;
+	private static final String ENTITY_TAG = "\"567-3\"";
+	private static final String CACHE_CONTROL = "public, max-age=60";
 
 	static {
 		RATING = new Rating();
@@ -130,17 +133,64 @@ public class ConsultRatingGetRequestHandlerTest {
 	}
 
 	@Test
-	public void testGetResponseReturnsNoCustomHeadersWhenEntityIsFound() {
+	public void testGetResponseReturnsEntityTagAndCacheControlWhenEntityIsFound() {
 		// given
 		HttpRequest<GetRatingRequest> request = new HttpRequest<>();
 		request.setPathParams(Collections.emptyMap());
 		doReturn(RATING).when(service).getByCode(any());
+		handler.setCacheControl(CACHE_CONTROL);
 
 		// when
 		HttpResponse<GetRatingResponse> response = handler.handle(request);
 
 		// then
-		assertNull(response.getHeaders());
+		assertEquals(ENTITY_TAG, response.getHeaders().get(ConsultConstants.HEADER_ETAG));
+		assertEquals(CACHE_CONTROL, response.getHeaders().get(ConsultConstants.HEADER_CACHE_CONTROL));
+	}
+
+	@Test
+	public void testGetResponseReturns304WithoutReadingEntityWhenEntityTagMatches() {
+		// given
+		HttpRequest<GetRatingRequest> request = createConditionalRequest("W/\"other\", " + ENTITY_TAG);
+		doReturn(VERSION).when(service).getVersionByCode(CODE_VALUE);
+
+		// when
+		HttpResponse<GetRatingResponse> response = handler.handle(request);
+
+		// then
+		verify(service, never()).getByCode(any());
+		assertEquals(304, response.getStatusCode());
+		assertNull(response.getBody());
+		assertEquals(ENTITY_TAG, response.getHeaders().get(ConsultConstants.HEADER_ETAG));
+	}
+
+	@Test
+	public void testGetResponseReturns200WhenEntityTagDoesNotMatch() {
+		// given
+		HttpRequest<GetRatingRequest> request = createConditionalRequest("\"" + CODE_VALUE + "-2\"");
+		doReturn(VERSION).when(service).getVersionByCode(CODE_VALUE);
+		doReturn(RATING).when(service).getByCode(CODE_VALUE);
+
+		// when
+		HttpResponse<GetRatingResponse> response = handler.handle(request);
+
+		// then
+		assertEquals(200, response.getStatusCode());
+		assertEquals(VERSION, response.getBody().getVersion());
+		assertEquals(ENTITY_TAG, response.getHeaders().get(ConsultConstants.HEADER_ETAG));
+	}
+
+	@Test
+	public void testConditionalGetThrowsResourceNotFoundExceptionWhenEntityIsNotFound() {
+		// given
+		HttpRequest<GetRatingRequest> request = createConditionalRequest(ENTITY_TAG);
+		doReturn(null).when(service).getVersionByCode(CODE_VALUE);
+
+		// then
+		assertThrows(ResourceNotFoundException.class, () -> {
+			// when
+			handler.handle(request);
+		});
 	}
 
 	@Test
@@ -156,4 +206,11 @@ public class ConsultRatingGetRequestHandlerTest {
 			handler.handle(request);
 		});
 	}
+
+	private HttpRequest<GetRatingRequest> createConditionalRequest(String ifNoneMatch) {
+		HttpRequest<GetRatingRequest> request = new HttpRequest<>();
+		request.setPathParams(Collections.singletonMap(ConsultConstants.PATH_PARAM_CODE, CODE_VALUE));
+		request.setHeaders(Collections.singletonMap(ConsultConstants.HEADER_IF_NONE_MATCH, ifNoneMatch));
+		return request;
+	}
 }
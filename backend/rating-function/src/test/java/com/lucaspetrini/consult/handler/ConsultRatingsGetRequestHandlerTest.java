@@ -0,0 +1,175 @@
+package com.lucaspetrini.consult.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.lucaspetrini.consult.exception.InvalidParameterException;
+import com.lucaspetrini.consult.request.GetRatingsRequest;
+import com.lucaspetrini.consult.request.HttpRequest;
+import com.lucaspetrini.consult.response.GetRatingsResponse;
+import com.lucaspetrini.consult.response.HttpResponse;
+import com.lucaspetrini.consult.service.RatingService;
+import com.lucaspetrini.consult.service.model.Rating;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+
+/**
+ * Test {@link ConsultRatingsGetRequestHandler}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ConsultRatingsGetRequestHandlerTest {
+	private static final String CODE_1 = "567";
+	private static final String CODE_2 = "891";
+	private static final String CODE_NOT_FOUND = "404";
+
+	private ConsultRatingsGetRequestHandler handler;
+	private @Mock RatingService service;
+	private @Captor ArgumentCaptor<Collection<String>> codesCaptor;
+
+	@BeforeEach
+	public void setUp() {
+		handler = new ConsultRatingsGetRequestHandler();
+		handler.setRatingService(service);
+	}
+
+	@Test
+	public void testGetByCodesCallsRatingServiceOnceWithDistinctCodes() {
+		// given
+		HttpRequest<GetRatingsRequest> request = createRequest(CODE_1 + ", " + CODE_2 + "," + CODE_1);
+		doReturn(Collections.emptyMap()).when(service).getByCodes(any());
+
+		// when
+		handler.handle(request);
+
+		// then
+		verify(service).getByCodes(codesCaptor.capture());
+		assertEquals(List.of(CODE_1, CODE_2), new ArrayList<>(codesCaptor.getValue()));
+	}
+
+	@Test
+	public void testGetResponseKeepsRequestedOrderAndSkipsCodesNotFound() {
+		// given
+		HttpRequest<GetRatingsRequest> request = createRequest(CODE_2 + "," + CODE_NOT_FOUND + "," + CODE_1);
+		Map<String, Rating> ratings = new HashMap<>();
+		ratings.put(CODE_1, createRating(CODE_1));
+		ratings.put(CODE_2, createRating(CODE_2));
+		doReturn(ratings).when(service).getByCodes(any());
+
+		// when
+		HttpResponse<GetRatingsResponse> response = handler.handle(request);
+
+		// then
+		assertEquals(200, response.getStatusCode());
+		assertEquals(2, response.getBody().getRatings().size());
+		assertEquals(CODE_2, response.getBody().getRatings().get(0).getCode());
+		assertEquals(CODE_1, response.getBody().getRatings().get(1).getCode());
+	}
+
+	@Test
+	public void testGetResponseReturns304WhenEntityTagOfAllRatingsMatches() {
+		// given
+		Map<String, Rating> ratings = Map.of(CODE_1, createRating(CODE_1), CODE_2, createRating(CODE_2));
+		doReturn(ratings).when(service).getByCodes(any());
+		String entityTag = handler.handle(createRequest(CODE_1 + "," + CODE_2)).getHeaders().get(ConsultConstants.HEADER_ETAG);
+		HttpRequest<GetRatingsRequest> request = createRequest(CODE_1 + "," + CODE_2);
+		request.setHeaders(Collections.singletonMap(ConsultConstants.HEADER_IF_NONE_MATCH, entityTag));
+
+		// when
+		HttpResponse<GetRatingsResponse> response = handler.handle(request);
+
+		// then
+		assertEquals(304, response.getStatusCode());
+		assertNull(response.getBody());
+		assertEquals(entityTag, response.getHeaders().get(ConsultConstants.HEADER_ETAG));
+	}
+
+	@Test
+	public void testEntityTagDependsOnRequestedOrder() {
+		// given
+		Map<String, Rating> ratings = Map.of(CODE_1, createRating(CODE_1), CODE_2, createRating(CODE_2));
+		doReturn(ratings).when(service).getByCodes(any());
+
+		// when
+		HttpResponse<GetRatingsResponse> response = handler.handle(createRequest(CODE_1 + "," + CODE_2));
+		HttpResponse<GetRatingsResponse> reversedResponse = handler.handle(createRequest(CODE_2 + "," + CODE_1));
+
+		// then
+		assertNotEquals(response.getHeaders().get(ConsultConstants.HEADER_ETAG), reversedResponse.getHeaders().get(ConsultConstants.HEADER_ETAG));
+	}
+
+	@Test
+	public void testGetWithoutCodesThrowsInvalidParameterException() {
+		// given
+		HttpRequest<GetRatingsRequest> request = createRequest(" , ");
+
+		// then
+		assertThrows(InvalidParameterException.class, () -> {
+			// when
+			handler.handle(request);
+		});
+		verifyNoInteractions(service);
+	}
+
+	@Test
+	public void testGetWithMissingQueryParamsThrowsInvalidParameterException() {
+		// given
+		HttpRequest<GetRatingsRequest> request = new HttpRequest<>();
+
+		// then
+		assertThrows(InvalidParameterException.class, () -> {
+			// when
+			handler.handle(request);
+		});
+	}
+
+	@Test
+	public void testGetWithTooManyCodesThrowsInvalidParameterException() {
+		// given
+		StringBuilder codes = new StringBuilder();
+		for(int i = 0; i <= ConsultRatingsGetRequestHandler.MAX_CODES; i++) {
+			codes.append(i).append(',');
+		}
+		HttpRequest<GetRatingsRequest> request = createRequest(codes.toString());
+
+		// then
+		assertThrows(InvalidParameterException.class, () -> {
+			// when
+			handler.handle(request);
+		});
+	}
+
+	private HttpRequest<GetRatingsRequest> createRequest(String codes) {
+		HttpRequest<GetRatingsRequest> request = new HttpRequest<>();
+		request.setQueryParams(Collections.singletonMap(ConsultConstants.QUERY_PARAM_CODES, codes));
+		return request;
+	}
+
+	private Rating createRating(String code) {
+		Rating rating = new Rating();
+		rating.setSku(code);
+		rating.setQuantity(2L);
+		rating.setAggregated(9L);
+		rating.setVersion(2L);
+		return rating;
+	}
+}
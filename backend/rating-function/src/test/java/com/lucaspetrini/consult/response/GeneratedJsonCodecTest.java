@@ -0,0 +1,66 @@
+package com.lucaspetrini.consult.response;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.lucaspetrini.consult.mapper.CodecObjectMapper;
+import com.lucaspetrini.consult.mapper.JsonObjectMapper;
+
+/**
+ * Test the {@link com.lucaspetrini.consult.mapper.JsonCodec codecs} generated for the rating responses
+ * write the same JSON as {@link JsonObjectMapper}.
+ */
+public class GeneratedJsonCodecTest {
+	private CodecObjectMapper mapper;
+	private JsonObjectMapper gson;
+
+	@BeforeEach
+	public void setUp() {
+		mapper = new CodecObjectMapper()
+				.withCodec(GetRatingResponseJsonCodec.INSTANCE)
+				.withCodec(GetRatingsResponseJsonCodec.INSTANCE);
+		gson = new JsonObjectMapper();
+	}
+
+	@Test
+	public void testRatingResponseIsSerialisedLikeGson() {
+		// given
+		GetRatingResponse response = createResponse("1321123", 3L);
+		response.setNumberOfReviews(null);
+
+		// when
+		String serialised = mapper.serialise(response);
+
+		// then
+		assertEquals(gson.serialise(response), serialised);
+	}
+
+	@Test
+	public void testRatingsResponseIsSerialisedLikeGson() {
+		// given
+		GetRatingsResponse response = new GetRatingsResponse();
+		response.setRatings(List.of(createResponse("1321123", 3L), createResponse("<4321>", null), new GetRatingResponse()));
+
+		// when
+		String serialised = mapper.serialise(response);
+
+		// then
+		assertEquals(gson.serialise(response), serialised);
+		assertEquals(serialised, mapper.serialise(mapper.deserialise(serialised, GetRatingsResponse.class)));
+	}
+
+	private static GetRatingResponse createResponse(String code, Long version) {
+		GetRatingResponse response = new GetRatingResponse();
+		response.setCode(code);
+		response.setDate(1652140800000L);
+		response.setAggregated(41L);
+		response.setQuantity(10L);
+		response.setVersion(version);
+		response.setNumberOfReviews(4L);
+		return response;
+	}
+}
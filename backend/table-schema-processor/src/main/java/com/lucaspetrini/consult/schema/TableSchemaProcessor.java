@@ -0,0 +1,255 @@
+package com.lucaspetrini.consult.schema;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {@code StaticTableSchema} for every class annotated with {@code @DynamoDbBean}, so tables
+ * can be mapped without the bean introspection {@code TableSchema.fromBean} does at runtime.<br>
+ * The schema of a bean {@code Foo} is the {@code INSTANCE} constant of the generated class
+ * {@code FooTableSchema}, in the same package. Attributes are the properties with a public getter and
+ * setter, named and tagged as {@code TableSchema.fromBean} would: {@code @DynamoDbAttribute},
+ * {@code @DynamoDbIgnore}, primary and secondary key annotations are supported. Any other mapper
+ * annotation fails the build, rather than producing a schema that differs from the bean schema.
+ */
+@SupportedAnnotationTypes(TableSchemaProcessor.DYNAMO_DB_BEAN)
+public class TableSchemaProcessor extends AbstractProcessor {
+	static final String ANNOTATIONS_PACKAGE = "software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.";
+	static final String DYNAMO_DB_BEAN = ANNOTATIONS_PACKAGE + "DynamoDbBean";
+	static final String SCHEMA_SUFFIX = "TableSchema";
+	private static final String ATTRIBUTE = ANNOTATIONS_PACKAGE + "DynamoDbAttribute";
+	private static final String IGNORE = ANNOTATIONS_PACKAGE + "DynamoDbIgnore";
+	private static final String PARTITION_KEY = ANNOTATIONS_PACKAGE + "DynamoDbPartitionKey";
+	private static final String SORT_KEY = ANNOTATIONS_PACKAGE + "DynamoDbSortKey";
+	private static final String SECONDARY_PARTITION_KEY = ANNOTATIONS_PACKAGE + "DynamoDbSecondaryPartitionKey";
+	private static final String SECONDARY_SORT_KEY = ANNOTATIONS_PACKAGE + "DynamoDbSecondarySortKey";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for(TypeElement annotation : annotations) {
+			for(Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if(element.getKind() != ElementKind.CLASS) {
+					error(element, "@DynamoDbBean must annotate a class.");
+					continue;
+				}
+				TypeElement bean = (TypeElement) element;
+				List<Attribute> attributes = getAttributes(bean);
+				if(attributes == null || !hasPublicNoArgConstructor(bean))
+					continue;
+				try {
+					write(bean, attributes);
+				} catch (IOException e) {
+					error(bean, "Could not write table schema: " + e.getMessage());
+				}
+			}
+		}
+		// other processors may handle the same annotation
+		return false;
+	}
+
+	/**
+	 * @return attributes of the bean, in declaration order, or null if any of them can't be mapped.
+	 */
+	private List<Attribute> getAttributes(TypeElement bean) {
+		Map<String, ExecutableElement> setters = new LinkedHashMap<>();
+		List<ExecutableElement> getters = new ArrayList<>();
+		for(ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(bean))) {
+			if(!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)
+					|| ((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals(Object.class.getName()))
+				continue;
+			String name = method.getSimpleName().toString();
+			if(name.startsWith("set") && name.length() > 3 && method.getParameters().size() == 1)
+				setters.put(name.substring(3), method);
+			else if(method.getParameters().isEmpty() && getPropertySuffix(method) != null)
+				getters.add(method);
+		}
+		List<Attribute> attributes = new ArrayList<>();
+		boolean valid = true;
+		for(ExecutableElement getter : getters) {
+			String suffix = getPropertySuffix(getter);
+			ExecutableElement setter = setters.get(suffix);
+			if(setter == null || !processingEnv.getTypeUtils().isSameType(setter.getParameters().get(0).asType(), getter.getReturnType()))
+				continue;
+			if(findAnnotation(getter, IGNORE) != null || findAnnotation(setter, IGNORE) != null)
+				continue;
+			Attribute attribute = toAttribute(bean, getter, setter, suffix);
+			if(attribute == null)
+				valid = false;
+			else
+				attributes.add(attribute);
+		}
+		return valid ? attributes : null;
+	}
+
+	private Attribute toAttribute(TypeElement bean, ExecutableElement getter, ExecutableElement setter, String suffix) {
+		TypeMirror type = getter.getReturnType();
+		String typeName;
+		if(type.getKind().isPrimitive())
+			typeName = processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type).getQualifiedName().toString();
+		else if(type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).getTypeArguments().isEmpty())
+			typeName = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+		else {
+			error(getter, "Unsupported attribute type " + type + ": only non generic types can be mapped.");
+			return null;
+		}
+		Attribute attribute = new Attribute(decapitalize(suffix), typeName, getter.getSimpleName().toString(),
+				setter.getSimpleName().toString());
+		for(ExecutableElement method : List.of(getter, setter)) {
+			for(AnnotationMirror mirror : method.getAnnotationMirrors()) {
+				String annotation = ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+				if(!annotation.startsWith(ANNOTATIONS_PACKAGE))
+					continue;
+				if(annotation.equals(ATTRIBUTE))
+					attribute.name = (String) getValue(mirror, "value");
+				else if(annotation.equals(PARTITION_KEY))
+					attribute.tags.add("StaticAttributeTags.primaryPartitionKey()");
+				else if(annotation.equals(SORT_KEY))
+					attribute.tags.add("StaticAttributeTags.primarySortKey()");
+				else if(annotation.equals(SECONDARY_PARTITION_KEY))
+					attribute.tags.add("StaticAttributeTags.secondaryPartitionKey(" + toListOf(getValue(mirror, "indexNames")) + ")");
+				else if(annotation.equals(SECONDARY_SORT_KEY))
+					attribute.tags.add("StaticAttributeTags.secondarySortKey(" + toListOf(getValue(mirror, "indexNames")) + ")");
+				else {
+					error(method, "@" + annotation.substring(ANNOTATIONS_PACKAGE.length()) + " is not supported by the generated table schema of "
+							+ bean.getSimpleName() + ".");
+					return null;
+				}
+			}
+		}
+		return attribute;
+	}
+
+	private boolean hasPublicNoArgConstructor(TypeElement bean) {
+		for(ExecutableElement constructor : ElementFilter.constructorsIn(bean.getEnclosedElements())) {
+			if(constructor.getModifiers().contains(Modifier.PUBLIC) && constructor.getParameters().isEmpty())
+				return true;
+		}
+		error(bean, "@DynamoDbBean classes must have a public no-arg constructor.");
+		return false;
+	}
+
+	private void write(TypeElement bean, List<Attribute> attributes) throws IOException {
+		String packageName = ((PackageElement) processingEnv.getElementUtils().getPackageOf(bean)).getQualifiedName().toString();
+		String beanName = bean.getSimpleName().toString();
+		String schemaName = beanName + SCHEMA_SUFFIX;
+		StringBuilder source = new StringBuilder();
+		if(!packageName.isEmpty())
+			source.append("package ").append(packageName).append(";\n\n");
+		source.append("import javax.annotation.processing.Generated;\n\n")
+				.append("import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags;\n")
+				.append("import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;\n\n")
+				.append("/**\n * {@link StaticTableSchema} of {@link ").append(beanName).append("}, generated from its annotations.\n */\n")
+				.append("@Generated(\"").append(TableSchemaProcessor.class.getName()).append("\")\n")
+				.append("public final class ").append(schemaName).append(" {\n")
+				.append("\tpublic static final StaticTableSchema<").append(beanName).append("> INSTANCE = StaticTableSchema.builder(")
+				.append(beanName).append(".class)\n")
+				.append("\t\t\t.newItemSupplier(").append(beanName).append("::new)\n");
+		for(Attribute attribute : attributes) {
+			source.append("\t\t\t.addAttribute(").append(attribute.type).append(".class, a -> a.name(\"").append(attribute.name).append("\")\n")
+					.append("\t\t\t\t\t.getter(").append(beanName).append("::").append(attribute.getter).append(")\n")
+					.append("\t\t\t\t\t.setter(").append(beanName).append("::").append(attribute.setter).append(")");
+			if(!attribute.tags.isEmpty())
+				source.append("\n\t\t\t\t\t.tags(").append(String.join(", ", attribute.tags)).append(")");
+			source.append(")\n");
+		}
+		source.append("\t\t\t.build();\n\n")
+				.append("\tprivate ").append(schemaName).append("() {}\n")
+				.append("}\n");
+		String qualifiedName = packageName.isEmpty() ? schemaName : packageName + "." + schemaName;
+		try(Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, bean).openWriter()) {
+			writer.write(source.toString());
+		}
+	}
+
+	private static String getPropertySuffix(ExecutableElement method) {
+		String name = method.getSimpleName().toString();
+		if(name.startsWith("get") && name.length() > 3 && method.getReturnType().getKind() != TypeKind.VOID)
+			return name.substring(3);
+		if(name.startsWith("is") && name.length() > 2 && method.getReturnType().getKind() == TypeKind.BOOLEAN)
+			return name.substring(2);
+		return null;
+	}
+
+	/**
+	 * Same as {@code java.beans.Introspector.decapitalize}, which the bean schema uses to name attributes.
+	 */
+	static String decapitalize(String name) {
+		if(name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0)))
+			return name;
+		return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+	}
+
+	private static AnnotationMirror findAnnotation(Element element, String annotation) {
+		for(AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			if(((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation))
+				return mirror;
+		}
+		return null;
+	}
+
+	private static Object getValue(AnnotationMirror mirror, String name) {
+		for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+			if(entry.getKey().getSimpleName().contentEquals(name))
+				return entry.getValue().getValue();
+		}
+		return null;
+	}
+
+	private static String toListOf(Object value) {
+		List<String> names = new ArrayList<>();
+		if(value instanceof List) {
+			for(Object item : (List<?>) value)
+				names.add("\"" + ((AnnotationValue) item).getValue() + "\"");
+		}
+		else if(value != null)
+			names.add("\"" + value + "\"");
+		return "java.util.List.of(" + String.join(", ", names) + ")";
+	}
+
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+	private static class Attribute {
+		private String name;
+		private final String type;
+		private final String getter;
+		private final String setter;
+		private final List<String> tags = new ArrayList<>();
+
+		private Attribute(String name, String type, String getter, String setter) {
+			this.name = name;
+			this.type = type;
+			this.getter = getter;
+			this.setter = setter;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.lucaspetrini.consult.schema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Tests for {@link TableSchemaProcessor}.
+ */
+class TableSchemaProcessorTest {
+	private static final String PACKAGE = "com.lucaspetrini.consult.sample";
+	private static final String IMPORTS = "import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;\n";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testProcessGeneratesSchemaWithKeysAndIndexes() throws Exception {
+		// given
+		String source = IMPORTS
+				+ "@DynamoDbBean public class Sample {\n"
+				+ "	private String code; private long version; private Long date; private boolean active; private String note; private String alias;\n"
+				+ "	@DynamoDbPartitionKey @DynamoDbSecondaryPartitionKey(indexNames = \"LSIDate\") public String getCode() { return code; }\n"
+				+ "	public void setCode(String code) { this.code = code; }\n"
+				+ "	@DynamoDbSortKey public long getVersion() { return version; }\n"
+				+ "	public void setVersion(long version) { this.version = version; }\n"
+				+ "	@DynamoDbSecondarySortKey(indexNames = {\"LSIDate\", \"GSIDate\"}) public Long getDate() { return date; }\n"
+				+ "	public void setDate(Long date) { this.date = date; }\n"
+				+ "	public boolean isActive() { return active; }\n"
+				+ "	public void setActive(boolean active) { this.active = active; }\n"
+				+ "	@DynamoDbIgnore public String getNote() { return note; }\n"
+				+ "	public void setNote(String note) { this.note = note; }\n"
+				+ "	@DynamoDbAttribute(\"nickname\") public String getAlias() { return alias; }\n"
+				+ "	public void setAlias(String alias) { this.alias = alias; }\n"
+				+ "	public String getReadOnly() { return code; }\n"
+				+ "}\n";
+
+		// when
+		String output = compile("Sample", source);
+
+		// then
+		assertEquals("", output);
+		try(URLClassLoader loader = new URLClassLoader(new URL[] { directory.toUri().toURL() }, getClass().getClassLoader())) {
+			Class<?> bean = loader.loadClass(PACKAGE + ".Sample");
+			TableSchema<?> generated = (TableSchema<?>) loader.loadClass(PACKAGE + ".Sample" + TableSchemaProcessor.SCHEMA_SUFFIX)
+					.getField("INSTANCE").get(null);
+			assertEquals(List.of("code", "version", "date", "active", "nickname"), generated.attributeNames());
+			TableMetadata metadata = generated.tableMetadata();
+			assertEquals("code", metadata.primaryPartitionKey());
+			assertEquals("version", metadata.primarySortKey().get());
+			assertEquals("code", metadata.indexPartitionKey("LSIDate"));
+			assertEquals("date", metadata.indexSortKey("LSIDate").get());
+			assertEquals("date", metadata.indexSortKey("GSIDate").get());
+			Object item = generated.mapToItem(Map.of("code", AttributeValue.builder().s("1321123").build(),
+					"version", AttributeValue.builder().n("3").build(), "active", AttributeValue.builder().bool(true).build()));
+			assertEquals(bean, item.getClass());
+			assertEquals("1321123", bean.getMethod("getCode").invoke(item));
+			assertEquals(3L, bean.getMethod("getVersion").invoke(item));
+			assertEquals(true, bean.getMethod("isActive").invoke(item));
+		}
+	}
+
+	@Test
+	void testProcessFailsOnUnsupportedAnnotation() throws Exception {
+		// given
+		String source = IMPORTS
+				+ "@DynamoDbBean public class Flattening {\n"
+				+ "	private String code;\n"
+				+ "	@DynamoDbPartitionKey @DynamoDbFlatten public String getCode() { return code; }\n"
+				+ "	public void setCode(String code) { this.code = code; }\n"
+				+ "}\n";
+
+		// when
+		String output = compile("Flattening", source);
+
+		// then
+		assertTrue(output.contains("@DynamoDbFlatten is not supported"), output);
+		assertFalse(Files.exists(directory.resolve(PACKAGE.replace('.', '/')).resolve("Flattening" + TableSchemaProcessor.SCHEMA_SUFFIX + ".class")));
+	}
+
+	@Test
+	void testProcessFailsWithoutPublicNoArgConstructor() throws Exception {
+		// given
+		String source = IMPORTS
+				+ "@DynamoDbBean public class Immutable {\n"
+				+ "	private String code;\n"
+				+ "	public Immutable(String code) { this.code = code; }\n"
+				+ "	@DynamoDbPartitionKey public String getCode() { return code; }\n"
+				+ "	public void setCode(String code) { this.code = code; }\n"
+				+ "}\n";
+
+		// when
+		String output = compile("Immutable", source);
+
+		// then
+		assertTrue(output.contains("public no-arg constructor"), output);
+	}
+
+	@Test
+	void testDecapitalizeKeepsLeadingAcronyms() {
+		// given / when / then
+		assertEquals("code", TableSchemaProcessor.decapitalize("Code"));
+		assertEquals("numberOfReviews", TableSchemaProcessor.decapitalize("NumberOfReviews"));
+		assertEquals("SKU", TableSchemaProcessor.decapitalize("SKU"));
+		assertEquals("a", TableSchemaProcessor.decapitalize("A"));
+	}
+
+	/**
+	 * Compile the class with the processor into the temporary directory.
+	 *
+	 * @return compiler diagnostics.
+	 */
+	private String compile(String className, String source) throws IOException {
+		Path file = directory.resolve(className + ".java");
+		Files.writeString(file, "package " + PACKAGE + ";\n" + source);
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StringWriter output = new StringWriter();
+		try(StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+			Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(file.toFile());
+			List<String> options = List.of("-classpath", System.getProperty("java.class.path"), "-d", directory.toString());
+			JavaCompiler.CompilationTask task = compiler.getTask(output, fileManager, null, options, null, units);
+			task.setProcessors(List.of(new TableSchemaProcessor()));
+			task.call();
+		}
+		return output.toString().trim();
+	}
+}
@@ -0,0 +1,38 @@
+package com.lucaspetrini.consult;
+
+import java.util.Collections;
+
+import com.lucaspetrini.consult.handler.ConsultReviewsGetRequestHandler;
+import com.lucaspetrini.consult.mapper.CodecObjectMapper;
+import com.lucaspetrini.consult.request.GetReviewsRequest;
+import com.lucaspetrini.consult.request.GetReviewsRequestJsonCodec;
+import com.lucaspetrini.consult.response.GetReviewsResponseJsonCodec;
+import com.lucaspetrini.consult.service.NoOpUserRatingService;
+import com.lucaspetrini.consult.service.UserRatingService;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+
+/**
+ * Handler for review listing requests to Lambda function.
+ */
+public class ReviewsHandler extends AbstractRequestHandler {
+	static final String PRIMING_CODE = "priming";
+
+	public ReviewsHandler() {
+		this(UserRatingHandler.createUserRatingService());
+		initLifecycle(new ReviewsHandler(new NoOpUserRatingService()));
+	}
+
+	/**
+	 * Handler for review listing requests to Lambda function, backed by the given service.
+	 *
+	 * @param userRatingService user rating service.
+	 */
+	public ReviewsHandler(UserRatingService userRatingService) {
+		super();
+		setObjectMapper(new CodecObjectMapper()
+				.withCodec(GetReviewsRequestJsonCodec.INSTANCE)
+				.withCodec(GetReviewsResponseJsonCodec.INSTANCE));
+		addRequestHandlerMap(HttpMethod.GET, new ConsultReviewsGetRequestHandler(userRatingService), GetReviewsRequest.class);
+		addPrimingRequest(createPrimingRequest(HttpMethod.GET, Collections.singletonMap(ConsultConstants.PATH_PARAM_CODE, PRIMING_CODE), null));
+	}
+}
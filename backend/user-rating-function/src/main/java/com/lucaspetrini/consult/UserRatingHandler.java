@@ -1,24 +1,81 @@
 package com.lucaspetrini.consult;
 
+import java.util.Map;
+
 import com.lucaspetrini.consult.auth.PathParamAuthenticationService;
 import com.lucaspetrini.consult.handler.ConsultUserRatingGetRequestHandler;
 import com.lucaspetrini.consult.handler.ConsultUserRatingPutRequestHandler;
+import com.lucaspetrini.consult.mapper.CodecObjectMapper;
 import com.lucaspetrini.consult.request.GetUserRatingRequest;
+import com.lucaspetrini.consult.request.GetUserRatingRequestJsonCodec;
 import com.lucaspetrini.consult.request.PutUserRatingRequest;
+import com.lucaspetrini.consult.request.PutUserRatingRequestJsonCodec;
+import com.lucaspetrini.consult.response.GetUserRatingResponseJsonCodec;
+import com.lucaspetrini.consult.response.PutUserRatingResponseJsonCodec;
+import com.lucaspetrini.consult.service.ConfiguredShardCountResolver;
 import com.lucaspetrini.consult.service.DynamoDbUserRatingService;
+import com.lucaspetrini.consult.service.NoOpUserRatingService;
+import com.lucaspetrini.consult.service.RatingWriteMode;
+import com.lucaspetrini.consult.service.TransactionRetryPolicy;
+import com.lucaspetrini.consult.service.UserRatingHistoryPolicy;
+import com.lucaspetrini.consult.service.UserRatingService;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+import com.lucaspetrini.consult.utils.EnvironmentUtils;
 
 /**
  * Handler for requests to Lambda function.
  */
 public class UserRatingHandler extends AbstractRequestHandler {
+	static final String PRIMING_USER = "priming";
+	static final String PRIMING_CODE = "priming";
+	static final String PRIMING_PUT_BODY = "{\"rating\":5,\"review\":\"priming\"}";
 
 	public UserRatingHandler() {
+		this(createUserRatingService());
+		initLifecycle(new UserRatingHandler(new NoOpUserRatingService()));
+	}
+
+	/**
+	 * Handler for requests to Lambda function, backed by the given service.
+	 *
+	 * @param userRatingService user rating service.
+	 */
+	public UserRatingHandler(UserRatingService userRatingService) {
 		super();
-		DynamoDbUserRatingService userRatingService = new DynamoDbUserRatingService();
+		setObjectMapper(new CodecObjectMapper()
+				.withCodec(GetUserRatingRequestJsonCodec.INSTANCE)
+				.withCodec(PutUserRatingRequestJsonCodec.INSTANCE)
+				.withCodec(GetUserRatingResponseJsonCodec.INSTANCE)
+				.withCodec(PutUserRatingResponseJsonCodec.INSTANCE));
 		// public GET
 		addRequestHandlerMap(HttpMethod.GET, new ConsultUserRatingGetRequestHandler(userRatingService), GetUserRatingRequest.class);
 		// public secured via path param (user must match JWT username)
 		addRequestHandlerMap(HttpMethod.PUT, new ConsultUserRatingPutRequestHandler(userRatingService), PutUserRatingRequest.class, new PathParamAuthenticationService());
+		Map<String, String> primingPathParams = Map.of(ConsultConstants.PATH_PARAM_USER_ID, PRIMING_USER, ConsultConstants.PATH_PARAM_CODE, PRIMING_CODE);
+		addPrimingRequest(createPrimingRequest(HttpMethod.GET, primingPathParams, null));
+		addPrimingRequest(createPrimingRequest(HttpMethod.PUT, primingPathParams, PRIMING_PUT_BODY));
+	}
+
+	/**
+	 * Create the user rating service configured by the environment.
+	 *
+	 * @return user rating service backed by DynamoDB.
+	 */
+	public static UserRatingService createUserRatingService() {
+		return new DynamoDbUserRatingService()
+				.withConcurrentPreReads(EnvironmentUtils.getBoolean(ConsultConstants.ENV_USER_RATING_CONCURRENT_PRE_READS, true))
+				.withPreReadTimeout(EnvironmentUtils.getLong(ConsultConstants.ENV_USER_RATING_PRE_READ_TIMEOUT_MILLIS,
+						DynamoDbUserRatingService.DEFAULT_PRE_READ_TIMEOUT_MILLIS))
+				.withShardCountResolver(ConfiguredShardCountResolver.fromEnvironment())
+				.withWriteMode(RatingWriteMode.valueOf(EnvironmentUtils.getString(ConsultConstants.ENV_USER_RATING_WRITE_MODE,
+						RatingWriteMode.VERSIONED.name())))
+				.withRatingHistoryTable(EnvironmentUtils.getString(ConsultConstants.ENV_RATING_HISTORY_TABLE, null))
+				.withUserRatingArchiveTable(EnvironmentUtils.getString(ConsultConstants.ENV_USER_RATING_ARCHIVE_TABLE, null))
+				.withHistoryPolicy(UserRatingHistoryPolicy.fromEnvironment())
+				.withRetryPolicy(new TransactionRetryPolicy(
+						EnvironmentUtils.getInt(ConsultConstants.ENV_USER_RATING_RETRY_MAX_ATTEMPTS, TransactionRetryPolicy.DEFAULT_MAX_ATTEMPTS),
+						EnvironmentUtils.getLong(ConsultConstants.ENV_USER_RATING_RETRY_BUDGET_MILLIS, TransactionRetryPolicy.DEFAULT_BUDGET_MILLIS),
+						TransactionRetryPolicy.DEFAULT_BASE_DELAY_MILLIS, TransactionRetryPolicy.DEFAULT_MAX_DELAY_MILLIS));
 	}
 
 }
@@ -0,0 +1,96 @@
+package com.lucaspetrini.consult.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.lucaspetrini.consult.exception.InvalidParameterException;
+import com.lucaspetrini.consult.request.GetReviewsRequest;
+import com.lucaspetrini.consult.request.HttpRequest;
+import com.lucaspetrini.consult.response.GetReviewsResponse;
+import com.lucaspetrini.consult.response.GetUserRatingResponse;
+import com.lucaspetrini.consult.response.HttpResponse;
+import com.lucaspetrini.consult.service.UserRatingService;
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.service.model.UserRatingPage;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+
+/**
+ * Implementation of {@link ConsultRequestHandler} that returns a page of the reviews of a code, its
+ * current user ratings, delegating to an underlying {@link UserRatingService}.<br>
+ * Pages hold up to {@link ConsultConstants#QUERY_PARAM_LIMIT} reviews, {@link #DEFAULT_LIMIT} by default
+ * and {@link #MAX_LIMIT} at most. Each page but the last one carries an opaque cursor, passed as
+ * {@link ConsultConstants#QUERY_PARAM_CURSOR} to get the next one.
+ */
+public class ConsultReviewsGetRequestHandler implements ConsultRequestHandler<GetReviewsRequest, GetReviewsResponse> {
+	public static final int DEFAULT_LIMIT = 20;
+	public static final int MAX_LIMIT = 100;
+
+	private UserRatingService userRatingService;
+
+	/**
+	 * Implementation of {@link ConsultRequestHandler} that returns a page of the reviews of a code.
+	 */
+	public ConsultReviewsGetRequestHandler() {}
+
+	/**
+	 * Implementation of {@link ConsultRequestHandler} that returns a page of the reviews of a code.
+	 *
+	 * @param userRatingService user rating service.
+	 */
+	public ConsultReviewsGetRequestHandler(UserRatingService userRatingService) {
+		setUserRatingService(userRatingService);
+	}
+
+	private int parseLimit(Map<String, String> queryParams) {
+		String param = queryParams == null ? null : queryParams.get(ConsultConstants.QUERY_PARAM_LIMIT);
+		if(param == null || param.isBlank())
+			return DEFAULT_LIMIT;
+		int limit;
+		try {
+			limit = Integer.parseInt(param.trim());
+		} catch (NumberFormatException e) {
+			limit = 0;
+		}
+		if(limit < 1 || limit > MAX_LIMIT) {
+			throw new InvalidParameterException("Parameter " + ConsultConstants.QUERY_PARAM_LIMIT
+					+ " must be between 1 and " + MAX_LIMIT + ".");
+		}
+		return limit;
+	}
+
+	private GetUserRatingResponse covertToGetResponseBody(UserRating entity) {
+		GetUserRatingResponse body = new GetUserRatingResponse();
+		body.setCode(entity.getSku());
+		body.setUser(entity.getUser());
+		body.setRating(entity.getRating());
+		body.setDate(entity.getDate());
+		body.setReview(entity.getReview());
+		body.setVersion(entity.getVersion());
+		return body;
+	}
+
+	public void setUserRatingService(UserRatingService userRatingService) {
+		this.userRatingService = userRatingService;
+	}
+
+	@Override
+	public HttpResponse<GetReviewsResponse> handle(HttpRequest<GetReviewsRequest> request) {
+		String code = request.getPathParams().get(ConsultConstants.PATH_PARAM_CODE);
+		Map<String, String> queryParams = request.getQueryParams();
+		int limit = parseLimit(queryParams);
+		String cursor = queryParams == null ? null : queryParams.get(ConsultConstants.QUERY_PARAM_CURSOR);
+		UserRatingPage page = userRatingService.getReviewsByCode(code, limit, cursor == null || cursor.isBlank() ? null : cursor.trim());
+		List<GetUserRatingResponse> reviews = new ArrayList<>(page.getUserRatings().size());
+		for(UserRating entity : page.getUserRatings())
+			reviews.add(covertToGetResponseBody(entity));
+		GetReviewsResponse responseBody = new GetReviewsResponse();
+		responseBody.setReviews(reviews);
+		responseBody.setCursor(page.getCursor());
+		HttpResponse<GetReviewsResponse> response = new HttpResponse<>();
+		response.setBody(responseBody);
+		response.setStatusCode(200);
+		return response;
+	}
+
+}
@@ -10,14 +10,21 @@ import com.lucaspetrini.consult.response.HttpResponse;
 import com.lucaspetrini.consult.service.UserRatingService;
 import com.lucaspetrini.consult.service.model.UserRating;
 import com.lucaspetrini.consult.utils.ConsultConstants;
+import com.lucaspetrini.consult.utils.EntityTags;
+import com.lucaspetrini.consult.utils.EnvironmentUtils;
 
 /**
  * Default implementation of {@link ConsultRequestHandler} that delegates requests to an underlying
- * {@link UserRatingService}.
+ * {@link UserRatingService}.<br>
+ * Responses carry an ETag built from the code and version of the user rating. Requests whose
+ * If-None-Match header still matches it are answered with a 304, checked against the version alone.
  */
 public class ConsultUserRatingGetRequestHandler implements ConsultRequestHandler<GetUserRatingRequest, GetUserRatingResponse> {
+	/** Users expect to see their own update straight away, so caches must revalidate every time. */
+	public static final String DEFAULT_CACHE_CONTROL = "public, no-cache";
 
 	private UserRatingService userRatingService;
+	private String cacheControl = EnvironmentUtils.getString(ConsultConstants.ENV_USER_RATING_CACHE_CONTROL, DEFAULT_CACHE_CONTROL);
 
 	/**
 	 * Default implementation of {@link ConsultRequestHandler} that delegates requests to an underlying
@@ -48,16 +55,37 @@ public class ConsultUserRatingGetRequestHandler implements ConsultRequestHandler
 		this.userRatingService = userRatingService;
 	}
 
+	/**
+	 * @param cacheControl Cache-Control header of responses, or null to leave it out.
+	 */
+	public void setCacheControl(String cacheControl) {
+		this.cacheControl = cacheControl;
+	}
+
 	@Override
 	public HttpResponse<GetUserRatingResponse> handle(HttpRequest<GetUserRatingRequest> request) {
 		Map<String, String> pathParams = request.getPathParams();
-		UserRating entity = userRatingService.getByUserIdAndCode(pathParams.get(ConsultConstants.PATH_PARAM_USER_ID), pathParams.get(ConsultConstants.PATH_PARAM_CODE));
+		String userId = pathParams.get(ConsultConstants.PATH_PARAM_USER_ID);
+		String code = pathParams.get(ConsultConstants.PATH_PARAM_CODE);
+		String ifNoneMatch = request.getHeader(ConsultConstants.HEADER_IF_NONE_MATCH);
+		if(ifNoneMatch != null) {
+			Long version = userRatingService.getVersionByUserIdAndCode(userId, code);
+			if(version == null) {
+				throw new ResourceNotFoundException();
+			}
+			String entityTag = EntityTags.of(code, version);
+			if(EntityTags.matches(ifNoneMatch, entityTag)) {
+				return HttpResponse.notModified(entityTag, cacheControl);
+			}
+		}
+		UserRating entity = userRatingService.getByUserIdAndCode(userId, code);
 		if(entity == null) {
 			throw new ResourceNotFoundException();
 		}
 		HttpResponse<GetUserRatingResponse> response = new HttpResponse<>();
 		GetUserRatingResponse responseBody = covertToGetResponseBody(entity);
 		response.setBody(responseBody);
+		response.setValidators(EntityTags.of(entity.getSku(), entity.getVersion()), cacheControl);
 		response.setStatusCode(200);
 		return response;
 	}
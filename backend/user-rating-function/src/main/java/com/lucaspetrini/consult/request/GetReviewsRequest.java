@@ -0,0 +1,11 @@
+package com.lucaspetrini.consult.request;
+
+import com.lucaspetrini.consult.mapper.GenerateJsonCodec;
+
+/**
+ * GET request body for a reviews request. The page size and cursor are passed as query parameters.
+ */
+@GenerateJsonCodec
+public class GetReviewsRequest {
+
+}
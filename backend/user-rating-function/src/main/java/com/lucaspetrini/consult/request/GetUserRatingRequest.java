@@ -1,8 +1,11 @@
 package com.lucaspetrini.consult.request;
 
+import com.lucaspetrini.consult.mapper.GenerateJsonCodec;
+
 /**
  * GET request body for a user rating request.
  */
+@GenerateJsonCodec
 public class GetUserRatingRequest {
 
 }
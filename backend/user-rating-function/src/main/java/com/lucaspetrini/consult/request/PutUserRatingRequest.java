@@ -1,8 +1,11 @@
 package com.lucaspetrini.consult.request;
 
+import com.lucaspetrini.consult.mapper.GenerateJsonCodec;
+
 /**
  * PUT request body for a user rating request.
  */
+@GenerateJsonCodec
 public class PutUserRatingRequest {
 
 	private Long rating;
@@ -0,0 +1,33 @@
+package com.lucaspetrini.consult.response;
+
+import java.util.List;
+
+import com.lucaspetrini.consult.mapper.GenerateJsonCodec;
+
+/**
+ * GET response body for a reviews request: a page of the current user ratings of a code.
+ */
+@GenerateJsonCodec
+public class GetReviewsResponse {
+	private List<GetUserRatingResponse> reviews;
+	private String cursor;
+
+	public List<GetUserRatingResponse> getReviews() {
+		return reviews;
+	}
+
+	public void setReviews(List<GetUserRatingResponse> reviews) {
+		this.reviews = reviews;
+	}
+
+	/**
+	 * @return cursor of the next page, or null if this is the last one.
+	 */
+	public String getCursor() {
+		return cursor;
+	}
+
+	public void setCursor(String cursor) {
+		this.cursor = cursor;
+	}
+}
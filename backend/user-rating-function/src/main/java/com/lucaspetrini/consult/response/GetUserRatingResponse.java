@@ -1,8 +1,11 @@
 package com.lucaspetrini.consult.response;
 
+import com.lucaspetrini.consult.mapper.GenerateJsonCodec;
+
 /**
  * GET response body for a user rating request.
  */
+@GenerateJsonCodec
 public class GetUserRatingResponse {
 
 	private String code;
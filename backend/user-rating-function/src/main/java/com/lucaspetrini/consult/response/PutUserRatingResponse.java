@@ -1,8 +1,11 @@
 package com.lucaspetrini.consult.response;
 
+import com.lucaspetrini.consult.mapper.GenerateJsonCodec;
+
 /**
  * PUT response body for a user rating request.
  */
+@GenerateJsonCodec
 public class PutUserRatingResponse {
 	private String code;
 	private String user;
@@ -34,6 +34,7 @@ import com.lucaspetrini.consult.request.HttpRequest;
 import com.lucaspetrini.consult.request.PutUserRatingRequest;
 import com.lucaspetrini.consult.response.GetUserRatingResponse;
 import com.lucaspetrini.consult.response.HttpResponse;
+import com.lucaspetrini.consult.service.NoOpUserRatingService;
 import com.lucaspetrini.consult.response.PutUserRatingResponse;
 import com.lucaspetrini.consult.utils.ConsultConstants;
 
@@ -492,6 +493,18 @@ public class UserRatingHandlerTest {
 		assertEquals(400, (int)response.getStatusCode());
 	}
 
+	@Test
+	public void testEveryPrimingRequestSucceedsAgainstNoOpService() {
+		// given
+		UserRatingHandler primingHandler = new UserRatingHandler(new NoOpUserRatingService());
+
+		// when
+		int primed = primingHandler.prime();
+
+		// then
+		assertEquals(2, primed);
+	}
+
 	private APIGatewayV2HTTPEvent createInput(String method, Map<String, String> headers, String body) {
 		return createInput(method, headers, body, null);
 	}
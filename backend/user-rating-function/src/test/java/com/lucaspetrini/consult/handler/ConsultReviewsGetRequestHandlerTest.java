@@ -0,0 +1,163 @@
+package com.lucaspetrini.consult.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.lucaspetrini.consult.exception.InvalidParameterException;
+import com.lucaspetrini.consult.request.GetReviewsRequest;
+import com.lucaspetrini.consult.request.HttpRequest;
+import com.lucaspetrini.consult.response.GetReviewsResponse;
+import com.lucaspetrini.consult.response.GetUserRatingResponse;
+import com.lucaspetrini.consult.response.HttpResponse;
+import com.lucaspetrini.consult.service.UserRatingService;
+import com.lucaspetrini.consult.service.model.UserRating;
+import com.lucaspetrini.consult.service.model.UserRatingPage;
+import com.lucaspetrini.consult.utils.ConsultConstants;
+
+/**
+ * Test {@link ConsultReviewsGetRequestHandler}.
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+public class ConsultReviewsGetRequestHandlerTest {
+
+	private static final String USER_ID_VALUE = "123";
+	private static final String CODE_VALUE = "567";
+	private static final UserRating USER_RATING;
+	private static final Long RATING = 9L;
+	private static final Long DATE = 5513564L;
+	private static final String REVIEW = "Good value but it lacks potatoes";
+	private static final Long VERSION = 3L;
+	private static final String CURSOR = "MTIz";
+
+	static {
+		USER_RATING = new UserRating();
+		USER_RATING.setSku(CODE_VALUE);
+		USER_RATING.setUser(USER_ID_VALUE);
+		USER_RATING.setRating(RATING);
+		USER_RATING.setDate(DATE);
+		USER_RATING.setReview(REVIEW);
+		USER_RATING.setVersion(VERSION);
+	}
+
+	private ConsultReviewsGetRequestHandler handler;
+	private @Mock UserRatingService service;
+
+	@BeforeEach
+	public void setUp() {
+		handler = new ConsultReviewsGetRequestHandler();
+		handler.setUserRatingService(service);
+	}
+
+	@Test
+	public void testGetReviewsCallsUserRatingServiceWithDefaultLimit_WhenLimitIsNotProvided() {
+		// given
+		HttpRequest<GetReviewsRequest> request = createRequest(null, null);
+		doReturn(new UserRatingPage(Collections.emptyList(), null)).when(service).getReviewsByCode(CODE_VALUE,
+				ConsultReviewsGetRequestHandler.DEFAULT_LIMIT, null);
+
+		// when
+		handler.handle(request);
+
+		// then
+		verify(service).getReviewsByCode(CODE_VALUE, ConsultReviewsGetRequestHandler.DEFAULT_LIMIT, null);
+	}
+
+	@Test
+	public void testGetReviewsCallsUserRatingServiceWithLimitAndCursor_WhenProvided() {
+		// given
+		HttpRequest<GetReviewsRequest> request = createRequest("5", CURSOR);
+		doReturn(new UserRatingPage(Collections.emptyList(), null)).when(service).getReviewsByCode(CODE_VALUE, 5,
+				CURSOR);
+
+		// when
+		handler.handle(request);
+
+		// then
+		verify(service).getReviewsByCode(CODE_VALUE, 5, CURSOR);
+	}
+
+	@Test
+	public void testGetReviewsWithInvalidLimitThrowsInvalidParameterException() {
+		for(String limit : new String[] { "0", "-1", "101", "ten" }) {
+			// given
+			HttpRequest<GetReviewsRequest> request = createRequest(limit, null);
+
+			// then
+			assertThrows(InvalidParameterException.class, () -> {
+				// when
+				handler.handle(request);
+			}, limit);
+		}
+		verifyNoInteractions(service);
+	}
+
+	@Test
+	public void testGetReviewsResponseReturnedMatchesPageReturnedByUserRatingService() {
+		// given
+		HttpRequest<GetReviewsRequest> request = createRequest(null, null);
+		doReturn(new UserRatingPage(List.of(USER_RATING), CURSOR)).when(service).getReviewsByCode(any(), anyInt(),
+				any());
+
+		// when
+		HttpResponse<GetReviewsResponse> response = handler.handle(request);
+
+		// then
+		assertEquals(200, response.getStatusCode());
+		assertEquals(CURSOR, response.getBody().getCursor());
+		assertEquals(1, response.getBody().getReviews().size());
+		GetUserRatingResponse review = response.getBody().getReviews().get(0);
+		assertEquals(CODE_VALUE, review.getCode());
+		assertEquals(USER_ID_VALUE, review.getUser());
+		assertEquals(RATING, review.getRating());
+		assertEquals(DATE, review.getDate());
+		assertEquals(REVIEW, review.getReview());
+		assertEquals(VERSION, review.getVersion());
+	}
+
+	@Test
+	public void testGetReviewsResponseHasNoCursorOnLastPage() {
+		// given
+		HttpRequest<GetReviewsRequest> request = createRequest(null, " ");
+		doReturn(new UserRatingPage(Collections.emptyList(), null)).when(service).getReviewsByCode(CODE_VALUE,
+				ConsultReviewsGetRequestHandler.DEFAULT_LIMIT, null);
+
+		// when
+		HttpResponse<GetReviewsResponse> response = handler.handle(request);
+
+		// then
+		assertNull(response.getBody().getCursor());
+		assertEquals(0, response.getBody().getReviews().size());
+	}
+
+	private HttpRequest<GetReviewsRequest> createRequest(String limit, String cursor) {
+		HttpRequest<GetReviewsRequest> request = new HttpRequest<>();
+		Map<String, String> pathParams = new HashMap<>();
+		pathParams.put(ConsultConstants.PATH_PARAM_CODE, CODE_VALUE);
+		request.setPathParams(pathParams);
+		Map<String, String> queryParams = new HashMap<>();
+		if(limit != null)
+			queryParams.put(ConsultConstants.QUERY_PARAM_LIMIT, limit);
+		if(cursor != null)
+			queryParams.put(ConsultConstants.QUERY_PARAM_CURSOR, cursor);
+		request.setQueryParams(queryParams);
+		return request;
+	}
+}
@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import java.util.Collections;
@@ -46,6 +47,7 @@ public class ConsultUserRatingGetRequestHandlerTest {
 	private static final Long DATE = 5513564L;
 	private static final String REVIEW = "Good value but it lacks potatoes";
 	private static final Long VERSION = 3L;
+	private static final String ENTITY_TAG = "\"567-3\"";
 
 	static {
 		USER_RATING = new UserRating();
@@ -147,7 +149,7 @@ public class ConsultUserRatingGetRequestHandlerTest {
 	}
 
 	@Test
-	public void testGetResponseReturnsNoCustomHeadersWhenEntityIsFound() {
+	public void testGetResponseReturnsEntityTagAndCacheControlWhenEntityIsFound() {
 		// given
 		HttpRequest<GetUserRatingRequest> request = new HttpRequest<>();
 		request.setPathParams(Collections.emptyMap());
@@ -157,7 +159,40 @@ public class ConsultUserRatingGetRequestHandlerTest {
 		HttpResponse<GetUserRatingResponse> response = handler.handle(request);
 
 		// then
-		assertNull(response.getHeaders());
+		assertEquals(ENTITY_TAG, response.getHeaders().get(ConsultConstants.HEADER_ETAG));
+		assertEquals(ConsultUserRatingGetRequestHandler.DEFAULT_CACHE_CONTROL, response.getHeaders().get(ConsultConstants.HEADER_CACHE_CONTROL));
+	}
+
+	@Test
+	public void testGetResponseReturns304WithoutReadingEntityWhenEntityTagMatches() {
+		// given
+		HttpRequest<GetUserRatingRequest> request = createConditionalRequest(ENTITY_TAG);
+		doReturn(VERSION).when(service).getVersionByUserIdAndCode(USER_ID_VALUE, CODE_VALUE);
+
+		// when
+		HttpResponse<GetUserRatingResponse> response = handler.handle(request);
+
+		// then
+		verify(service, never()).getByUserIdAndCode(any(), any());
+		assertEquals(304, response.getStatusCode());
+		assertNull(response.getBody());
+		assertEquals(ENTITY_TAG, response.getHeaders().get(ConsultConstants.HEADER_ETAG));
+	}
+
+	@Test
+	public void testGetResponseReturns200WhenEntityTagDoesNotMatch() {
+		// given
+		HttpRequest<GetUserRatingRequest> request = createConditionalRequest("\"" + CODE_VALUE + "-2\"");
+		doReturn(VERSION).when(service).getVersionByUserIdAndCode(USER_ID_VALUE, CODE_VALUE);
+		doReturn(USER_RATING).when(service).getByUserIdAndCode(USER_ID_VALUE, CODE_VALUE);
+
+		// when
+		HttpResponse<GetUserRatingResponse> response = handler.handle(request);
+
+		// then
+		assertEquals(200, response.getStatusCode());
+		assertEquals(REVIEW, response.getBody().getReview());
+		assertEquals(ENTITY_TAG, response.getHeaders().get(ConsultConstants.HEADER_ETAG));
 	}
 
 	@Test
@@ -173,4 +208,12 @@ public class ConsultUserRatingGetRequestHandlerTest {
 			handler.handle(request);
 		});
 	}
+
+	private HttpRequest<GetUserRatingRequest> createConditionalRequest(String ifNoneMatch) {
+		HttpRequest<GetUserRatingRequest> request = new HttpRequest<>();
+		request.setPathParams(Map.of(ConsultConstants.PATH_PARAM_USER_ID, USER_ID_VALUE, ConsultConstants.PATH_PARAM_CODE, CODE_VALUE));
+		// header names may reach the handler in any case
+		request.setHeaders(Collections.singletonMap("If-None-Match", ifNoneMatch));
+		return request;
+	}
 }
@@ -0,0 +1,69 @@
+package com.lucaspetrini.consult.request;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonParseException;
+import com.lucaspetrini.consult.mapper.CodecObjectMapper;
+import com.lucaspetrini.consult.mapper.JsonObjectMapper;
+import com.lucaspetrini.consult.response.PutUserRatingResponse;
+import com.lucaspetrini.consult.response.PutUserRatingResponseJsonCodec;
+
+/**
+ * Test the {@link com.lucaspetrini.consult.mapper.JsonCodec codecs} generated for the user rating
+ * requests and responses behave like {@link JsonObjectMapper}.
+ */
+public class GeneratedJsonCodecTest {
+	private CodecObjectMapper mapper;
+	private JsonObjectMapper gson;
+
+	@BeforeEach
+	public void setUp() {
+		mapper = new CodecObjectMapper()
+				.withCodec(PutUserRatingRequestJsonCodec.INSTANCE)
+				.withCodec(PutUserRatingResponseJsonCodec.INSTANCE);
+		gson = new JsonObjectMapper();
+	}
+
+	@Test
+	public void testPutRequestIsDeserialisedLikeGson() {
+		// given
+		String body = "{\"review\":\"Very \\\"good\\\" \\u00e9\",\"rating\":\"4\",\"date\":9941}";
+
+		// when
+		PutUserRatingRequest request = mapper.deserialise(body, PutUserRatingRequest.class);
+
+		// then
+		PutUserRatingRequest expected = gson.deserialise(body, PutUserRatingRequest.class);
+		assertEquals(expected.getRating(), request.getRating());
+		assertEquals(expected.getReview(), request.getReview());
+	}
+
+	@Test
+	public void testMalformedPutRequestIsRejected() {
+		// given / when / then
+		assertThrows(JsonParseException.class, () -> mapper.deserialise("{\"rating\":\"four\"}", PutUserRatingRequest.class));
+		assertThrows(JsonParseException.class, () -> mapper.deserialise("{\"rating\":4", PutUserRatingRequest.class));
+	}
+
+	@Test
+	public void testPutResponseIsSerialisedLikeGson() {
+		// given
+		PutUserRatingResponse response = new PutUserRatingResponse();
+		response.setCode("1321123");
+		response.setUser("lucas");
+		response.setRating(4L);
+		response.setDate(1652140800000L);
+		response.setVersion(2L);
+		response.setReview("Line\nbreak & <tags>");
+
+		// when
+		String serialised = mapper.serialise(response);
+
+		// then
+		assertEquals(gson.serialise(response), serialised);
+	}
+}